@@ -0,0 +1,218 @@
+/**
+   Copyright (c) 2026, the SemanticVectors AUTHORS.
+
+   All rights reserved.
+
+   Redistribution and use in source and binary forms, with or without
+   modification, are permitted provided that the following conditions are
+   met:
+
+   * Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+   * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the following
+   disclaimer in the documentation and/or other materials provided
+   with the distribution.
+
+   * Neither the name of the University of Pittsburgh nor the names
+   of its contributors may be used to endorse or promote products
+   derived from this software without specific prior written
+   permission.
+
+   THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+   "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+   LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+   A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+   CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+   EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+   PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+   PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+   LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+   NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+   SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+**/
+
+package pitt.search.semanticvectors;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Enumeration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+import pitt.search.semanticvectors.vectors.Vector;
+
+/**
+ * Vector store that keeps recently looked up vectors from another store in a {@link VectorCache}
+ * of bounded size, so that repeated lookups of popular objects, such as common query terms, do not
+ * go back to disk. Vectors are evicted least recently used first, and counts of hits, misses and
+ * evictions are logged when the store is closed.
+ * <p>
+ * Calls other than {@link #getVector} are passed straight to the underlying store. Searches that
+ * enumerate all vectors should use the underlying store directly, so that {@link VectorSearcher}
+ * can use any faster scoring the store provides.
+ * <p>
+ * Each lookup returns a copy of the cached vector, since callers such as
+ * {@link CompoundVectorBuilder} change the vectors they look up in place.
+ */
+public class CachingVectorStore implements CloseableVectorStore {
+  private static final Logger logger = Logger.getLogger(CachingVectorStore.class.getCanonicalName());
+
+  /** Stores opened by {@link #openSharedVectorStore}, keyed by file, format and cache size. */
+  private static final ConcurrentHashMap<String, CachingVectorStore> sharedStores =
+      new ConcurrentHashMap<String, CachingVectorStore>();
+
+  private final CloseableVectorStore backingStore;
+  private final VectorCache cache;
+  private final boolean shared;
+  /** Length and modification time of a shared store's file when it was opened. */
+  private final long fileLength;
+  private final long fileLastModified;
+  /** Number of callers of {@link #openSharedVectorStore} that haven't closed a shared store yet. */
+  private int openCount;
+  /** Whether a shared store has been replaced, so that closing it by its last caller releases it. */
+  private boolean retired;
+
+  /**
+   * Constructs a store that caches up to an estimated {@code maxCacheBytes} of vectors from
+   * {@code backingStore}, and closes {@code backingStore} when it is closed.
+   */
+  public CachingVectorStore(CloseableVectorStore backingStore, long maxCacheBytes) {
+    this(backingStore, maxCacheBytes, false, 0, 0);
+  }
+
+  private CachingVectorStore(CloseableVectorStore backingStore, long maxCacheBytes, boolean shared,
+      long fileLength, long fileLastModified) {
+    this.backingStore = backingStore;
+    this.cache = new VectorCache(maxCacheBytes);
+    this.shared = shared;
+    this.fileLength = fileLength;
+    this.fileLastModified = fileLastModified;
+  }
+
+  /**
+   * Returns a caching store for the named vector store, with a cache of
+   * {@link FlagConfig#querycachemb()} megabytes, that is opened once and then shared by all
+   * callers in this JVM asking for the same store, so that the cache outlives any one search.
+   * If the store's file has changed length or modification time since it was opened, the file is
+   * opened again, and the old store is released once every caller using it has closed it.
+   * Closing a shared store otherwise keeps it open for later callers; use
+   * {@link #closeSharedVectorStores} to release them.
+   *
+   * @see VectorStoreReader#openVectorStore
+   */
+  public static CachingVectorStore openSharedVectorStore(String storeName, FlagConfig flagConfig)
+      throws IOException {
+    String key = VectorStoreUtils.getStoreFileName(storeName, flagConfig) + "|"
+        + flagConfig.indexfileformat() + "|" + flagConfig.querycachemb();
+    File storeFile = getStoreFile(storeName, flagConfig);
+    synchronized (sharedStores) {
+      CachingVectorStore store = sharedStores.get(key);
+      if (store != null && (store.fileLength != storeFile.length()
+          || store.fileLastModified != storeFile.lastModified())) {
+        sharedStores.remove(key);
+        store.retire();
+        store = null;
+      }
+      if (store == null) {
+        // Read the file's version before opening it, so that a change while opening is seen later.
+        long fileLength = storeFile.length();
+        long fileLastModified = storeFile.lastModified();
+        store = new CachingVectorStore(VectorStoreReader.openVectorStore(storeName, flagConfig),
+            flagConfig.querycachemb() * 1024L * 1024L, true, fileLength, fileLastModified);
+        sharedStores.put(key, store);
+      }
+      ++store.openCount;
+      return store;
+    }
+  }
+
+  /**
+   * Returns the file that {@link VectorStoreReader#openVectorStore} reads the named store from,
+   * which is a manifest for segmented and sharded stores.
+   */
+  private static File getStoreFile(String storeName, FlagConfig flagConfig) {
+    if (VectorStoreSegmented.exists(storeName)) {
+      return new File(VectorStoreSegmented.getManifestFileName(storeName));
+    }
+    if (VectorStoreSharded.exists(storeName)) {
+      return new File(VectorStoreSharded.getManifestFileName(storeName));
+    }
+    return new File(VectorStoreUtils.getStoreFileName(storeName, flagConfig));
+  }
+
+  /**
+   * Releases all the stores returned by {@link #openSharedVectorStore}. Stores that callers are
+   * still using are closed when the last of them closes the store.
+   */
+  public static void closeSharedVectorStores() {
+    synchronized (sharedStores) {
+      for (CachingVectorStore store : sharedStores.values()) {
+        store.retire();
+      }
+      sharedStores.clear();
+    }
+  }
+
+  /** Stops sharing this store, closing it now if no caller is using it. Guarded by sharedStores. */
+  private void retire() {
+    retired = true;
+    if (openCount == 0) closeBackingStore();
+  }
+
+  /** Returns the store that this store reads vectors from. */
+  public CloseableVectorStore getBackingStore() {
+    return backingStore;
+  }
+
+  /** Returns the cache of vectors, e.g., to report its statistics. */
+  public VectorCache getVectorCache() {
+    return cache;
+  }
+
+  @Override
+  public Vector getVector(Object object) {
+    Vector vector = cache.get(object);
+    if (vector != null) return vector.copy();
+    vector = backingStore.getVector(object);
+    if (vector == null) return null;
+    return cache.putIfAbsent(object, vector).copy();
+  }
+
+  @Override
+  public Enumeration<ObjectVector> getAllVectors() {
+    return backingStore.getAllVectors();
+  }
+
+  @Override
+  public int getNumVectors() {
+    return backingStore.getNumVectors();
+  }
+
+  @Override
+  public boolean containsVector(Object object) {
+    return cache.containsKey(object) || backingStore.containsVector(object);
+  }
+
+  /**
+   * Logs the cache statistics and closes the underlying store. A shared store is only closed
+   * when it has been replaced or released and this is the last caller using it.
+   */
+  @Override
+  public void close() {
+    if (!shared) {
+      closeBackingStore();
+      return;
+    }
+    synchronized (sharedStores) {
+      --openCount;
+      if (retired && openCount == 0) closeBackingStore();
+    }
+  }
+
+  private void closeBackingStore() {
+    logger.info("Closing vector cache: " + cache.getStatistics());
+    backingStore.close();
+  }
+}
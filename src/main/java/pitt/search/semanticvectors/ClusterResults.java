@@ -75,6 +75,12 @@ public class ClusterResults {
     }
   }
 
+  /**
+   * Seed that callers may use for the random initial assignment in {@link #kMeansCluster}, so that
+   * clustering the same vectors gives the same clusters, e.g., when building an {@link IvfIndex}.
+   */
+  public static final long DEFAULT_KMEANS_SEED = 0;
+
   /** 
    * Simple k-means clustering algorithm.
    * 
@@ -83,10 +89,31 @@ public class ClusterResults {
    * cluster each vector belongs to.
    */
   public static Clusters kMeansCluster (ObjectVector[] objectVectors, FlagConfig flagConfig) {
+    return kMeansCluster(objectVectors, flagConfig.numclusters(), flagConfig);
+  }
+
+  /**
+   * Simple k-means clustering algorithm, with the number of clusters given explicitly
+   * instead of by {@link FlagConfig#numclusters}. The initial assignment is different in each
+   * call.
+   */
+  public static Clusters kMeansCluster (ObjectVector[] objectVectors, int numClusters, FlagConfig flagConfig) {
+    return kMeansCluster(objectVectors, numClusters, 0, new Random(), flagConfig);
+  }
+
+  /**
+   * Simple k-means clustering algorithm, with the number of clusters, the maximum number of
+   * assignment passes and the random number generator for the initial assignment given explicitly.
+   *
+   * @param maxIterations the most assignment passes to make, or 0 to keep going until no
+   *        assignment changes. Binary centroids break voting ties at random, so the assignments
+   *        of binary vectors may never settle.
+   */
+  public static Clusters kMeansCluster (ObjectVector[] objectVectors, int numClusters,
+      int maxIterations, Random rand, FlagConfig flagConfig) {
     Clusters clusters = new Clusters();
     clusters.clusterMappings = new int[objectVectors.length];
-    clusters.centroids = new Vector[flagConfig.numclusters()];
-    Random rand = new Random();
+    clusters.centroids = new Vector[numClusters];
 
     logger.info("Initializing clusters ...");
 
@@ -97,13 +124,17 @@ public class ClusterResults {
         //fix strange result where abs(MIN_VALUE) returns a negative number
         randInt = rand.nextInt();
       }
-      clusters.clusterMappings[i] = Math.abs(randInt) % flagConfig.numclusters();
+      clusters.clusterMappings[i] = Math.abs(randInt) % numClusters;
     }
 
     logger.info("Iterating k-means assignment ...");
 
     // Loop that computes centroids and reassigns members.
-    while (true) {
+    for (int iteration = 0; ; ++iteration) {
+      if (iteration == maxIterations) {
+        logger.info("Stopping k-means after " + maxIterations + " iterations without stable clusters.");
+        break;
+      }
       // Clear centroid register.
       for (int i = 0; i < clusters.centroids.length; ++i) {
         clusters.centroids[i] = VectorFactory.createZeroVector(flagConfig.vectortype(), flagConfig.dimension()); 
@@ -112,7 +143,7 @@ public class ClusterResults {
       for (int i = 0; i < objectVectors.length; ++i) {
         clusters.centroids[clusters.clusterMappings[i]].superpose(objectVectors[i].getVector(), 1, null);
       }
-      for (int i = 0; i < flagConfig.numclusters(); ++i) {
+      for (int i = 0; i < numClusters; ++i) {
         clusters.centroids[i].normalize();
       }
 
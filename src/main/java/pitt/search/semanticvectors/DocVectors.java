@@ -42,7 +42,6 @@ import org.apache.lucene.index.TermsEnum;
 
 import pitt.search.semanticvectors.utils.VerbatimLogger;
 import pitt.search.semanticvectors.vectors.Vector;
-import pitt.search.semanticvectors.vectors.VectorFactory;
 import pitt.search.semanticvectors.vectors.VectorType;
 
 import java.io.IOException;
@@ -82,7 +81,9 @@ public class DocVectors implements VectorStore {
 
   private static final Logger logger = Logger.getLogger(DocVectors.class.getCanonicalName());
   private FlagConfig flagConfig;
-  private VectorStoreRAM docVectors;
+  private VectorStoreSlab docVectors;
+  /** Id in {@link #docVectors} of the vector for each Lucene document. */
+  private int[] docVectorIds;
   private VectorStore termVectors;
   private LuceneUtils luceneUtils;
 
@@ -100,7 +101,7 @@ public class DocVectors implements VectorStore {
     this.flagConfig = flagConfig;
     this.luceneUtils = luceneUtils;
     this.termVectors = termVectors;
-    this.docVectors = new VectorStoreRAM(flagConfig);
+    this.docVectors = new VectorStoreSlab(flagConfig);
 
     initializeZeroDocVectors();
     trainDocVectors();
@@ -138,9 +139,7 @@ public class DocVectors implements VectorStore {
           if (docsEnum == null)  { continue; }
 
           while (docsEnum.nextDoc() != PostingsEnum.NO_MORE_DOCS) {
-            String externalDocID = luceneUtils.getExternalDocId(docsEnum.docID());
             // Add vector from this term, taking freq into account.
-            Vector docVector = this.docVectors.getVector(externalDocID);
             float localweight = docsEnum.freq();
 
             if (flagConfig.fieldweight()) {
@@ -153,7 +152,7 @@ public class DocVectors implements VectorStore {
               fieldweight = (float) (1/Math.sqrt(numTerms));
             }
 
-            docVector.superpose(
+            docVectors.superpose(docVectorIds[docsEnum.docID()],
                 termVector, localweight * globalweight * fieldweight, null);
           }
         }
@@ -165,9 +164,8 @@ public class DocVectors implements VectorStore {
 
     VerbatimLogger.info("\nNormalizing doc vectors ...\n");
     
-    Enumeration<ObjectVector> docEnum = docVectors.getAllVectors();
-    while (docEnum.hasMoreElements())
-    	docEnum.nextElement().getVector().normalize();
+    for (int id = 0; id < docVectors.getNumVectors(); ++id)
+    	docVectors.normalize(id);
   }
 
   /**
@@ -175,10 +173,10 @@ public class DocVectors implements VectorStore {
    */
   private void initializeZeroDocVectors() throws IOException {
     VerbatimLogger.info("Initializing new document vector store ... \n");
+    docVectorIds = new int[luceneUtils.getNumDocs()];
     for (int i = 0; i < luceneUtils.getNumDocs(); ++i) {
       String externalDocId = luceneUtils.getExternalDocId(i);
-      Vector docVector = VectorFactory.createZeroVector(flagConfig.vectortype(), flagConfig.dimension());
-      this.docVectors.putVector(externalDocId, docVector);
+      docVectorIds[i] = this.docVectors.getOrAddId(externalDocId);
     }
   }
 
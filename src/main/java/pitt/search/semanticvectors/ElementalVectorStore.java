@@ -54,7 +54,10 @@ public class ElementalVectorStore implements VectorStore{
     CONTENTHASH,
     /** Generate elemental vectors using the orthography of the string.
      * See {@link VectorStoreOrthographical} */
-    ORTHOGRAPHIC
+    ORTHOGRAPHIC,
+    /** Keep only a seed for each term, and regenerate its elemental vector on each access.
+     * See {@link VectorStoreSeeded}. */
+    SEEDED
   }
 
   private Random random;
@@ -72,10 +75,15 @@ public class ElementalVectorStore implements VectorStore{
       random = new Random();
       break;
     case CONTENTHASH:
-      backingStore = new VectorStoreDeterministic(flagConfig);
+      // Not bounded, since trained elemental vectors must not be evicted.
+      backingStore = new VectorStoreDeterministic(flagConfig, Long.MAX_VALUE);
       break;
     case ORTHOGRAPHIC:
-      backingStore = new VectorStoreOrthographical(flagConfig);
+      backingStore = new VectorStoreOrthographical(
+          flagConfig, new VectorStoreDeterministic(flagConfig), Long.MAX_VALUE);
+      break;
+    case SEEDED:
+      backingStore = new VectorStoreSeeded(flagConfig);
       break;
     }
   }
@@ -98,6 +106,7 @@ public class ElementalVectorStore implements VectorStore{
       return vector;
     case CONTENTHASH:
     case ORTHOGRAPHIC:
+    case SEEDED:
       return backingStore.getVector(term);
     default:
       throw new IllegalStateException(
@@ -105,6 +114,19 @@ public class ElementalVectorStore implements VectorStore{
     }
   }
 
+  /**
+   * Returns a vector for the given object as {@link #getVector(Object)} does. With
+   * {@link ElementalGenerationMethod#SEEDED} the vector is regenerated into {@code scratch}
+   * when it has the right type and dimension, and is only valid until {@code scratch} is
+   * next used; other methods ignore {@code scratch}.
+   */
+  public Vector getVector(Object term, Vector scratch) {
+    if (flagConfig.elementalmethod() == ElementalGenerationMethod.SEEDED) {
+      return ((VectorStoreSeeded) backingStore).getVector(term, scratch);
+    }
+    return getVector(term);
+  }
+
   @Override
   public Enumeration<ObjectVector> getAllVectors() {
     return backingStore.getAllVectors();
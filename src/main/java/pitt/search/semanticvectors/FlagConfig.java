@@ -41,8 +41,11 @@ import pitt.search.semanticvectors.DocVectors.DocIndexingStrategy;
 import pitt.search.semanticvectors.ElementalVectorStore.ElementalGenerationMethod;
 import pitt.search.semanticvectors.LuceneUtils.TermWeight;
 import pitt.search.semanticvectors.Search.SearchType;
+import pitt.search.semanticvectors.SearchIndexUtils.SearchIndexType;
 import pitt.search.semanticvectors.TermTermVectorsFromLucene.PositionalMethod;
 import pitt.search.semanticvectors.TermTermVectorsFromLucene.EncodingMethod;
+import pitt.search.semanticvectors.VectorStoreSharded.ShardPartitioning;
+import pitt.search.semanticvectors.VectorStoreUtils.VectorPrecision;
 import pitt.search.semanticvectors.VectorStoreUtils.VectorStoreFormat;
 import pitt.search.semanticvectors.utils.VerbatimLogger;
 import pitt.search.semanticvectors.vectors.RealVector;
@@ -112,6 +115,18 @@ public class FlagConfig {
   private ElementalGenerationMethod elementalmethod = ElementalGenerationMethod.CONTENTHASH;
   /** The method used for generating elemental vectors. */
   public ElementalGenerationMethod elementalmethod() { return elementalmethod; }
+
+  private int deterministiccachemb = 256;
+  /** Upper bound in megabytes on the vectors cached by {@link VectorStoreDeterministic} and
+   * {@link VectorStoreOrthographical} when they are used outside elemental vector generation,
+   * which caches without a bound because elemental vectors may be trained. */
+  public int deterministiccachemb() { return deterministiccachemb; }
+
+  private int querycachemb = 0;
+  /** Size in megabytes of the cache of query vectors that {@link Search} and {@link SearchBatch}
+   * keep in front of vector stores read from disk, see {@link CachingVectorStore}.
+   * Default 0 turns the cache off. */
+  public int querycachemb() { return querycachemb; }
   
   private double samplingthreshold = -1; //suggest 10^-3 to 10^-5
   /** 
@@ -215,6 +230,70 @@ public class FlagConfig {
   private int numsearchresults = 20;
   /** Number of search results to return, default value 20. */
   public int numsearchresults() { return numsearchresults; }
+
+  private int searchthreads = 1;
+  /**
+   * Number of threads used to score vectors in exhaustive searches, default value 1.
+   * Larger values split the search store into parts that are scored in parallel, on a pool
+   * shared by all searches with one thread per processor.
+   */
+  public int searchthreads() { return searchthreads; }
+
+  private int searchbatchsize = 64;
+  /**
+   * Number of queries from a batch file that are searched together in one pass
+   * over the search store, default value 64. See {@link SearchBatch}.
+   */
+  public int searchbatchsize() { return searchbatchsize; }
+
+  private SearchIndexType searchindex = SearchIndexType.NONE;
+  /**
+   * Index used to find candidate nearest neighbors without scoring the whole search store,
+   * default value NONE. The index is saved next to the search vector file and reused
+   * until that file changes. See {@link SearchIndexUtils}.
+   */
+  public SearchIndexType searchindex() { return searchindex; }
+
+  private int hnswm = 16;
+  /** Number of links per node in each level of an HNSW search index, default value 16. */
+  public int hnswm() { return hnswm; }
+
+  private int hnswefconstruction = 200;
+  /** Number of candidate neighbors considered when adding a node to an HNSW search index, default value 200. */
+  public int hnswefconstruction() { return hnswefconstruction; }
+
+  private int hnswefsearch = 64;
+  /**
+   * Number of candidates kept when searching an HNSW search index, default value 64.
+   * Larger values give better recall and slower searches.
+   */
+  public int hnswefsearch() { return hnswefsearch; }
+
+  private int ivfnumlists = 256;
+  /** Number of k-means clusters, each with a posting list, in an IVF search index, default value 256. */
+  public int ivfnumlists() { return ivfnumlists; }
+
+  private int ivfnprobe = 8;
+  /**
+   * Number of posting lists nearest to the query that are scanned when searching an IVF
+   * search index, default value 8. Larger values give better recall and slower searches.
+   */
+  public int ivfnprobe() { return ivfnprobe; }
+
+  private int mihsubstrings = 16;
+  /**
+   * Number of substrings each binary vector is split into for a multi-index hashing
+   * search index, default value 16.
+   */
+  public int mihsubstrings() { return mihsubstrings; }
+
+  private int mihradius = 32;
+  /**
+   * Largest Hamming distance from the query at which a multi-index hashing search index
+   * looks for candidates, default value 32. The number of lookups grows quickly with the
+   * number of bits each substring may differ by, which is this radius / mihsubstrings.
+   */
+  public int mihradius() { return mihradius; }
   
   private int treceval = -1;
   /** Output search results in trec_eval format, with query number = treceval**/
@@ -288,6 +367,50 @@ public class FlagConfig {
   /** Format used for serializing / deserializing vectors from disk, default lucene. */
   public VectorStoreFormat indexfileformat() { return indexfileformat; }
 
+  private int numshards = 1;
+  /**
+   * Number of shards that {@link VectorStoreWriter#writeVectors} splits vector stores into,
+   * default 1. Larger values write a {@link VectorStoreSharded} manifest and one file per shard,
+   * each in the -indexfileformat.
+   */
+  public int numshards() { return numshards; }
+
+  private ShardPartitioning shardpartitioning = ShardPartitioning.HASH;
+  /** How objects are assigned to shards when -numshards is more than 1, default hash. */
+  public ShardPartitioning shardpartitioning() { return shardpartitioning; }
+
+  private VectorPrecision vectorprecision = VectorPrecision.FLOAT32;
+  /**
+   * Precision used when writing vectors, default float32. Files written with float16 or bfloat16
+   * precision take half the space, and can hold real or complex vectors in lucene or mmap format.
+   * Real vectors in mmap format can also be written with int8 precision, taking a quarter of the
+   * space, or pq precision, taking {@link #pqsubspaces()} bytes per vector; both give approximate overlaps.
+   * Files are read with the precision given in their header.
+   */
+  public VectorPrecision vectorprecision() { return vectorprecision; }
+
+  private int pqsubspaces = 16;
+  /**
+   * Number of subspaces, and so bytes per vector, used when writing vectors with
+   * pq {@link #vectorprecision()}, default value 16.
+   */
+  public int pqsubspaces() { return pqsubspaces; }
+
+  private String rerankvectorfile = "";
+  /**
+   * Full precision store of the same vectors as the search vector file, used to re-rank the best
+   * {@link #numrerankcandidates()} results of searches of approximate vectors, such as
+   * vectors written with int8 {@link #vectorprecision()}. Default empty, for no re-ranking.
+   */
+  public String rerankvectorfile() { return rerankvectorfile; }
+
+  private int numrerankcandidates = 100;
+  /**
+   * Number of the best approximate results that are re-ranked using {@link #rerankvectorfile()},
+   * default value 100. At least {@link #numsearchresults()} results are always re-ranked.
+   */
+  public int numrerankcandidates() { return numrerankcandidates; }
+
   private String termvectorsfile = "termvectors";
   /** File to which termvectors are written during indexing. */
   public String termvectorsfile() { return termvectorsfile; }
@@ -295,6 +418,17 @@ public class FlagConfig {
   private String docvectorsfile = "docvectors";
   /** File to which docvectors are written during indexing. */
   public String docvectorsfile() { return docvectorsfile; }
+
+  private boolean segmenteddocvectors = false;
+  /** If true, {@link IncrementalDocVectors} keeps document vectors in a {@link VectorStoreSegmented},
+   * adding a segment for documents that are new to the store and deleting documents that are no longer
+   * in the index, instead of rewriting every document vector. Default value {@code false}. */
+  public boolean segmenteddocvectors() { return segmenteddocvectors; }
+
+  private int maxsegments = 10;
+  /** Number of segments above which a {@link VectorStoreSegmented} merges adjacent segments
+   * in the background. */
+  public int maxsegments() { return maxsegments; }
   
   private String termtermvectorsfile = "termtermvectors";
   /** File to which term-term vectors are written during positional indexing. */
@@ -0,0 +1,144 @@
+/**
+   Copyright (c) 2026, the SemanticVectors AUTHORS.
+
+   All rights reserved.
+
+   Redistribution and use in source and binary forms, with or without
+   modification, are permitted provided that the following conditions are
+   met:
+
+   * Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+   * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the following
+   disclaimer in the documentation and/or other materials provided
+   with the distribution.
+
+   * Neither the name of the University of Pittsburgh nor the names
+   of its contributors may be used to endorse or promote products
+   derived from this software without specific prior written
+   permission.
+
+   THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+   "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+   LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+   A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+   CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+   EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+   PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+   PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+   LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+   NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+   SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+**/
+
+package pitt.search.semanticvectors;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.apache.lucene.store.IndexOutput;
+
+import pitt.search.semanticvectors.VectorStoreUtils.VectorPrecision;
+import pitt.search.semanticvectors.vectors.RealVector;
+
+/**
+ * Stores real vectors with {@link VectorPrecision#FLOAT16} or {@link VectorPrecision#BFLOAT16}
+ * coordinates, as written by {@link HalfFloats#writeVector}. The scorer widens each coordinate
+ * as it reads it, so records are never decoded into vectors during a search.
+ */
+public class HalfFloatCodec implements RealVectorCodec {
+  private final VectorPrecision precision;
+  private final int dimension;
+
+  public HalfFloatCodec(VectorPrecision precision, int dimension) {
+    if (!HalfFloats.isHalfPrecision(precision)) {
+      throw new IllegalArgumentException("Not a 16 bit precision: " + precision);
+    }
+    this.precision = precision;
+    this.dimension = dimension;
+  }
+
+  /** Each record is two bytes per coordinate. */
+  @Override
+  public int getRecordBytes() {
+    return 2 * dimension;
+  }
+
+  /** There are no parameters beyond the precision, which is given in the header. */
+  @Override
+  public void writeToIndexOutput(IndexOutput outputStream) {}
+
+  @Override
+  public void writeRecord(RealVector vector, IndexOutput outputStream) throws IOException {
+    HalfFloats.writeVector(vector, precision, outputStream);
+  }
+
+  @Override
+  public RealVector readRecord(ByteBuffer buffer, int position) {
+    float[] coordinates = new float[dimension];
+    for (int i = 0; i < dimension; ++i) {
+      coordinates[i] = HalfFloats.toFloat(buffer.getShort(position + 2 * i), precision);
+    }
+    return new RealVector(coordinates);
+  }
+
+  @Override
+  public RecordScorer getScorer(float[] query) {
+    return (precision == VectorPrecision.BFLOAT16) ? new BFloat16Scorer(query) : new Float16Scorer(query);
+  }
+
+  private abstract class Scorer implements RecordScorer {
+    protected final float[] query;
+    private final double queryNormSq;
+
+    Scorer(float[] query) {
+      this.query = query;
+      double normSq = 0;
+      for (float coordinate : query) normSq += coordinate * coordinate;
+      this.queryNormSq = normSq;
+    }
+
+    protected double cosine(double overlap, double normSq) {
+      if (queryNormSq == 0 || normSq == 0) return 0;
+      return overlap / Math.sqrt(queryNormSq * normSq);
+    }
+  }
+
+  private class Float16Scorer extends Scorer {
+    Float16Scorer(float[] query) {
+      super(query);
+    }
+
+    @Override
+    public double score(ByteBuffer buffer, int position) {
+      double overlap = 0;
+      double normSq = 0;
+      for (int i = 0; i < dimension; ++i) {
+        float coordinate = HalfFloats.float16ToFloat(buffer.getShort(position + 2 * i));
+        overlap += query[i] * coordinate;
+        normSq += coordinate * coordinate;
+      }
+      return cosine(overlap, normSq);
+    }
+  }
+
+  private class BFloat16Scorer extends Scorer {
+    BFloat16Scorer(float[] query) {
+      super(query);
+    }
+
+    @Override
+    public double score(ByteBuffer buffer, int position) {
+      double overlap = 0;
+      double normSq = 0;
+      for (int i = 0; i < dimension; ++i) {
+        float coordinate = Float.intBitsToFloat((buffer.getShort(position + 2 * i) & 0xffff) << 16);
+        overlap += query[i] * coordinate;
+        normSq += coordinate * coordinate;
+      }
+      return cosine(overlap, normSq);
+    }
+  }
+}
@@ -0,0 +1,212 @@
+/**
+   Copyright (c) 2026, the SemanticVectors AUTHORS.
+
+   All rights reserved.
+
+   Redistribution and use in source and binary forms, with or without
+   modification, are permitted provided that the following conditions are
+   met:
+
+   * Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+   * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the following
+   disclaimer in the documentation and/or other materials provided
+   with the distribution.
+
+   * Neither the name of the University of Pittsburgh nor the names
+   of its contributors may be used to endorse or promote products
+   derived from this software without specific prior written
+   permission.
+
+   THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+   "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+   LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+   A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+   CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+   EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+   PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+   PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+   LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+   NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+   SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+**/
+
+package pitt.search.semanticvectors;
+
+import java.io.IOException;
+
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.store.IndexOutput;
+
+import pitt.search.semanticvectors.VectorStoreUtils.VectorPrecision;
+import pitt.search.semanticvectors.vectors.ComplexVector;
+import pitt.search.semanticvectors.vectors.RealVector;
+import pitt.search.semanticvectors.vectors.Vector;
+import pitt.search.semanticvectors.vectors.VectorFactory;
+import pitt.search.semanticvectors.vectors.VectorType;
+
+/**
+ * Conversions between floats and 16 bit floats, used to write and read real and complex
+ * vectors with {@link VectorPrecision#FLOAT16} or {@link VectorPrecision#BFLOAT16} precision. <p>
+ *
+ * Vectors are written with the same layout as {@link Vector#writeToLuceneStream}, except that each
+ * coordinate is a short, so stores take half the space. Conversions round to the nearest value.
+ */
+public class HalfFloats {
+
+  /** Value of each float16 bit pattern, so that widening is a single lookup. */
+  private static final float[] FLOAT16_VALUES = new float[1 << 16];
+  static {
+    for (int i = 0; i < FLOAT16_VALUES.length; ++i) {
+      FLOAT16_VALUES[i] = computeFloat16ToFloat((short) i);
+    }
+  }
+
+  private HalfFloats() {}
+
+  /** Returns true for the precisions that store each coordinate in 16 bits. */
+  public static boolean isHalfPrecision(VectorPrecision precision) {
+    return precision == VectorPrecision.FLOAT16 || precision == VectorPrecision.BFLOAT16;
+  }
+
+  /** Returns true if vectors of this type can be written with 16 bit coordinates. */
+  public static boolean supportsVectorType(VectorType vectorType) {
+    return vectorType == VectorType.REAL
+        || vectorType == VectorType.COMPLEX || vectorType == VectorType.COMPLEXFLAT;
+  }
+
+  /** Returns the nearest IEEE 754 half precision value: 1 sign, 5 exponent and 10 mantissa bits. */
+  public static short floatToFloat16(float value) {
+    int bits = Float.floatToRawIntBits(value);
+    int sign = (bits >>> 16) & 0x8000;
+    int exponent = (bits >>> 23) & 0xff;
+    int mantissa = bits & 0x7fffff;
+    if (exponent == 0xff) {
+      return (short) (sign | 0x7c00 | (mantissa != 0 ? 0x200 : 0));
+    }
+    int halfExponent = exponent - 127 + 15;
+    if (halfExponent >= 0x1f) {
+      return (short) (sign | 0x7c00);
+    }
+    int half;
+    int shift;
+    if (halfExponent <= 0) {
+      // Subnormal, or too small to represent.
+      if (halfExponent < -10) return (short) sign;
+      mantissa |= 0x800000;
+      shift = 14 - halfExponent;
+      half = mantissa >> shift;
+    } else {
+      shift = 13;
+      half = (halfExponent << 10) | (mantissa >> shift);
+    }
+    // Round to nearest even. A carry into the exponent gives the next power of two, or infinity.
+    int remainder = mantissa & ((1 << shift) - 1);
+    int halfway = 1 << (shift - 1);
+    if (remainder > halfway || (remainder == halfway && (half & 1) != 0)) {
+      ++half;
+    }
+    return (short) (sign | half);
+  }
+
+  /** Returns the value of a half precision float written by {@link #floatToFloat16}. */
+  public static float float16ToFloat(short half) {
+    return FLOAT16_VALUES[half & 0xffff];
+  }
+
+  private static float computeFloat16ToFloat(short half) {
+    int bits = half & 0xffff;
+    int sign = (bits & 0x8000) << 16;
+    int exponent = (bits >>> 10) & 0x1f;
+    int mantissa = bits & 0x3ff;
+    if (exponent == 0x1f) {
+      return Float.intBitsToFloat(sign | 0x7f800000 | (mantissa << 13));
+    }
+    if (exponent == 0) {
+      float value = mantissa * 0x1p-24f;
+      return (sign != 0) ? -value : value;
+    }
+    return Float.intBitsToFloat(sign | ((exponent + 112) << 23) | (mantissa << 13));
+  }
+
+  /**
+   * Returns the nearest bfloat16 value, which is the top half of a float: it keeps the range
+   * of a float, with 7 mantissa bits.
+   */
+  public static short floatToBFloat16(float value) {
+    int bits = Float.floatToRawIntBits(value);
+    if (Float.isNaN(value)) {
+      return (short) ((bits >>> 16) | 0x40);
+    }
+    int rounding = 0x7fff + ((bits >>> 16) & 1);
+    return (short) ((bits + rounding) >>> 16);
+  }
+
+  /** Returns the value of a bfloat16 written by {@link #floatToBFloat16}. */
+  public static float bFloat16ToFloat(short half) {
+    return Float.intBitsToFloat((half & 0xffff) << 16);
+  }
+
+  /** Converts a float to 16 bits with the given precision. */
+  public static short fromFloat(float value, VectorPrecision precision) {
+    return (precision == VectorPrecision.BFLOAT16) ? floatToBFloat16(value) : floatToFloat16(value);
+  }
+
+  /** Converts 16 bits with the given precision to a float. */
+  public static float toFloat(short half, VectorPrecision precision) {
+    return (precision == VectorPrecision.BFLOAT16) ? bFloat16ToFloat(half) : float16ToFloat(half);
+  }
+
+  /**
+   * Returns the number of bytes taken by each vector written with the given precision,
+   * as in {@link VectorFactory#getLuceneByteSize}.
+   */
+  public static int getByteSize(VectorType vectorType, int dimension, VectorPrecision precision) {
+    int fullSize = VectorFactory.getLuceneByteSize(vectorType, dimension);
+    return isHalfPrecision(precision) ? fullSize / 2 : fullSize;
+  }
+
+  /**
+   * Writes the vector with the given precision: using {@link Vector#writeToLuceneStream} for
+   * {@link VectorPrecision#FLOAT32}, otherwise writing dense coordinates as shorts.
+   * Complex vectors are converted to cartesian form, as by {@link Vector#writeToLuceneStream}.
+   */
+  public static void writeVector(Vector vector, VectorPrecision precision, IndexOutput outputStream)
+      throws IOException {
+    if (!isHalfPrecision(precision)) {
+      vector.writeToLuceneStream(outputStream);
+      return;
+    }
+    float[] coordinates;
+    if (vector instanceof ComplexVector) {
+      ((ComplexVector) vector).toCartesian();
+      coordinates = ((ComplexVector) vector).getCoordinates();
+    } else if (vector instanceof RealVector) {
+      coordinates = ((RealVector) vector).getCoordinates();
+    } else {
+      throw new IllegalArgumentException(
+          "Cannot write vector of type " + vector.getVectorType() + " with precision " + precision);
+    }
+    int numCoordinates = (vector instanceof ComplexVector) ? 2 * vector.getDimension() : vector.getDimension();
+    for (int i = 0; i < numCoordinates; ++i) {
+      outputStream.writeShort(fromFloat(coordinates[i], precision));
+    }
+  }
+
+  /** Reads a vector written by {@link #writeVector} with the same precision. */
+  public static Vector readVector(VectorType vectorType, int dimension, VectorPrecision precision,
+      IndexInput inputStream) throws IOException {
+    if (!isHalfPrecision(precision)) {
+      Vector vector = VectorFactory.createZeroVector(vectorType, dimension);
+      vector.readFromLuceneStream(inputStream);
+      return vector;
+    }
+    float[] coordinates = new float[getByteSize(vectorType, dimension, precision) / 2];
+    for (int i = 0; i < coordinates.length; ++i) {
+      coordinates[i] = toFloat(inputStream.readShort(), precision);
+    }
+    return VectorFactory.createDenseVector(vectorType, coordinates);
+  }
+}
@@ -0,0 +1,575 @@
+/**
+   Copyright (c) 2026, the SemanticVectors AUTHORS.
+
+   All rights reserved.
+
+   Redistribution and use in source and binary forms, with or without
+   modification, are permitted provided that the following conditions are
+   met:
+
+   * Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+   * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the following
+   disclaimer in the documentation and/or other materials provided
+   with the distribution.
+
+   * Neither the name of the University of Pittsburgh nor the names
+   of its contributors may be used to endorse or promote products
+   derived from this software without specific prior written
+   permission.
+
+   THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+   "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+   LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+   A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+   CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+   EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+   PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+   PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+   LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+   NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+   SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+**/
+
+package pitt.search.semanticvectors;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.store.IndexOutput;
+
+import pitt.search.semanticvectors.utils.TopScores;
+import pitt.search.semanticvectors.utils.VerbatimLogger;
+import pitt.search.semanticvectors.vectors.Vector;
+
+/**
+ * Approximate nearest neighbor index using a hierarchical navigable small world (HNSW) graph,
+ * as described by Malkov and Yashunin, "Efficient and robust approximate nearest neighbor search
+ * using Hierarchical Navigable Small World graphs" (2016). <p>
+ *
+ * Each record in the store is a node in the graph, and is linked to nodes that are similar to it
+ * on its own level and all the levels below. Similarity is given by {@link Vector#measureOverlap},
+ * which is cosine similarity for real and complex vectors and Hamming similarity for binary vectors.
+ * A search walks greedily down from the top level, and then does a best-first search of
+ * {@link FlagConfig#hnswefsearch} candidates on the bottom level. <p>
+ *
+ * The graph is built in parallel using {@link FlagConfig#numthreads} threads, with
+ * {@link FlagConfig#hnswm} links per node ({@code 2 * hnswm} on the bottom level)
+ * chosen from {@link FlagConfig#hnswefconstruction} candidates.
+ */
+public class HnswIndex implements SearchIndex {
+  private static final Logger logger = Logger.getLogger(HnswIndex.class.getCanonicalName());
+
+  /** Number of locks used to protect the links of nodes during a parallel build. */
+  private static final int NUM_LOCKS = 1024;
+
+  private final IndexedVectorStore store;
+  private final int numNodes;
+  private final int m;
+  private final int maxLinks0;
+  private int efConstruction;
+  private int efSearch;
+
+  private final int[] levels;
+  /**
+   * Links on the bottom level: links0[n * (maxLinks0 + 1)] is the number of links from
+   * node n, followed by the linked node ids.
+   */
+  private final int[] links0;
+  /** Links on higher levels: upperLinks[n][level - 1] has the same layout, with room for m links. */
+  private final int[][][] upperLinks;
+
+  private final Object entryLock = new Object();
+  private volatile int entryPoint = -1;
+  private volatile int maxLevel = -1;
+  private final Object[] locks;
+
+  private final ThreadLocal<VisitedNodes> visitedNodes = new ThreadLocal<VisitedNodes>() {
+    @Override
+    protected VisitedNodes initialValue() {
+      return new VisitedNodes(numNodes);
+    }
+  };
+
+  private HnswIndex(IndexedVectorStore store, int m, int efConstruction, int efSearch, int[] levels) {
+    this.store = store;
+    this.numNodes = store.getNumVectors();
+    this.m = m;
+    this.maxLinks0 = 2 * m;
+    this.efConstruction = efConstruction;
+    this.efSearch = efSearch;
+    this.levels = levels;
+    this.links0 = new int[numNodes * (maxLinks0 + 1)];
+    this.upperLinks = new int[numNodes][][];
+    for (int node = 0; node < numNodes; ++node) {
+      if (levels[node] > 0) {
+        upperLinks[node] = new int[levels[node]][m + 1];
+      }
+    }
+    this.locks = new Object[NUM_LOCKS];
+    for (int i = 0; i < NUM_LOCKS; ++i) locks[i] = new Object();
+  }
+
+  /**
+   * Builds an index over all the records in the store, using the parameters in flagConfig.
+   */
+  public static HnswIndex build(IndexedVectorStore store, FlagConfig flagConfig) {
+    if (flagConfig.hnswm() < 2) {
+      throw new IllegalArgumentException("-hnswm must be at least 2, not " + flagConfig.hnswm());
+    }
+    int numNodes = store.getNumVectors();
+    int[] levels = new int[numNodes];
+    Random random = new Random(0);
+    double levelMultiplier = 1 / Math.log(flagConfig.hnswm());
+    for (int node = 0; node < numNodes; ++node) {
+      levels[node] = (int) (-Math.log(1 - random.nextDouble()) * levelMultiplier);
+    }
+    final HnswIndex index = new HnswIndex(
+        store, flagConfig.hnswm(), flagConfig.hnswefconstruction(), flagConfig.hnswefsearch(), levels);
+    if (numNodes == 0) return index;
+
+    long startTime = System.currentTimeMillis();
+    index.insert(0);
+    final AtomicInteger nextNode = new AtomicInteger(1);
+    int numThreads = Math.max(1, flagConfig.numthreads());
+    ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+    for (int t = 0; t < numThreads; ++t) {
+      executor.execute(new Runnable() {
+        @Override
+        public void run() {
+          int node;
+          while ((node = nextNode.getAndIncrement()) < index.numNodes) {
+            index.insert(node);
+          }
+        }
+      });
+    }
+    executor.shutdown();
+    try {
+      executor.awaitTermination(Long.MAX_VALUE, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Interrupted while building HNSW index.", e);
+    }
+    VerbatimLogger.info(String.format("Built HNSW index for %d vectors in %d ms with %d threads.\n",
+        numNodes, System.currentTimeMillis() - startTime, numThreads));
+    return index;
+  }
+
+  @Override
+  public IndexedVectorStore getStore() {
+    return store;
+  }
+
+  /** Sets the number of candidates kept on the bottom level during a search. */
+  public void setEfSearch(int efSearch) {
+    this.efSearch = efSearch;
+  }
+
+  public int getEfSearch() {
+    return efSearch;
+  }
+
+  /**
+   * Returns up to max({@link FlagConfig#hnswefsearch}, numResults) candidates, best first.
+   */
+  @Override
+  public int[] getCandidates(Vector queryVector, int numResults) {
+    if (entryPoint < 0) return new int[0];
+    IndexedVectorStore.OverlapScorer scorer = getScorer(queryVector);
+    int node = entryPoint;
+    double score = scorer.score(node);
+    int[] buffer = new int[maxLinks0];
+    for (int level = maxLevel; level > 0; --level) {
+      node = greedySearch(scorer, node, score, level, buffer);
+      score = scorer.score(node);
+    }
+    TopScores found = searchLevel(scorer, new int[] {node}, new double[] {score}, 1,
+        Math.max(efSearch, numResults), 0);
+    found.sortDescending();
+    int[] candidates = new int[found.size()];
+    for (int i = 0; i < candidates.length; ++i) candidates[i] = found.getId(i);
+    return candidates;
+  }
+
+  /** Returns a scorer for the query, falling back to decoding records if the store can't score in place. */
+  private IndexedVectorStore.OverlapScorer getScorer(final Vector queryVector) {
+    IndexedVectorStore.OverlapScorer scorer = store.getOverlapScorer(queryVector);
+    if (scorer != null) return scorer;
+    return new IndexedVectorStore.OverlapScorer() {
+      @Override
+      public double score(int index) {
+        return queryVector.measureOverlap(store.getObjectVector(index).getVector());
+      }
+    };
+  }
+
+  private Object getLock(int node) {
+    return locks[node % NUM_LOCKS];
+  }
+
+  /** Copies the links from the node on the given level into the buffer, and returns how many there are. */
+  private int getLinks(int node, int level, int[] buffer) {
+    synchronized (getLock(node)) {
+      if (level == 0) {
+        int base = node * (maxLinks0 + 1);
+        int count = links0[base];
+        System.arraycopy(links0, base + 1, buffer, 0, count);
+        return count;
+      }
+      int[] links = upperLinks[node][level - 1];
+      System.arraycopy(links, 1, buffer, 0, links[0]);
+      return links[0];
+    }
+  }
+
+  /** Replaces the links from the node on the given level. Caller must hold the lock for the node. */
+  private void setLinks(int node, int level, int[] newLinks, int count) {
+    if (level == 0) {
+      int base = node * (maxLinks0 + 1);
+      links0[base] = count;
+      System.arraycopy(newLinks, 0, links0, base + 1, count);
+    } else {
+      int[] links = upperLinks[node][level - 1];
+      links[0] = count;
+      System.arraycopy(newLinks, 0, links, 1, count);
+    }
+  }
+
+  /** Moves to better neighbors on one level until there are none, and returns the node reached. */
+  private int greedySearch(IndexedVectorStore.OverlapScorer scorer, int node, double score, int level, int[] buffer) {
+    boolean changed = true;
+    while (changed) {
+      changed = false;
+      int count = getLinks(node, level, buffer);
+      for (int i = 0; i < count; ++i) {
+        double neighborScore = scorer.score(buffer[i]);
+        if (neighborScore > score) {
+          score = neighborScore;
+          node = buffer[i];
+          changed = true;
+        }
+      }
+    }
+    return node;
+  }
+
+  /**
+   * Best-first search on one level from the given entry points, keeping the best ef nodes found.
+   */
+  private TopScores searchLevel(IndexedVectorStore.OverlapScorer scorer,
+      int[] entryNodes, double[] entryScores, int numEntries, int ef, int level) {
+    TopScores results = new TopScores(ef);
+    NodeQueue candidates = new NodeQueue();
+    VisitedNodes visited = visitedNodes.get();
+    visited.clear();
+    for (int i = 0; i < numEntries; ++i) {
+      visited.visit(entryNodes[i]);
+      results.offer(entryScores[i], entryNodes[i]);
+      candidates.push(entryScores[i], entryNodes[i]);
+    }
+    int[] buffer = new int[maxLinks0];
+    while (!candidates.isEmpty()) {
+      if (results.isFull() && candidates.topScore() < results.minScore()) break;
+      int node = candidates.pop();
+      int count = getLinks(node, level, buffer);
+      for (int i = 0; i < count; ++i) {
+        int neighbor = buffer[i];
+        if (!visited.visit(neighbor)) continue;
+        double score = scorer.score(neighbor);
+        if (!results.isFull() || score > results.minScore()) {
+          results.offer(score, neighbor);
+          candidates.push(score, neighbor);
+        }
+      }
+    }
+    return results;
+  }
+
+  /** Adds the node to the graph. Nodes on different threads may be inserted at the same time. */
+  private void insert(int node) {
+    int level = levels[node];
+    int currentEntry;
+    int currentMaxLevel;
+    synchronized (entryLock) {
+      if (entryPoint < 0) {
+        entryPoint = node;
+        maxLevel = level;
+        return;
+      }
+      currentEntry = entryPoint;
+      currentMaxLevel = maxLevel;
+    }
+
+    Vector vector = store.getObjectVector(node).getVector();
+    IndexedVectorStore.OverlapScorer scorer = getScorer(vector);
+    int[] buffer = new int[maxLinks0];
+    double entryScore = scorer.score(currentEntry);
+    for (int l = currentMaxLevel; l > level; --l) {
+      currentEntry = greedySearch(scorer, currentEntry, entryScore, l, buffer);
+      entryScore = scorer.score(currentEntry);
+    }
+
+    int[] entryNodes = new int[] {currentEntry};
+    double[] entryScores = new double[] {entryScore};
+    int numEntries = 1;
+    for (int l = Math.min(level, currentMaxLevel); l >= 0; --l) {
+      TopScores found = searchLevel(scorer, entryNodes, entryScores, numEntries, efConstruction, l);
+      found.sortDescending();
+      numEntries = found.size();
+      entryNodes = new int[numEntries];
+      entryScores = new double[numEntries];
+      for (int i = 0; i < numEntries; ++i) {
+        entryNodes[i] = found.getId(i);
+        entryScores[i] = found.getScore(i);
+      }
+
+      int[] selected = new int[m];
+      int numSelected = selectNeighbors(entryNodes, entryScores, numEntries, m, selected);
+      synchronized (getLock(node)) {
+        setLinks(node, l, selected, numSelected);
+      }
+      for (int i = 0; i < numSelected; ++i) {
+        addLink(selected[i], node, l);
+      }
+    }
+
+    if (level > currentMaxLevel) {
+      synchronized (entryLock) {
+        if (level > maxLevel) {
+          maxLevel = level;
+          entryPoint = node;
+        }
+      }
+    }
+  }
+
+  /**
+   * Chooses up to maxSelected neighbors from candidates sorted best first, skipping candidates
+   * that are more similar to an already chosen neighbor than to the base node, so that links
+   * point in diverse directions.
+   *
+   * @return the number of neighbors put into selected
+   */
+  private int selectNeighbors(int[] candidates, double[] scores, int numCandidates,
+      int maxSelected, int[] selected) {
+    int numSelected = 0;
+    for (int c = 0; c < numCandidates && numSelected < maxSelected; ++c) {
+      boolean keep = true;
+      if (numSelected > 0) {
+        IndexedVectorStore.OverlapScorer candidateScorer =
+            getScorer(store.getObjectVector(candidates[c]).getVector());
+        for (int s = 0; s < numSelected; ++s) {
+          if (candidateScorer.score(selected[s]) > scores[c]) {
+            keep = false;
+            break;
+          }
+        }
+      }
+      if (keep) selected[numSelected++] = candidates[c];
+    }
+    return numSelected;
+  }
+
+  /** Adds a link from node to newNeighbor, pruning the links from node if there are too many. */
+  private void addLink(int node, int newNeighbor, int level) {
+    int maxLinks = (level == 0) ? maxLinks0 : m;
+    synchronized (getLock(node)) {
+      int[] links = new int[maxLinks + 1];
+      int count;
+      if (level == 0) {
+        int base = node * (maxLinks0 + 1);
+        count = links0[base];
+        System.arraycopy(links0, base + 1, links, 0, count);
+      } else {
+        int[] upper = upperLinks[node][level - 1];
+        count = upper[0];
+        System.arraycopy(upper, 1, links, 0, count);
+      }
+      links[count++] = newNeighbor;
+      if (count <= maxLinks) {
+        setLinks(node, level, links, count);
+        return;
+      }
+
+      // Too many links: keep a diverse set of the most similar.
+      IndexedVectorStore.OverlapScorer scorer = getScorer(store.getObjectVector(node).getVector());
+      TopScores byScore = new TopScores(count);
+      for (int i = 0; i < count; ++i) byScore.offer(scorer.score(links[i]), links[i]);
+      byScore.sortDescending();
+      int[] candidates = new int[count];
+      double[] scores = new double[count];
+      for (int i = 0; i < count; ++i) {
+        candidates[i] = byScore.getId(i);
+        scores[i] = byScore.getScore(i);
+      }
+      int numSelected = selectNeighbors(candidates, scores, count, maxLinks, links);
+      setLinks(node, level, links, numSelected);
+    }
+  }
+
+  @Override
+  public void writeToFile(String indexFileName, SearchIndexUtils.VectorFileVersion version) throws IOException {
+    File indexFile = new File(indexFileName);
+    java.nio.file.Files.deleteIfExists(indexFile.toPath());
+    String parentPath = indexFile.getParent();
+    if (parentPath == null) parentPath = "";
+    FSDirectory fsDirectory = FSDirectory.open(FileSystems.getDefault().getPath(parentPath));
+    IndexOutput output = fsDirectory.createOutput(indexFile.getName(), IOContext.DEFAULT);
+    version.writeToIndexOutput(output);
+    output.writeInt(m);
+    output.writeInt(efConstruction);
+    output.writeInt(entryPoint);
+    output.writeInt(maxLevel);
+    int[] buffer = new int[maxLinks0];
+    for (int node = 0; node < numNodes; ++node) {
+      output.writeVInt(levels[node]);
+      for (int level = 0; level <= levels[node]; ++level) {
+        int count = getLinks(node, level, buffer);
+        output.writeVInt(count);
+        for (int i = 0; i < count; ++i) output.writeVInt(buffer[i]);
+      }
+    }
+    output.close();
+    fsDirectory.close();
+  }
+
+  /**
+   * Reads an index written by {@link #writeToFile} for the given store.
+   *
+   * @return the index, or null if it was built from a different version of the vector file
+   */
+  public static HnswIndex readFromFile(String indexFileName, IndexedVectorStore store,
+      FlagConfig flagConfig, SearchIndexUtils.VectorFileVersion version) throws IOException {
+    File indexFile = new File(indexFileName);
+    String parentPath = indexFile.getParent();
+    if (parentPath == null) parentPath = "";
+    FSDirectory fsDirectory = FSDirectory.open(FileSystems.getDefault().getPath(parentPath));
+    IndexInput input = fsDirectory.openInput(indexFile.getName(), IOContext.READONCE);
+    try {
+      if (!SearchIndexUtils.VectorFileVersion.readFromIndexInput(input).equals(version)) {
+        logger.info("Search index " + indexFileName + " is out of date.");
+        return null;
+      }
+      int m = input.readInt();
+      int efConstruction = input.readInt();
+      int entryPoint = input.readInt();
+      int maxLevel = input.readInt();
+      long linksStart = input.getFilePointer();
+      int[] levels = new int[store.getNumVectors()];
+      for (int node = 0; node < levels.length; ++node) {
+        levels[node] = input.readVInt();
+        for (int level = 0; level <= levels[node]; ++level) {
+          int count = input.readVInt();
+          for (int i = 0; i < count; ++i) input.readVInt();
+        }
+      }
+      HnswIndex index = new HnswIndex(store, m, efConstruction, flagConfig.hnswefsearch(), levels);
+      input.seek(linksStart);
+      int[] buffer = new int[index.maxLinks0];
+      for (int node = 0; node < levels.length; ++node) {
+        input.readVInt();
+        for (int level = 0; level <= levels[node]; ++level) {
+          int count = input.readVInt();
+          for (int i = 0; i < count; ++i) buffer[i] = input.readVInt();
+          index.setLinks(node, level, buffer, count);
+        }
+      }
+      index.entryPoint = entryPoint;
+      index.maxLevel = maxLevel;
+      return index;
+    } finally {
+      input.close();
+      fsDirectory.close();
+    }
+  }
+
+  /** Marks nodes visited during a search, cleared in constant time by changing the mark. */
+  private static class VisitedNodes {
+    private final int[] marks;
+    private int mark = 0;
+
+    VisitedNodes(int numNodes) {
+      this.marks = new int[numNodes];
+    }
+
+    void clear() {
+      if (++mark == Integer.MAX_VALUE) {
+        Arrays.fill(marks, 0);
+        mark = 1;
+      }
+    }
+
+    /** Marks the node as visited, and returns true if it wasn't visited before. */
+    boolean visit(int node) {
+      if (marks[node] == mark) return false;
+      marks[node] = mark;
+      return true;
+    }
+  }
+
+  /** Max-heap of nodes by score, used for the candidates to expand during a search. */
+  private static class NodeQueue {
+    private double[] scores = new double[64];
+    private int[] nodes = new int[64];
+    private int size = 0;
+
+    boolean isEmpty() {
+      return size == 0;
+    }
+
+    double topScore() {
+      return scores[0];
+    }
+
+    void push(double score, int node) {
+      if (size == scores.length) {
+        scores = Arrays.copyOf(scores, 2 * size);
+        nodes = Arrays.copyOf(nodes, 2 * size);
+      }
+      int child = size++;
+      while (child > 0) {
+        int parent = (child - 1) >>> 1;
+        if (scores[parent] >= score) break;
+        scores[child] = scores[parent];
+        nodes[child] = nodes[parent];
+        child = parent;
+      }
+      scores[child] = score;
+      nodes[child] = node;
+    }
+
+    int pop() {
+      int top = nodes[0];
+      --size;
+      double score = scores[size];
+      int node = nodes[size];
+      int parent = 0;
+      while (true) {
+        int child = 2 * parent + 1;
+        if (child >= size) break;
+        if (child + 1 < size && scores[child + 1] > scores[child]) ++child;
+        if (score >= scores[child]) break;
+        scores[parent] = scores[child];
+        nodes[parent] = nodes[child];
+        parent = child;
+      }
+      scores[parent] = score;
+      nodes[parent] = node;
+      return top;
+    }
+  }
+}
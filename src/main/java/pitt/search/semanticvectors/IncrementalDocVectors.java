@@ -39,6 +39,7 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.FileSystems;
 import java.util.Arrays;
+import java.util.Set;
 import java.util.logging.Logger;
 
 import org.apache.lucene.index.*;
@@ -54,10 +55,10 @@ import pitt.search.semanticvectors.vectors.VectorFactory;
 /**
  * Generates document vectors incrementally, writing each document vector to disk after
  * it is created. This saves memory compared with the implementation in {@link DocVectors}.
- * The training procedure still iterates through all the documents in the Lucene index,
- * so currently this class is purely an optimization, not an implementation of
- * incremental indexing in the sense of being able to add extra documents later after
- * an initial model has been built.   
+ * The training procedure still iterates through all the documents in the Lucene index.
+ * With {@link FlagConfig#segmenteddocvectors()}, the document vectors are kept in a
+ * {@link VectorStoreSegmented} store, and documents added to the index after an initial
+ * model has been built get vectors in a new segment without rewriting the existing ones.
  *
  * @author Trevor Cohen, Dominic Widdows
  */
@@ -94,6 +95,10 @@ public class IncrementalDocVectors {
   }
 
   private void trainIncrementalDocVectors() throws IOException {
+    if (flagConfig.segmenteddocvectors()) {
+      appendSegmentedDocVectors();
+      return;
+    }
     int numdocs = luceneUtils.getNumDocs();
 
     // Open file and write headers.
@@ -104,6 +109,7 @@ public class IncrementalDocVectors {
     FSDirectory fsDirectory = FSDirectory.open(FileSystems.getDefault().getPath(parentPath));
 
     java.nio.file.Files.deleteIfExists(vectorFile.toPath());
+    VectorStoreWriter.deleteStoreManifests(flagConfig.docvectorsfile());
     
     IndexOutput outputStream = fsDirectory.createOutput(vectorFile.getName(), IOContext.DEFAULT);
 
@@ -123,68 +129,113 @@ public class IncrementalDocVectors {
       // docidfield is not populated.
       String docID = luceneUtils.getExternalDocId(dc);
 
-      Vector docVector = VectorFactory.createZeroVector(flagConfig.vectortype(), flagConfig.dimension());
+      Vector docVector = createDocVector(dc, docID);
+
+      // All fields in document have been processed. Write out documentID and normalized vector.
+      outputStream.writeString(docID);
+      docVector.writeToLuceneStream(outputStream);
+    } // Finish iterating through documents.
 
-      for (String fieldName : flagConfig.contentsfields()) {
-        Terms terms = luceneUtils.getTermVector(dc, fieldName);
+    VerbatimLogger.info("Finished writing vectors.\n");
+    outputStream.close();
+    fsDirectory.close();
+  }
 
-        if (terms == null) {
-          VerbatimLogger.fine(
-              String.format(
-                  "When building document vectors, no term vector for field: '%s' in document '%s'.",
-                  fieldName, docID));
-          continue;
+  /**
+   * Brings a {@link VectorStoreSegmented} store of document vectors up to date with the index by
+   * adding one segment, with vectors for documents that the store doesn't have yet and deletions
+   * for documents that are no longer in the index. Documents already in the store are not
+   * recomputed, so building vectors for a growing corpus only costs as much as the new documents.
+   */
+  private void appendSegmentedDocVectors() throws IOException {
+    int numdocs = luceneUtils.getNumDocs();
+    VectorStoreSegmented docVectors = new VectorStoreSegmented(flagConfig.docvectorsfile(), flagConfig);
+    VerbatimLogger.info("Appending vectors for new documents to segmented store "
+        + flagConfig.docvectorsfile() + " ... ");
+    Set<String> staleDocIDs = docVectors.getObjects();
+    VectorStoreSegmented.SegmentWriter segmentWriter = docVectors.newSegment();
+    int numAdded = 0;
+    try {
+      for (int dc = 0; dc < numdocs; dc++) {
+        if ((dc > 0) && ((dc % 10000 == 0) || (dc < 10000 && dc % 1000 == 0))) {
+          VerbatimLogger.info("Processed " + dc + " documents ... ");
         }
+        String docID = luceneUtils.getExternalDocId(dc);
+        if (staleDocIDs.remove(docID)) continue;
+        segmentWriter.putVector(docID, createDocVector(dc, docID));
+        ++numAdded;
+      }
+      for (String docID : staleDocIDs) segmentWriter.deleteVector(docID);
+    } catch (IOException | RuntimeException e) {
+      segmentWriter.abort();
+      docVectors.close();
+      throw e;
+    }
+    segmentWriter.commit();
+    docVectors.close();
+    VerbatimLogger.info("Added " + numAdded + " and deleted " + staleDocIDs.size() + " document vectors.\n");
+  }
 
-        TermsEnum termsEnum = terms.iterator();
-        BytesRef bytes;
-        while ((bytes = termsEnum.next()) != null) {
-          Term term = new Term(fieldName, bytes);
-          String termString = term.text();
-          PostingsEnum docs = termsEnum.postings(null);
-          docs.nextDoc();
-          int freq = docs.freq();
-
-          try {
-            Vector termVector = termVectorData.getVector(termString);
-            if (termVector != null && termVector.getDimension() > 0) {
-              float localweight = luceneUtils.getLocalTermWeight(freq);
-              float globalweight = luceneUtils.getGlobalTermWeight(new Term(fieldName, termString));
-              float fieldweight = 1;
-
-              if (flagConfig.fieldweight()) {
-                //field weight: 1/sqrt(number of terms in field)
-                fieldweight = (float) (1 / Math.sqrt(terms.size()));
-              }
-
-              // Add contribution from this term, excluding terms that
-              // are not represented in termVectorData.
-              docVector.superpose(termVector, localweight * globalweight * fieldweight, null);
+  /**
+   * Returns the normalized vector for document number {@code dc}, the weighted sum of the
+   * vectors for the terms in its {@link FlagConfig#contentsfields()}.
+   */
+  private Vector createDocVector(int dc, String docID) throws IOException {
+    Vector docVector = VectorFactory.createZeroVector(flagConfig.vectortype(), flagConfig.dimension());
+
+    for (String fieldName : flagConfig.contentsfields()) {
+      Terms terms = luceneUtils.getTermVector(dc, fieldName);
+
+      if (terms == null) {
+        VerbatimLogger.fine(
+            String.format(
+                "When building document vectors, no term vector for field: '%s' in document '%s'.",
+                fieldName, docID));
+        continue;
+      }
+
+      TermsEnum termsEnum = terms.iterator();
+      BytesRef bytes;
+      while ((bytes = termsEnum.next()) != null) {
+        Term term = new Term(fieldName, bytes);
+        String termString = term.text();
+        PostingsEnum docs = termsEnum.postings(null);
+        docs.nextDoc();
+        int freq = docs.freq();
+
+        try {
+          Vector termVector = termVectorData.getVector(termString);
+          if (termVector != null && termVector.getDimension() > 0) {
+            float localweight = luceneUtils.getLocalTermWeight(freq);
+            float globalweight = luceneUtils.getGlobalTermWeight(new Term(fieldName, termString));
+            float fieldweight = 1;
+
+            if (flagConfig.fieldweight()) {
+              //field weight: 1/sqrt(number of terms in field)
+              fieldweight = (float) (1 / Math.sqrt(terms.size()));
             }
-          } catch (NullPointerException npe) {
-            // Don't normally print anything - too much data!
-            logger.finest("term " + termString + " not represented");
+
+            // Add contribution from this term, excluding terms that
+            // are not represented in termVectorData.
+            docVector.superpose(termVector, localweight * globalweight * fieldweight, null);
           }
+        } catch (NullPointerException npe) {
+          // Don't normally print anything - too much data!
+          logger.finest("term " + termString + " not represented");
         }
       }
+    }
 
-      if (docVector.isZeroVector()) {
-        logger.warning(String.format(
-            "Outputting zero vector for document '%s'. This probably means that none of " +
-                "the -contentsfields were populated, or all terms failed the LuceneUtils termsfilter." +
-                " You may want to investigate.",
-            docID));
-      }
-
-      // All fields in document have been processed. Write out documentID and normalized vector.
-      docVector.normalize();
-      outputStream.writeString(docID);
-      docVector.writeToLuceneStream(outputStream);
-    } // Finish iterating through documents.
+    if (docVector.isZeroVector()) {
+      logger.warning(String.format(
+          "Outputting zero vector for document '%s'. This probably means that none of " +
+              "the -contentsfields were populated, or all terms failed the LuceneUtils termsfilter." +
+              " You may want to investigate.",
+          docID));
+    }
 
-    VerbatimLogger.info("Finished writing vectors.\n");
-    outputStream.close();
-    fsDirectory.close();
+    docVector.normalize();
+    return docVector;
   }
 
   public static void main(String[] args) throws Exception {
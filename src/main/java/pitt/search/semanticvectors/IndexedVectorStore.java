@@ -0,0 +1,110 @@
+/**
+   Copyright (c) 2026, the SemanticVectors AUTHORS.
+
+   All rights reserved.
+
+   Redistribution and use in source and binary forms, with or without
+   modification, are permitted provided that the following conditions are
+   met:
+
+   * Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+   * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the following
+   disclaimer in the documentation and/or other materials provided
+   with the distribution.
+
+   * Neither the name of the University of Pittsburgh nor the names
+   of its contributors may be used to endorse or promote products
+   derived from this software without specific prior written
+   permission.
+
+   THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+   "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+   LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+   A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+   CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+   EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+   PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+   PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+   LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+   NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+   SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+**/
+
+package pitt.search.semanticvectors;
+
+import pitt.search.semanticvectors.vectors.Vector;
+
+/**
+ * A {@link VectorStore} whose records are numbered densely from 0 to {@link #getNumVectors} - 1,
+ * so that searches can visit every record without enumerating {@link ObjectVector}s.
+ *
+ * @see VectorStoreReaderMmap
+ * @see VectorStoreSlab
+ */
+public interface IndexedVectorStore extends VectorStore {
+
+  /** Returns the record with the given index. */
+  public ObjectVector getObjectVector(int index);
+
+  /**
+   * Returns a scorer that gives the same results as {@code queryVector.measureOverlap}
+   * for each record, reading coordinates in place.
+   *
+   * @return the scorer, or null if direct scoring isn't supported for this query.
+   */
+  public OverlapScorer getOverlapScorer(Vector queryVector);
+
+  /**
+   * Returns a scorer that gives the same results as {@code measureOverlap} between each of the
+   * given queries and each record, or null if direct scoring isn't supported for these queries.
+   * By default this uses an {@link OverlapScorer} for each query.
+   */
+  public default BatchOverlapScorer getBatchOverlapScorer(Vector[] queryVectors) {
+    final OverlapScorer[] scorers = new OverlapScorer[queryVectors.length];
+    for (int q = 0; q < queryVectors.length; ++q) {
+      scorers[q] = getOverlapScorer(queryVectors[q]);
+      if (scorers[q] == null) return null;
+    }
+    return new BatchOverlapScorer() {
+      @Override
+      public void score(int start, int end, double[][] scores) {
+        for (int q = 0; q < scorers.length; ++q) {
+          for (int index = start; index < end; ++index) {
+            scores[q][index - start] = scorers[q].score(index);
+          }
+        }
+      }
+    };
+  }
+
+  /**
+   * Scores records in the store against a fixed query, without creating vectors.
+   */
+  public interface OverlapScorer {
+    /** Returns the overlap between the query and the record with the given index. */
+    public double score(int index);
+
+    /**
+     * Returns the overlap between the query and the record with the given index if it is more
+     * than minScore. Otherwise returns some value no more than minScore, which lets scorers stop
+     * early for records that can't be good enough. By default this is just {@link #score(int)}.
+     */
+    public default double score(int index, double minScore) {
+      return score(index);
+    }
+  }
+
+  /**
+   * Scores blocks of records in the store against several fixed queries, without creating vectors.
+   */
+  public interface BatchOverlapScorer {
+    /**
+     * Puts the overlap between query q and record start + i into {@code scores[q][i]},
+     * for all the records from start up to but not including end.
+     */
+    public void score(int start, int end, double[][] scores);
+  }
+}
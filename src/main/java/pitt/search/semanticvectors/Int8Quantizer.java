@@ -0,0 +1,195 @@
+/**
+   Copyright (c) 2026, the SemanticVectors AUTHORS.
+
+   All rights reserved.
+
+   Redistribution and use in source and binary forms, with or without
+   modification, are permitted provided that the following conditions are
+   met:
+
+   * Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+   * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the following
+   disclaimer in the documentation and/or other materials provided
+   with the distribution.
+
+   * Neither the name of the University of Pittsburgh nor the names
+   of its contributors may be used to endorse or promote products
+   derived from this software without specific prior written
+   permission.
+
+   THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+   "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+   LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+   A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+   CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+   EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+   PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+   PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+   LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+   NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+   SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+**/
+
+package pitt.search.semanticvectors;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Enumeration;
+
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.store.IndexOutput;
+
+import pitt.search.semanticvectors.vectors.RealVector;
+
+/**
+ * Scalar quantization of real vectors to one byte per coordinate, used for
+ * {@link VectorStoreUtils.VectorPrecision#INT8} files. <p>
+ *
+ * Coordinate i is stored as a code c from 0 to 255, and read as {@code offsets[i] + scales[i] * c},
+ * where the offset and scale for each dimension are chosen to cover the range of coordinates
+ * in the store. Each record is the norm of the decoded vector as a float, followed by the codes. <p>
+ *
+ * The overlap between a query q and a record is then
+ * {@code (sum(q[i] * offsets[i]) + sum(q[i] * scales[i] * c[i])) / (|q| * norm)},
+ * where the first sum and the weights {@code q[i] * scales[i]} only depend on the query.
+ */
+public class Int8Quantizer implements RealVectorCodec {
+  /** Largest code for a coordinate. */
+  public static final int MAX_CODE = 255;
+
+  private final int dimension;
+  private final float[] offsets;
+  private final float[] scales;
+
+  public Int8Quantizer(float[] offsets, float[] scales) {
+    if (offsets.length != scales.length) {
+      throw new IllegalArgumentException("Offsets and scales must have the same dimension.");
+    }
+    this.dimension = offsets.length;
+    this.offsets = offsets;
+    this.scales = scales;
+  }
+
+  /**
+   * Creates a quantizer covering the range of each coordinate of the vectors in the store.
+   */
+  public static Int8Quantizer fromVectors(VectorStore vectorStore, int dimension) {
+    float[] min = new float[dimension];
+    float[] max = new float[dimension];
+    boolean first = true;
+    Enumeration<ObjectVector> vecEnum = vectorStore.getAllVectors();
+    while (vecEnum.hasMoreElements()) {
+      float[] coordinates = ((RealVector) vecEnum.nextElement().getVector()).getCoordinates();
+      for (int i = 0; i < dimension; ++i) {
+        if (first || coordinates[i] < min[i]) min[i] = coordinates[i];
+        if (first || coordinates[i] > max[i]) max[i] = coordinates[i];
+      }
+      first = false;
+    }
+    float[] scales = new float[dimension];
+    for (int i = 0; i < dimension; ++i) {
+      scales[i] = (max[i] - min[i]) / MAX_CODE;
+    }
+    return new Int8Quantizer(min, scales);
+  }
+
+  /** Each record is the norm of the decoded vector, followed by a byte for each coordinate. */
+  @Override
+  public int getRecordBytes() {
+    return 4 + dimension;
+  }
+
+  /** Writes the offsets and scales, which take 8 bytes per dimension. */
+  @Override
+  public void writeToIndexOutput(IndexOutput outputStream) throws IOException {
+    for (float offset : offsets) outputStream.writeInt(Float.floatToIntBits(offset));
+    for (float scale : scales) outputStream.writeInt(Float.floatToIntBits(scale));
+  }
+
+  /** Reads offsets and scales written by {@link #writeToIndexOutput}. */
+  public static Int8Quantizer readFromIndexInput(IndexInput indexInput, int dimension) throws IOException {
+    float[] offsets = new float[dimension];
+    float[] scales = new float[dimension];
+    for (int i = 0; i < dimension; ++i) offsets[i] = Float.intBitsToFloat(indexInput.readInt());
+    for (int i = 0; i < dimension; ++i) scales[i] = Float.intBitsToFloat(indexInput.readInt());
+    return new Int8Quantizer(offsets, scales);
+  }
+
+  /** Returns the code for coordinate i. */
+  private int encode(int i, float coordinate) {
+    if (scales[i] == 0) return 0;
+    long code = Math.round((coordinate - offsets[i]) / scales[i]);
+    return (int) Math.max(0, Math.min(MAX_CODE, code));
+  }
+
+  /** Writes the norm of the decoded vector and the code for each coordinate. */
+  @Override
+  public void writeRecord(RealVector vector, IndexOutput outputStream) throws IOException {
+    float[] coordinates = vector.getCoordinates();
+    byte[] codes = new byte[dimension];
+    double normSq = 0;
+    for (int i = 0; i < dimension; ++i) {
+      int code = encode(i, coordinates[i]);
+      codes[i] = (byte) code;
+      float decoded = offsets[i] + scales[i] * code;
+      normSq += decoded * decoded;
+    }
+    outputStream.writeInt(Float.floatToIntBits((float) Math.sqrt(normSq)));
+    outputStream.writeBytes(codes, dimension);
+  }
+
+  @Override
+  public RealVector readRecord(ByteBuffer buffer, int position) {
+    float[] coordinates = new float[dimension];
+    for (int i = 0; i < dimension; ++i) {
+      coordinates[i] = offsets[i] + scales[i] * (buffer.get(position + 4 + i) & 0xFF);
+    }
+    return new RealVector(coordinates);
+  }
+
+  @Override
+  public RecordScorer getScorer(float[] query) {
+    return new Scorer(query);
+  }
+
+  private class Scorer implements RecordScorer {
+    private final float[] weights;
+    private final double offsetOverlap;
+    private final double queryNorm;
+
+    Scorer(float[] query) {
+      this.weights = new float[dimension];
+      double overlap = 0;
+      double normSq = 0;
+      for (int i = 0; i < dimension; ++i) {
+        weights[i] = query[i] * scales[i];
+        overlap += query[i] * offsets[i];
+        normSq += query[i] * query[i];
+      }
+      this.offsetOverlap = overlap;
+      this.queryNorm = Math.sqrt(normSq);
+    }
+
+    @Override
+    public double score(ByteBuffer buffer, int position) {
+      float norm = buffer.getFloat(position);
+      if (queryNorm == 0 || norm == 0) return 0;
+      int codesStart = position + 4;
+      float d0 = 0, d1 = 0, d2 = 0, d3 = 0;
+      int i = 0;
+      for (; i + 3 < dimension; i += 4) {
+        d0 += weights[i] * (buffer.get(codesStart + i) & 0xFF);
+        d1 += weights[i + 1] * (buffer.get(codesStart + i + 1) & 0xFF);
+        d2 += weights[i + 2] * (buffer.get(codesStart + i + 2) & 0xFF);
+        d3 += weights[i + 3] * (buffer.get(codesStart + i + 3) & 0xFF);
+      }
+      for (; i < dimension; ++i) {
+        d0 += weights[i] * (buffer.get(codesStart + i) & 0xFF);
+      }
+      return (offsetOverlap + d0 + d1 + d2 + d3) / (queryNorm * norm);
+    }
+  }
+}
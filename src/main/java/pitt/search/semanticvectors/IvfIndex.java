@@ -0,0 +1,261 @@
+/**
+   Copyright (c) 2026, the SemanticVectors AUTHORS.
+
+   All rights reserved.
+
+   Redistribution and use in source and binary forms, with or without
+   modification, are permitted provided that the following conditions are
+   met:
+
+   * Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+   * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the following
+   disclaimer in the documentation and/or other materials provided
+   with the distribution.
+
+   * Neither the name of the University of Pittsburgh nor the names
+   of its contributors may be used to endorse or promote products
+   derived from this software without specific prior written
+   permission.
+
+   THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+   "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+   LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+   A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+   CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+   EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+   PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+   PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+   LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+   NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+   SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+**/
+
+package pitt.search.semanticvectors;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Logger;
+
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.store.IndexOutput;
+
+import pitt.search.semanticvectors.utils.TopScores;
+import pitt.search.semanticvectors.utils.VerbatimLogger;
+import pitt.search.semanticvectors.vectors.Vector;
+import pitt.search.semanticvectors.vectors.VectorFactory;
+import pitt.search.semanticvectors.vectors.VectorUtils;
+
+/**
+ * Inverted file (IVF) search index. The vectors in a store are clustered using
+ * {@link ClusterResults#kMeansCluster}, and each record is put in the posting list of its nearest
+ * centroid. A search scans the posting lists of the {@link FlagConfig#ivfnprobe} centroids nearest
+ * to the query, and the {@link VectorSearcher} scores each of these candidates exactly. <p>
+ *
+ * There are {@link FlagConfig#ivfnumlists} posting lists. The centroids are trained on a sample of
+ * at most {@link #TRAINING_VECTORS_PER_LIST} vectors per list, so building the index is quick, and
+ * all vectors are then assigned to lists in parallel using {@link FlagConfig#numthreads} threads.
+ */
+public class IvfIndex implements SearchIndex {
+  private static final Logger logger = Logger.getLogger(IvfIndex.class.getCanonicalName());
+
+  /** Maximum number of vectors per posting list used to train the centroids. */
+  public static final int TRAINING_VECTORS_PER_LIST = 64;
+
+  /** Maximum number of k-means passes used to train the centroids. */
+  public static final int MAX_TRAINING_ITERATIONS = 100;
+
+  private final IndexedVectorStore store;
+  private final Vector[] centroids;
+  /** Record indices in each posting list, in increasing order. */
+  private final int[][] postingLists;
+  private int nprobe;
+
+  private IvfIndex(IndexedVectorStore store, Vector[] centroids, int[][] postingLists, int nprobe) {
+    this.store = store;
+    this.centroids = centroids;
+    this.postingLists = postingLists;
+    this.nprobe = nprobe;
+  }
+
+  /**
+   * Builds an index over all the records in the store, using the parameters in flagConfig.
+   */
+  public static IvfIndex build(final IndexedVectorStore store, FlagConfig flagConfig) {
+    if (flagConfig.ivfnumlists() < 1) {
+      throw new IllegalArgumentException("-ivfnumlists must be at least 1, not " + flagConfig.ivfnumlists());
+    }
+    long startTime = System.currentTimeMillis();
+    final int numVectors = store.getNumVectors();
+    int numLists = Math.max(1, Math.min(flagConfig.ivfnumlists(), numVectors));
+
+    // Train centroids on vectors spread evenly through the store.
+    int numTrainingVectors = (int) Math.min(numVectors, (long) numLists * TRAINING_VECTORS_PER_LIST);
+    ObjectVector[] trainingVectors = new ObjectVector[numTrainingVectors];
+    for (int i = 0; i < numTrainingVectors; ++i) {
+      trainingVectors[i] = store.getObjectVector((int) ((long) i * numVectors / numTrainingVectors));
+    }
+    final Vector[] centroids = (numVectors == 0) ? new Vector[0]
+        : ClusterResults.kMeansCluster(trainingVectors, numLists, MAX_TRAINING_ITERATIONS,
+            new Random(ClusterResults.DEFAULT_KMEANS_SEED), flagConfig).centroids;
+
+    // Assign every vector to its nearest centroid.
+    final int[] assignments = new int[numVectors];
+    int numThreads = Math.max(1, flagConfig.numthreads());
+    ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+    List<Future<?>> futures = new ArrayList<Future<?>>();
+    for (int t = 0; t < numThreads; ++t) {
+      final int start = (int) ((long) t * numVectors / numThreads);
+      final int end = (int) ((long) (t + 1) * numVectors / numThreads);
+      futures.add(executor.submit(new Runnable() {
+        @Override
+        public void run() {
+          for (int i = start; i < end; ++i) {
+            assignments[i] = VectorUtils.getNearestVector(store.getObjectVector(i).getVector(), centroids);
+          }
+        }
+      }));
+    }
+    executor.shutdown();
+    try {
+      for (Future<?> future : futures) future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Interrupted while building IVF index.", e);
+    } catch (ExecutionException e) {
+      throw new RuntimeException("Building IVF index failed.", e.getCause());
+    }
+
+    int[] listSizes = new int[centroids.length];
+    for (int assignment : assignments) ++listSizes[assignment];
+    int[][] postingLists = new int[centroids.length][];
+    for (int list = 0; list < centroids.length; ++list) postingLists[list] = new int[listSizes[list]];
+    int[] filled = new int[centroids.length];
+    for (int i = 0; i < numVectors; ++i) {
+      postingLists[assignments[i]][filled[assignments[i]]++] = i;
+    }
+    VerbatimLogger.info(String.format("Built IVF index for %d vectors with %d lists in %d ms.\n",
+        numVectors, centroids.length, System.currentTimeMillis() - startTime));
+    return new IvfIndex(store, centroids, postingLists, flagConfig.ivfnprobe());
+  }
+
+  @Override
+  public IndexedVectorStore getStore() {
+    return store;
+  }
+
+  /** Sets the number of posting lists scanned in each search. */
+  public void setNprobe(int nprobe) {
+    this.nprobe = nprobe;
+  }
+
+  public int getNprobe() {
+    return nprobe;
+  }
+
+  public int getNumLists() {
+    return postingLists.length;
+  }
+
+  /**
+   * Returns the records in the posting lists of the {@link FlagConfig#ivfnprobe} centroids
+   * nearest to the query.
+   */
+  @Override
+  public int[] getCandidates(Vector queryVector, int numResults) {
+    TopScores nearestLists = new TopScores(Math.max(1, Math.min(nprobe, centroids.length)));
+    for (int list = 0; list < centroids.length; ++list) {
+      double score = queryVector.measureOverlap(centroids[list]);
+      // Centroids of empty clusters are not a number after normalization.
+      if (!Double.isNaN(score)) nearestLists.offer(score, list);
+    }
+    int numCandidates = 0;
+    for (int i = 0; i < nearestLists.size(); ++i) {
+      numCandidates += postingLists[nearestLists.getId(i)].length;
+    }
+    int[] candidates = new int[numCandidates];
+    int position = 0;
+    for (int i = 0; i < nearestLists.size(); ++i) {
+      int[] postingList = postingLists[nearestLists.getId(i)];
+      System.arraycopy(postingList, 0, candidates, position, postingList.length);
+      position += postingList.length;
+    }
+    return candidates;
+  }
+
+  @Override
+  public void writeToFile(String indexFileName, SearchIndexUtils.VectorFileVersion version) throws IOException {
+    File indexFile = new File(indexFileName);
+    Files.deleteIfExists(indexFile.toPath());
+    String parentPath = indexFile.getParent();
+    if (parentPath == null) parentPath = "";
+    FSDirectory fsDirectory = FSDirectory.open(FileSystems.getDefault().getPath(parentPath));
+    IndexOutput output = fsDirectory.createOutput(indexFile.getName(), IOContext.DEFAULT);
+    version.writeToIndexOutput(output);
+    output.writeInt(centroids.length);
+    for (Vector centroid : centroids) {
+      centroid.writeToLuceneStream(output);
+    }
+    for (int[] postingList : postingLists) {
+      output.writeVInt(postingList.length);
+      int previous = 0;
+      for (int index : postingList) {
+        output.writeVInt(index - previous);
+        previous = index;
+      }
+    }
+    output.close();
+    fsDirectory.close();
+  }
+
+  /**
+   * Reads an index written by {@link #writeToFile} for the given store.
+   *
+   * @return the index, or null if it was built from a different version of the vector file
+   */
+  public static IvfIndex readFromFile(String indexFileName, IndexedVectorStore store,
+      FlagConfig flagConfig, SearchIndexUtils.VectorFileVersion version) throws IOException {
+    File indexFile = new File(indexFileName);
+    String parentPath = indexFile.getParent();
+    if (parentPath == null) parentPath = "";
+    FSDirectory fsDirectory = FSDirectory.open(FileSystems.getDefault().getPath(parentPath));
+    IndexInput input = fsDirectory.openInput(indexFile.getName(), IOContext.READONCE);
+    try {
+      if (!SearchIndexUtils.VectorFileVersion.readFromIndexInput(input).equals(version)) {
+        logger.info("Search index " + indexFileName + " is out of date.");
+        return null;
+      }
+      Vector[] centroids = new Vector[input.readInt()];
+      for (int list = 0; list < centroids.length; ++list) {
+        centroids[list] = VectorFactory.createZeroVector(flagConfig.vectortype(), flagConfig.dimension());
+        centroids[list].readFromLuceneStream(input);
+      }
+      int[][] postingLists = new int[centroids.length][];
+      for (int list = 0; list < centroids.length; ++list) {
+        postingLists[list] = new int[input.readVInt()];
+        int previous = 0;
+        for (int i = 0; i < postingLists[list].length; ++i) {
+          previous += input.readVInt();
+          postingLists[list][i] = previous;
+        }
+      }
+      return new IvfIndex(store, centroids, postingLists, flagConfig.ivfnprobe());
+    } finally {
+      input.close();
+      fsDirectory.close();
+    }
+  }
+}
@@ -0,0 +1,355 @@
+/**
+   Copyright (c) 2026, the SemanticVectors AUTHORS.
+
+   All rights reserved.
+
+   Redistribution and use in source and binary forms, with or without
+   modification, are permitted provided that the following conditions are
+   met:
+
+   * Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+   * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the following
+   disclaimer in the documentation and/or other materials provided
+   with the distribution.
+
+   * Neither the name of the University of Pittsburgh nor the names
+   of its contributors may be used to endorse or promote products
+   derived from this software without specific prior written
+   permission.
+
+   THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+   "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+   LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+   A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+   CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+   EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+   PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+   PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+   LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+   NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+   SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+**/
+
+package pitt.search.semanticvectors;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.logging.Logger;
+
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.store.IndexOutput;
+import org.apache.lucene.util.FixedBitSet;
+
+import pitt.search.semanticvectors.utils.TopScores;
+import pitt.search.semanticvectors.utils.VerbatimLogger;
+import pitt.search.semanticvectors.vectors.BinaryVector;
+import pitt.search.semanticvectors.vectors.BinaryVectorUtils;
+import pitt.search.semanticvectors.vectors.Vector;
+import pitt.search.semanticvectors.vectors.VectorType;
+
+/**
+ * Multi-index hashing (MIH) search index for {@link VectorType#BINARY} vectors, as described by
+ * Norouzi, Punjani and Fleet, "Fast Search in Hamming Space with Multi-Index Hashing" (2012). <p>
+ *
+ * Each bitset is split into {@link FlagConfig#mihsubstrings} substrings, and there is a hash
+ * table for each substring from its bits to the records that have them. If two vectors are less
+ * than m * (s + 1) bits apart, then at least one of their m substrings differs by at most s bits.
+ * So a search looks up the query's substrings, and then all substrings 1, 2, ... bits away from
+ * them, until enough of the candidates found are known to be nearer than any vector not yet found.
+ * This stops at the Hamming radius {@link FlagConfig#mihradius}. The candidates are then scored
+ * exactly by the {@link VectorSearcher}.
+ */
+public class MultiIndexHashingIndex implements SearchIndex {
+  private static final Logger logger = Logger.getLogger(MultiIndexHashingIndex.class.getCanonicalName());
+
+  private final IndexedVectorStore store;
+  private final int dimension;
+  private final int numSubstrings;
+  private int radius;
+  private final HashTable[] tables;
+
+  private MultiIndexHashingIndex(IndexedVectorStore store, int dimension, int radius, HashTable[] tables) {
+    this.store = store;
+    this.dimension = dimension;
+    this.numSubstrings = tables.length;
+    this.radius = radius;
+    this.tables = tables;
+  }
+
+  /**
+   * Builds an index over all the records in the store, using the parameters in flagConfig.
+   */
+  public static MultiIndexHashingIndex build(IndexedVectorStore store, FlagConfig flagConfig) {
+    if (flagConfig.vectortype() != VectorType.BINARY) {
+      throw new IllegalArgumentException(
+          "Multi-index hashing only works for binary vectors, not " + flagConfig.vectortype());
+    }
+    int dimension = flagConfig.dimension();
+    int numSubstrings = flagConfig.mihsubstrings();
+    if (numSubstrings < 1 || numSubstrings > dimension) {
+      throw new IllegalArgumentException(
+          "-mihsubstrings must be between 1 and the dimension, not " + numSubstrings);
+    }
+    long startTime = System.currentTimeMillis();
+    int numVectors = store.getNumVectors();
+    long[][] packedEntries = new long[numSubstrings][numVectors];
+    long[] substring = new long[maxSubstringWords(dimension, numSubstrings)];
+    for (int id = 0; id < numVectors; ++id) {
+      long[] bits = BinaryVectorUtils.getBits((BinaryVector) store.getObjectVector(id).getVector());
+      for (int j = 0; j < numSubstrings; ++j) {
+        int start = substringStart(j, dimension, numSubstrings);
+        int length = substringStart(j + 1, dimension, numSubstrings) - start;
+        extractBits(bits, start, length, substring);
+        packedEntries[j][id] = ((long) hashBits(substring, length) << 32) | id;
+      }
+    }
+    HashTable[] tables = new HashTable[numSubstrings];
+    for (int j = 0; j < numSubstrings; ++j) {
+      tables[j] = HashTable.fromPackedEntries(packedEntries[j]);
+      packedEntries[j] = null;
+    }
+    VerbatimLogger.info(String.format("Built multi-index hashing index for %d vectors with %d substrings in %d ms.\n",
+        numVectors, numSubstrings, System.currentTimeMillis() - startTime));
+    return new MultiIndexHashingIndex(store, dimension, flagConfig.mihradius(), tables);
+  }
+
+  @Override
+  public IndexedVectorStore getStore() {
+    return store;
+  }
+
+  /** Sets the largest Hamming distance from the query at which candidates are looked for. */
+  public void setRadius(int radius) {
+    this.radius = radius;
+  }
+
+  public int getRadius() {
+    return radius;
+  }
+
+  /**
+   * Returns records found by looking up substrings at increasing distances from the query's
+   * substrings, until numResults of them are nearer than any record not yet found, or the
+   * search reaches {@link FlagConfig#mihradius}.
+   */
+  @Override
+  public int[] getCandidates(Vector queryVector, int numResults) {
+    long[] queryBits = BinaryVectorUtils.getBits((BinaryVector) queryVector);
+    IndexedVectorStore.OverlapScorer scorer = store.getOverlapScorer(queryVector);
+    if (scorer == null) {
+      final Vector query = queryVector;
+      scorer = new IndexedVectorStore.OverlapScorer() {
+        @Override
+        public double score(int index) {
+          return query.measureOverlap(store.getObjectVector(index).getVector());
+        }
+      };
+    }
+    Probe probe = new Probe(store.getNumVectors(), Math.max(1, numResults), scorer);
+    long[] substring = new long[maxSubstringWords(dimension, numSubstrings)];
+    int maxSubstringRadius = radius / numSubstrings;
+    for (int substringRadius = 0; substringRadius <= maxSubstringRadius; ++substringRadius) {
+      for (int j = 0; j < numSubstrings; ++j) {
+        int start = substringStart(j, dimension, numSubstrings);
+        int length = substringStart(j + 1, dimension, numSubstrings) - start;
+        extractBits(queryBits, start, length, substring);
+        probe.lookUpNeighbors(tables[j], substring, length, 0, substringRadius);
+      }
+      // Every record less than numSubstrings * (substringRadius + 1) bits away has now been found.
+      long foundDistance = (long) numSubstrings * (substringRadius + 1) - 1;
+      if (probe.best.isFull() && probe.best.minScore() >= 1 - 2 * foundDistance / (double) dimension) break;
+    }
+    return Arrays.copyOf(probe.found, probe.numFound);
+  }
+
+  /** State of the lookups for one search. */
+  private static class Probe {
+    final FixedBitSet seen;
+    int[] found = new int[64];
+    int numFound = 0;
+    final TopScores best;
+    final IndexedVectorStore.OverlapScorer scorer;
+
+    Probe(int numVectors, int numResults, IndexedVectorStore.OverlapScorer scorer) {
+      this.seen = new FixedBitSet(Math.max(1, numVectors));
+      this.best = new TopScores(numResults);
+      this.scorer = scorer;
+    }
+
+    /**
+     * Looks up all substrings that differ from the given one in exactly numFlips bits,
+     * at positions from firstPosition on. The substring is restored before returning.
+     */
+    void lookUpNeighbors(HashTable table, long[] substring, int length, int firstPosition, int numFlips) {
+      if (numFlips == 0) {
+        addAll(table, hashBits(substring, length));
+        return;
+      }
+      for (int position = firstPosition; position <= length - numFlips; ++position) {
+        substring[position >>> 6] ^= 1L << position;
+        lookUpNeighbors(table, substring, length, position + 1, numFlips - 1);
+        substring[position >>> 6] ^= 1L << position;
+      }
+    }
+
+    private void addAll(HashTable table, int key) {
+      int k = Arrays.binarySearch(table.keys, key);
+      if (k < 0) return;
+      for (int i = table.starts[k]; i < table.starts[k + 1]; ++i) {
+        int id = table.ids[i];
+        if (seen.getAndSet(id)) continue;
+        if (numFound == found.length) found = Arrays.copyOf(found, 2 * numFound);
+        found[numFound++] = id;
+        best.offer(scorer.score(id), id);
+      }
+    }
+  }
+
+  /** Position of the first bit of substring j, or the dimension if j is numSubstrings. */
+  private static int substringStart(int j, int dimension, int numSubstrings) {
+    return (int) ((long) j * dimension / numSubstrings);
+  }
+
+  private static int maxSubstringWords(int dimension, int numSubstrings) {
+    return (dimension / numSubstrings + 1 + 63) / 64;
+  }
+
+  /** Copies length bits of bits from the given start position into the low bits of substring. */
+  private static void extractBits(long[] bits, int start, int length, long[] substring) {
+    int numWords = (length + 63) / 64;
+    for (int w = 0; w < numWords; ++w) {
+      int bit = start + 64 * w;
+      int word = bit >>> 6;
+      int shift = bit & 63;
+      long value = bits[word] >>> shift;
+      if (shift != 0 && word + 1 < bits.length) value |= bits[word + 1] << (64 - shift);
+      int remaining = length - 64 * w;
+      if (remaining < 64) value &= (1L << remaining) - 1;
+      substring[w] = value;
+    }
+  }
+
+  /** Hashes the first length bits of the substring. */
+  private static int hashBits(long[] substring, int length) {
+    long hash = length;
+    for (int w = 0; w < (length + 63) / 64; ++w) {
+      hash = (hash ^ substring[w]) * 0x9E3779B97F4A7C15L;
+      hash ^= hash >>> 29;
+    }
+    return (int) (hash ^ (hash >>> 32));
+  }
+
+  /**
+   * Table from substring hashes to records, as sorted arrays: the records with hash keys[k]
+   * are ids[starts[k]] up to but not including ids[starts[k + 1]].
+   */
+  private static class HashTable {
+    final int[] keys;
+    final int[] starts;
+    final int[] ids;
+
+    HashTable(int[] keys, int[] starts, int[] ids) {
+      this.keys = keys;
+      this.starts = starts;
+      this.ids = ids;
+    }
+
+    /** Creates a table from entries with the hash in the high 32 bits and the id in the low 32 bits. */
+    static HashTable fromPackedEntries(long[] packedEntries) {
+      Arrays.sort(packedEntries);
+      int numKeys = 0;
+      for (int i = 0; i < packedEntries.length; ++i) {
+        if (i == 0 || (packedEntries[i] >> 32) != (packedEntries[i - 1] >> 32)) ++numKeys;
+      }
+      int[] keys = new int[numKeys];
+      int[] starts = new int[numKeys + 1];
+      int[] ids = new int[packedEntries.length];
+      int k = -1;
+      for (int i = 0; i < packedEntries.length; ++i) {
+        int key = (int) (packedEntries[i] >> 32);
+        if (k < 0 || keys[k] != key) {
+          keys[++k] = key;
+          starts[k] = i;
+        }
+        ids[i] = (int) packedEntries[i];
+      }
+      starts[numKeys] = packedEntries.length;
+      return new HashTable(keys, starts, ids);
+    }
+  }
+
+  @Override
+  public void writeToFile(String indexFileName, SearchIndexUtils.VectorFileVersion version) throws IOException {
+    File indexFile = new File(indexFileName);
+    Files.deleteIfExists(indexFile.toPath());
+    String parentPath = indexFile.getParent();
+    if (parentPath == null) parentPath = "";
+    FSDirectory fsDirectory = FSDirectory.open(FileSystems.getDefault().getPath(parentPath));
+    IndexOutput output = fsDirectory.createOutput(indexFile.getName(), IOContext.DEFAULT);
+    version.writeToIndexOutput(output);
+    output.writeInt(dimension);
+    output.writeInt(numSubstrings);
+    for (HashTable table : tables) {
+      output.writeVInt(table.keys.length);
+      for (int k = 0; k < table.keys.length; ++k) {
+        output.writeInt(table.keys[k]);
+        output.writeVInt(table.starts[k + 1] - table.starts[k]);
+        for (int i = table.starts[k]; i < table.starts[k + 1]; ++i) output.writeVInt(table.ids[i]);
+      }
+    }
+    output.close();
+    fsDirectory.close();
+  }
+
+  /**
+   * Reads an index written by {@link #writeToFile} for the given store.
+   *
+   * @return the index, or null if it was built from a different version of the vector file
+   *     or with a different number of substrings
+   */
+  public static MultiIndexHashingIndex readFromFile(String indexFileName, IndexedVectorStore store,
+      FlagConfig flagConfig, SearchIndexUtils.VectorFileVersion version) throws IOException {
+    File indexFile = new File(indexFileName);
+    String parentPath = indexFile.getParent();
+    if (parentPath == null) parentPath = "";
+    FSDirectory fsDirectory = FSDirectory.open(FileSystems.getDefault().getPath(parentPath));
+    IndexInput input = fsDirectory.openInput(indexFile.getName(), IOContext.READONCE);
+    try {
+      if (!SearchIndexUtils.VectorFileVersion.readFromIndexInput(input).equals(version)) {
+        logger.info("Search index " + indexFileName + " is out of date.");
+        return null;
+      }
+      int dimension = input.readInt();
+      int numSubstrings = input.readInt();
+      if (numSubstrings != flagConfig.mihsubstrings()) {
+        logger.info("Search index " + indexFileName + " has " + numSubstrings + " substrings, not "
+            + flagConfig.mihsubstrings() + ".");
+        return null;
+      }
+      HashTable[] tables = new HashTable[numSubstrings];
+      for (int j = 0; j < numSubstrings; ++j) {
+        int[] keys = new int[input.readVInt()];
+        int[] starts = new int[keys.length + 1];
+        int[] ids = new int[store.getNumVectors()];
+        for (int k = 0; k < keys.length; ++k) {
+          keys[k] = input.readInt();
+          starts[k + 1] = starts[k] + input.readVInt();
+          for (int i = starts[k]; i < starts[k + 1]; ++i) ids[i] = input.readVInt();
+        }
+        tables[j] = new HashTable(keys, starts, ids);
+      }
+      return new MultiIndexHashingIndex(store, dimension, flagConfig.mihradius(), tables);
+    } finally {
+      input.close();
+      fsDirectory.close();
+    }
+  }
+}
@@ -0,0 +1,211 @@
+/**
+   Copyright (c) 2026, the SemanticVectors AUTHORS.
+
+   All rights reserved.
+
+   Redistribution and use in source and binary forms, with or without
+   modification, are permitted provided that the following conditions are
+   met:
+
+   * Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+   * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the following
+   disclaimer in the documentation and/or other materials provided
+   with the distribution.
+
+   * Neither the name of the University of Pittsburgh nor the names
+   of its contributors may be used to endorse or promote products
+   derived from this software without specific prior written
+   permission.
+
+   THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+   "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+   LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+   A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+   CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+   EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+   PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+   PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+   LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+   NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+   SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+**/
+
+package pitt.search.semanticvectors;
+
+import java.nio.FloatBuffer;
+import java.nio.LongBuffer;
+
+import pitt.search.semanticvectors.IndexedVectorStore.OverlapScorer;
+import pitt.search.semanticvectors.vectors.BinaryVector;
+import pitt.search.semanticvectors.vectors.BinaryVectorUtils;
+import pitt.search.semanticvectors.vectors.ComplexVector;
+
+/**
+ * {@link OverlapScorer}s for stores that keep each record as a fixed number of floats or longs
+ * in buffers, such as {@link VectorStoreSlab} and {@link VectorStoreReaderMmap}. Each scorer
+ * reads the coordinates of the query from an array and those of each record in place,
+ * finding the record through a {@link FloatRecords} or {@link LongRecords} given by the store.
+ */
+final class OverlapScorers {
+
+  private OverlapScorers() {}
+
+  /** Locates records of floats, in the layout used by {@link HalfFloats} for full precision. */
+  interface FloatRecords {
+    /** Returns the buffer that holds the record with the given index. */
+    FloatBuffer getFloats(int index);
+
+    /** Returns the position of the first float of the record with the given index in its buffer. */
+    int getPosition(int index);
+  }
+
+  /** Locates records of 64-bit words, as written for {@link BinaryVector}s. */
+  interface LongRecords {
+    /** Returns the buffer that holds the record with the given index. */
+    LongBuffer getLongs(int index);
+
+    /** Returns the position of the first word of the record with the given index in its buffer. */
+    int getPosition(int index);
+  }
+
+  /** Scores real records by cosine similarity with the query. */
+  static class RealOverlapScorer implements OverlapScorer {
+    private final float[] query;
+    private final double queryNormSq;
+    private final FloatRecords records;
+
+    RealOverlapScorer(float[] query, FloatRecords records) {
+      this.query = query;
+      double normSq = 0;
+      for (float coordinate : query) normSq += coordinate * coordinate;
+      this.queryNormSq = normSq;
+      this.records = records;
+    }
+
+    @Override
+    public double score(int index) {
+      FloatBuffer buffer = records.getFloats(index);
+      int base = records.getPosition(index);
+      double result = 0;
+      double normSq = 0;
+      for (int i = 0; i < query.length; ++i) {
+        float coordinate = buffer.get(base + i);
+        result += query[i] * coordinate;
+        normSq += coordinate * coordinate;
+      }
+      if (queryNormSq == 0 || normSq == 0) return 0;
+      return result / Math.sqrt(queryNormSq * normSq);
+    }
+  }
+
+  /**
+   * Scores binary records by Hamming distance from the query. Records that can't beat a minimum
+   * score are abandoned part way through.
+   */
+  static class BinaryOverlapScorer implements OverlapScorer {
+    /** Number of words between checks of the distance so far against the maximum. */
+    private static final int BLOCK_WORDS = 16;
+
+    private final long[] query;
+    private final long queryCardinality;
+    private final int dimension;
+    private final LongRecords records;
+
+    BinaryOverlapScorer(long[] query, int dimension, LongRecords records) {
+      this.query = query;
+      long cardinality = 0;
+      for (long word : query) cardinality += Long.bitCount(word);
+      this.queryCardinality = cardinality;
+      this.dimension = dimension;
+      this.records = records;
+    }
+
+    @Override
+    public double score(int index) {
+      return score(index, Double.NEGATIVE_INFINITY);
+    }
+
+    @Override
+    public double score(int index, double minScore) {
+      if (queryCardinality == 0) return 0;
+      // Zero records score 0, so they can only be skipped if 0 isn't good enough.
+      long maxDistance = (minScore < 0) ? Long.MAX_VALUE
+          : BinaryVectorUtils.getMaxHammingDistance(minScore, dimension);
+      LongBuffer buffer = records.getLongs(index);
+      int base = records.getPosition(index);
+      long hammingDistance = 0;
+      for (int i = 0; i < query.length; ++i) {
+        hammingDistance += Long.bitCount(query[i] ^ buffer.get(base + i));
+        if (i % BLOCK_WORDS == BLOCK_WORDS - 1 && hammingDistance > maxDistance) break;
+      }
+      // Only a record at the same distance as the zero vector can be the zero vector.
+      if (hammingDistance == queryCardinality && isZero(buffer, base)) return 0;
+      // As in BinaryVector#measureOverlap.
+      return 2 * (0.5 - (hammingDistance / (double) dimension));
+    }
+
+    private boolean isZero(LongBuffer buffer, int base) {
+      for (int i = base; i < base + query.length; ++i) {
+        if (buffer.get(i) != 0) return false;
+      }
+      return true;
+    }
+  }
+
+  /**
+   * Scores complex records in cartesian form as {@link ComplexVector#measureOverlap} does in
+   * {@link ComplexVector.Mode#CARTESIAN} or {@link ComplexVector.Mode#HERMITIAN} mode.
+   */
+  static class ComplexOverlapScorer implements OverlapScorer {
+    private final float[] query;
+    private final ComplexVector.Mode mode;
+    private final FloatRecords records;
+
+    ComplexOverlapScorer(float[] query, ComplexVector.Mode mode, FloatRecords records) {
+      this.query = query;
+      this.mode = mode;
+      this.records = records;
+    }
+
+    @Override
+    public double score(int index) {
+      FloatBuffer buffer = records.getFloats(index);
+      int base = records.getPosition(index);
+      if (mode == ComplexVector.Mode.HERMITIAN) {
+        double result = 0;
+        double norm1 = 0;
+        double norm2 = 0;
+        for (int i = 0; i < query.length; ++i) {
+          float coordinate = buffer.get(base + i);
+          result += query[i] * coordinate;
+          norm1 += query[i] * query[i];
+          norm2 += coordinate * coordinate;
+        }
+        if (norm1 == 0 || norm2 == 0) return 0;
+        return result / Math.sqrt(norm1 * norm2);
+      }
+      double cumulativeCosine = 0;
+      int nonZeroDimensionPairs = 0;
+      for (int i = 0; i < query.length; i += 2) {
+        float re = buffer.get(base + i);
+        float im = buffer.get(base + i + 1);
+        double resultThisPair = query[i] * re;
+        resultThisPair += query[i + 1] * im;
+        double norm1 = query[i] * query[i];
+        norm1 += query[i + 1] * query[i + 1];
+        double norm2 = re * re;
+        norm2 += im * im;
+        norm1 = Math.sqrt(norm1);
+        norm2 = Math.sqrt(norm2);
+        if (norm1 > 0 && norm2 > 0) {
+          cumulativeCosine += resultThisPair / (norm1 * norm2);
+          ++nonZeroDimensionPairs;
+        }
+      }
+      return (nonZeroDimensionPairs != 0) ? (cumulativeCosine / nonZeroDimensionPairs) : 0;
+    }
+  }
+}
@@ -45,11 +45,16 @@ import org.apache.lucene.util.BytesRef;
 import pitt.search.semanticvectors.LuceneUtils.TermWeight;
 import pitt.search.semanticvectors.utils.VerbatimLogger;
 import pitt.search.semanticvectors.vectors.PermutationUtils;
+import pitt.search.semanticvectors.vectors.RealVector;
+import pitt.search.semanticvectors.vectors.RealVector.RealBindMethod;
+import pitt.search.semanticvectors.vectors.RealVectorSpectrum;
 import pitt.search.semanticvectors.vectors.Vector;
 import pitt.search.semanticvectors.vectors.VectorFactory;
+import pitt.search.semanticvectors.vectors.VectorType;
 
 import java.io.IOException;
 import java.util.Enumeration;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.logging.Logger;
 
@@ -73,6 +78,12 @@ public class PSI {
   private String[] itemFields = {SUBJECT_FIELD, OBJECT_FIELD};
   private LuceneUtils luceneUtils;
   private int[] predicatePermutation;
+  /**
+   * Transforms of the elemental predicate vectors used in the current round of training, so that
+   * binding with a predicate by convolution takes one forward transform instead of two.
+   * Null if real vectors aren't bound by convolution.
+   */
+  private HashMap<String, RealVectorSpectrum> predicateTransforms;
 
   private PSI(FlagConfig flagConfig) {
 	  predicatePermutation = PermutationUtils.getShiftPermutation(flagConfig.vectortype(), flagConfig.dimension(), 1);
@@ -185,6 +196,23 @@ public class PSI {
     }
   }
 
+  /**
+   * Binds the vector with the elemental vector for the predicate, using the predicate's cached
+   * transform if real vectors are bound by convolution.
+   */
+  private void bindWithPredicate(Vector vector, String predicate, Vector predicateVector) {
+    if (predicateTransforms == null) {
+      vector.bind(predicateVector);
+      return;
+    }
+    RealVectorSpectrum transform = predicateTransforms.get(predicate);
+    if (transform == null) {
+      transform = new RealVectorSpectrum((RealVector) predicateVector);
+      predicateTransforms.put(predicate, transform);
+    }
+    ((RealVector) vector).bind(transform);
+  }
+
   /**
    * Performs training by iterating over predications. Assumes that elemental vector stores are populated.
    *
@@ -192,6 +220,11 @@ public class PSI {
    */
   private void trainIncrementalPSIVectors(String iterationTag) throws IOException {
     String fieldName = PREDICATION_FIELD;
+    // Elemental predicate vectors change between rounds, so their transforms are recomputed.
+    predicateTransforms = null;
+    if (flagConfig.vectortype() == VectorType.REAL && RealVector.BIND_METHOD != RealBindMethod.PERMUTATION) {
+      predicateTransforms = new HashMap<String, RealVectorSpectrum>();
+    }
     // Iterate through documents (each document = one predication).
     Terms allTerms = luceneUtils.getTermsForField(fieldName);
     TermsEnum termsEnum = allTerms.iterator();
@@ -246,11 +279,11 @@ public class PSI {
       Vector predicateElementalVectorInv = elementalPredicateVectors.getVector(predicate + "-INV");
 
       Vector objToAdd = objectElementalVector.copy();
-      objToAdd.bind(predicateElementalVector);
+      bindWithPredicate(objToAdd, predicate, predicateElementalVector);
       subjectSemanticVector.superpose(objToAdd, pWeight * (oWeight + predWeight), null);
 
       Vector subjToAdd = subjectElementalVector.copy();
-      subjToAdd.bind(predicateElementalVectorInv);
+      bindWithPredicate(subjToAdd, predicate + "-INV", predicateElementalVectorInv);
       objectSemanticVector.superpose(subjToAdd, pWeight * (sWeight + predWeight), null);
 
       if (flagConfig.trainingcycles() > 0) //for experiments with generating iterative predicate vectors
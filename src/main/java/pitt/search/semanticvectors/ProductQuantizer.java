@@ -0,0 +1,366 @@
+/**
+   Copyright (c) 2026, the SemanticVectors AUTHORS.
+
+   All rights reserved.
+
+   Redistribution and use in source and binary forms, with or without
+   modification, are permitted provided that the following conditions are
+   met:
+
+   * Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+   * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the following
+   disclaimer in the documentation and/or other materials provided
+   with the distribution.
+
+   * Neither the name of the University of Pittsburgh nor the names
+   of its contributors may be used to endorse or promote products
+   derived from this software without specific prior written
+   permission.
+
+   THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+   "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+   LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+   A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+   CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+   EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+   PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+   PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+   LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+   NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+   SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+**/
+
+package pitt.search.semanticvectors;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.store.IndexOutput;
+
+import pitt.search.semanticvectors.utils.VerbatimLogger;
+import pitt.search.semanticvectors.vectors.RealVector;
+
+/**
+ * Product quantization of real vectors, used for {@link VectorStoreUtils.VectorPrecision#PQ} files. <p>
+ *
+ * The coordinates are split into {@link FlagConfig#pqsubspaces} contiguous subspaces, and each
+ * subspace has a codebook of up to {@link #MAX_CENTROIDS} centroids. A vector is stored as the
+ * norm of the decoded vector as a float, followed by the index of the nearest centroid in each
+ * subspace, so 50M 512-dimensional vectors with 64 subspaces take under 4GB. <p>
+ *
+ * The codebooks are trained on a sample of at most {@link #TRAINING_VECTORS_PER_CENTROID} vectors
+ * per centroid, using Lloyd's k-means with Euclidean distance on the raw sub-vectors, so that
+ * training minimizes the same distance used to encode vectors. Initial centroids are chosen
+ * with a seeded random number generator, so training on the same vectors gives the same codebooks. <p>
+ *
+ * The overlap between a query and a record is the sum over subspaces of the overlap between
+ * the query and the chosen centroid, divided by the norms. The scorer computes a table of these
+ * overlaps for every centroid once per query, so each record is scored with one lookup per subspace.
+ */
+public class ProductQuantizer implements RealVectorCodec {
+  /** Largest number of centroids in each subspace, so that each code fits in a byte. */
+  public static final int MAX_CENTROIDS = 256;
+
+  /** Number of sampled vectors used to train each centroid. */
+  public static final int TRAINING_VECTORS_PER_CENTROID = 16;
+
+  /** Maximum number of k-means passes used to train each codebook. */
+  public static final int MAX_TRAINING_ITERATIONS = 25;
+
+  private final int dimension;
+  private final int numSubspaces;
+  private final int numCentroids;
+  /** Start of each subspace, with an extra entry for the dimension. */
+  private final int[] subspaceStarts;
+  /** Centroids for each subspace, as consecutive sub-vectors. */
+  private final float[][] codebooks;
+
+  public ProductQuantizer(int dimension, int numCentroids, float[][] codebooks) {
+    this.dimension = dimension;
+    this.numSubspaces = codebooks.length;
+    this.numCentroids = numCentroids;
+    this.subspaceStarts = getSubspaceStarts(dimension, numSubspaces);
+    for (int j = 0; j < numSubspaces; ++j) {
+      if (codebooks[j].length != numCentroids * getSubspaceDimension(j)) {
+        throw new IllegalArgumentException("Codebook " + j + " has the wrong size for dimension " + dimension);
+      }
+    }
+    this.codebooks = codebooks;
+  }
+
+  private static int[] getSubspaceStarts(int dimension, int numSubspaces) {
+    if (numSubspaces < 1 || numSubspaces > dimension) {
+      throw new IllegalArgumentException("Number of subspaces must be between 1 and the dimension "
+          + dimension + ", not " + numSubspaces);
+    }
+    int[] starts = new int[numSubspaces + 1];
+    for (int j = 0; j <= numSubspaces; ++j) {
+      starts[j] = (int) ((long) j * dimension / numSubspaces);
+    }
+    return starts;
+  }
+
+  private int getSubspaceDimension(int subspace) {
+    return subspaceStarts[subspace + 1] - subspaceStarts[subspace];
+  }
+
+  /**
+   * Trains codebooks with {@link FlagConfig#pqsubspaces} subspaces on a sample of the vectors in
+   * the store. Subspaces are trained in parallel using {@link FlagConfig#numthreads} threads.
+   */
+  public static ProductQuantizer train(VectorStore vectorStore, FlagConfig flagConfig) {
+    long startTime = System.currentTimeMillis();
+    final int dimension = flagConfig.dimension();
+    final int[] subspaceStarts = getSubspaceStarts(dimension, flagConfig.pqsubspaces());
+    final int numSubspaces = flagConfig.pqsubspaces();
+
+    // Sample vectors spread evenly through the store.
+    int numVectors = vectorStore.getNumVectors();
+    int numTrainingVectors = Math.min(numVectors, MAX_CENTROIDS * TRAINING_VECTORS_PER_CENTROID);
+    final List<float[]> sample = new ArrayList<float[]>(numTrainingVectors);
+    Enumeration<ObjectVector> vecEnum = vectorStore.getAllVectors();
+    for (int i = 0; vecEnum.hasMoreElements() && sample.size() < numTrainingVectors; ++i) {
+      ObjectVector objectVector = vecEnum.nextElement();
+      if ((long) sample.size() * numVectors / numTrainingVectors == i) {
+        sample.add(((RealVector) objectVector.getVector()).getCoordinates());
+      }
+    }
+    final int numCentroids = Math.max(1, Math.min(MAX_CENTROIDS, sample.size()));
+
+    final float[][] codebooks = new float[numSubspaces][];
+    int numThreads = Math.max(1, Math.min(numSubspaces, flagConfig.numthreads()));
+    ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+    List<Future<?>> futures = new ArrayList<Future<?>>();
+    for (int j = 0; j < numSubspaces; ++j) {
+      final int subspace = j;
+      futures.add(executor.submit(new Runnable() {
+        @Override
+        public void run() {
+          codebooks[subspace] = trainCodebook(sample, subspaceStarts[subspace],
+              subspaceStarts[subspace + 1] - subspaceStarts[subspace], numCentroids,
+              new Random(ClusterResults.DEFAULT_KMEANS_SEED + subspace));
+        }
+      }));
+    }
+    executor.shutdown();
+    try {
+      for (Future<?> future : futures) future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Interrupted while training product quantizer.", e);
+    } catch (ExecutionException e) {
+      throw new RuntimeException("Training product quantizer failed.", e.getCause());
+    }
+    VerbatimLogger.info(String.format("Trained product quantizer with %d subspaces on %d vectors in %d ms.\n",
+        numSubspaces, sample.size(), System.currentTimeMillis() - startTime));
+    return new ProductQuantizer(dimension, numCentroids, codebooks);
+  }
+
+  /**
+   * Clusters the sub-vectors of the sample starting at the given coordinate using Lloyd's k-means
+   * with Euclidean distance, and returns the centroids as consecutive sub-vectors. The initial
+   * centroids are distinct members of the sample chosen using random.
+   */
+  private static float[] trainCodebook(
+      List<float[]> sample, int start, int subDimension, int numCentroids, Random random) {
+    float[] codebook = new float[numCentroids * subDimension];
+    if (sample.isEmpty()) return codebook;
+    float[][] subVectors = new float[sample.size()][];
+    for (int i = 0; i < subVectors.length; ++i) {
+      subVectors[i] = new float[subDimension];
+      System.arraycopy(sample.get(i), start, subVectors[i], 0, subDimension);
+    }
+
+    // Start from a random choice of sample members, using a partial Fisher-Yates shuffle.
+    int[] order = new int[subVectors.length];
+    for (int i = 0; i < order.length; ++i) order[i] = i;
+    for (int c = 0; c < numCentroids; ++c) {
+      int chosen = c + random.nextInt(order.length - c);
+      int swap = order[c];
+      order[c] = order[chosen];
+      order[chosen] = swap;
+      System.arraycopy(subVectors[order[c]], 0, codebook, c * subDimension, subDimension);
+    }
+
+    int[] mappings = new int[subVectors.length];
+    Arrays.fill(mappings, -1);
+    int[] counts = new int[numCentroids];
+    float[] sums = new float[numCentroids * subDimension];
+    for (int iteration = 0; iteration < MAX_TRAINING_ITERATIONS; ++iteration) {
+      boolean changed = false;
+      for (int i = 0; i < subVectors.length; ++i) {
+        int nearest = getNearestCentroid(codebook, numCentroids, subDimension, subVectors[i], 0);
+        if (nearest != mappings[i]) {
+          mappings[i] = nearest;
+          changed = true;
+        }
+      }
+      if (!changed) break;
+      Arrays.fill(counts, 0);
+      Arrays.fill(sums, 0);
+      for (int i = 0; i < subVectors.length; ++i) {
+        int offset = mappings[i] * subDimension;
+        for (int d = 0; d < subDimension; ++d) sums[offset + d] += subVectors[i][d];
+        ++counts[mappings[i]];
+      }
+      // Centroids of empty clusters are left where they were.
+      for (int c = 0; c < numCentroids; ++c) {
+        if (counts[c] == 0) continue;
+        for (int d = 0; d < subDimension; ++d) {
+          codebook[c * subDimension + d] = sums[c * subDimension + d] / counts[c];
+        }
+      }
+    }
+    return codebook;
+  }
+
+  /**
+   * Returns the index of the centroid in the codebook with the smallest Euclidean distance to the
+   * sub-vector of coordinates starting at start.
+   */
+  private static int getNearestCentroid(
+      float[] codebook, int numCentroids, int subDimension, float[] coordinates, int start) {
+    int best = 0;
+    double bestDistance = Double.MAX_VALUE;
+    for (int c = 0; c < numCentroids; ++c) {
+      double distance = 0;
+      int offset = c * subDimension;
+      for (int d = 0; d < subDimension; ++d) {
+        double diff = coordinates[start + d] - codebook[offset + d];
+        distance += diff * diff;
+      }
+      if (distance < bestDistance) {
+        bestDistance = distance;
+        best = c;
+      }
+    }
+    return best;
+  }
+
+  /** Each record is the norm of the decoded vector, followed by a byte for each subspace. */
+  @Override
+  public int getRecordBytes() {
+    return 4 + numSubspaces;
+  }
+
+  /** Writes the number of subspaces and centroids, followed by the codebooks. */
+  @Override
+  public void writeToIndexOutput(IndexOutput outputStream) throws IOException {
+    outputStream.writeInt(numSubspaces);
+    outputStream.writeInt(numCentroids);
+    for (float[] codebook : codebooks) {
+      for (float coordinate : codebook) outputStream.writeInt(Float.floatToIntBits(coordinate));
+    }
+  }
+
+  /** Reads codebooks written by {@link #writeToIndexOutput}. */
+  public static ProductQuantizer readFromIndexInput(IndexInput indexInput, int dimension) throws IOException {
+    int numSubspaces = indexInput.readInt();
+    int numCentroids = indexInput.readInt();
+    int[] subspaceStarts = getSubspaceStarts(dimension, numSubspaces);
+    float[][] codebooks = new float[numSubspaces][];
+    for (int j = 0; j < numSubspaces; ++j) {
+      codebooks[j] = new float[numCentroids * (subspaceStarts[j + 1] - subspaceStarts[j])];
+      for (int i = 0; i < codebooks[j].length; ++i) {
+        codebooks[j][i] = Float.intBitsToFloat(indexInput.readInt());
+      }
+    }
+    return new ProductQuantizer(dimension, numCentroids, codebooks);
+  }
+
+  /** Returns the index of the centroid nearest to the sub-vector in the given subspace. */
+  private int encode(int subspace, float[] coordinates) {
+    return getNearestCentroid(codebooks[subspace], numCentroids, getSubspaceDimension(subspace),
+        coordinates, subspaceStarts[subspace]);
+  }
+
+  /** Writes the norm of the decoded vector and the nearest centroid in each subspace. */
+  @Override
+  public void writeRecord(RealVector vector, IndexOutput outputStream) throws IOException {
+    float[] coordinates = vector.getCoordinates();
+    byte[] codes = new byte[numSubspaces];
+    double normSq = 0;
+    for (int j = 0; j < numSubspaces; ++j) {
+      int code = encode(j, coordinates);
+      codes[j] = (byte) code;
+      int subDimension = getSubspaceDimension(j);
+      for (int d = 0; d < subDimension; ++d) {
+        float decoded = codebooks[j][code * subDimension + d];
+        normSq += decoded * decoded;
+      }
+    }
+    outputStream.writeInt(Float.floatToIntBits((float) Math.sqrt(normSq)));
+    outputStream.writeBytes(codes, numSubspaces);
+  }
+
+  @Override
+  public RealVector readRecord(ByteBuffer buffer, int position) {
+    float[] coordinates = new float[dimension];
+    for (int j = 0; j < numSubspaces; ++j) {
+      int code = buffer.get(position + 4 + j) & 0xFF;
+      int subDimension = getSubspaceDimension(j);
+      System.arraycopy(codebooks[j], code * subDimension, coordinates, subspaceStarts[j], subDimension);
+    }
+    return new RealVector(coordinates);
+  }
+
+  @Override
+  public RecordScorer getScorer(float[] query) {
+    return new Scorer(query);
+  }
+
+  /** Scores records by looking up the overlap of the query with each centroid. */
+  private class Scorer implements RecordScorer {
+    /** Overlap of the query with centroid c of subspace j, at {@code j * numCentroids + c}. */
+    private final float[] tables;
+    private final double queryNorm;
+
+    Scorer(float[] query) {
+      this.tables = new float[numSubspaces * numCentroids];
+      double normSq = 0;
+      for (int i = 0; i < dimension; ++i) normSq += query[i] * query[i];
+      this.queryNorm = Math.sqrt(normSq);
+      for (int j = 0; j < numSubspaces; ++j) {
+        int start = subspaceStarts[j];
+        int subDimension = getSubspaceDimension(j);
+        float[] codebook = codebooks[j];
+        for (int c = 0; c < numCentroids; ++c) {
+          float overlap = 0;
+          int offset = c * subDimension;
+          for (int d = 0; d < subDimension; ++d) overlap += query[start + d] * codebook[offset + d];
+          tables[j * numCentroids + c] = overlap;
+        }
+      }
+    }
+
+    @Override
+    public double score(ByteBuffer buffer, int position) {
+      float norm = buffer.getFloat(position);
+      if (queryNorm == 0 || norm == 0) return 0;
+      int codesStart = position + 4;
+      float d0 = 0, d1 = 0;
+      int j = 0;
+      for (; j + 1 < numSubspaces; j += 2) {
+        d0 += tables[j * numCentroids + (buffer.get(codesStart + j) & 0xFF)];
+        d1 += tables[(j + 1) * numCentroids + (buffer.get(codesStart + j + 1) & 0xFF)];
+      }
+      if (j < numSubspaces) {
+        d0 += tables[j * numCentroids + (buffer.get(codesStart + j) & 0xFF)];
+      }
+      return (d0 + d1) / (queryNorm * norm);
+    }
+  }
+}
@@ -0,0 +1,79 @@
+/**
+   Copyright (c) 2026, the SemanticVectors AUTHORS.
+
+   All rights reserved.
+
+   Redistribution and use in source and binary forms, with or without
+   modification, are permitted provided that the following conditions are
+   met:
+
+   * Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+   * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the following
+   disclaimer in the documentation and/or other materials provided
+   with the distribution.
+
+   * Neither the name of the University of Pittsburgh nor the names
+   of its contributors may be used to endorse or promote products
+   derived from this software without specific prior written
+   permission.
+
+   THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+   "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+   LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+   A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+   CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+   EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+   PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+   PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+   LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+   NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+   SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+**/
+
+package pitt.search.semanticvectors;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.apache.lucene.store.IndexOutput;
+
+import pitt.search.semanticvectors.vectors.RealVector;
+
+/**
+ * Encoding of real vectors into fixed size records with less than full precision, used for
+ * {@link VectorStoreUtils.VectorStoreFormat#MMAP} files whose {@link VectorStoreUtils.VectorPrecision}
+ * isn't {@link VectorStoreUtils.VectorPrecision#FLOAT32}. The parameters of the codec are written
+ * after the file header, and each record is written by {@link #writeRecord}.
+ *
+ * @see Int8Quantizer
+ * @see ProductQuantizer
+ */
+public interface RealVectorCodec {
+
+  /** Number of bytes in each record. */
+  public int getRecordBytes();
+
+  /** Writes the parameters of the codec, to be read back by the reader for the same precision. */
+  public void writeToIndexOutput(IndexOutput outputStream) throws IOException;
+
+  /** Writes the encoded vector, which takes {@link #getRecordBytes} bytes. */
+  public void writeRecord(RealVector vector, IndexOutput outputStream) throws IOException;
+
+  /** Decodes the record starting at the given position in the buffer. */
+  public RealVector readRecord(ByteBuffer buffer, int position);
+
+  /**
+   * Returns a scorer giving approximately {@code measureOverlap} between the query and the
+   * original vector for each record.
+   */
+  public RecordScorer getScorer(float[] query);
+
+  /** Scores encoded records against a fixed query, without decoding them. */
+  public interface RecordScorer {
+    /** Returns the overlap with the record starting at the given position in the buffer. */
+    public double score(ByteBuffer buffer, int position);
+  }
+}
@@ -196,9 +196,24 @@ public class Search {
       + "\n    term frequency, doc frequency, etc. in lucene index."
       + "\n-searchtype can be one of SUM, SUBSPACE, MAXSIM, MINSIM"
       + "\n    BALANCEDPERMUTATION, PERMUTATION, PRINTQUERY"
+      + "\n-querycachemb keeps up to this many megabytes of query vectors cached"
+      + "\n    between searches run in the same JVM."
       + "\n<QUERYTERMS> should be a list of words, separated by spaces."
       + "\n    If the term NOT is used, terms after that will be negated.";
 
+  /**
+   * Opens a vector store for looking up query vectors. If {@link FlagConfig#querycachemb()} is set,
+   * the store is a {@link CachingVectorStore} shared with later searches, so that popular query
+   * terms are looked up on disk only once.
+   */
+  private static CloseableVectorStore openQueryVectorStore(String storeName, FlagConfig flagConfig)
+      throws IOException {
+    if (flagConfig.querycachemb() > 0) {
+      return CachingVectorStore.openSharedVectorStore(storeName, flagConfig);
+    }
+    return VectorStoreReader.openVectorStore(storeName, flagConfig);
+  }
+
   /**
    * Takes a user's query, creates a query vector, and searches a vector store.
    * @param flagConfig configuration object for controlling the search
@@ -236,6 +251,9 @@ public class Search {
      * May be different from queryVecReader, e.g., when using terms to search for documents.
      */
     CloseableVectorStore searchVecReader = null;
+
+    /** Full precision vectors for re-ranking results, if {@link FlagConfig#rerankvectorfile} is set. */
+    CloseableVectorStore rerankVecReader = null;
     
     /**
      * Store of permutations
@@ -266,7 +284,8 @@ public class Search {
         {
           if (flagConfig.elementalmethod().equals(ElementalGenerationMethod.ORTHOGRAPHIC)) elementalVecReader = new VectorStoreOrthographical(flagConfig);
           else if (flagConfig.elementalmethod().equals(ElementalGenerationMethod.CONTENTHASH)) elementalVecReader = new VectorStoreDeterministic(flagConfig);
-          else VerbatimLogger.info("Please select either -elementalmethod orthographic OR -elementalmethod contenthash depending upon the deterministic approach you would like used.");
+          else if (flagConfig.elementalmethod().equals(ElementalGenerationMethod.SEEDED)) elementalVecReader = new VectorStoreSeeded(flagConfig);
+          else VerbatimLogger.info("Please select -elementalmethod orthographic, contenthash OR seeded depending upon the deterministic approach you would like used.");
         }
         else elementalVecReader = VectorStoreReader.openVectorStore(flagConfig.elementalvectorfile(), flagConfig);
 
@@ -282,25 +301,36 @@ public class Search {
         if (flagConfig.queryvectorfile().equals("deterministic")) {
           if (flagConfig.elementalmethod().equals(ElementalGenerationMethod.ORTHOGRAPHIC)) queryVecReader = new VectorStoreOrthographical(flagConfig);
           else if (flagConfig.elementalmethod().equals(ElementalGenerationMethod.CONTENTHASH)) queryVecReader = new VectorStoreDeterministic(flagConfig);
-          else VerbatimLogger.info("Please select either -elementalmethod orthographic OR -elementalmethod contenthash depending upon the deterministic approach you would like used.");
+          else if (flagConfig.elementalmethod().equals(ElementalGenerationMethod.SEEDED)) queryVecReader = new VectorStoreSeeded(flagConfig);
+          else VerbatimLogger.info("Please select -elementalmethod orthographic, contenthash OR seeded depending upon the deterministic approach you would like used.");
         }
-        else queryVecReader = VectorStoreReader.openVectorStore(flagConfig.queryvectorfile(), flagConfig);
+        else queryVecReader = openQueryVectorStore(flagConfig.queryvectorfile(), flagConfig);
       }
 
       if (flagConfig.boundvectorfile().length() > 0) {
         VerbatimLogger.info("Opening second query vector store from file: " + flagConfig.boundvectorfile() + "\n");
-        boundVecReader = VectorStoreReader.openVectorStore(flagConfig.boundvectorfile(), flagConfig);
+        boundVecReader = openQueryVectorStore(flagConfig.boundvectorfile(), flagConfig);
       }
 
       // Open second vector store if search vectors are different from query vectors.
       if (flagConfig.queryvectorfile().equals(flagConfig.searchvectorfile())
           || flagConfig.searchvectorfile().isEmpty()) {
-        searchVecReader = queryVecReader;
+        if (queryVecReader instanceof CachingVectorStore) {
+          // Search the store itself, so that the searcher can use any faster scoring it provides.
+          searchVecReader = VectorStoreReader.openVectorStore(flagConfig.queryvectorfile(), flagConfig);
+        } else {
+          searchVecReader = queryVecReader;
+        }
       } else {
         VerbatimLogger.info("Opening search vector store from file: " + flagConfig.searchvectorfile() + "\n");
         searchVecReader = VectorStoreReader.openVectorStore(flagConfig.searchvectorfile(), flagConfig);
       }
 
+      if (!flagConfig.rerankvectorfile().isEmpty()) {
+        VerbatimLogger.info("Opening re-rank vector store from file: " + flagConfig.rerankvectorfile() + "\n");
+        rerankVecReader = VectorStoreReader.openVectorStore(flagConfig.rerankvectorfile(), flagConfig);
+      }
+
       if (!flagConfig.luceneindexpath().isEmpty()) {
         try {
           luceneUtils = new LuceneUtils(flagConfig);
@@ -417,6 +447,16 @@ public class Search {
       return new LinkedList<>();
     }
 
+    if (flagConfig.searchindex() != SearchIndexUtils.SearchIndexType.NONE
+        && !flagConfig.expandsearchspace() && !flagConfig.expandsearchspace3()) {
+      String searchVectorFile = flagConfig.searchvectorfile().isEmpty()
+          ? flagConfig.queryvectorfile() : flagConfig.searchvectorfile();
+      vecSearcher.setSearchIndex(
+          SearchIndexUtils.openSearchIndex(searchVectorFile, searchVecReader, flagConfig));
+    }
+    if (rerankVecReader != null) {
+      vecSearcher.setRerankStore(rerankVecReader);
+    }
     results = vecSearcher.getNearestNeighbors(flagConfig.numsearchresults());
 
     // Optional: Release filesystem resources. Temporarily removed because of errors in
@@ -435,6 +475,9 @@ public class Search {
     if (boundVecReader != null) {
       boundVecReader.close();
     }
+    if (rerankVecReader != null) {
+      rerankVecReader.close();
+    }
 
     return results;
   }
@@ -47,6 +47,7 @@ import pitt.search.semanticvectors.vectors.ZeroVectorException;
 import java.io.*;
 import java.util.ArrayList;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.logging.Logger;
 
 /**
@@ -226,8 +227,10 @@ public class SearchBatch {
             elementalVecReader = new VectorStoreOrthographical(flagConfig);
           else if (flagConfig.elementalmethod().equals(ElementalGenerationMethod.CONTENTHASH))
             elementalVecReader = new VectorStoreDeterministic(flagConfig);
+          else if (flagConfig.elementalmethod().equals(ElementalGenerationMethod.SEEDED))
+            elementalVecReader = new VectorStoreSeeded(flagConfig);
           else
-            VerbatimLogger.info("Please select either -elementalmethod orthographic OR -elementalmethod contenthash depending upon the deterministic approach you would like used.");
+            VerbatimLogger.info("Please select -elementalmethod orthographic, contenthash OR seeded depending upon the deterministic approach you would like used.");
         } else {
           elementalVecReader = new VectorStoreRAM(flagConfig);
           ((VectorStoreRAM) elementalVecReader).initFromFile(flagConfig.elementalvectorfile());
@@ -243,19 +246,31 @@ public class SearchBatch {
             queryVecReader = new VectorStoreOrthographical(flagConfig);
           else if (flagConfig.elementalmethod().equals(ElementalGenerationMethod.CONTENTHASH))
             queryVecReader = new VectorStoreDeterministic(flagConfig);
+          else if (flagConfig.elementalmethod().equals(ElementalGenerationMethod.SEEDED))
+            queryVecReader = new VectorStoreSeeded(flagConfig);
           else
-            VerbatimLogger.info("Please select either -elementalmethod orthographic OR -elementalmethod contenthash depending upon the deterministic approach you would like used.");
+            VerbatimLogger.info("Please select -elementalmethod orthographic, contenthash OR seeded depending upon the deterministic approach you would like used.");
+        } else if (flagConfig.querycachemb() > 0 && !flagConfig.searchvectorfile().isEmpty()
+            && !flagConfig.queryvectorfile().equals(flagConfig.searchvectorfile())) {
+          // Query vectors are only looked up, so cache the popular ones rather than reading them all.
+          queryVecReader = new CachingVectorStore(
+              VectorStoreReader.openVectorStore(flagConfig.queryvectorfile(), flagConfig),
+              flagConfig.querycachemb() * 1024L * 1024L);
         } else {
-          queryVecReader = new VectorStoreRAM(flagConfig);
-          ((VectorStoreRAM) queryVecReader).initFromFile(flagConfig.queryvectorfile());
+          queryVecReader = VectorStoreSlab.readFromFile(flagConfig, flagConfig.queryvectorfile());
         }
       }
 
       if (flagConfig.boundvectorfile().length() > 0) {
         VerbatimLogger.info("Opening second query vector store from file: " + flagConfig.boundvectorfile() + "\n");
-        boundVecReader = new VectorStoreRAM(flagConfig);
-        ((VectorStoreRAM) boundVecReader).initFromFile(flagConfig.boundvectorfile());
-
+        if (flagConfig.querycachemb() > 0) {
+          boundVecReader = new CachingVectorStore(
+              VectorStoreReader.openVectorStore(flagConfig.boundvectorfile(), flagConfig),
+              flagConfig.querycachemb() * 1024L * 1024L);
+        } else {
+          boundVecReader = new VectorStoreRAM(flagConfig);
+          ((VectorStoreRAM) boundVecReader).initFromFile(flagConfig.boundvectorfile());
+        }
       }
 
       // Open second vector store if search vectors are different from query vectors.
@@ -264,8 +279,7 @@ public class SearchBatch {
         searchVecReader = queryVecReader;
       } else {
         VerbatimLogger.info("Opening search vector store from file: " + flagConfig.searchvectorfile() + "\n");
-        searchVecReader = new VectorStoreRAM(flagConfig);
-        ((VectorStoreRAM) searchVecReader).initFromFile(flagConfig.searchvectorfile());
+        searchVecReader = VectorStoreSlab.readFromFile(flagConfig, flagConfig.searchvectorfile());
       }
 
       if (!flagConfig.luceneindexpath().isEmpty()) {
@@ -284,6 +298,7 @@ public class SearchBatch {
       BufferedReader queryReader = new BufferedReader(new FileReader(new File(queryArgs[0])));
       String queryString = queryReader.readLine();
       int qcnt = 0;
+      ArrayList<PendingQuery> pendingQueries = new ArrayList<PendingQuery>();
       while (queryString != null) {
         ArrayList<String> queryTerms = new ArrayList<String>();
         qcnt++;
@@ -320,7 +335,6 @@ public class SearchBatch {
         // Stage iii. Perform search according to which searchType was selected.
         // Most options have corresponding dedicated VectorSearcher subclasses.
         VectorSearcher vecSearcher = null;
-        LinkedList<SearchResult> results;
         String[] splitArgs = null;
         boolean allTermsRepresented = true;
         VerbatimLogger.info("Searching term vectors, searchtype " + flagConfig.searchtype() + "\n");
@@ -402,59 +416,20 @@ public class SearchBatch {
           logger.info(zve.getMessage());
         }
 
-        results = new LinkedList<SearchResult>();
-
-        try {
-          if (!allTermsRepresented) System.out.println("0: Missing term(s)");
-          else results = vecSearcher.getNearestNeighbors(flagConfig.numsearchresults());
-
-        } catch (Exception e) {
-          //no search results returned
-        }
-
-        int cnt = 0;
-        // Print out results.
-        if (results.size() > 0) {
-          VerbatimLogger.info("Search output follows ...\n");
-
-          for (SearchResult result : results) {
-
-            boolean printResult = true;
-
-            if (flagConfig.searchtype() == Search.SearchType.ANALOGY) //don't output cue terms
-            {
-              for (String searchTerm : splitArgs) {
-                if (result.getObjectVector().getObject().toString().equals(searchTerm))
-                  printResult = false;
-              }
-            }
-            if (printResult) {
-              if (flagConfig.treceval() != -1) //results in trec_eval format
-              {
-                System.out.println(
-                    String.format("%s\t%s\t%s\t%s\t%f\t%s",
-                        qcnt,
-                        "Q0",
-                        result.getObjectVector().getObject().toString(),
-                        ++cnt,
-                        result.getScore(),
-                        "DEFAULT")
-                );
-              } else System.out.println(  //results in cosine:object format
-                  String.format("%f:%s",
-                      result.getScore(),
-                      result.getObjectVector().getObject().toString()));
-
-              if (flagConfig.searchtype() == Search.SearchType.ANALOGY) {
-                break;
-              }
-            }
-
-          }
-        }
+        pendingQueries.add(new PendingQuery(qcnt, splitArgs, allTermsRepresented, vecSearcher));
         queryString = queryReader.readLine();
+        if (pendingQueries.size() >= flagConfig.searchbatchsize() || queryString == null) {
+          runPendingQueries(flagConfig, pendingQueries);
+          pendingQueries.clear();
+        }
       }
       queryReader.close();
+      if (queryVecReader instanceof CachingVectorStore) {
+        ((CachingVectorStore) queryVecReader).close();
+      }
+      if (boundVecReader instanceof CachingVectorStore) {
+        ((CachingVectorStore) boundVecReader).close();
+      }
     } catch (FileNotFoundException e1) {
       // TODO Auto-generated catch block
       e1.printStackTrace();
@@ -467,6 +442,101 @@ public class SearchBatch {
   }
 
 
+  /**
+   * A query whose searcher has been built, waiting to be run with others in
+   * {@link VectorSearcher#getNearestNeighborsBatch}.
+   */
+  private static class PendingQuery {
+    final int qcnt;
+    final String[] splitArgs;
+    final boolean allTermsRepresented;
+    final VectorSearcher vecSearcher;
+
+    PendingQuery(int qcnt, String[] splitArgs, boolean allTermsRepresented, VectorSearcher vecSearcher) {
+      this.qcnt = qcnt;
+      this.splitArgs = splitArgs;
+      this.allTermsRepresented = allTermsRepresented;
+      this.vecSearcher = vecSearcher;
+    }
+  }
+
+  /**
+   * Runs the searches for the given queries in one pass over the search store, and prints
+   * out the results for each query in turn.
+   */
+  private static void runPendingQueries(FlagConfig flagConfig, List<PendingQuery> pendingQueries) {
+    ArrayList<VectorSearcher> searchers = new ArrayList<VectorSearcher>();
+    for (PendingQuery query : pendingQueries) {
+      if (query.allTermsRepresented && query.vecSearcher != null) searchers.add(query.vecSearcher);
+    }
+    List<LinkedList<SearchResult>> batchResults = null;
+    try {
+      batchResults = VectorSearcher.getNearestNeighborsBatch(searchers, flagConfig.numsearchresults());
+    } catch (Exception e) {
+      // Fall back to running the searches one at a time below.
+    }
+
+    int searcherNum = 0;
+    for (PendingQuery query : pendingQueries) {
+      LinkedList<SearchResult> results = new LinkedList<SearchResult>();
+
+      try {
+        if (!query.allTermsRepresented) System.out.println("0: Missing term(s)");
+        else if (query.vecSearcher != null) {
+          if (batchResults != null) results = batchResults.get(searcherNum++);
+          else results = query.vecSearcher.getNearestNeighbors(flagConfig.numsearchresults());
+        }
+      } catch (Exception e) {
+        //no search results returned
+      }
+      printResults(flagConfig, query.qcnt, query.splitArgs, results);
+    }
+  }
+
+  private static void printResults(
+      FlagConfig flagConfig, int qcnt, String[] splitArgs, LinkedList<SearchResult> results) {
+    int cnt = 0;
+    // Print out results.
+    if (results.size() > 0) {
+      VerbatimLogger.info("Search output follows ...\n");
+
+      for (SearchResult result : results) {
+
+        boolean printResult = true;
+
+        if (flagConfig.searchtype() == Search.SearchType.ANALOGY) //don't output cue terms
+        {
+          for (String searchTerm : splitArgs) {
+            if (result.getObjectVector().getObject().toString().equals(searchTerm))
+              printResult = false;
+          }
+        }
+        if (printResult) {
+          if (flagConfig.treceval() != -1) //results in trec_eval format
+          {
+            System.out.println(
+                String.format("%s\t%s\t%s\t%s\t%f\t%s",
+                    qcnt,
+                    "Q0",
+                    result.getObjectVector().getObject().toString(),
+                    ++cnt,
+                    result.getScore(),
+                    "DEFAULT")
+            );
+          } else System.out.println(  //results in cosine:object format
+              String.format("%f:%s",
+                  result.getScore(),
+                  result.getObjectVector().getObject().toString()));
+
+          if (flagConfig.searchtype() == Search.SearchType.ANALOGY) {
+            break;
+          }
+        }
+
+      }
+    }
+  }
+
   /**
    * Takes a user's query, creates a query vector, and searches a vector store.
    * @param args See {@link #usageMessage}
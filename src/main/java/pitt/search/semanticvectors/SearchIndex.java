@@ -0,0 +1,65 @@
+/**
+   Copyright (c) 2026, the SemanticVectors AUTHORS.
+
+   All rights reserved.
+
+   Redistribution and use in source and binary forms, with or without
+   modification, are permitted provided that the following conditions are
+   met:
+
+   * Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+   * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the following
+   disclaimer in the documentation and/or other materials provided
+   with the distribution.
+
+   * Neither the name of the University of Pittsburgh nor the names
+   of its contributors may be used to endorse or promote products
+   derived from this software without specific prior written
+   permission.
+
+   THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+   "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+   LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+   A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+   CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+   EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+   PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+   PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+   LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+   NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+   SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+**/
+
+package pitt.search.semanticvectors;
+
+import java.io.IOException;
+
+import pitt.search.semanticvectors.vectors.Vector;
+
+/**
+ * An index over the records of an {@link IndexedVectorStore} that finds likely nearest
+ * neighbors of a query without scoring every record. {@link VectorSearcher}s that are given
+ * an index with {@link VectorSearcher#setSearchIndex} score only the candidates it returns.
+ *
+ * @see SearchIndexUtils
+ */
+public interface SearchIndex {
+
+  /** Returns the store whose record indices are used by this index. */
+  public IndexedVectorStore getStore();
+
+  /**
+   * Returns the indices of records that are likely to include the best matches for the query,
+   * for a search that wants the given number of results.
+   */
+  public int[] getCandidates(Vector queryVector, int numResults);
+
+  /**
+   * Writes the index to a file. The version of the vector file the index was built from is saved
+   * so that the index can be rebuilt if the vector file changes.
+   */
+  public void writeToFile(String indexFileName, SearchIndexUtils.VectorFileVersion version) throws IOException;
+}
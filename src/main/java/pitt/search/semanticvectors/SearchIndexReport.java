@@ -0,0 +1,194 @@
+/**
+   Copyright (c) 2026, the SemanticVectors AUTHORS.
+
+   All rights reserved.
+
+   Redistribution and use in source and binary forms, with or without
+   modification, are permitted provided that the following conditions are
+   met:
+
+   * Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+   * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the following
+   disclaimer in the documentation and/or other materials provided
+   with the distribution.
+
+   * Neither the name of the University of Pittsburgh nor the names
+   of its contributors may be used to endorse or promote products
+   derived from this software without specific prior written
+   permission.
+
+   THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+   "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+   LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+   A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+   CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+   EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+   PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+   PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+   LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+   NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+   SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+**/
+
+package pitt.search.semanticvectors;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+
+import pitt.search.semanticvectors.utils.VerbatimLogger;
+import pitt.search.semanticvectors.vectors.Vector;
+import pitt.search.semanticvectors.vectors.ZeroVectorException;
+
+/**
+ * Command line utility that reports the recall and latency of a {@link SearchIndex}
+ * compared with exact search using {@link VectorSearcher.VectorSearcherCosine}. <p>
+ *
+ * Vectors from the search store are used as queries, and recall is the proportion of the
+ * exact top {@link FlagConfig#numsearchresults} results that are also found using the index.
+ * For an HNSW index, recall and latency are reported for a range of values of
+ * {@link FlagConfig#hnswefsearch}, for an IVF index, for a range of values of
+ * {@link FlagConfig#ivfnprobe}, and for a multi-index hashing index, for a range of values of
+ * {@link FlagConfig#mihradius}. For example:
+ *
+ * <br>
+ * <code>java pitt.search.semanticvectors.SearchIndexReport -searchindex hnsw -queryvectorfile termvectors.bin</code>
+ */
+public class SearchIndexReport {
+
+  /** Maximum number of vectors from the store that are used as queries. */
+  public static final int MAX_QUERIES = 200;
+
+  public static String usageMessage = "SearchIndexReport class in package pitt.search.semanticvectors"
+      + "\nUsage: java pitt.search.semanticvectors.SearchIndexReport -searchindex INDEXTYPE"
+      + "\n                                        -queryvectorfile VECTORFILE [-numsearchresults K]"
+      + "\nReports recall@K and average search time of the index compared with exact search.";
+
+  /** The recall and average search time of one configuration of an index. */
+  public static class Measurement {
+    public final double recall;
+    public final double millisPerQuery;
+
+    public Measurement(double recall, double millisPerQuery) {
+      this.recall = recall;
+      this.millisPerQuery = millisPerQuery;
+    }
+  }
+
+  /** Returns vectors spread evenly through the store, to be used as queries. */
+  public static Vector[] getSampleQueries(IndexedVectorStore store, int maxQueries) {
+    int numQueries = Math.min(maxQueries, store.getNumVectors());
+    Vector[] queries = new Vector[numQueries];
+    for (int i = 0; i < numQueries; ++i) {
+      int index = (int) ((long) i * store.getNumVectors() / numQueries);
+      queries[i] = store.getObjectVector(index).getVector();
+    }
+    return queries;
+  }
+
+  /** Returns the objects found by exact search for each query. */
+  public static List<Set<Object>> getExactResults(
+      IndexedVectorStore store, Vector[] queries, FlagConfig flagConfig) throws ZeroVectorException {
+    List<Set<Object>> exactResults = new ArrayList<Set<Object>>(queries.length);
+    for (int i = 0; i < queries.length; ++i) {
+      VectorSearcher searcher = new VectorSearcher.VectorSearcherCosine(
+          store, store, null, flagConfig, queries[i]);
+      exactResults.add(getObjects(searcher.getNearestNeighbors(flagConfig.numsearchresults())));
+    }
+    return exactResults;
+  }
+
+  /**
+   * Searches for each query using the index, or exhaustively if index is null, and
+   * measures recall against the exact results.
+   */
+  public static Measurement measure(IndexedVectorStore store, SearchIndex index, Vector[] queries,
+      List<Set<Object>> exactResults, FlagConfig flagConfig) throws ZeroVectorException {
+    long found = 0;
+    long expected = 0;
+    long startTime = System.nanoTime();
+    for (int i = 0; i < queries.length; ++i) {
+      VectorSearcher searcher = new VectorSearcher.VectorSearcherCosine(
+          store, store, null, flagConfig, queries[i]);
+      searcher.setSearchIndex(index);
+      for (Object object : getObjects(searcher.getNearestNeighbors(flagConfig.numsearchresults()))) {
+        if (exactResults.get(i).contains(object)) ++found;
+      }
+      expected += exactResults.get(i).size();
+    }
+    double millisPerQuery = (System.nanoTime() - startTime) / 1e6 / Math.max(1, queries.length);
+    return new Measurement(expected == 0 ? 1 : (double) found / expected, millisPerQuery);
+  }
+
+  private static HashSet<Object> getObjects(LinkedList<SearchResult> results) {
+    HashSet<Object> objects = new HashSet<Object>();
+    for (SearchResult result : results) {
+      objects.add(result.getObjectVector().getObject());
+    }
+    return objects;
+  }
+
+  public static void main(String[] args) throws IOException, ZeroVectorException {
+    FlagConfig flagConfig;
+    try {
+      flagConfig = FlagConfig.getFlagConfig(args);
+    } catch (IllegalArgumentException e) {
+      System.out.println(usageMessage);
+      throw e;
+    }
+    if (flagConfig.searchindex() == SearchIndexUtils.SearchIndexType.NONE) {
+      System.out.println(usageMessage);
+      throw new IllegalArgumentException("Must set -searchindex to the type of index to report on.");
+    }
+    String vectorFile = flagConfig.searchvectorfile().isEmpty()
+        ? flagConfig.queryvectorfile() : flagConfig.searchvectorfile();
+    VerbatimLogger.info("Opening vector store from file: " + vectorFile + "\n");
+    CloseableVectorStore vectorStore = VectorStoreReader.openVectorStore(vectorFile, flagConfig);
+    SearchIndex index = SearchIndexUtils.openSearchIndex(vectorFile, vectorStore, flagConfig);
+    IndexedVectorStore store = index.getStore();
+
+    Vector[] queries = getSampleQueries(store, MAX_QUERIES);
+    List<Set<Object>> exactResults = getExactResults(store, queries, flagConfig);
+    Measurement exact = measure(store, null, queries, exactResults, flagConfig);
+    System.out.println(String.format("Recall@%d and search time for %d queries over %d vectors:",
+        flagConfig.numsearchresults(), queries.length, store.getNumVectors()));
+    System.out.println(String.format("exact\trecall %.4f\t%.3f ms/query", exact.recall, exact.millisPerQuery));
+
+    if (index instanceof HnswIndex) {
+      HnswIndex hnswIndex = (HnswIndex) index;
+      for (int efSearch = 16; efSearch <= 512; efSearch *= 2) {
+        hnswIndex.setEfSearch(efSearch);
+        Measurement measurement = measure(store, hnswIndex, queries, exactResults, flagConfig);
+        System.out.println(String.format("efsearch %d\trecall %.4f\t%.3f ms/query",
+            efSearch, measurement.recall, measurement.millisPerQuery));
+      }
+    } else if (index instanceof IvfIndex) {
+      IvfIndex ivfIndex = (IvfIndex) index;
+      for (int nprobe = 1; nprobe <= ivfIndex.getNumLists(); nprobe *= 2) {
+        ivfIndex.setNprobe(nprobe);
+        Measurement measurement = measure(store, ivfIndex, queries, exactResults, flagConfig);
+        System.out.println(String.format("nprobe %d\trecall %.4f\t%.3f ms/query",
+            nprobe, measurement.recall, measurement.millisPerQuery));
+      }
+    } else if (index instanceof MultiIndexHashingIndex) {
+      MultiIndexHashingIndex mihIndex = (MultiIndexHashingIndex) index;
+      for (int substringRadius = 0; substringRadius <= 3; ++substringRadius) {
+        mihIndex.setRadius(substringRadius * flagConfig.mihsubstrings());
+        Measurement measurement = measure(store, mihIndex, queries, exactResults, flagConfig);
+        System.out.println(String.format("mihradius %d\trecall %.4f\t%.3f ms/query",
+            mihIndex.getRadius(), measurement.recall, measurement.millisPerQuery));
+      }
+    } else {
+      Measurement measurement = measure(store, index, queries, exactResults, flagConfig);
+      System.out.println(String.format("%s\trecall %.4f\t%.3f ms/query",
+          flagConfig.searchindex(), measurement.recall, measurement.millisPerQuery));
+    }
+    vectorStore.close();
+  }
+}
@@ -0,0 +1,260 @@
+/**
+   Copyright (c) 2026, the SemanticVectors AUTHORS.
+
+   All rights reserved.
+
+   Redistribution and use in source and binary forms, with or without
+   modification, are permitted provided that the following conditions are
+   met:
+
+   * Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+   * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the following
+   disclaimer in the documentation and/or other materials provided
+   with the distribution.
+
+   * Neither the name of the University of Pittsburgh nor the names
+   of its contributors may be used to endorse or promote products
+   derived from this software without specific prior written
+   permission.
+
+   THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+   "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+   LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+   A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+   CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+   EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+   PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+   PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+   LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+   NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+   SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+**/
+
+package pitt.search.semanticvectors;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Enumeration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.store.IndexOutput;
+
+import pitt.search.semanticvectors.utils.VerbatimLogger;
+
+/**
+ * Methods for building, saving and opening {@link SearchIndex}es.
+ *
+ * An index is saved next to the vector store file it was built from, with a suffix
+ * for the type of index, and is rebuilt if the vector store file has changed.
+ *
+ * Stores that aren't {@link IndexedVectorStore}s are copied into a {@link VectorStoreSlab} for
+ * searching, and the copy is kept with its index until a search opens a different version of
+ * the vector file or uses different search settings.
+ */
+public class SearchIndexUtils {
+  private static final Logger logger = Logger.getLogger(SearchIndexUtils.class.getCanonicalName());
+
+  /** Types of index that can be used to speed up searches, set using {@link FlagConfig#searchindex}. */
+  public enum SearchIndexType {
+    /** No index: every vector in the search store is scored. */
+    NONE,
+    /** Hierarchical navigable small world graph, see {@link HnswIndex}. */
+    HNSW,
+    /** Inverted file of k-means clusters, see {@link IvfIndex}. */
+    IVF,
+    /** Multi-index hashing of substrings of binary vectors, see {@link MultiIndexHashingIndex}. */
+    MIH
+  }
+
+  /**
+   * The version of a vector file that an index was built from: the length and modification time
+   * of the file, and the number and dimension of its vectors. This is saved at the start of each
+   * index file, so that the index can be rebuilt if the vector file changes.
+   */
+  public static final class VectorFileVersion {
+    private final long length;
+    private final long lastModified;
+    private final int numVectors;
+    private final int dimension;
+
+    public VectorFileVersion(long length, long lastModified, int numVectors, int dimension) {
+      this.length = length;
+      this.lastModified = lastModified;
+      this.numVectors = numVectors;
+      this.dimension = dimension;
+    }
+
+    /** Returns the version of the given file, which holds the vectors in the given store. */
+    public static VectorFileVersion of(File vectorFile, VectorStore store, FlagConfig flagConfig) {
+      return new VectorFileVersion(vectorFile.length(), vectorFile.lastModified(),
+          store.getNumVectors(), flagConfig.dimension());
+    }
+
+    /** Returns true if the given file has the length and modification time of this version. */
+    boolean isVersionOf(File vectorFile) {
+      return vectorFile.length() == length && vectorFile.lastModified() == lastModified;
+    }
+
+    public void writeToIndexOutput(IndexOutput output) throws IOException {
+      output.writeLong(length);
+      output.writeLong(lastModified);
+      output.writeInt(numVectors);
+      output.writeInt(dimension);
+    }
+
+    public static VectorFileVersion readFromIndexInput(IndexInput input) throws IOException {
+      return new VectorFileVersion(input.readLong(), input.readLong(), input.readInt(), input.readInt());
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (!(other instanceof VectorFileVersion)) return false;
+      VectorFileVersion otherVersion = (VectorFileVersion) other;
+      return length == otherVersion.length && lastModified == otherVersion.lastModified
+          && numVectors == otherVersion.numVectors && dimension == otherVersion.dimension;
+    }
+
+    @Override
+    public int hashCode() {
+      return (int) (31 * (31 * length + lastModified) + 31 * numVectors + dimension);
+    }
+  }
+
+  /** An index over a slab copy of a store, with the vector file version and search settings it was opened for. */
+  private static class CachedSearchIndex {
+    final VectorFileVersion version;
+    final String searchSettings;
+    final SearchIndex index;
+
+    CachedSearchIndex(VectorFileVersion version, String searchSettings, SearchIndex index) {
+      this.version = version;
+      this.searchSettings = searchSettings;
+      this.index = index;
+    }
+  }
+
+  /** The most recently opened index over a slab copy for each index file name. */
+  private static final ConcurrentHashMap<String, CachedSearchIndex> cachedSearchIndexes =
+      new ConcurrentHashMap<String, CachedSearchIndex>();
+
+  /** Returns the flags that are read when an index is opened, as a string. */
+  private static String getSearchSettings(FlagConfig flagConfig) {
+    return flagConfig.vectortype() + " " + flagConfig.hnswefsearch() + " " + flagConfig.ivfnprobe()
+        + " " + flagConfig.mihradius() + " " + flagConfig.mihsubstrings();
+  }
+
+  /** Returns the name of the file for an index of the given type built from the given vector file. */
+  public static String getSearchIndexFileName(String vectorFileName, SearchIndexType indexType) {
+    return vectorFileName + "." + indexType.toString().toLowerCase();
+  }
+
+  /**
+   * Returns a store with dense record indices containing the vectors in the given store, in the
+   * order of enumeration. Returns the store itself if it is already an {@link IndexedVectorStore}.
+   */
+  public static IndexedVectorStore getIndexedStore(VectorStore store, FlagConfig flagConfig) {
+    if (store instanceof IndexedVectorStore) return (IndexedVectorStore) store;
+    VectorStoreSlab indexedStore = new VectorStoreSlab(flagConfig);
+    Enumeration<ObjectVector> vecEnum = store.getAllVectors();
+    while (vecEnum.hasMoreElements()) {
+      ObjectVector objectVector = vecEnum.nextElement();
+      indexedStore.putVector(objectVector.getObject(), objectVector.getVector());
+    }
+    return indexedStore;
+  }
+
+  /**
+   * Opens the index of type {@link FlagConfig#searchindex} for the given store, read from the
+   * vector file with the given name. The index is read from disk if it has been saved for the
+   * current version of the vector file, and otherwise is built and saved.
+   *
+   * @return the index, or null if {@link FlagConfig#searchindex} is {@link SearchIndexType#NONE}
+   */
+  public static SearchIndex openSearchIndex(String vectorFileName, VectorStore store, FlagConfig flagConfig) {
+    if (flagConfig.searchindex() == SearchIndexType.NONE) return null;
+    vectorFileName = VectorStoreUtils.getStoreFileName(vectorFileName, flagConfig);
+    String indexFileName = getSearchIndexFileName(vectorFileName, flagConfig.searchindex());
+    File vectorFile = new File(vectorFileName);
+    if (store instanceof IndexedVectorStore) {
+      return openSearchIndex(indexFileName, (IndexedVectorStore) store, flagConfig,
+          VectorFileVersion.of(vectorFile, store, flagConfig));
+    }
+
+    String searchSettings = getSearchSettings(flagConfig);
+    CachedSearchIndex cached = cachedSearchIndexes.get(indexFileName);
+    if (cached != null && cached.version.isVersionOf(vectorFile)
+        && cached.version.dimension == flagConfig.dimension() && cached.searchSettings.equals(searchSettings)) {
+      return cached.index;
+    }
+    IndexedVectorStore indexedStore = getIndexedStore(store, flagConfig);
+    VectorFileVersion version = VectorFileVersion.of(vectorFile, indexedStore, flagConfig);
+    SearchIndex index = openSearchIndex(indexFileName, indexedStore, flagConfig, version);
+    cachedSearchIndexes.put(indexFileName, new CachedSearchIndex(version, searchSettings, index));
+    return index;
+  }
+
+  /**
+   * Reads the index for the store from the given file if it was saved for the given version of
+   * the vector file, and otherwise builds and saves it.
+   */
+  private static SearchIndex openSearchIndex(String indexFileName, IndexedVectorStore indexedStore,
+      FlagConfig flagConfig, VectorFileVersion version) {
+    SearchIndex index = null;
+    if (new File(indexFileName).exists()) {
+      try {
+        index = readSearchIndex(indexFileName, indexedStore, flagConfig, version);
+      } catch (IOException e) {
+        logger.warning("Couldn't read search index from " + indexFileName + ", rebuilding: " + e.getMessage());
+      }
+    }
+    if (index == null) {
+      VerbatimLogger.info("Building " + flagConfig.searchindex() + " index for "
+          + indexedStore.getNumVectors() + " vectors ...\n");
+      index = buildSearchIndex(indexedStore, flagConfig);
+      try {
+        index.writeToFile(indexFileName, version);
+      } catch (IOException e) {
+        logger.warning("Couldn't write search index to " + indexFileName + ": " + e.getMessage());
+      }
+    }
+    return index;
+  }
+
+  /** Builds an index of type {@link FlagConfig#searchindex} over the records in the store. */
+  public static SearchIndex buildSearchIndex(IndexedVectorStore store, FlagConfig flagConfig) {
+    switch (flagConfig.searchindex()) {
+      case HNSW:
+        return HnswIndex.build(store, flagConfig);
+      case IVF:
+        return IvfIndex.build(store, flagConfig);
+      case MIH:
+        return MultiIndexHashingIndex.build(store, flagConfig);
+      default:
+        throw new IllegalArgumentException("Unknown -searchindex: " + flagConfig.searchindex());
+    }
+  }
+
+  /**
+   * Reads an index of type {@link FlagConfig#searchindex} for the store.
+   *
+   * @return the index, or null if it was built from a different version of the vector file
+   */
+  private static SearchIndex readSearchIndex(String indexFileName, IndexedVectorStore store,
+      FlagConfig flagConfig, VectorFileVersion version) throws IOException {
+    switch (flagConfig.searchindex()) {
+      case HNSW:
+        return HnswIndex.readFromFile(indexFileName, store, flagConfig, version);
+      case IVF:
+        return IvfIndex.readFromFile(indexFileName, store, flagConfig, version);
+      case MIH:
+        return MultiIndexHashingIndex.readFromFile(indexFileName, store, flagConfig, version);
+      default:
+        throw new IllegalArgumentException("Unknown -searchindex: " + flagConfig.searchindex());
+    }
+  }
+}
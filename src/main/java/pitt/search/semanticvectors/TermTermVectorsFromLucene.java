@@ -63,6 +63,7 @@ import org.apache.lucene.util.BytesRef;
 import org.netlib.blas.BLAS;
 
 import pitt.search.semanticvectors.DocVectors.DocIndexingStrategy;
+import pitt.search.semanticvectors.ElementalVectorStore.ElementalGenerationMethod;
 import pitt.search.semanticvectors.orthography.NumberRepresentation;
 import pitt.search.semanticvectors.utils.SigmoidTable;
 import pitt.search.semanticvectors.utils.VerbatimLogger;
@@ -249,6 +250,11 @@ public class TermTermVectorsFromLucene { //implements VectorStore {
       
       
     } else {
+      if (flagConfig.encodingmethod().equals(EncodingMethod.EMBEDDINGS)
+          && flagConfig.elementalmethod() == ElementalGenerationMethod.SEEDED) {
+        throw new IllegalArgumentException(
+            "-elementalmethod seeded cannot be used with -encodingmethod embeddings, which trains the elemental vectors.");
+      }
       this.elementalTermVectors = new ElementalVectorStore(flagConfig);
     }
 
@@ -458,11 +464,24 @@ public class TermTermVectorsFromLucene { //implements VectorStore {
   }
 
 
+  /**
+   * Returns the elemental vector for the term, regenerated into {@code scratch} if the elemental
+   * vectors are seeded (see {@link ElementalVectorStore#getVector(Object, Vector)}).
+   */
+  private Vector getElementalVector(String term, Vector scratch) {
+    if (elementalTermVectors instanceof ElementalVectorStore) {
+      return ((ElementalVectorStore) elementalTermVectors).getVector(term, scratch);
+    }
+    return elementalTermVectors.getVector(term);
+  }
+
   private class TrainTermVectorThread implements Runnable {
     int dcnt = 0;
     int threadno = 0;
     double time = 0;
     BLAS blas = null;
+    /** Scratch vectors for the context term and each negative sample, see {@link #getElementalVector}. */
+    Vector[] elementalScratch = new Vector[flagConfig.negsamples() + 1];
 
     public TrainTermVectorThread(int threadno) {
       this.threadno = threadno;
@@ -479,7 +498,7 @@ public class TermTermVectorsFromLucene { //implements VectorStore {
             DocIdTerms terms = drawFromQueue();
             if (terms != null) {
               //VerbatimLogger.severe("No term vector for document "+dc);
-            	  processTermPositionVector(terms, field, blas);
+            	  processTermPositionVector(terms, field, blas, elementalScratch);
                }
              } catch (ArrayIndexOutOfBoundsException | IOException e) {
             // TODO Auto-generated catch block
@@ -532,6 +551,7 @@ public class TermTermVectorsFromLucene { //implements VectorStore {
     // If not retraining, create random elemental vectors as well.
     // If retraining embeddings, create random vectors for terms that were not originally represented (to facilitate crossing corpora)
     int tc = 0;
+    Vector elementalScratch = null;
     for (String fieldName : flagConfig.contentsfields()) {
       TermsEnum terms = this.luceneUtils.getTermsForField(fieldName).iterator();
       BytesRef bytes;
@@ -561,7 +581,7 @@ public class TermTermVectorsFromLucene { //implements VectorStore {
         	this.semanticTermVectors.putVector(term.text(), termVector);
         // Do the same for random index vectors unless retraining with trained term vectors
         if (!retraining) {
-          this.elementalTermVectors.getVector(term.text());
+          elementalScratch = getElementalVector(term.text(), elementalScratch);
         
         } else if (retraining && flagConfig.encodingmethod().equals(EncodingMethod.EMBEDDINGS) && !elementalTermVectors.containsVector(term.text()))	{
         	//Retraining with embeddings - add random vectors for terms that meet inclusion criteria, but don't have output weights
@@ -720,7 +740,11 @@ public class TermTermVectorsFromLucene { //implements VectorStore {
       }
     }
 
-    VectorStoreWriter.writeVectorsInLuceneFormat(flagConfig.elementalvectorfile()+".bin", flagConfig, this.elementalTermVectors);
+    if (!retraining && flagConfig.elementalmethod() == ElementalGenerationMethod.SEEDED) {
+      VerbatimLogger.info("Not writing seeded elemental vectors, which are regenerated from their terms\n");
+    } else {
+      VectorStoreWriter.writeVectorsInLuceneFormat(flagConfig.elementalvectorfile()+".bin", flagConfig, this.elementalTermVectors);
+    }
     
     if (permutationCache != null)
     {
@@ -898,7 +922,7 @@ public class TermTermVectorsFromLucene { //implements VectorStore {
    * will be referred to as the 'local index' in comments.
    * @throws IOException
    */
-  private void processTermPositionVector(DocIdTerms terms, String field, BLAS blas)
+  private void processTermPositionVector(DocIdTerms terms, String field, BLAS blas, Vector[] elementalScratch)
       throws ArrayIndexOutOfBoundsException, IOException {
     if (terms == null) return;
 
@@ -1014,7 +1038,8 @@ public class TermTermVectorsFromLucene { //implements VectorStore {
 		//  	inversePermutation = PermutationUtils.getInversePermutation(permutation);
       
 	 //get context vector for co-occurring term
-	  Vector toSuperpose = elementalTermVectors.getVector(coterm);
+	  elementalScratch[0] = getElementalVector(coterm, elementalScratch[0]);
+	  Vector toSuperpose = elementalScratch[0];
 
         /**
          * Implementation of skipgram with negative sampling (Mikolov 2013)
@@ -1040,8 +1065,11 @@ public class TermTermVectorsFromLucene { //implements VectorStore {
               double test = random.nextDouble()*max;
               if (termDic.ceilingEntry(test) != null) {
             	  String testTerm = termDic.ceilingEntry(test).getValue();
-              		if (! testTerm.equals(coterm))
-              		randomTerm = elementalTermVectors.getVector(testTerm);
+              		if (! testTerm.equals(coterm)) {
+              		  int scratchIndex = contextVectors.size();
+              		  elementalScratch[scratchIndex] = getElementalVector(testTerm, elementalScratch[scratchIndex]);
+              		  randomTerm = elementalScratch[scratchIndex];
+              		}
               	
               }
               	}
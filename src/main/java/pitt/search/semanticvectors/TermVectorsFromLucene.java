@@ -66,6 +66,8 @@ public class TermVectorsFromLucene {
   private VectorStore termVectors;
   private LuceneUtils luceneUtils;
   private VectorStore elementalDocVectors;
+  /** Reused for elemental document vectors that are regenerated on each access. */
+  private Vector elementalDocScratch;
 
   private TermVectorsFromLucene(FlagConfig flagConfig) throws IOException {
     this.flagConfig = flagConfig;
@@ -119,6 +121,18 @@ public class TermVectorsFromLucene {
     trainTermVectors();
   }
 
+  /**
+   * Returns the elemental vector for the given document, regenerating it into
+   * {@link #elementalDocScratch} when the elemental store supports it.
+   */
+  private Vector getElementalDocVector(String docID) {
+    if (elementalDocVectors instanceof ElementalVectorStore) {
+      elementalDocScratch = ((ElementalVectorStore) elementalDocVectors).getVector(docID, elementalDocScratch);
+      return elementalDocScratch;
+    }
+    return elementalDocVectors.getVector(docID);
+  }
+
   // Training method for term vectors.
   private void trainTermVectors() throws IOException {
     this.termVectors = new VectorStoreRAM(flagConfig);
@@ -160,7 +174,7 @@ public class TermVectorsFromLucene {
         while (docsEnum.nextDoc() != PostingsEnum.NO_MORE_DOCS) {
           String docID = luceneUtils.getExternalDocId(docsEnum.docID());
           int freq = docsEnum.freq();
-          termVector.superpose(elementalDocVectors.getVector(docID), freq, null);
+          termVector.superpose(getElementalDocVector(docID), freq, null);
         }
         termVector.normalize();
         ((VectorStoreRAM) termVectors).putVector(term.text(), termVector);
@@ -0,0 +1,250 @@
+/**
+   Copyright (c) 2026, the SemanticVectors AUTHORS.
+
+   All rights reserved.
+
+   Redistribution and use in source and binary forms, with or without
+   modification, are permitted provided that the following conditions are
+   met:
+
+   * Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+   * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the following
+   disclaimer in the documentation and/or other materials provided
+   with the distribution.
+
+   * Neither the name of the University of Pittsburgh nor the names
+   of its contributors may be used to endorse or promote products
+   derived from this software without specific prior written
+   permission.
+
+   THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+   "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+   LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+   A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+   CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+   EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+   PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+   PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+   LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+   NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+   SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+**/
+
+package pitt.search.semanticvectors;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import pitt.search.semanticvectors.vectors.Vector;
+
+/**
+ * A bounded cache of vectors, limited by an estimate of the bytes that the cached vectors take
+ * up rather than by their number. The cache is split into segments by hash of the key, each with
+ * its own lock and its own share of the byte budget, so that concurrent callers rarely wait for
+ * each other. Within a segment, the least recently used entries are evicted first.
+ * <p>
+ * Counts of hits, misses and evictions are kept for reporting.
+ */
+public class VectorCache {
+  /** Number of independently locked segments, a power of two. */
+  private static final int NUM_SEGMENTS = 16;
+  /** Estimated bytes used by a cache entry besides its vector and key characters. */
+  private static final int ENTRY_OVERHEAD_BYTES = 96;
+
+  private final Segment[] segments;
+  private final long maxBytes;
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong evictions = new AtomicLong();
+
+  /**
+   * Creates a cache that holds vectors up to an estimated total of {@code maxBytes}.
+   */
+  public VectorCache(long maxBytes) {
+    if (maxBytes < 0) {
+      throw new IllegalArgumentException("Cache size must not be negative: " + maxBytes);
+    }
+    this.maxBytes = maxBytes;
+    this.segments = new Segment[NUM_SEGMENTS];
+    for (int i = 0; i < NUM_SEGMENTS; ++i) {
+      segments[i] = new Segment(maxBytes / NUM_SEGMENTS);
+    }
+  }
+
+  /** Returns an estimate of the bytes taken by caching the given vector with the given key. */
+  public static long estimateBytes(Object key, Vector vector) {
+    long vectorBytes;
+    switch (vector.getVectorType()) {
+    case BINARY:
+      vectorBytes = vector.getDimension() / 8;
+      break;
+    case COMPLEX:
+    case COMPLEXFLAT:
+      vectorBytes = 8L * vector.getDimension();
+      break;
+    default:
+      vectorBytes = 4L * vector.getDimension();
+    }
+    int keyChars = key instanceof String ? ((String) key).length() : 0;
+    return ENTRY_OVERHEAD_BYTES + 2L * keyChars + vectorBytes;
+  }
+
+  private Segment segmentFor(Object key) {
+    int hash = key.hashCode();
+    hash ^= hash >>> 16;
+    return segments[hash & (NUM_SEGMENTS - 1)];
+  }
+
+  /** Returns the cached vector for the given key, or null if it is not cached. */
+  public Vector get(Object key) {
+    Segment segment = segmentFor(key);
+    ObjectVector objectVector;
+    synchronized (segment) {
+      objectVector = segment.get(key);
+    }
+    if (objectVector == null) {
+      misses.incrementAndGet();
+      return null;
+    }
+    hits.incrementAndGet();
+    return objectVector.getVector();
+  }
+
+  /**
+   * Caches the given vector, evicting the least recently used vectors in the same segment
+   * if needed to stay within budget. Vectors bigger than a segment's budget are not cached.
+   */
+  public void put(Object key, Vector vector) {
+    long bytes = estimateBytes(key, vector);
+    Segment segment = segmentFor(key);
+    int evicted;
+    synchronized (segment) {
+      evicted = segment.putWithinBudget(key, new ObjectVector(key, vector), bytes);
+    }
+    if (evicted > 0) evictions.addAndGet(evicted);
+  }
+
+  /**
+   * Caches the given vector unless a vector is already cached for the key, and returns
+   * whichever vector is cached, so that concurrent callers generating the same vector end up
+   * sharing one instance.
+   */
+  public Vector putIfAbsent(Object key, Vector vector) {
+    long bytes = estimateBytes(key, vector);
+    Segment segment = segmentFor(key);
+    int evicted;
+    synchronized (segment) {
+      ObjectVector existing = segment.get(key);
+      if (existing != null) return existing.getVector();
+      evicted = segment.putWithinBudget(key, new ObjectVector(key, vector), bytes);
+    }
+    if (evicted > 0) evictions.addAndGet(evicted);
+    return vector;
+  }
+
+  /** Returns true if a vector for the given key is cached, without counting a hit or miss. */
+  public boolean containsKey(Object key) {
+    Segment segment = segmentFor(key);
+    synchronized (segment) {
+      return segment.containsKey(key);
+    }
+  }
+
+  /** Returns the number of cached vectors. */
+  public int size() {
+    int size = 0;
+    for (Segment segment : segments) {
+      synchronized (segment) {
+        size += segment.size();
+      }
+    }
+    return size;
+  }
+
+  /** Returns the estimated number of bytes taken by the cached vectors. */
+  public long getBytes() {
+    long bytes = 0;
+    for (Segment segment : segments) {
+      synchronized (segment) {
+        bytes += segment.bytes;
+      }
+    }
+    return bytes;
+  }
+
+  /** Returns the maximum estimated number of bytes that this cache holds. */
+  public long getMaxBytes() {
+    return maxBytes;
+  }
+
+  /** Removes all cached vectors. Counts of hits, misses and evictions are kept. */
+  public void clear() {
+    for (Segment segment : segments) {
+      synchronized (segment) {
+        segment.clear();
+        segment.bytes = 0;
+      }
+    }
+  }
+
+  /** Returns an enumeration over a snapshot of the cached vectors. */
+  public Enumeration<ObjectVector> elements() {
+    ArrayList<ObjectVector> snapshot = new ArrayList<ObjectVector>();
+    for (Segment segment : segments) {
+      synchronized (segment) {
+        snapshot.addAll(segment.values());
+      }
+    }
+    return Collections.enumeration(snapshot);
+  }
+
+  public long getHits() { return hits.get(); }
+
+  public long getMisses() { return misses.get(); }
+
+  public long getEvictions() { return evictions.get(); }
+
+  /** Returns a one line summary of the cache's size and counters, for logging. */
+  public String getStatistics() {
+    return String.format("%d vectors in %d of %d bytes, %d hits, %d misses, %d evictions",
+        size(), getBytes(), maxBytes, getHits(), getMisses(), getEvictions());
+  }
+
+  /** Access ordered map holding one segment of the cache, guarded by its own monitor. */
+  private static class Segment extends LinkedHashMap<Object, ObjectVector> {
+    private static final long serialVersionUID = 1L;
+    private final long maxBytes;
+    private long bytes;
+
+    Segment(long maxBytes) {
+      super(16, 0.75f, true);
+      this.maxBytes = maxBytes;
+    }
+
+    /** Adds the entry and evicts least recently used entries, returning the number evicted. */
+    int putWithinBudget(Object key, ObjectVector objectVector, long entryBytes) {
+      ObjectVector previous = remove(key);
+      if (previous != null) bytes -= estimateBytes(key, previous.getVector());
+      if (entryBytes > maxBytes) return 0;
+      put(key, objectVector);
+      bytes += entryBytes;
+      int evicted = 0;
+      Iterator<Map.Entry<Object, ObjectVector>> iterator = entrySet().iterator();
+      while (bytes > maxBytes && iterator.hasNext()) {
+        Map.Entry<Object, ObjectVector> eldest = iterator.next();
+        bytes -= estimateBytes(eldest.getKey(), eldest.getValue().getVector());
+        iterator.remove();
+        ++evicted;
+      }
+      return evicted;
+    }
+  }
+}
@@ -44,6 +44,10 @@ import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.Enumeration;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import java.util.logging.Logger;
 
 import org.apache.lucene.document.Document;
@@ -57,6 +61,7 @@ import org.apache.lucene.search.TopDocs;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.FSDirectory;
 
+import pitt.search.semanticvectors.utils.TopScores;
 import pitt.search.semanticvectors.vectors.BinaryVectorUtils;
 import pitt.search.semanticvectors.vectors.IncompatibleVectorsException;
 import pitt.search.semanticvectors.vectors.PermutationVector;
@@ -77,6 +82,8 @@ abstract public class VectorSearcher {
   private FlagConfig flagConfig;
   private VectorStore searchVecStore;
   private LuceneUtils luceneUtils;
+  private SearchIndex searchIndex;
+  private VectorStore rerankStore;
 
   
   /**
@@ -205,6 +212,60 @@ abstract public class VectorSearcher {
     }
   }
 
+  /**
+   * Returns the query vector if {@link #getScore} is just {@link Vector#measureOverlap}
+   * with a single query vector, so that stores can compute scores in place. Returns null
+   * by default, and subclasses with other scoring functions must not override this.
+   */
+  protected Vector getOverlapQueryVector() {
+    return null;
+  }
+
+  /**
+   * Sets an index used by {@link #getNearestNeighbors(int)} to score only likely candidates
+   * instead of the whole search store. The index is only used if this searcher's scores are
+   * given by {@link #getOverlapQueryVector}, and otherwise the whole store is searched as usual.
+   * The index's store should contain the same vectors as the search store.
+   */
+  public void setSearchIndex(SearchIndex searchIndex) {
+    this.searchIndex = searchIndex;
+  }
+
+  /**
+   * Sets a store of full precision vectors used by {@link #getNearestNeighbors(int)} to re-score
+   * the best {@link FlagConfig#numrerankcandidates} results, when the search store only has
+   * approximate vectors, e.g., vectors written with {@link VectorStoreUtils.VectorPrecision#INT8}
+   * precision. Only used if this searcher's scores are given by {@link #getOverlapQueryVector}.
+   */
+  public void setRerankStore(VectorStore rerankStore) {
+    this.rerankStore = rerankStore;
+  }
+
+  /** Returns true if results are re-scored using {@link #rerankStore}. */
+  private boolean usesRerankStore() {
+    return rerankStore != null && getOverlapQueryVector() != null;
+  }
+
+  /**
+   * Returns a scorer that reads the search store in place, if the store is an
+   * {@link IndexedVectorStore} and this searcher's scores are given by {@link #getOverlapQueryVector}; otherwise null.
+   */
+  private IndexedVectorStore.OverlapScorer getDirectScorer() {
+    if (!(searchVecStore instanceof IndexedVectorStore)) return null;
+    Vector queryVector = getOverlapQueryVector();
+    if (queryVector == null) return null;
+    return ((IndexedVectorStore) searchVecStore).getOverlapScorer(queryVector);
+  }
+
+  /**
+   * Returns true if this searcher uses the {@link #getNearestNeighbors(int)} implemented here,
+   * so that it can be run together with others by {@link #getNearestNeighborsBatch}.
+   * Subclasses that override {@link #getNearestNeighbors(int)} must also override this to return false.
+   */
+  protected boolean usesDefaultSearch() {
+    return true;
+  }
+
   /**
    * This nearest neighbor search is implemented in the abstract
    * VectorSearcher class itself: this enables all subclasses to reuse
@@ -212,80 +273,586 @@ abstract public class VectorSearcher {
    * expressions are built into the VectorSearcher,
    * getNearestNeighbors no longer takes a query vector as an
    * argument.
+   *
+   * The best results are kept in a {@link TopScores} collector, and {@link SearchResult}s
+   * are only created for these once the whole store has been scored.
    * @param numResults the number of results / length of the result list.
    */
   public LinkedList<SearchResult> getNearestNeighbors(int numResults) {
-    final double unsetScore = -Math.PI;
-    final int bufferSize = 1000;
-    final int indexSize = numResults + bufferSize;
+    double threshold = getMinScore();
+    int numCandidates = usesRerankStore() ? Math.max(numResults, flagConfig.numrerankcandidates()) : numResults;
+    PartialSearch search;
+    Vector queryVector = getOverlapQueryVector();
+    if (searchIndex != null && queryVector != null) {
+      search = searchCandidates(queryVector, numCandidates, threshold);
+    } else if (searchVecStore instanceof VectorStoreSharded) {
+      search = searchShards(((VectorStoreSharded) searchVecStore).getShards(), numCandidates, threshold);
+    } else if (flagConfig.searchthreads() > 1) {
+      search = searchInParallel(numCandidates, threshold);
+    } else if (searchVecStore instanceof IndexedVectorStore) {
+      IndexedVectorStore indexedStore = (IndexedVectorStore) searchVecStore;
+      search = new IndexedPartialSearch(
+          indexedStore, getDirectScorer(), 0, indexedStore.getNumVectors(), numCandidates, threshold).call();
+    } else {
+      search = new EnumeratedPartialSearch(searchVecStore.getAllVectors(), numCandidates, threshold).call();
+    }
+    return getResults(search, numResults);
+  }
+
+  /**
+   * Scores only the candidates returned by {@link #searchIndex}. Candidates are scored exactly,
+   * using {@link #getScore} or an in-place scorer that gives the same scores, so the index only
+   * affects which records are considered. Statistics for {@link FlagConfig#stdev} are computed
+   * over these candidates.
+   */
+  private PartialSearch searchCandidates(Vector queryVector, int numResults, double threshold) {
+    IndexedVectorStore indexedStore = searchIndex.getStore();
+    IndexedPartialSearch search = new IndexedPartialSearch(
+        indexedStore, indexedStore.getOverlapScorer(queryVector), 0, 0, numResults, threshold);
+    for (int index : searchIndex.getCandidates(queryVector, numResults)) {
+      search.score(index);
+    }
+    return search;
+  }
+
+  /** Returns the score that results must beat, as given by the flags. */
+  private double getMinScore() {
+    if (flagConfig.stdev()) return 0;
+    return flagConfig.searchresultsminscore();
+  }
+
+  /**
+   * Creates the search results, re-ranked if {@link #rerankStore} is set, and transformed to
+   * statistics if {@link FlagConfig#stdev} is set.
+   */
+  private LinkedList<SearchResult> getResults(PartialSearch search, int numResults) {
+    LinkedList<SearchResult> results = search.getResults();
+    if (usesRerankStore()) results = rerank(results, numResults);
+    if (flagConfig.stdev()) results = transformToStats(results, search.count, search.sum, search.sumsquared);
+    return results;
+  }
+
+  /**
+   * Scores the candidates again using the vectors for the same objects in {@link #rerankStore},
+   * and returns the best numResults. Candidates missing from that store keep their scores.
+   */
+  private LinkedList<SearchResult> rerank(LinkedList<SearchResult> candidates, int numResults) {
+    double threshold = getMinScore();
+    boolean usesTermWeights = luceneUtils != null && flagConfig.usetermweightsintermsearch();
+    SearchResult[] rescored = new SearchResult[candidates.size()];
+    TopScores best = new TopScores(Math.max(0, numResults));
+    int i = 0;
+    for (SearchResult candidate : candidates) {
+      Object object = candidate.getObjectVector().getObject();
+      Vector vector = rerankStore.getVector(object);
+      if (vector == null) {
+        rescored[i] = candidate;
+      } else {
+        double score = getScore(vector);
+        if (usesTermWeights) score *= luceneUtils.getGlobalTermWeightFromString((String) object);
+        rescored[i] = new SearchResult(score, new ObjectVector(object, vector));
+      }
+      if (rescored[i].getScore() > threshold) best.offer(rescored[i].getScore(), i);
+      ++i;
+    }
+    best.sortDescending();
     LinkedList<SearchResult> results = new LinkedList<SearchResult>();
-    List<SearchResult> tmpResults = new ArrayList<SearchResult>(indexSize);
-    double score = -1;
-    double threshold = flagConfig.searchresultsminscore();
-    if (flagConfig.stdev()) threshold = 0;
-    //Counters for statistics to calculate standard deviation
-    double sum=0, sumsquared=0;
-    int count=0;
-    int pos = 0;
-    for(int i=0; i < indexSize; i++)
-    {
-      tmpResults.add(new SearchResult(unsetScore, null));
+    for (int j = 0; j < best.size(); ++j) {
+      results.add(rescored[best.getId(j)]);
     }
+    return results;
+  }
 
-    Enumeration<ObjectVector> vecEnum = searchVecStore.getAllVectors();
-    while (vecEnum.hasMoreElements()) {
-      // Test this element.
-      ObjectVector testElement = vecEnum.nextElement();
-      score = getScore(testElement.getVector());
-
-      // This is a way of using the Lucene Index to get term and
-      // document frequency information to reweight all results. It
-      // seems to be good at moving excessively common terms further
-      // down the results. Note that using this means that scores
-      // returned are no longer just cosine similarities.
-      if (this.luceneUtils != null && flagConfig.usetermweightsintermsearch()) {
-        score = score * luceneUtils.getGlobalTermWeightFromString((String) testElement.getObject());
+  /** Number of records scored for all queries at a time in {@link #getNearestNeighborsBatch}. */
+  private static final int BATCH_SEARCH_TILE_SIZE = 64;
+
+  /**
+   * Runs the searches for all the given searchers in one pass over their search store,
+   * which must be the same store for each searcher. Gives the same results as
+   * {@link #getNearestNeighbors(int)} for each searcher, in the same order as the searchers. <p>
+   *
+   * If each searcher scores by {@link Vector#measureOverlap} with a query vector and the store is an
+   * {@link IndexedVectorStore}, blocks of records are scored in place for all the queries together
+   * using {@link IndexedVectorStore#getBatchOverlapScorer}. Otherwise each vector is read once and
+   * passed to {@link #getScore} for each searcher. Indexed stores are split into ranges that are
+   * searched in parallel if {@link FlagConfig#searchthreads} is more than 1. <p>
+   *
+   * Searchers with their own implementation of {@link #getNearestNeighbors(int)}, and searchers
+   * with a {@link SearchIndex} or a re-rank store, are run separately.
+   */
+  public static List<LinkedList<SearchResult>> getNearestNeighborsBatch(
+      List<? extends VectorSearcher> searchers, int numResults) {
+    ArrayList<LinkedList<SearchResult>> results = new ArrayList<LinkedList<SearchResult>>(searchers.size());
+    ArrayList<VectorSearcher> batch = new ArrayList<VectorSearcher>();
+    ArrayList<Integer> batchPositions = new ArrayList<Integer>();
+    for (VectorSearcher searcher : searchers) {
+      if (searcher.usesDefaultSearch() && searcher.searchIndex == null && searcher.rerankStore == null) {
+        batchPositions.add(results.size());
+        batch.add(searcher);
+        results.add(null);
+      } else {
+        results.add(searcher.getNearestNeighbors(numResults));
       }
+    }
+    if (batch.isEmpty()) return results;
 
-      if (flagConfig.stdev()) {
-    	double susq = Math.pow(score, 2);
-    	if (!Double.isNaN(susq))
-    	{
+    VectorStore store = batch.get(0).searchVecStore;
+    for (VectorSearcher searcher : batch) {
+      if (searcher.searchVecStore != store) {
+        throw new IllegalArgumentException("All searchers in a batch must search the same vector store.");
+      }
+    }
+
+    PartialSearch[] searches;
+    if (store instanceof IndexedVectorStore) {
+      searches = searchIndexedBatch(batch, (IndexedVectorStore) store, numResults);
+    } else {
+      searches = new PartialSearch[batch.size()];
+      for (int j = 0; j < batch.size(); ++j) {
+        VectorSearcher searcher = batch.get(j);
+        searches[j] = searcher.new EnumeratedPartialSearch(null, numResults, searcher.getMinScore());
+      }
+      Enumeration<ObjectVector> vecEnum = store.getAllVectors();
+      while (vecEnum.hasMoreElements()) {
+        ObjectVector testElement = vecEnum.nextElement();
+        for (int j = 0; j < batch.size(); ++j) {
+          ((EnumeratedPartialSearch) searches[j]).consider(
+              testElement, batch.get(j).getScore(testElement.getVector()));
+        }
+      }
+    }
+
+    for (int j = 0; j < batch.size(); ++j) {
+      results.set(batchPositions.get(j), batch.get(j).getResults(searches[j], numResults));
+    }
+    return results;
+  }
+
+  private static PartialSearch[] searchIndexedBatch(
+      List<VectorSearcher> batch, IndexedVectorStore store, int numResults) {
+    IndexedVectorStore.BatchOverlapScorer batchScorer = null;
+    Vector[] queryVectors = new Vector[batch.size()];
+    for (int j = 0; j < batch.size(); ++j) {
+      queryVectors[j] = batch.get(j).getOverlapQueryVector();
+      if (queryVectors[j] == null) {
+        queryVectors = null;
+        break;
+      }
+    }
+    if (queryVectors != null) batchScorer = store.getBatchOverlapScorer(queryVectors);
+
+    int numVectors = store.getNumVectors();
+    int numThreads = batch.get(0).flagConfig.searchthreads();
+    if (numThreads <= 1) {
+      return new IndexedBatchSearch(batch, store, batchScorer, 0, numVectors, numResults).call();
+    }
+
+    // As in searchInParallel, make the first call to getScore on this thread.
+    int start = (batchScorer == null && numVectors > 0) ? 1 : 0;
+    PartialSearch[] total = new IndexedBatchSearch(batch, store, batchScorer, 0, start, numResults).call();
+    ArrayList<IndexedBatchSearch> rangeSearches = new ArrayList<IndexedBatchSearch>();
+    int rangeSize = Math.max(PARALLEL_SEARCH_BATCH_SIZE, (numVectors - start) / (4 * numThreads) + 1);
+    for (; start < numVectors; start += rangeSize) {
+      int end = Math.min(numVectors, start + rangeSize);
+      rangeSearches.add(new IndexedBatchSearch(batch, store, batchScorer, start, end, numResults));
+    }
+    for (PartialSearch[] partials : runOnSearchPool(rangeSearches, numThreads)) {
+      for (int j = 0; j < total.length; ++j) {
+        total[j].merge(partials[j]);
+      }
+    }
+    return total;
+  }
+
+  /**
+   * Searches a range of records in an indexed store for a batch of searchers,
+   * used by {@link #getNearestNeighborsBatch}.
+   */
+  private static class IndexedBatchSearch implements Callable<PartialSearch[]> {
+    private final List<VectorSearcher> searchers;
+    private final IndexedVectorStore store;
+    private final IndexedVectorStore.BatchOverlapScorer batchScorer;
+    private final int start;
+    private final int end;
+    private final int numResults;
+
+    IndexedBatchSearch(List<VectorSearcher> searchers, IndexedVectorStore store,
+        IndexedVectorStore.BatchOverlapScorer batchScorer, int start, int end, int numResults) {
+      this.searchers = searchers;
+      this.store = store;
+      this.batchScorer = batchScorer;
+      this.start = start;
+      this.end = end;
+      this.numResults = numResults;
+    }
+
+    @Override
+    public PartialSearch[] call() {
+      IndexedPartialSearch[] searches = new IndexedPartialSearch[searchers.size()];
+      for (int j = 0; j < searches.length; ++j) {
+        VectorSearcher searcher = searchers.get(j);
+        searches[j] = searcher.new IndexedPartialSearch(
+            store, null, start, start, numResults, searcher.getMinScore());
+      }
+      double[][] scores = new double[searches.length][BATCH_SEARCH_TILE_SIZE];
+      for (int tileStart = start; tileStart < end; tileStart += BATCH_SEARCH_TILE_SIZE) {
+        int tileEnd = Math.min(end, tileStart + BATCH_SEARCH_TILE_SIZE);
+        if (batchScorer != null) {
+          batchScorer.score(tileStart, tileEnd, scores);
+          for (int j = 0; j < searches.length; ++j) {
+            for (int index = tileStart; index < tileEnd; ++index) {
+              searches[j].consider(index, scores[j][index - tileStart], null);
+            }
+          }
+        } else {
+          for (int index = tileStart; index < tileEnd; ++index) {
+            ObjectVector testElement = store.getObjectVector(index);
+            for (int j = 0; j < searches.length; ++j) {
+              searches[j].consider(index, searchers.get(j).getScore(testElement.getVector()), testElement);
+            }
+          }
+        }
+      }
+      return searches;
+    }
+  }
+
+  /** Number of vectors read from an enumeration and handed to a search thread at a time. */
+  private static final int PARALLEL_SEARCH_BATCH_SIZE = 4096;
+
+  /**
+   * Pool shared by all parallel searches, with one thread per processor, created on first use.
+   * Each search limits how many of its own tasks are in the pool at once.
+   */
+  private static class SearchPool {
+    static final ForkJoinPool POOL = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Runs the tasks on the shared search pool, with at most numThreads of them queued or running
+   * at a time, and returns their results in the order of the tasks.
+   */
+  private static <T> List<T> runOnSearchPool(List<? extends Callable<T>> tasks, int numThreads) {
+    ArrayList<Future<T>> futures = new ArrayList<Future<T>>(tasks.size());
+    ArrayList<T> results = new ArrayList<T>(tasks.size());
+    for (int i = 0; i < Math.min(numThreads, tasks.size()); ++i) {
+      futures.add(SearchPool.POOL.submit(tasks.get(i)));
+    }
+    for (int i = 0; i < tasks.size(); ++i) {
+      results.add(getFutureResult(futures.get(i)));
+      futures.set(i, null);
+      if (i + numThreads < tasks.size()) futures.add(SearchPool.POOL.submit(tasks.get(i + numThreads)));
+    }
+    return results;
+  }
+
+  /**
+   * Splits the search store into parts that are scored on up to {@link FlagConfig#searchthreads}
+   * threads of the shared search pool, each keeping its own best results, and merges these. <p>
+   *
+   * Stores that implement {@link IndexedVectorStore} are split into ranges of indices. Other stores
+   * are enumerated on the calling thread and handed to the pool in batches. {@link #getScore} is
+   * called concurrently for different vectors, after being called once on the calling thread so
+   * that any lazy initialization of the query (e.g., sparse to dense conversion) isn't shared.
+   */
+  private PartialSearch searchInParallel(int numResults, double threshold) {
+    int numThreads = flagConfig.searchthreads();
+    PartialSearch total;
+    ArrayList<Future<PartialSearch>> futures = new ArrayList<Future<PartialSearch>>();
+    int numMerged = 0;
+
+    if (searchVecStore instanceof IndexedVectorStore) {
+      IndexedVectorStore indexedStore = (IndexedVectorStore) searchVecStore;
+      IndexedVectorStore.OverlapScorer directScorer = getDirectScorer();
+      int numVectors = indexedStore.getNumVectors();
+      int start = 0;
+      if (directScorer == null && numVectors > 0) {
+        start = 1;
+      }
+      total = new IndexedPartialSearch(indexedStore, directScorer, 0, start, numResults, threshold).call();
+      ArrayList<IndexedPartialSearch> rangeSearches = new ArrayList<IndexedPartialSearch>();
+      int rangeSize = Math.max(PARALLEL_SEARCH_BATCH_SIZE, (numVectors - start) / (4 * numThreads) + 1);
+      for (; start < numVectors; start += rangeSize) {
+        int end = Math.min(numVectors, start + rangeSize);
+        rangeSearches.add(new IndexedPartialSearch(indexedStore, directScorer, start, end, numResults, threshold));
+      }
+      for (PartialSearch rangeSearch : runOnSearchPool(rangeSearches, numThreads)) total.merge(rangeSearch);
+    } else {
+      Enumeration<ObjectVector> vecEnum = searchVecStore.getAllVectors();
+      ArrayList<ObjectVector> batch = new ArrayList<ObjectVector>(1);
+      if (vecEnum.hasMoreElements()) batch.add(vecEnum.nextElement());
+      total = new EnumeratedPartialSearch(Collections.enumeration(batch), numResults, threshold).call();
+      batch = new ArrayList<ObjectVector>(PARALLEL_SEARCH_BATCH_SIZE);
+      while (vecEnum.hasMoreElements()) {
+        batch.add(vecEnum.nextElement());
+        if (batch.size() == PARALLEL_SEARCH_BATCH_SIZE || !vecEnum.hasMoreElements()) {
+          futures.add(SearchPool.POOL.submit(new EnumeratedPartialSearch(
+              Collections.enumeration(batch), numResults, total.threshold)));
+          batch = new ArrayList<ObjectVector>(PARALLEL_SEARCH_BATCH_SIZE);
+          // Keep at most numThreads batches in the pool, so that the enumeration doesn't run too
+          // far ahead of the search threads.
+          if (futures.size() - numMerged >= numThreads) {
+            total.merge(getFutureResult(futures.get(numMerged)));
+            futures.set(numMerged++, null);
+          }
+        }
+      }
+    }
+
+    for (; numMerged < futures.size(); ++numMerged) {
+      total.merge(getFutureResult(futures.get(numMerged)));
+    }
+    return total;
+  }
+
+  /**
+   * Searches each shard of a {@link VectorStoreSharded} as a separate task and merges the best
+   * results of each. The tasks run on {@link FlagConfig#searchthreads} threads if this is more
+   * than 1, and otherwise on one thread per shard up to the number of processors. As in
+   * {@link #searchInParallel}, {@link #getScore} is called once on the calling thread first
+   * if any shard is scored with it.
+   */
+  private PartialSearch searchShards(List<CloseableVectorStore> shards, int numResults, double threshold) {
+    PartialSearch total = new EnumeratedPartialSearch(
+        Collections.<ObjectVector>emptyEnumeration(), numResults, threshold);
+    Vector queryVector = getOverlapQueryVector();
+    ArrayList<PartialSearch> shardSearches = new ArrayList<PartialSearch>(shards.size());
+    boolean scoredOnThisThread = false;
+    for (VectorStore shard : shards) {
+      if (queryVector != null && shard instanceof IndexedVectorStore) {
+        IndexedVectorStore indexedShard = (IndexedVectorStore) shard;
+        shardSearches.add(new IndexedPartialSearch(indexedShard, indexedShard.getOverlapScorer(queryVector),
+            0, indexedShard.getNumVectors(), numResults, threshold));
+        continue;
+      }
+      Enumeration<ObjectVector> vecEnum = shard.getAllVectors();
+      if (!scoredOnThisThread && vecEnum.hasMoreElements()) {
+        ObjectVector first = vecEnum.nextElement();
+        total.merge(new EnumeratedPartialSearch(
+            Collections.enumeration(Collections.singletonList(first)), numResults, threshold).call());
+        scoredOnThisThread = true;
+      }
+      shardSearches.add(new EnumeratedPartialSearch(vecEnum, numResults, threshold));
+    }
+
+    int numThreads = flagConfig.searchthreads() > 1 ? flagConfig.searchthreads()
+        : Math.min(shards.size(), Runtime.getRuntime().availableProcessors());
+    if (numThreads <= 1) {
+      for (PartialSearch shardSearch : shardSearches) total.merge(shardSearch.call());
+      return total;
+    }
+    for (PartialSearch shardSearch : runOnSearchPool(shardSearches, numThreads)) total.merge(shardSearch);
+    return total;
+  }
+
+  private static <T> T getFutureResult(Future<T> future) {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Interrupted during parallel search.", e);
+    } catch (ExecutionException e) {
+      throw new RuntimeException("Parallel search failed.", e.getCause());
+    }
+  }
+
+  /**
+   * Best results and score statistics for part of the search store, used by
+   * {@link #getNearestNeighbors}.
+   */
+  private abstract class PartialSearch implements Callable<PartialSearch> {
+    /** Best results so far, with ids given by subclasses. */
+    final TopScores best;
+    /** Minimum score from the flags. */
+    final double minScore;
+    /** Results must score more than this, either from the flags or because there are enough better results. */
+    double threshold;
+    double sum = 0;
+    double sumsquared = 0;
+    int count = 0;
+
+    PartialSearch(int numResults, double minScore) {
+      this.best = new TopScores(Math.max(0, numResults));
+      this.minScore = minScore;
+      this.threshold = minScore;
+    }
+
+    /** Scores this part of the store. */
+    @Override
+    public abstract PartialSearch call();
+
+    /** Returns the object vector for a result with the given id in {@link #best}. */
+    abstract ObjectVector getElement(int id);
+
+    /** Adds the results and statistics from another part of the same store. */
+    abstract void merge(PartialSearch other);
+
+    /** Applies term weighting, if used, as in the single threaded search. */
+    double weightScore(double score, ObjectVector testElement) {
+      return score * luceneUtils.getGlobalTermWeightFromString((String) testElement.getObject());
+    }
+
+    boolean usesTermWeights() {
+      return luceneUtils != null && flagConfig.usetermweightsintermsearch();
+    }
+
+    void addToStats(double score) {
+      if (flagConfig.stdev() && !Double.isNaN(score * score)) {
         count++;
         sum += score;
-        sumsquared += Math.pow(score, 2);
-    	}
-    	}
+        sumsquared += score * score;
+      }
+    }
+
+    void mergeStats(PartialSearch other) {
+      count += other.count;
+      sum += other.sum;
+      sumsquared += other.sumsquared;
+    }
+
+    void updateThreshold() {
+      threshold = Math.max(minScore, best.minScore());
+    }
 
-      if (score > threshold) {
-        // set existing object in buffer space
-        tmpResults.get(numResults+pos++).set(score, testElement);
+    /** Creates the search results, best first. */
+    LinkedList<SearchResult> getResults() {
+      best.sortDescending();
+      LinkedList<SearchResult> results = new LinkedList<SearchResult>();
+      for (int i = 0; i < best.size(); ++i) {
+        results.add(new SearchResult(best.getScore(i), getElement(best.getId(i))));
       }
+      return results;
+    }
+  }
+
+  /**
+   * Scores vectors from an enumeration, keeping the object vectors for the best results.
+   * Ids in {@link #best} are slots in {@link #elements}.
+   */
+  private class EnumeratedPartialSearch extends PartialSearch {
+    private final Enumeration<ObjectVector> candidates;
+    private final ObjectVector[] elements;
+
+    EnumeratedPartialSearch(Enumeration<ObjectVector> candidates, int numResults, double threshold) {
+      super(numResults, threshold);
+      this.candidates = candidates;
+      this.elements = new ObjectVector[best.capacity()];
+    }
 
-      if(pos == bufferSize)
-      {
-        pos = 0;
-        Collections.sort(tmpResults);
-        threshold = tmpResults.get(indexSize - 1).getScore();
+    @Override
+    public PartialSearch call() {
+      while (candidates.hasMoreElements()) {
+        ObjectVector testElement = candidates.nextElement();
+        consider(testElement, getScore(testElement.getVector()));
       }
+      return this;
     }
-    
-    Collections.sort(tmpResults);
-    
-    for(int i = 0; i < numResults; i++)
-    {
-      SearchResult sr = tmpResults.get(i);
-      if(sr.getScore() == unsetScore)
-      {
-        break;
+
+    /** Adds the element to the results if its score is good enough. */
+    void consider(ObjectVector testElement, double score) {
+      if (usesTermWeights()) score = weightScore(score, testElement);
+      addToStats(score);
+      if (score > threshold) add(score, testElement);
+    }
+
+    private void add(double score, ObjectVector testElement) {
+      if (best.capacity() == 0) return;
+      // A full collector replaces its lowest result, so the new result can reuse that slot.
+      int slot = best.isFull() ? best.minId() : best.size();
+      if (best.offer(score, slot)) {
+        elements[slot] = testElement;
+        updateThreshold();
       }
-      results.add(sr);
     }
-    
-    if (flagConfig.stdev()) results = transformToStats(results, count, sum, sumsquared);
 
-    
-    return results;
+    @Override
+    ObjectVector getElement(int id) {
+      return elements[id];
+    }
+
+    @Override
+    void merge(PartialSearch other) {
+      for (int i = 0; i < other.best.size(); ++i) {
+        double score = other.best.getScore(i);
+        if (score > threshold) add(score, other.getElement(other.best.getId(i)));
+      }
+      mergeStats(other);
+    }
+  }
+
+  /**
+   * Scores a range of records in an indexed store. Ids in {@link #best} are record indices,
+   * and object vectors are only read for the final results, and for term weighting if used.
+   */
+  private class IndexedPartialSearch extends PartialSearch {
+    private final IndexedVectorStore store;
+    private final IndexedVectorStore.OverlapScorer directScorer;
+    private final int start;
+    private final int end;
+
+    IndexedPartialSearch(IndexedVectorStore store, IndexedVectorStore.OverlapScorer directScorer,
+        int start, int end, int numResults, double threshold) {
+      super(numResults, threshold);
+      this.store = store;
+      this.directScorer = directScorer;
+      this.start = start;
+      this.end = end;
+    }
+
+    @Override
+    public PartialSearch call() {
+      for (int index = start; index < end; ++index) {
+        score(index);
+      }
+      return this;
+    }
+
+    /** Scores the record with the given index and adds it to the results if it is good enough. */
+    void score(int index) {
+      if (directScorer == null) {
+        ObjectVector testElement = store.getObjectVector(index);
+        consider(index, getScore(testElement.getVector()), testElement);
+      } else if (usesTermWeights() || flagConfig.stdev()) {
+        consider(index, directScorer.score(index), null);
+      } else {
+        // Exact scores are only needed for records that beat the threshold.
+        consider(index, directScorer.score(index, threshold), null);
+      }
+    }
+
+    /**
+     * Adds the record with the given index to the results if its score is good enough.
+     * The object vector for the record is read if needed and testElement is null.
+     */
+    void consider(int index, double score, ObjectVector testElement) {
+      if (usesTermWeights()) {
+        if (testElement == null) testElement = store.getObjectVector(index);
+        score = weightScore(score, testElement);
+      }
+      addToStats(score);
+      if (score > threshold && best.offer(score, index)) updateThreshold();
+    }
+
+    @Override
+    ObjectVector getElement(int id) {
+      return store.getObjectVector(id);
+    }
+
+    @Override
+    void merge(PartialSearch other) {
+      for (int i = 0; i < other.best.size(); ++i) {
+        double score = other.best.getScore(i);
+        if (score > threshold && best.offer(score, other.best.getId(i))) updateThreshold();
+      }
+      mergeStats(other);
+    }
+  }
+
+  /**
+   * Receives search results one at a time, see {@link #getAllAboveThreshold(float, ResultSink)}.
+   */
+  public interface ResultSink {
+    public void accept(double score, ObjectVector objectVector);
   }
 
   /**
@@ -298,35 +865,54 @@ abstract public class VectorSearcher {
    *
    * This will retrieve all the results above the threshold score passed
    * as a parameter. It is more computationally convenient than getNearestNeighbor
-   * when large numbers of results are anticipated
+   * when large numbers of results are anticipated. Callers that don't need the
+   * results sorted should use {@link #getAllAboveThreshold(float, ResultSink)}.
    *
    * @param threshold minimum score required to get into results list.
    */
   public LinkedList<SearchResult> getAllAboveThreshold(float threshold) {
-    LinkedList<SearchResult> results = new LinkedList<SearchResult>();
-    double score;
+    final ArrayList<SearchResult> results = new ArrayList<SearchResult>();
+    getAllAboveThreshold(threshold, new ResultSink() {
+      @Override
+      public void accept(double score, ObjectVector objectVector) {
+        results.add(new SearchResult(score, objectVector));
+      }
+    });
+    Collections.sort(results);
+    return new LinkedList<SearchResult>(results);
+  }
 
-    Enumeration<ObjectVector> vecEnum = null;
-    vecEnum = searchVecStore.getAllVectors();
+  /**
+   * Passes each result above the threshold score to the sink as soon as it is scored,
+   * in the order of the search store, without keeping or sorting the results.
+   *
+   * @param threshold minimum score required to be passed to the sink.
+   */
+  public void getAllAboveThreshold(float threshold, ResultSink sink) {
+    IndexedVectorStore.OverlapScorer directScorer = getDirectScorer();
+    if (directScorer != null) {
+      IndexedVectorStore indexedStore = (IndexedVectorStore) searchVecStore;
+      for (int index = 0; index < indexedStore.getNumVectors(); ++index) {
+        double score = directScorer.score(index);
+        if (score > threshold || threshold == Float.MIN_VALUE) {
+          sink.accept(score, indexedStore.getObjectVector(index));
+        }
+      }
+      return;
+    }
 
+    double score;
+    Enumeration<ObjectVector> vecEnum = searchVecStore.getAllVectors();
     while (vecEnum.hasMoreElements()) {
       // Test this element.
       ObjectVector testElement = vecEnum.nextElement();
       if (testElement == null) score = Float.MIN_VALUE;
-      else
-      {
-
-        Vector testVector = testElement.getVector();
-        score = getScore(testVector);
-
-      }
+      else score = getScore(testElement.getVector());
 
       if (score > threshold || threshold == Float.MIN_VALUE) {
-        results.add(new SearchResult(score, testElement));}
+        sink.accept(score, testElement);
+      }
     }
-
-    Collections.sort(results);
-    return results;
   }
 
   /**
@@ -347,6 +933,11 @@ abstract public class VectorSearcher {
     public double getScore(Vector testVector) {
       return queryVector.measureOverlap(testVector);
     }
+
+    @Override
+    protected Vector getOverlapQueryVector() {
+      return queryVector;
+    }
   }
 
   /**
@@ -398,6 +989,11 @@ abstract public class VectorSearcher {
     public double getScore(Vector testVector) {
       return this.queryVector.measureOverlap(testVector);
     }
+
+    @Override
+    protected Vector getOverlapQueryVector() {
+      return queryVector;
+    }
   }
 
   /**
@@ -480,6 +1076,11 @@ abstract public class VectorSearcher {
     public double getScore(Vector testVector) {
       return this.queryVector.measureOverlap(testVector);
     }
+
+    @Override
+    protected Vector getOverlapQueryVector() {
+      return queryVector;
+    }
   }
 
   /**
@@ -954,6 +1555,11 @@ abstract public class VectorSearcher {
     public double getScore(Vector testVector) {
       return queryVector.measureOverlap(testVector);
     }
+
+    @Override
+    protected Vector getOverlapQueryVector() {
+      return queryVector;
+    }
   }
 
   /**
@@ -1005,6 +1611,11 @@ abstract public class VectorSearcher {
       }
     }
 
+    @Override
+    protected boolean usesDefaultSearch() {
+      return false;
+    }
+
     /**
      * This overrides the nearest neighbor class implemented in the abstract
      * {@code VectorSearcher} class.
@@ -1130,6 +1741,11 @@ abstract public class VectorSearcher {
 	  
   }
 
+  @Override
+  protected boolean usesDefaultSearch() {
+    return false;
+  }
+
   /**
    * This overrides the nearest neighbor class implemented in the abstract
    * {@code VectorSearcher} class.
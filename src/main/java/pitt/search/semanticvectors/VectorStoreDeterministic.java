@@ -2,7 +2,6 @@ package pitt.search.semanticvectors;
 
 import java.util.Enumeration;
 import java.util.Random;
-import java.util.concurrent.ConcurrentHashMap;
 
 import pitt.search.semanticvectors.utils.Bobcat;
 import pitt.search.semanticvectors.vectors.Vector;
@@ -38,15 +37,26 @@ import pitt.search.semanticvectors.vectors.VectorType;
  **/
 public class VectorStoreDeterministic implements VectorStore, CloseableVectorStore {
   private FlagConfig flagConfig;
-  private ConcurrentHashMap<Object, ObjectVector> objectVectors;
-  private Random random = new Random();
+  private VectorCache objectVectors;
   private VectorType vectorType;
   private int dimension;
   private boolean cacheVectors = true;
 
+  /**
+   * Constructs a store whose cache is limited to {@link FlagConfig#deterministiccachemb()}.
+   */
   public VectorStoreDeterministic(FlagConfig flagConfig) {
+    this(flagConfig, flagConfig.deterministiccachemb() * 1024L * 1024L);
+  }
+
+  /**
+   * Constructs a store whose cache holds up to an estimated {@code maxCacheBytes} of vectors.
+   * Stores whose vectors are changed by their users, such as elemental vectors that are
+   * trained, should not limit the cache, since changes to evicted vectors are lost.
+   */
+  public VectorStoreDeterministic(FlagConfig flagConfig, long maxCacheBytes) {
     this.flagConfig = flagConfig;
-    this.objectVectors = new ConcurrentHashMap<Object, ObjectVector>();
+    this.objectVectors = new VectorCache(maxCacheBytes);
     this.vectorType = flagConfig.vectortype();
     this.dimension = flagConfig.dimension();
   }
@@ -79,10 +89,17 @@ public class VectorStoreDeterministic implements VectorStore, CloseableVectorSto
      this.cacheVectors = cacheVectors;
    }
 
+   /** Returns the cache of generated vectors, e.g., to report its statistics. */
+   public VectorCache getVectorCache() {
+     return objectVectors;
+   }
+
    /**
     * Given an object, get its corresponding vector.
     * <p>
-    * This implementation only works for string objects so far.
+    * This implementation only works for string objects so far. It is safe to call
+    * from several threads: each call generates from its own random number generator,
+    * seeded with the {@link Bobcat} hash of the object.
     * 
     * @param desiredObject the string you're searching for
     * @return vector from the VectorStore, or null if not found.
@@ -90,16 +107,15 @@ public class VectorStoreDeterministic implements VectorStore, CloseableVectorSto
     *         <code>null</code>
     */
    public Vector getVector(Object desiredObject) throws NullPointerException {
-     ObjectVector objectVector = this.objectVectors.get(desiredObject);
-     if (objectVector != null) {
-       return objectVector.getVector();
+     Vector cachedVector = this.objectVectors.get(desiredObject);
+     if (cachedVector != null) {
+       return cachedVector;
      } else {
-       random.setSeed(Bobcat.asLong(desiredObject.toString()));
+       Random random = new Random(Bobcat.asLong(desiredObject.toString()));
        Vector v = VectorFactory.generateRandomVector(vectorType,
            dimension, flagConfig.seedlength(), random);
        if (cacheVectors)
-         objectVectors.put(desiredObject, new ObjectVector(
-             desiredObject, v));
+         v = objectVectors.putIfAbsent(desiredObject, v);
        return v;
      }
    }
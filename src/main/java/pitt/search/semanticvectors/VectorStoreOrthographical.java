@@ -1,7 +1,6 @@
 package pitt.search.semanticvectors;
 
 import java.util.Enumeration;
-import java.util.Hashtable;
 
 import pitt.search.semanticvectors.orthography.NumberRepresentation;
 import pitt.search.semanticvectors.orthography.StringEdit;
@@ -23,7 +22,7 @@ import pitt.search.semanticvectors.vectors.Vector;
  **/
 public class VectorStoreOrthographical implements VectorStore, CloseableVectorStore {
   private FlagConfig flagConfig;
-  private Hashtable<Object, ObjectVector> objectVectors;
+  private VectorCache objectVectors;
   private boolean cacheVectors = true;
   private NumberRepresentation theNumbers;
   private StringEdit stringVectors;
@@ -44,9 +43,17 @@ public class VectorStoreOrthographical implements VectorStore, CloseableVectorSt
    * @param letterVectors
    */
   public VectorStoreOrthographical(FlagConfig flagConfig, VectorStore letterVectors) {
+    this(flagConfig, letterVectors, flagConfig.deterministiccachemb() * 1024L * 1024L);
+  }
+
+  /**
+   * As {@link #VectorStoreOrthographical(FlagConfig, VectorStore)}, with a cache that holds up to
+   * an estimated {@code maxCacheBytes} of vectors instead of {@link FlagConfig#deterministiccachemb()}.
+   */
+  public VectorStoreOrthographical(FlagConfig flagConfig, VectorStore letterVectors, long maxCacheBytes) {
     this.flagConfig = flagConfig;
     this.letterVectors = letterVectors;
-    this.objectVectors = new Hashtable<>();
+    this.objectVectors = new VectorCache(maxCacheBytes);
     this.theNumbers = new NumberRepresentation(flagConfig);
     this.stringVectors = new StringEdit(flagConfig, theNumbers, letterVectors);
   }
@@ -95,14 +102,14 @@ public class VectorStoreOrthographical implements VectorStore, CloseableVectorSt
    *         <code>null</code>
    */
   public Vector getVector(Object desiredObject) throws NullPointerException {
-    ObjectVector objectVector = this.objectVectors.get(desiredObject);
-    if (objectVector != null) {
-      return objectVector.getVector();
+    Vector cachedVector = this.objectVectors.get(desiredObject);
+    if (cachedVector != null) {
+      return cachedVector;
     } else {      
       Vector v = stringVectors.getStringVector(desiredObject.toString());
 
       if (cacheVectors) {
-        objectVectors.put(desiredObject, new ObjectVector(desiredObject, v));
+        v = objectVectors.putIfAbsent(desiredObject, v);
       }
       return v;
     }
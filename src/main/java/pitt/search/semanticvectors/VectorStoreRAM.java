@@ -36,8 +36,17 @@
 package pitt.search.semanticvectors;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Enumeration;
+import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -89,18 +98,99 @@ public class VectorStoreRAM implements VectorStore {
     return store;
   }
   
-  /** Initializes a vector store from disk. */
+  /**
+   * Initializes a vector store from disk. Lucene and mmap format stores are split into parts that
+   * are read by {@link FlagConfig#numthreads} threads. If a key appears more than once in the
+   * store, which of its vectors is kept is then unspecified.
+   */
   public void initFromFile(String vectorFile) throws IOException {
     CloseableVectorStore vectorReaderDisk = VectorStoreReader.openVectorStore(vectorFile, flagConfig);
-    Enumeration<ObjectVector> vectorEnumeration = vectorReaderDisk.getAllVectors();
-		
+    int numThreads = Math.max(1, flagConfig.numthreads());
+    List<Enumeration<ObjectVector>> partitions = getPartitions(vectorReaderDisk, numThreads);
+
     logger.fine("Reading vectors from store on disk into memory cache  ...");
+    try {
+      if (partitions.size() == 1) {
+        readVectors(partitions.get(0));
+      } else {
+        if (objectVectors.isEmpty()) {
+          objectVectors = new ConcurrentHashMap<Object, ObjectVector>(
+              (int) (vectorReaderDisk.getNumVectors() / 0.75) + 1, 0.75f, numThreads);
+        }
+        readVectorsInParallel(partitions, numThreads);
+      }
+    } finally {
+      vectorReaderDisk.close();
+    }
+    logger.log(Level.FINE, "Cached {0} vectors.", objectVectors.size());
+  }
+
+  /**
+   * Splits the store into parts that can be read concurrently, or returns a single enumeration
+   * over the whole store if it can't be split.
+   */
+  private static List<Enumeration<ObjectVector>> getPartitions(VectorStore store, int numParts) {
+    if (numParts > 1 && store instanceof VectorStoreReaderLucene) {
+      return ((VectorStoreReaderLucene) store).getVectorPartitions(numParts);
+    }
+    if (numParts > 1 && store instanceof IndexedVectorStore && store.getNumVectors() > 0) {
+      final IndexedVectorStore indexedStore = (IndexedVectorStore) store;
+      int numVectors = indexedStore.getNumVectors();
+      numParts = Math.min(numParts, numVectors);
+      List<Enumeration<ObjectVector>> partitions = new ArrayList<Enumeration<ObjectVector>>();
+      for (int part = 0; part < numParts; ++part) {
+        final int start = (int) ((long) part * numVectors / numParts);
+        final int end = (int) ((long) (part + 1) * numVectors / numParts);
+        partitions.add(new Enumeration<ObjectVector>() {
+          int index = start;
+
+          @Override
+          public boolean hasMoreElements() {
+            return index < end;
+          }
+
+          @Override
+          public ObjectVector nextElement() {
+            if (index >= end) throw new NoSuchElementException();
+            return indexedStore.getObjectVector(index++);
+          }
+        });
+      }
+      return partitions;
+    }
+    return Collections.singletonList(store.getAllVectors());
+  }
+
+  private void readVectors(Enumeration<ObjectVector> vectorEnumeration) {
     while (vectorEnumeration.hasMoreElements()) {
       ObjectVector objectVector = vectorEnumeration.nextElement();
       this.objectVectors.put(objectVector.getObject().toString(), objectVector);
     }
-    vectorReaderDisk.close();
-    logger.log(Level.FINE, "Cached {0} vectors.", objectVectors.size());
+  }
+
+  private void readVectorsInParallel(List<Enumeration<ObjectVector>> partitions, int numThreads)
+      throws IOException {
+    ExecutorService executor = Executors.newFixedThreadPool(Math.min(numThreads, partitions.size()));
+    List<Future<?>> futures = new ArrayList<Future<?>>();
+    for (final Enumeration<ObjectVector> partition : partitions) {
+      futures.add(executor.submit(new Runnable() {
+        @Override
+        public void run() {
+          readVectors(partition);
+        }
+      }));
+    }
+    executor.shutdown();
+    try {
+      for (Future<?> future : futures) future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while reading vectors.");
+    } catch (ExecutionException e) {
+      throw new IOException("Reading vectors failed.", e.getCause());
+    } finally {
+      executor.shutdownNow();
+    }
   }
   
   /**
@@ -37,6 +37,8 @@ package pitt.search.semanticvectors;
 
 import java.io.IOException;
 
+import pitt.search.semanticvectors.VectorStoreUtils.VectorStoreFormat;
+
 /**
  * Wrapper class used to get access to underlying VectorStore implementations.
  * @author Dominic Widdows
@@ -44,7 +46,9 @@ import java.io.IOException;
 public class VectorStoreReader {
 
   /**
-   * Opens a vector store for reading, setting flags appropriately.
+   * Opens a vector store for reading, setting flags appropriately. If there is a
+   * {@link VectorStoreSegmented} or {@link VectorStoreSharded} manifest for the store name,
+   * that store is opened whatever the -indexfileformat.
    * 
    * @param storeName The name/path of the vector store to read (doesn't need ".txt" or ".bin" suffix).
    * @param flagConfig Supplies expected file format; vectortype and dimension will be set to the values
@@ -53,17 +57,35 @@ public class VectorStoreReader {
    * @throws IOException If the file is not found, or the header line cannot be parsed.
    */
   public static CloseableVectorStore openVectorStore(String storeName, FlagConfig flagConfig) throws IOException {
+    if (VectorStoreSegmented.exists(storeName)) {
+      return new VectorStoreSegmented(storeName, flagConfig);
+    }
+    if (VectorStoreSharded.exists(storeName)) {
+      return new VectorStoreSharded(storeName, flagConfig);
+    }
+    return openVectorStore(VectorStoreUtils.getStoreFileName(storeName, flagConfig),
+        flagConfig.indexfileformat(), flagConfig);
+  }
+
+  /**
+   * Opens the vector store in the named file, which is in the given format whatever the
+   * -indexfileformat.
+   */
+  static CloseableVectorStore openVectorStore(String vectorFileName, VectorStoreFormat format,
+      FlagConfig flagConfig) throws IOException {
     CloseableVectorStore vectorStore = null;
-    storeName = VectorStoreUtils.getStoreFileName(storeName, flagConfig);
-    switch (flagConfig.indexfileformat()) {
+    switch (format) {
     case LUCENE:
-      vectorStore = new VectorStoreReaderLucene(storeName, flagConfig);
+      vectorStore = new VectorStoreReaderLucene(vectorFileName, flagConfig);
       break;
     case TEXT:
-      vectorStore = new VectorStoreReaderText(storeName, flagConfig);
+      vectorStore = new VectorStoreReaderText(vectorFileName, flagConfig);
+      break;
+    case MMAP:
+      vectorStore = new VectorStoreReaderMmap(vectorFileName, flagConfig);
       break;
     default:
-      throw new IllegalStateException("Unknown -indexfileformat: " + flagConfig.indexfileformat());
+      throw new IllegalStateException("Unknown -indexfileformat: " + format);
     }
     return vectorStore;
   }
@@ -39,7 +39,13 @@ package pitt.search.semanticvectors;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.FileSystems;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Set;
 import java.util.logging.Logger;
 
 import org.apache.lucene.store.Directory;
@@ -47,10 +53,10 @@ import org.apache.lucene.store.FSDirectory;
 import org.apache.lucene.store.IOContext;
 import org.apache.lucene.store.IndexInput;
 
+import pitt.search.semanticvectors.VectorStoreUtils.VectorPrecision;
 import pitt.search.semanticvectors.utils.VerbatimLogger;
 import pitt.search.semanticvectors.vectors.Vector;
 import pitt.search.semanticvectors.vectors.VectorType;
-import pitt.search.semanticvectors.vectors.VectorFactory;
 
 /**
    This class provides methods for reading a VectorStore from disk. <p>
@@ -62,6 +68,12 @@ import pitt.search.semanticvectors.vectors.VectorFactory;
    than the native java.io.DataOutputStream.
    
    Attempts to be thread-safe but this is not fully tested.
+
+   Random access through {@link #getVector} and {@link #containsVector} uses a table
+   of file offsets keyed by object, so that each lookup takes a single seek. The table
+   is read from the offset index file written alongside the vector store by
+   {@link VectorStoreWriter} (see {@link VectorStoreUtils#getOffsetIndexFileName}),
+   or built by a single pass over the keys in the store if no up-to-date index file exists.
    
    @see ObjectVector
  **/
@@ -73,9 +85,22 @@ public class VectorStoreReaderLucene implements CloseableVectorStore {
   private File vectorFile;
   private Directory directory;
   private FlagConfig flagConfig;
+  /** Precision of the coordinates, as given in the header. */
+  private VectorPrecision precision = VectorPrecision.FLOAT32;
   
   private ThreadLocal<IndexInput> threadLocalIndexInput;
 
+  /**
+   * File offset of the first record for each object, built on first use by {@link #getOffsets}.
+   * As when the store is scanned in order, an object with more than one record gets the vector in
+   * its first record.
+   */
+  private volatile HashMap<String, Long> offsets;
+  /** Number of records in the store, including repeated objects, set with {@link #offsets}. */
+  private volatile int numRecords;
+  /** True if the offset table couldn't be built, in which case {@link #offsets} is empty. */
+  private volatile boolean offsetsFailed;
+
   public IndexInput getIndexInput() {
     return threadLocalIndexInput.get();
   }
@@ -125,6 +150,7 @@ public class VectorStoreReaderLucene implements CloseableVectorStore {
   public void readHeadersFromIndexInput(FlagConfig flagConfig) throws IOException {
     String header = threadLocalIndexInput.get().readString();
     FlagConfig.mergeWriteableFlagsFromString(header, flagConfig);
+    this.precision = FlagConfig.parseFlagsFromString(header).vectorprecision();
   }
 
   public void close() {
@@ -158,6 +184,50 @@ public class VectorStoreReaderLucene implements CloseableVectorStore {
     return new VectorEnumeration(getIndexInput());
   }
 
+  /**
+   * Returns enumerations over consecutive parts of the store, which between them cover every
+   * vector once. Each part reads through its own clone of the input, so the parts can be read
+   * by different threads at the same time. Part boundaries are found using the offset table.
+   * If the offset table can't be built, a single part reading the whole store in order is returned.
+   *
+   * @param numParts the number of parts wanted; fewer are returned if there are fewer vectors.
+   */
+  public List<Enumeration<ObjectVector>> getVectorPartitions(int numParts) {
+    HashMap<String, Long> objectOffsets = getOffsets();
+    IndexInput indexInput = getIndexInput();
+    if (offsetsFailed) {
+      logger.warning("Reading " + this.vectorFileName + " serially without an offset index.");
+      IndexInput partInput = indexInput.clone();
+      try {
+        partInput.seek(0);
+        // Skip header line.
+        partInput.readString();
+      } catch (IOException e) {
+        throw new RuntimeException(e.getMessage(), e);
+      }
+      return Collections.<Enumeration<ObjectVector>>singletonList(new VectorEnumeration(partInput));
+    }
+    long[] recordOffsets = new long[objectOffsets.size()];
+    int i = 0;
+    for (Long offset : objectOffsets.values()) recordOffsets[i++] = offset;
+    Arrays.sort(recordOffsets);
+    numParts = Math.max(1, Math.min(numParts, recordOffsets.length));
+    List<Enumeration<ObjectVector>> partitions = new ArrayList<Enumeration<ObjectVector>>();
+    for (int part = 0; part < numParts; ++part) {
+      int first = (int) ((long) part * recordOffsets.length / numParts);
+      int end = (int) ((long) (part + 1) * recordOffsets.length / numParts);
+      IndexInput partInput = indexInput.clone();
+      try {
+        partInput.seek(first < recordOffsets.length ? recordOffsets[first] : partInput.length());
+      } catch (IOException e) {
+        throw new RuntimeException(e.getMessage(), e);
+      }
+      partitions.add(new VectorEnumeration(
+          partInput, end < recordOffsets.length ? recordOffsets[end] : partInput.length()));
+    }
+    return partitions;
+  }
+
   /**
    * Given an object, get its corresponding vector <br>
    * This implementation only works for string objects so far <br>
@@ -166,44 +236,153 @@ public class VectorStoreReaderLucene implements CloseableVectorStore {
    * @return vector from the VectorStore, or null if not found.
    */
   public Vector getVector(Object desiredObject) {
+    String stringTarget = desiredObject.toString();
+    Long offset = getOffsets().get(stringTarget);
+    if (offset == null) {
+      VerbatimLogger.info("Didn't find vector for '" + desiredObject + "'\n");
+      return null;
+    }
     try {
-      String stringTarget = desiredObject.toString();
-      getIndexInput().seek(0);
-      // Skip header line.
-      getIndexInput().readString();
-      while (getIndexInput().getFilePointer() < getIndexInput().length() - 1) {
-        String objectString = getIndexInput().readString();
-        if (objectString.equals(stringTarget)) {
-          VerbatimLogger.info("Found vector for '" + stringTarget + "'\n");
-          Vector vector = VectorFactory.createZeroVector(
-              flagConfig.vectortype(), flagConfig.dimension());
-          vector.readFromLuceneStream(getIndexInput());
-          return vector;
-        }
-        else{
-          getIndexInput().seek(getIndexInput().getFilePointer()
-              + VectorFactory.getLuceneByteSize(flagConfig.vectortype(), flagConfig.dimension()));
-        }
+      IndexInput indexInput = getIndexInput();
+      indexInput.seek(offset);
+      String objectString = indexInput.readString();
+      if (!objectString.equals(stringTarget)) {
+        // The offset index no longer describes this file, e.g., because the store was
+        // rewritten without it. Rebuild from the store itself and try once more.
+        logger.warning("Offset index for " + this.vectorFileName + " is out of date, rebuilding.");
+        HashMap<String, Long> rebuiltOffsets = new HashMap<String, Long>();
+        numRecords = buildOffsetsFromStore(rebuiltOffsets);
+        offsets = rebuiltOffsets;
+        offset = rebuiltOffsets.get(stringTarget);
+        if (offset == null) return null;
+        indexInput.seek(offset);
+        indexInput.readString();
       }
+      VerbatimLogger.info("Found vector for '" + stringTarget + "'\n");
+      return HalfFloats.readVector(flagConfig.vectortype(), flagConfig.dimension(), precision, indexInput);
     }
     catch (IOException e) {
       e.printStackTrace();
     }
-    VerbatimLogger.info("Didn't find vector for '" + desiredObject + "'\n");
     return null;
   }
 
   /**
-   * Trivial (costly) implementation of getNumVectors that iterates and counts vectors.
+   * Returns the number of vectors in the store, using the offset index rather than
+   * iterating through all the vectors. As with {@link #getAllVectors}, an object with more than
+   * one record is counted once for each record.
    */
   public int getNumVectors() {
-    Enumeration<ObjectVector> allVectors = this.getAllVectors();
-    int i = 0;
-    while (allVectors.hasMoreElements()) {
-      allVectors.nextElement();
-      ++i;
+    getOffsets();
+    return numRecords;
+  }
+
+  /**
+   * Returns the table of file offsets for each object in the store, reading this from
+   * the offset index file if available and up to date, or building it by skipping through
+   * the store otherwise.
+   */
+  private HashMap<String, Long> getOffsets() {
+    HashMap<String, Long> result = offsets;
+    if (result == null) {
+      synchronized (this) {
+        result = offsets;
+        if (result == null) {
+          result = new HashMap<String, Long>();
+          try {
+            int count = readOffsetsFromIndexFile(result);
+            if (count < 0) {
+              result.clear();
+              count = buildOffsetsFromStore(result);
+            }
+            numRecords = count;
+          } catch (IOException e) {
+            logger.warning("Failed to build offset index for: " + this.vectorFileName + "\n" + e.getMessage());
+            result = new HashMap<String, Long>();
+            numRecords = 0;
+            offsetsFailed = true;
+          }
+          offsets = result;
+        }
+      }
     }
-    return i;
+    return result;
+  }
+
+  /**
+   * Reads the offset index file written alongside the store by
+   * {@link VectorStoreWriter#writeToIndexOutput(VectorStore, FlagConfig, IndexOutput, IndexOutput)}.
+   *
+   * <p>The file consists of a (key, offset) pair for each vector, written using
+   * {@link IndexOutput#writeString} and {@link IndexOutput#writeVLong}, followed by
+   * the number of vectors and the length of the vector store file as two longs.
+   * The index file is written after the store, so an index file that is older than the
+   * store, or that gives a different length, is out of date.
+   *
+   * @param result map to which the offset of the first record for each object is added
+   * @return the number of records, or -1 if there is no index file or it is out of date.
+   */
+  private int readOffsetsFromIndexFile(HashMap<String, Long> result) throws IOException {
+    if (directory == null) return -1;
+    String offsetsFileName = VectorStoreUtils.getOffsetIndexFileName(vectorFile.getName());
+    File offsetsFile = vectorFile.toPath().resolveSibling(offsetsFileName).toFile();
+    if (!offsetsFile.exists()) return -1;
+    if (offsetsFile.lastModified() < vectorFile.lastModified()) {
+      logger.info("Ignoring offset index file older than the store: " + offsetsFileName);
+      return -1;
+    }
+    IndexInput offsetsInput = directory.openInput(offsetsFileName, IOContext.READONCE);
+    try {
+      long trailerStart = offsetsInput.length() - 16;
+      if (trailerStart < 0) return -1;
+      offsetsInput.seek(trailerStart);
+      long numVectors = offsetsInput.readLong();
+      long storeLength = offsetsInput.readLong();
+      if (storeLength != getIndexInput().length()) {
+        logger.info("Ignoring stale offset index file: " + offsetsFileName);
+        return -1;
+      }
+      int count = 0;
+      offsetsInput.seek(0);
+      while (offsetsInput.getFilePointer() < trailerStart) {
+        String object = offsetsInput.readString();
+        long offset = offsetsInput.readVLong();
+        if (!result.containsKey(object)) result.put(object, offset);
+        ++count;
+      }
+      if (count != numVectors) {
+        logger.info("Ignoring offset index file with the wrong number of entries: " + offsetsFileName);
+        return -1;
+      }
+      return count;
+    } finally {
+      offsetsInput.close();
+    }
+  }
+
+  /**
+   * Builds the offset table by reading each key in the store and skipping over its
+   * vector, which has a fixed size given by {@link HalfFloats#getByteSize}.
+   * Uses a clone of the input so that the calling thread's position is undisturbed.
+   *
+   * @param result map to which the offset of the first record for each object is added
+   * @return the number of records
+   */
+  private int buildOffsetsFromStore(HashMap<String, Long> result) throws IOException {
+    int count = 0;
+    IndexInput indexInput = getIndexInput().clone();
+    int vectorByteSize = HalfFloats.getByteSize(flagConfig.vectortype(), flagConfig.dimension(), precision);
+    indexInput.seek(0);
+    // Skip header line.
+    indexInput.readString();
+    while (indexInput.getFilePointer() < indexInput.length()) {
+      long offset = indexInput.getFilePointer();
+      String object = indexInput.readString();
+      if (!result.containsKey(object)) result.put(object, offset);
+      indexInput.seek(indexInput.getFilePointer() + vectorByteSize);
+      ++count;
+    }
+    return count;
   }
   
   /**
@@ -212,21 +391,29 @@ public class VectorStoreReaderLucene implements CloseableVectorStore {
    */
   public class VectorEnumeration implements Enumeration<ObjectVector> {
     IndexInput indexInput;
+    /** File offset at which the enumeration stops. */
+    long end;
 
     public VectorEnumeration(IndexInput indexInput) {
+      this(indexInput, indexInput.length());
+    }
+
+    /** Enumerates the records from the current position of the input up to the given offset. */
+    public VectorEnumeration(IndexInput indexInput, long end) {
       this.indexInput = indexInput;
+      this.end = end;
     }
 
     public boolean hasMoreElements() {
-      return (indexInput.getFilePointer() < indexInput.length());
+      return (indexInput.getFilePointer() < end);
     }
 
     public ObjectVector nextElement() {
       String object = null;
-      Vector vector = VectorFactory.createZeroVector(flagConfig.vectortype(), flagConfig.dimension());
+      Vector vector = null;
       try {
         object = indexInput.readString();
-        vector.readFromLuceneStream(indexInput);
+        vector = HalfFloats.readVector(flagConfig.vectortype(), flagConfig.dimension(), precision, indexInput);
       }
       catch (IOException e) {
         e.printStackTrace();
@@ -237,7 +424,12 @@ public class VectorStoreReaderLucene implements CloseableVectorStore {
   
   @Override
   public boolean containsVector(Object object) {
-	  return this.getVector(object) != null;
+	  return getOffsets().containsKey(object.toString());
+  }
+
+  /** Returns the objects in the store, using the offset index. */
+  Set<String> getObjects() {
+    return Collections.unmodifiableSet(getOffsets().keySet());
   }
 
 }
@@ -0,0 +1,554 @@
+/**
+   Copyright (c) 2026, the SemanticVectors AUTHORS.
+
+   All rights reserved.
+
+   Redistribution and use in source and binary forms, with or without
+   modification, are permitted provided that the following conditions are
+   met:
+
+   * Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+   * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the following
+   disclaimer in the documentation and/or other materials provided
+   with the distribution.
+
+   * Neither the name of the University of Pittsburgh nor the names
+   of its contributors may be used to endorse or promote products
+   derived from this software without specific prior written
+   permission.
+
+   THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+   "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+   LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+   A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+   CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+   EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+   PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+   PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+   LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+   NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+   SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+**/
+
+package pitt.search.semanticvectors;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.logging.Logger;
+
+import org.apache.lucene.store.IndexInput;
+
+import pitt.search.semanticvectors.VectorStoreUtils.VectorPrecision;
+import pitt.search.semanticvectors.vectors.BinaryVector;
+import pitt.search.semanticvectors.vectors.BinaryVectorUtils;
+import pitt.search.semanticvectors.vectors.ComplexVector;
+import pitt.search.semanticvectors.vectors.RealVector;
+import pitt.search.semanticvectors.vectors.Vector;
+import pitt.search.semanticvectors.vectors.VectorType;
+
+/**
+   This class provides methods for reading a VectorStore written in
+   {@link VectorStoreUtils.VectorStoreFormat#MMAP} format, which is memory mapped
+   rather than read into the heap. <p>
+
+   The file consists of the header string, followed by all the vectors in one contiguous
+   region with a fixed number of bytes per vector (as given by {@link HalfFloats#getByteSize},
+   or {@link RealVectorCodec#getRecordBytes} for real vectors with lower precision),
+   followed by the keys, a table giving the file offset of each key, and a trailer. See
+   {@link VectorStoreWriter#writeToMmapIndexOutput} for details. <p>
+
+   Opening a store maps the whole file and reads the header and trailer. The key for each record
+   is decoded on demand, and the table from keys to records is built on the first call to
+   {@link #getVector} or {@link #containsVector}. If an object has more than one record, the first
+   is used, as in {@link VectorStoreReaderLucene}. The mapped memory is released by {@link #close},
+   after which the store must not be used. <p>
+
+   Searches that only need {@link Vector#measureOverlap} with a single query vector can use
+   an {@link IndexedVectorStore.OverlapScorer} to score records in place, without creating a {@link Vector} for each one.
+
+   @see VectorStoreReaderLucene
+ **/
+public class VectorStoreReaderMmap implements CloseableVectorStore, IndexedVectorStore {
+  private static final Logger logger = Logger.getLogger(
+      VectorStoreReaderMmap.class.getCanonicalName());
+
+  /** Size in bytes of the trailer at the end of the file, see {@link VectorStoreWriter#writeToMmapIndexOutput}. */
+  public static final int TRAILER_BYTES = 24;
+
+  private String vectorFileName;
+  private FlagConfig flagConfig;
+  private IndexInput masterIndexInput;
+  private ThreadLocal<IndexInput> threadLocalIndexInput;
+  /** All the buffers mapping the file, in order, to be unmapped by {@link #close}. */
+  private List<ByteBuffer> mappedBuffers;
+
+  private int numVectors;
+  private VectorPrecision precision;
+  /** Codec for real vectors with less than {@link VectorPrecision#FLOAT32} precision, otherwise null. */
+  private RealVectorCodec codec;
+  private int recordBytes;
+  private long vectorsStart;
+  private long keysStart;
+
+  /** Number of records in each mapped chunk, so that no chunk is larger than {@link Integer#MAX_VALUE} bytes. */
+  private int recordsPerChunk;
+  private ByteBuffer[] vectorChunks;
+  private int offsetsPerChunk;
+  private LongBuffer[] keyOffsetChunks;
+
+  /** Index of the record for each object, built on first use by {@link #getIndices}. */
+  private volatile HashMap<String, Integer> indices;
+
+  public VectorStoreReaderMmap(String vectorFileName, FlagConfig flagConfig) throws IOException {
+    this.flagConfig = flagConfig;
+    this.vectorFileName = vectorFileName;
+    File vectorFile = new File(vectorFileName);
+    try (RandomAccessFile randomAccessFile = new RandomAccessFile(vectorFile, "r")) {
+      long fileLength = randomAccessFile.length();
+      randomAccessFile.seek(fileLength - TRAILER_BYTES);
+      this.vectorsStart = randomAccessFile.readLong();
+      long keyOffsetsStart = randomAccessFile.readLong();
+      long numVectorsLong = randomAccessFile.readLong();
+      if (numVectorsLong > Integer.MAX_VALUE) {
+        throw new IOException("Too many vectors for a single store: " + numVectorsLong);
+      }
+      this.numVectors = (int) numVectorsLong;
+
+      // The file is mapped once, in regions, so that vectors and key offsets are in chunks
+      // holding whole records.
+      FileChannel channel = randomAccessFile.getChannel();
+      this.mappedBuffers = new ArrayList<ByteBuffer>();
+      mappedBuffers.addAll(mapBytes(channel, 0, vectorsStart));
+      IndexInput headerInput = new MappedFileInput(vectorFileName, mappedBuffers);
+      String header = headerInput.readString();
+      FlagConfig.mergeWriteableFlagsFromString(header, flagConfig);
+      this.precision = FlagConfig.parseFlagsFromString(header).vectorprecision();
+      if (precision != VectorPrecision.FLOAT32 && flagConfig.vectortype() == VectorType.REAL) {
+        headerInput.seek((headerInput.getFilePointer() + 7) / 8 * 8);
+        this.codec = readCodec(precision, headerInput, flagConfig.dimension());
+        this.recordBytes = codec.getRecordBytes();
+      } else {
+        this.recordBytes = HalfFloats.getByteSize(flagConfig.vectortype(), flagConfig.dimension(), precision);
+      }
+      this.keysStart = vectorsStart + (long) numVectors * recordBytes;
+
+      this.recordsPerChunk = Math.max(1, Integer.MAX_VALUE / recordBytes);
+      this.vectorChunks = mapRegion(channel, vectorsStart, numVectors, recordBytes, recordsPerChunk);
+      mappedBuffers.addAll(Arrays.asList(vectorChunks));
+      mappedBuffers.addAll(mapBytes(channel, keysStart, keyOffsetsStart));
+      this.offsetsPerChunk = Integer.MAX_VALUE / 8;
+      ByteBuffer[] offsetBuffers = mapRegion(channel, keyOffsetsStart, numVectors, 8, offsetsPerChunk);
+      mappedBuffers.addAll(Arrays.asList(offsetBuffers));
+      this.keyOffsetChunks = new LongBuffer[offsetBuffers.length];
+      for (int i = 0; i < offsetBuffers.length; ++i) {
+        keyOffsetChunks[i] = offsetBuffers[i].asLongBuffer();
+      }
+      mappedBuffers.addAll(mapBytes(channel, keyOffsetsStart + 8L * numVectors, fileLength));
+
+      this.masterIndexInput = new MappedFileInput(vectorFileName, mappedBuffers);
+      this.threadLocalIndexInput = new ThreadLocal<IndexInput>() {
+        @Override
+        protected IndexInput initialValue() {
+          return masterIndexInput.clone();
+        }
+      };
+    } catch (IOException e) {
+      if (mappedBuffers != null) unmap(mappedBuffers);
+      logger.warning("Cannot open file: " + this.vectorFileName + "\n" + e.getMessage());
+      throw e;
+    }
+  }
+
+  /** Reads the codec for a file with the given precision, written after the header. */
+  private static RealVectorCodec readCodec(VectorPrecision precision, IndexInput indexInput, int dimension)
+      throws IOException {
+    switch (precision) {
+      case INT8:
+        return Int8Quantizer.readFromIndexInput(indexInput, dimension);
+      case PQ:
+        return ProductQuantizer.readFromIndexInput(indexInput, dimension);
+      case FLOAT16:
+      case BFLOAT16:
+        return new HalfFloatCodec(precision, dimension);
+      default:
+        throw new IOException("Unsupported vector precision: " + precision);
+    }
+  }
+
+  /**
+   * Maps a region of the file made up of fixed size records into chunks, each of which
+   * contains a whole number of records.
+   */
+  private static ByteBuffer[] mapRegion(FileChannel channel, long start, int numRecords,
+      int bytesPerRecord, int recordsPerChunk) throws IOException {
+    int numChunks = (numRecords + recordsPerChunk - 1) / recordsPerChunk;
+    ByteBuffer[] chunks = new ByteBuffer[numChunks];
+    for (int c = 0; c < numChunks; ++c) {
+      long firstRecord = (long) c * recordsPerChunk;
+      long chunkRecords = Math.min(recordsPerChunk, numRecords - firstRecord);
+      chunks[c] = channel.map(MapMode.READ_ONLY, start + firstRecord * bytesPerRecord, chunkRecords * bytesPerRecord);
+    }
+    return chunks;
+  }
+
+  /** Maps the bytes of the file from start to end in chunks of at most {@link Integer#MAX_VALUE} bytes. */
+  private static List<ByteBuffer> mapBytes(FileChannel channel, long start, long end) throws IOException {
+    List<ByteBuffer> chunks = new ArrayList<ByteBuffer>();
+    for (long chunkStart = start; chunkStart < end; chunkStart += Integer.MAX_VALUE) {
+      chunks.add(channel.map(MapMode.READ_ONLY, chunkStart, Math.min(Integer.MAX_VALUE, end - chunkStart)));
+    }
+    return chunks;
+  }
+
+  /**
+   * Releases the mapped memory now rather than when the buffers are garbage collected, using the
+   * same internal method as Lucene's MMapDirectory. If that method isn't available, e.g., before
+   * Java 9, the memory is released by garbage collection.
+   */
+  private void unmap(List<ByteBuffer> buffers) {
+    try {
+      Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+      Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+      Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+      theUnsafe.setAccessible(true);
+      Object unsafe = theUnsafe.get(null);
+      for (ByteBuffer buffer : buffers) {
+        invokeCleaner.invoke(unsafe, buffer);
+      }
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      logger.info("Cannot unmap " + vectorFileName + ", leaving it to garbage collection: " + e);
+    }
+  }
+
+  private IndexInput getIndexInput() {
+    return threadLocalIndexInput.get();
+  }
+
+  /** Unmaps the file. Vectors and scorers from this store must not be used afterwards. */
+  @Override
+  public void close() {
+    List<ByteBuffer> buffers;
+    synchronized (this) {
+      buffers = mappedBuffers;
+      mappedBuffers = null;
+    }
+    if (buffers == null) return;
+    vectorChunks = null;
+    keyOffsetChunks = null;
+    masterIndexInput = null;
+    threadLocalIndexInput = null;
+    unmap(buffers);
+  }
+
+  @Override
+  public int getNumVectors() {
+    return numVectors;
+  }
+
+  /**
+   * Returns the object (key) stored for the record with the given index.
+   */
+  public String getObject(int index) {
+    try {
+      IndexInput indexInput = getIndexInput();
+      indexInput.seek(keyOffsetChunks[index / offsetsPerChunk].get(index % offsetsPerChunk));
+      return indexInput.readString();
+    } catch (IOException e) {
+      throw new RuntimeException(e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Returns a new vector for the record with the given index.
+   */
+  public Vector getVector(int index) {
+    if (codec != null) {
+      return codec.readRecord(vectorChunks[index / recordsPerChunk], (index % recordsPerChunk) * recordBytes);
+    }
+    try {
+      IndexInput indexInput = getIndexInput();
+      indexInput.seek(vectorsStart + (long) index * recordBytes);
+      return HalfFloats.readVector(flagConfig.vectortype(), flagConfig.dimension(), precision, indexInput);
+    } catch (IOException e) {
+      throw new RuntimeException(e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Returns a new object vector for the record with the given index.
+   */
+  @Override
+  public ObjectVector getObjectVector(int index) {
+    return new ObjectVector(getObject(index), getVector(index));
+  }
+
+  /**
+   * Given an object, get its corresponding vector.
+   *
+   * @param desiredObject - the string you're searching for
+   * @return vector from the VectorStore, or null if not found.
+   */
+  @Override
+  public Vector getVector(Object desiredObject) {
+    Integer index = getIndices().get(desiredObject.toString());
+    if (index == null) return null;
+    return getVector(index.intValue());
+  }
+
+  @Override
+  public boolean containsVector(Object object) {
+    return getIndices().containsKey(object.toString());
+  }
+
+  /**
+   * Returns the table from each object to its record index, reading all the keys the first time.
+   */
+  private HashMap<String, Integer> getIndices() {
+    HashMap<String, Integer> result = indices;
+    if (result == null) {
+      synchronized (this) {
+        result = indices;
+        if (result == null) {
+          result = new HashMap<String, Integer>((int) (numVectors / 0.75) + 1);
+          IndexInput indexInput = masterIndexInput.clone();
+          try {
+            indexInput.seek(keysStart);
+            for (int i = 0; i < numVectors; ++i) {
+              // Keep the first record for an object, as VectorStoreReaderLucene does.
+              result.putIfAbsent(indexInput.readString(), i);
+            }
+          } catch (IOException e) {
+            throw new RuntimeException(e.getMessage(), e);
+          }
+          indices = result;
+        }
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public Enumeration<ObjectVector> getAllVectors() {
+    return new Enumeration<ObjectVector>() {
+      int index = 0;
+
+      @Override
+      public boolean hasMoreElements() {
+        return index < numVectors;
+      }
+
+      @Override
+      public ObjectVector nextElement() {
+        if (index >= numVectors) throw new NoSuchElementException();
+        return getObjectVector(index++);
+      }
+    };
+  }
+
+  /**
+   * Returns a scorer that reads coordinates directly from the mapped file, or null if direct
+   * scoring isn't supported for this vector type (e.g., {@link VectorType#COMPLEX} vectors in polar mode,
+   * or with 16 bit precision).
+   */
+  @Override
+  public OverlapScorer getOverlapScorer(Vector queryVector) {
+    switch (flagConfig.vectortype()) {
+      case REAL:
+        if (codec != null) {
+          return new CodecOverlapScorer(((RealVector) queryVector).getCoordinates());
+        }
+        return new OverlapScorers.RealOverlapScorer(
+            ((RealVector) queryVector).getCoordinates(), new ChunkRecords());
+      case BINARY:
+        return new OverlapScorers.BinaryOverlapScorer(BinaryVectorUtils.getBits((BinaryVector) queryVector),
+            flagConfig.dimension(), new ChunkRecords());
+      case COMPLEX:
+      case COMPLEXFLAT:
+        ComplexVector.Mode mode = ComplexVector.getDominantMode();
+        if ((mode != ComplexVector.Mode.CARTESIAN && mode != ComplexVector.Mode.HERMITIAN)
+            || precision != VectorPrecision.FLOAT32) {
+          return null;
+        }
+        ComplexVector cartesianQuery = ((ComplexVector) queryVector).copy();
+        cartesianQuery.toCartesian();
+        return new OverlapScorers.ComplexOverlapScorer(cartesianQuery.getCoordinates(), mode, new ChunkRecords());
+      default:
+        return null;
+    }
+  }
+
+  /**
+   * Locates records in the mapped chunks, as views of the chunks with the type of the coordinates.
+   */
+  private class ChunkRecords implements OverlapScorers.FloatRecords, OverlapScorers.LongRecords {
+    private final FloatBuffer[] floatChunks;
+    private final LongBuffer[] longChunks;
+    private final int recordLength;
+
+    ChunkRecords() {
+      if (flagConfig.vectortype() == VectorType.BINARY) {
+        this.floatChunks = null;
+        this.longChunks = new LongBuffer[vectorChunks.length];
+        for (int c = 0; c < longChunks.length; ++c) longChunks[c] = vectorChunks[c].asLongBuffer();
+        this.recordLength = recordBytes / 8;
+      } else {
+        this.floatChunks = new FloatBuffer[vectorChunks.length];
+        for (int c = 0; c < floatChunks.length; ++c) floatChunks[c] = vectorChunks[c].asFloatBuffer();
+        this.longChunks = null;
+        this.recordLength = recordBytes / 4;
+      }
+    }
+
+    @Override
+    public FloatBuffer getFloats(int index) {
+      return floatChunks[index / recordsPerChunk];
+    }
+
+    @Override
+    public LongBuffer getLongs(int index) {
+      return longChunks[index / recordsPerChunk];
+    }
+
+    @Override
+    public int getPosition(int index) {
+      return (index % recordsPerChunk) * recordLength;
+    }
+  }
+
+  /** Scores records in files with less than full precision without decoding them. */
+  private class CodecOverlapScorer implements OverlapScorer {
+    private final RealVectorCodec.RecordScorer scorer;
+
+    CodecOverlapScorer(float[] query) {
+      this.scorer = codec.getScorer(query);
+    }
+
+    @Override
+    public double score(int index) {
+      return scorer.score(vectorChunks[index / recordsPerChunk], (index % recordsPerChunk) * recordBytes);
+    }
+  }
+
+  /**
+   * Reads the file through the buffers mapping it, which cover the whole file in order.
+   * Each input has its own views of the buffers, so clones can be used by different threads.
+   */
+  private static class MappedFileInput extends IndexInput {
+    private final ByteBuffer[] chunks;
+    /** File offset of the first byte in each chunk. */
+    private final long[] chunkStarts;
+    private final long length;
+    private int chunkIndex;
+    private ByteBuffer chunk;
+
+    MappedFileInput(String resourceDescription, List<ByteBuffer> mappedChunks) {
+      super(resourceDescription);
+      this.chunks = new ByteBuffer[mappedChunks.size()];
+      this.chunkStarts = new long[chunks.length];
+      long start = 0;
+      for (int i = 0; i < chunks.length; ++i) {
+        chunks[i] = mappedChunks.get(i).duplicate();
+        chunks[i].position(0);
+        chunkStarts[i] = start;
+        start += chunks[i].capacity();
+      }
+      this.length = start;
+      this.chunk = chunks.length > 0 ? chunks[0] : ByteBuffer.allocate(0);
+    }
+
+    /** Moves to the start of the next chunk with any bytes in it. */
+    private void nextChunk() throws IOException {
+      while (!chunk.hasRemaining()) {
+        if (chunkIndex + 1 >= chunks.length) throw new EOFException("Read past end of " + this);
+        chunk = chunks[++chunkIndex];
+        chunk.position(0);
+      }
+    }
+
+    @Override
+    public byte readByte() throws IOException {
+      if (!chunk.hasRemaining()) nextChunk();
+      return chunk.get();
+    }
+
+    @Override
+    public void readBytes(byte[] b, int offset, int len) throws IOException {
+      while (len > 0) {
+        if (!chunk.hasRemaining()) nextChunk();
+        int n = Math.min(len, chunk.remaining());
+        chunk.get(b, offset, n);
+        offset += n;
+        len -= n;
+      }
+    }
+
+    @Override
+    public int readInt() throws IOException {
+      return chunk.remaining() >= 4 ? chunk.getInt() : super.readInt();
+    }
+
+    @Override
+    public long readLong() throws IOException {
+      return chunk.remaining() >= 8 ? chunk.getLong() : super.readLong();
+    }
+
+    @Override
+    public long getFilePointer() {
+      return chunks.length == 0 ? 0 : chunkStarts[chunkIndex] + chunk.position();
+    }
+
+    @Override
+    public void seek(long pos) throws IOException {
+      if (pos < 0 || pos > length) throw new EOFException("Seek to " + pos + " outside " + this);
+      if (chunks.length == 0) return;
+      int i = Arrays.binarySearch(chunkStarts, pos);
+      if (i < 0) i = -i - 2;
+      chunkIndex = i;
+      chunk = chunks[i];
+      chunk.position((int) (pos - chunkStarts[i]));
+    }
+
+    @Override
+    public long length() {
+      return length;
+    }
+
+    @Override
+    public MappedFileInput clone() {
+      MappedFileInput clone = new MappedFileInput(toString(), Arrays.asList(chunks));
+      try {
+        clone.seek(getFilePointer());
+      } catch (IOException e) {
+        throw new RuntimeException(e.getMessage(), e);
+      }
+      return clone;
+    }
+
+    @Override
+    public IndexInput slice(String sliceDescription, long offset, long length) {
+      throw new UnsupportedOperationException("Slices of " + this + " are not supported.");
+    }
+
+    /** Does nothing: the buffers are unmapped when the store is closed. */
+    @Override
+    public void close() {}
+  }
+}
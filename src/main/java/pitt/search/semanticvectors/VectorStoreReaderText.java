@@ -38,11 +38,29 @@ package pitt.search.semanticvectors;
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.StringReader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Enumeration;
+import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 
+import org.apache.lucene.util.FixedBitSet;
+
+import pitt.search.semanticvectors.utils.LineBlockReader;
+import pitt.search.semanticvectors.utils.StringUtils;
 import pitt.search.semanticvectors.utils.VerbatimLogger;
 import pitt.search.semanticvectors.vectors.Vector;
 import pitt.search.semanticvectors.vectors.VectorFactory;
@@ -76,6 +94,31 @@ public class VectorStoreReaderText implements CloseableVectorStore {
   private int dimension;
   private String vectorFileText;
   private BufferedReader inBuf;
+  private int numThreads;
+  /** Enumerations from {@link #getAllVectors} that haven't reached the end of the file yet. */
+  private final Set<VectorEnumerationText> openEnumerations =
+      Collections.newSetFromMap(new ConcurrentHashMap<VectorEnumerationText, Boolean>());
+
+  /**
+   * Daemon threads, one per processor, shared by all enumerations that parse blocks in parallel.
+   * Idle threads exit after a few seconds.
+   */
+  private static class ParserPool {
+    static final ThreadPoolExecutor EXECUTOR;
+    static {
+      int numProcessors = Runtime.getRuntime().availableProcessors();
+      EXECUTOR = new ThreadPoolExecutor(numProcessors, numProcessors, 5, TimeUnit.SECONDS,
+          new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+              Thread thread = new Thread(runnable, "VectorStoreReaderText parser");
+              thread.setDaemon(true);
+              return thread;
+            }
+          });
+      EXECUTOR.allowCoreThreadTimeOut(true);
+    }
+  }
   
   /**
    * Initializes a VectorStoreReaderText from a file.
@@ -85,6 +128,7 @@ public class VectorStoreReaderText implements CloseableVectorStore {
    */
   public VectorStoreReaderText(String vectorFileText, FlagConfig flagConfig) throws IOException {
     this.vectorFileText = vectorFileText;
+    this.numThreads = flagConfig.numthreads();
     this.inBuf = new BufferedReader(new FileReader(vectorFileText));
     try {
       // Read number of dimension from header information.
@@ -97,7 +141,9 @@ public class VectorStoreReaderText implements CloseableVectorStore {
     }
   }
 
+  /** Closes the file, and any enumerations from {@link #getAllVectors} that are still open. */
   public void close() {
+    for (VectorEnumerationText enumeration : openEnumerations) enumeration.finish();
     try {
       this.inBuf.close(); //closes underlying filereader too
     } catch (IOException e) {
@@ -106,6 +152,10 @@ public class VectorStoreReaderText implements CloseableVectorStore {
     }
   }
 
+  /**
+   * Returns an enumeration of the vectors in the file. If {@link FlagConfig#numthreads} is more than 1,
+   * blocks of lines are parsed by that many threads, and the vectors are still returned in file order.
+   */
   public Enumeration<ObjectVector> getAllVectors() {
     //create new buffered reader to guarantee that it closes properly
     BufferedReader vecBuf;
@@ -118,19 +168,82 @@ public class VectorStoreReaderText implements CloseableVectorStore {
       vecBuf = new BufferedReader(new StringReader(""));
       e.printStackTrace();
     }
-    return new VectorEnumerationText(vecBuf);
+    VectorEnumerationText enumeration = (numThreads > 1)
+        ? new VectorEnumerationText(vecBuf, numThreads) : new VectorEnumerationText(vecBuf);
+    openEnumerations.add(enumeration);
+    return enumeration;
   }
 
   /**
    * Returns an object vector from a text line.
    */
-  // TODO(widdows): This is eminently testable.
   public ObjectVector parseVectorLine(String line) throws IOException {
-    int firstSplitPoint = line.indexOf("|");
-    String objectName = new String(line.substring(0, firstSplitPoint));
-    Vector tmpVector = VectorFactory.createZeroVector(vectorType, dimension);
-    tmpVector.readFromString(line.substring(firstSplitPoint + 1, line.length()));
-    return new ObjectVector(objectName, tmpVector);
+    return parseVectorLine(line.toCharArray(), 0, line.length());
+  }
+
+  /**
+   * Returns an object vector from the line from start up to end, of the form
+   * <code>String|Num1|Num2|...|NumN</code>. Coordinates are parsed in place, so the only
+   * string created is the object name.
+   *
+   * @throws IllegalArgumentException if the line doesn't have the expected number of coordinates.
+   */
+  public ObjectVector parseVectorLine(char[] text, int start, int end) {
+    int split = getObjectEnd(text, start, end);
+    if (split == end) {
+      throw new IllegalArgumentException("No coordinates after object name in line: " + new String(text, start, end - start));
+    }
+    String objectName = new String(text, start, split - start);
+    Vector vector;
+    switch (vectorType) {
+      case REAL:
+      case COMPLEX:
+      case COMPLEXFLAT:
+        // Complex vectors are written in cartesian form, see ComplexVector#writeToString.
+        int numCoordinates = (vectorType == VectorType.REAL) ? dimension : 2 * dimension;
+        float[] coordinates = new float[numCoordinates];
+        int numEntries = StringUtils.parseFloats(text, split + 1, end, '|', coordinates);
+        if (numEntries != numCoordinates) {
+          throw new IllegalArgumentException("Found " + numEntries + " possible coordinates: "
+              + "expected " + numCoordinates);
+        }
+        vector = VectorFactory.createDenseVector(vectorType, coordinates);
+        break;
+      case BINARY:
+        if (end - split - 1 != dimension) {
+          throw new IllegalArgumentException("Found " + (end - split - 1) + " possible coordinates: "
+              + "expected " + dimension);
+        }
+        long[] bits = new long[FixedBitSet.bits2words(dimension)];
+        for (int i = 0; i < dimension; ++i) {
+          if (text[split + 1 + i] == '1') bits[i >> 6] |= 1L << i;
+        }
+        vector = VectorFactory.createBinaryVector(bits, dimension);
+        break;
+      default:
+        vector = VectorFactory.createZeroVector(vectorType, dimension);
+        vector.readFromString(new String(text, split + 1, end - split - 1));
+    }
+    return new ObjectVector(objectName, vector);
+  }
+
+  /** Returns the position of the '|' after the object name, or end if there isn't one. */
+  private static int getObjectEnd(char[] text, int start, int end) {
+    int split = start;
+    while (split < end && text[split] != '|') ++split;
+    return split;
+  }
+
+  /** Parses all the non-empty lines in a block. */
+  private List<ObjectVector> parseBlock(char[] block) {
+    List<ObjectVector> vectors = new ArrayList<ObjectVector>();
+    for (int lineStart = 0; lineStart < block.length; ) {
+      int nextLineStart = LineBlockReader.getNextLineStart(block, lineStart);
+      int lineEnd = LineBlockReader.getLineEnd(block, lineStart, nextLineStart);
+      if (lineEnd > lineStart) vectors.add(parseVectorLine(block, lineStart, lineEnd));
+      lineStart = nextLineStart;
+    }
+    return vectors;
   }
 
   /**
@@ -139,48 +252,113 @@ public class VectorStoreReaderText implements CloseableVectorStore {
    * @param desiredObject - the string identifying the object being searched for.
    */
   public Vector getVector(Object desiredObject) {
+    String target = desiredObject.toString();
+    LineBlockReader blocks = null;
     try {
-      this.close();
-      inBuf = new BufferedReader(new FileReader (vectorFileText));
-      inBuf.readLine();  // Skip header line.
-      String line;
-      while ((line = inBuf.readLine()) != null) {
-        String[] entries = line.split("\\|");
-        if (entries[0].equals(desiredObject)) {
-          VerbatimLogger.info("Found vector for '" + desiredObject + "'\n");
-          return (parseVectorLine(line).getVector());
+      BufferedReader vecBuf = new BufferedReader(new FileReader (vectorFileText));
+      vecBuf.readLine();  // Skip header line.
+      blocks = new LineBlockReader(vecBuf);
+      char[] block;
+      while ((block = blocks.nextBlock()) != null) {
+        for (int lineStart = 0; lineStart < block.length; ) {
+          int nextLineStart = LineBlockReader.getNextLineStart(block, lineStart);
+          int lineEnd = LineBlockReader.getLineEnd(block, lineStart, nextLineStart);
+          int split = getObjectEnd(block, lineStart, lineEnd);
+          if (regionEquals(block, lineStart, split, target)) {
+            VerbatimLogger.info("Found vector for '" + desiredObject + "'\n");
+            return parseVectorLine(block, lineStart, lineEnd).getVector();
+          }
+          lineStart = nextLineStart;
         }
       }
     }
     catch (IOException e) {
       e.printStackTrace();
     }
+    finally {
+      closeQuietly(blocks);
+    }
     VerbatimLogger.info("Failed to find vector for '" + desiredObject + "'\n");
     return null;
   }
 
+  private static boolean regionEquals(char[] text, int start, int end, String target) {
+    if (end - start != target.length()) return false;
+    for (int i = 0; i < target.length(); ++i) {
+      if (text[start + i] != target.charAt(i)) return false;
+    }
+    return true;
+  }
+
+  private static void closeQuietly(LineBlockReader blocks) {
+    if (blocks == null) return;
+    try {
+      blocks.close();
+    } catch (IOException e) {
+      logger.info("Failed to close vector file: " + e.getMessage());
+    }
+  }
+
   /**
-   * Trivial (costly) implementation of getNumVectors that iterates and counts vectors.
+   * Returns the number of vectors, counting the non-empty lines after the header without parsing them.
    */
   public int getNumVectors() {
-    Enumeration<ObjectVector> allVectors = this.getAllVectors();
-    int i = 0;
-    while (allVectors.hasMoreElements()) {
-      allVectors.nextElement();
-      ++i;
+    LineBlockReader blocks = null;
+    int count = 0;
+    try {
+      BufferedReader vecBuf = new BufferedReader(new FileReader (vectorFileText));
+      vecBuf.readLine();  // Skip header line.
+      blocks = new LineBlockReader(vecBuf);
+      char[] block;
+      while ((block = blocks.nextBlock()) != null) {
+        for (int lineStart = 0; lineStart < block.length; ) {
+          int nextLineStart = LineBlockReader.getNextLineStart(block, lineStart);
+          if (LineBlockReader.getLineEnd(block, lineStart, nextLineStart) > lineStart) ++count;
+          lineStart = nextLineStart;
+        }
+      }
+    }
+    catch (IOException e) {
+      e.printStackTrace();
+    }
+    finally {
+      closeQuietly(blocks);
     }
-    return i;
+    return count;
   }
 
   /**
    * Implements the hasMoreElements() and nextElement() methods
    * to give Enumeration interface from store in VectorTextFile.
+   * Lines are read in blocks, and each block is parsed in one go, either by the
+   * calling thread or by a shared pool of worker threads that keeps a few blocks ahead.
+   * An enumeration that is abandoned before the end of the file is closed by
+   * {@link VectorStoreReaderText#close}.
    */
   public class VectorEnumerationText implements Enumeration<ObjectVector> {
-    BufferedReader vecBuf;
+    private final LineBlockReader blocks;
+    private final boolean parallel;
+    private final int maxPendingBlocks;
+    private final ArrayDeque<Future<List<ObjectVector>>> pendingBlocks =
+        new ArrayDeque<Future<List<ObjectVector>>>();
+    private boolean endOfInput = false;
+    private List<ObjectVector> current = Collections.emptyList();
+    private int position = 0;
 
     public VectorEnumerationText(BufferedReader vecBuf) {
-      this.vecBuf = vecBuf;
+      this.blocks = new LineBlockReader(vecBuf);
+      this.parallel = false;
+      this.maxPendingBlocks = 0;
+    }
+
+    /**
+     * Parses blocks in the shared pool, keeping up to twice the given number of threads'
+     * worth of blocks ahead.
+     */
+    public VectorEnumerationText(BufferedReader vecBuf, int numThreads) {
+      this.blocks = new LineBlockReader(vecBuf);
+      this.parallel = true;
+      this.maxPendingBlocks = 2 * numThreads;
     }
 
     /**
@@ -189,19 +367,20 @@ public class VectorStoreReaderText implements CloseableVectorStore {
      */
     public boolean hasMoreElements() {
       try {
-        char[] cbuf = new char[1];
-        vecBuf.mark(10);
-        if (vecBuf.read(cbuf, 0, 1) != -1) {
-          vecBuf.reset();
-          return true;
-        }
-        else {
-          vecBuf.close();
-          return false;
+        while (position >= current.size()) {
+          List<ObjectVector> next = nextParsedBlock();
+          if (next == null) {
+            finish();
+            return false;
+          }
+          current = next;
+          position = 0;
         }
+        return true;
       }
       catch (IOException e) {
         e.printStackTrace();
+        finish();
       }
       return false;
     }
@@ -211,13 +390,54 @@ public class VectorStoreReaderText implements CloseableVectorStore {
      * @throws NoSuchElementException if no element is available.
      */
     public ObjectVector nextElement() throws NoSuchElementException {
-      try {
-        return parseVectorLine(vecBuf.readLine());
-      }
-      catch (IOException e) {
-        e.printStackTrace();
+      if (!hasMoreElements()) {
         throw (new NoSuchElementException("Failed to get next element from vector store."));
       }
+      return current.get(position++);
+    }
+
+    /** Returns the vectors from the next block in the file, or null at the end of the file. */
+    private List<ObjectVector> nextParsedBlock() throws IOException {
+      if (endOfInput && pendingBlocks.isEmpty()) return null;
+      if (!parallel) {
+        char[] block = blocks.nextBlock();
+        return (block == null) ? null : parseBlock(block);
+      }
+      while (!endOfInput && pendingBlocks.size() < maxPendingBlocks) {
+        final char[] block = blocks.nextBlock();
+        if (block == null) {
+          endOfInput = true;
+        } else {
+          pendingBlocks.add(ParserPool.EXECUTOR.submit(new Callable<List<ObjectVector>>() {
+            @Override
+            public List<ObjectVector> call() {
+              return parseBlock(block);
+            }
+          }));
+        }
+      }
+      Future<List<ObjectVector>> next = pendingBlocks.poll();
+      if (next == null) return null;
+      try {
+        return next.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("Interrupted while parsing vectors.");
+      } catch (ExecutionException e) {
+        finish();
+        if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+        throw new IOException("Parsing vectors failed.", e.getCause());
+      }
+    }
+
+    /** Cancels any blocks still being parsed and closes the file. */
+    private void finish() {
+      endOfInput = true;
+      current = Collections.emptyList();
+      for (Future<List<ObjectVector>> pendingBlock : pendingBlocks) pendingBlock.cancel(true);
+      pendingBlocks.clear();
+      closeQuietly(blocks);
+      openEnumerations.remove(this);
     }
   }
   
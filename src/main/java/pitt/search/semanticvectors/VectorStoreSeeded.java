@@ -0,0 +1,155 @@
+/**
+   Copyright (c) 2026, the SemanticVectors AUTHORS.
+
+   All rights reserved.
+
+   Redistribution and use in source and binary forms, with or without
+   modification, are permitted provided that the following conditions are
+   met:
+
+   * Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+   * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the following
+   disclaimer in the documentation and/or other materials provided
+   with the distribution.
+
+   * Neither the name of the University of Pittsburgh nor the names
+   of its contributors may be used to endorse or promote products
+   derived from this software without specific prior written
+   permission.
+
+   THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+   "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+   LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+   A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+   CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+   EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+   PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+   PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+   LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+   NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+   SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+**/
+
+package pitt.search.semanticvectors;
+
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+import pitt.search.semanticvectors.utils.StringUtils;
+import pitt.search.semanticvectors.vectors.Vector;
+import pitt.search.semanticvectors.vectors.VectorFactory;
+
+/**
+ * Elemental vector store that keeps only a 64-bit seed for each object and regenerates the
+ * object's elemental vector from that seed, the dimension and the seed length whenever it is
+ * asked for. By default the seed is {@link StringUtils#hash64} of the object's string form, so
+ * the same object always gets the same vector and the store never needs to be written to disk.
+ * Seeds can also be set explicitly with {@link #putSeed}.
+ * <p>
+ * Only seeds set with {@link #putSeed} are kept, so looking up vectors doesn't make the store
+ * grow. Every object has a vector, so {@link #containsVector} is always true, while
+ * {@link #getAllVectors} and {@link #getNumVectors} only cover objects with explicit seeds.
+ * <p>
+ * Each call to {@link #getVector(Object)} returns a new vector. Training loops that only read
+ * each elemental vector briefly should use {@link #getVector(Object, Vector)} with a scratch
+ * vector per thread. Vectors are generated using a random number generator per thread, so
+ * looking up an elemental vector this way allocates nothing.
+ * <p>
+ * Elemental vectors that are changed by training, as with
+ * {@link TermTermVectorsFromLucene.EncodingMethod#EMBEDDINGS},
+ * cannot be kept this way because changes to a regenerated vector are lost.
+ *
+ * @see ElementalVectorStore.ElementalGenerationMethod#SEEDED
+ */
+public class VectorStoreSeeded implements VectorStore, CloseableVectorStore {
+  private final FlagConfig flagConfig;
+  /** Seeds set with {@link #putSeed}. */
+  private final ConcurrentHashMap<Object, Long> seeds;
+  /** Random number generator for each thread, reseeded for each vector generated. */
+  private final ThreadLocal<Random> threadLocalRandom = new ThreadLocal<Random>() {
+    @Override
+    protected Random initialValue() {
+      return new Random();
+    }
+  };
+
+  public VectorStoreSeeded(FlagConfig flagConfig) {
+    this.flagConfig = flagConfig;
+    this.seeds = new ConcurrentHashMap<Object, Long>();
+  }
+
+  /** Sets the seed used to generate the elemental vector for the given object. */
+  public void putSeed(Object object, long seed) {
+    seeds.put(object, seed);
+  }
+
+  /**
+   * Returns the seed for the given object: the seed set with {@link #putSeed} if there is one,
+   * and otherwise a seed hashed from its string form.
+   */
+  public long getSeed(Object object) {
+    Long seed = seeds.get(object);
+    return (seed != null) ? seed : StringUtils.hash64(object.toString());
+  }
+
+  /** Returns a newly generated elemental vector for the given object. */
+  @Override
+  public Vector getVector(Object object) {
+    return getVector(object, null);
+  }
+
+  /**
+   * Returns the elemental vector for the given object, generated into {@code scratch} if it has
+   * the right type and dimension. The result is only valid until {@code scratch} is next used.
+   *
+   * @param scratch vector to overwrite, or null to allocate a new vector
+   */
+  public Vector getVector(Object object, Vector scratch) {
+    Random random = threadLocalRandom.get();
+    random.setSeed(getSeed(object));
+    return VectorFactory.generateRandomVector(flagConfig.vectortype(), flagConfig.dimension(),
+        flagConfig.seedlength(), random, scratch);
+  }
+
+  /** Returns an enumeration that generates a new vector for each object with an explicit seed. */
+  @Override
+  public Enumeration<ObjectVector> getAllVectors() {
+    final Iterator<Map.Entry<Object, Long>> entries = seeds.entrySet().iterator();
+    return new Enumeration<ObjectVector>() {
+      @Override
+      public boolean hasMoreElements() {
+        return entries.hasNext();
+      }
+
+      @Override
+      public ObjectVector nextElement() {
+        Map.Entry<Object, Long> entry = entries.next();
+        return new ObjectVector(entry.getKey(), VectorFactory.generateRandomVector(
+            flagConfig.vectortype(), flagConfig.dimension(), flagConfig.seedlength(),
+            new Random(entry.getValue())));
+      }
+    };
+  }
+
+  /** Returns the number of objects with explicit seeds. */
+  @Override
+  public int getNumVectors() {
+    return seeds.size();
+  }
+
+  /** Returns true, since a vector can be generated for any object. */
+  @Override
+  public boolean containsVector(Object object) {
+    return true;
+  }
+
+  /** Does nothing, since this store holds no resources. */
+  @Override
+  public void close() {}
+}
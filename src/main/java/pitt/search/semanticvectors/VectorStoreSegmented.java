@@ -0,0 +1,692 @@
+/**
+   Copyright (c) 2026, the SemanticVectors AUTHORS.
+
+   All rights reserved.
+
+   Redistribution and use in source and binary forms, with or without
+   modification, are permitted provided that the following conditions are
+   met:
+
+   * Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+   * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the following
+   disclaimer in the documentation and/or other materials provided
+   with the distribution.
+
+   * Neither the name of the University of Pittsburgh nor the names
+   of its contributors may be used to endorse or promote products
+   derived from this software without specific prior written
+   permission.
+
+   THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+   "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+   LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+   A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+   CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+   EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+   PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+   PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+   LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+   NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+   SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+**/
+
+package pitt.search.semanticvectors;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.logging.Logger;
+
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.store.IndexOutput;
+
+import pitt.search.semanticvectors.VectorStoreUtils.VectorStoreFormat;
+import pitt.search.semanticvectors.vectors.Vector;
+
+/**
+ * A vector store that can be added to without rewriting it, made up of a manifest file and a list
+ * of immutable segments. Each segment holds vectors in {@link VectorStoreFormat#LUCENE} format,
+ * with an offset index for random access, and the objects deleted when the segment was added.
+ * <p>
+ * New vectors and deletions are added as a new segment with {@link #newSegment}. Lookups go
+ * through the segments from newest to oldest: the first segment that has a vector for an object
+ * gives its vector, and an object deleted in a segment has no vector from any older segment.
+ * A segment's deletions apply before its vectors, so an object can be deleted and re-added in the
+ * same segment.
+ * <p>
+ * When there are more than {@link FlagConfig#maxsegments()} segments, the adjacent segments with
+ * the fewest bytes between them are merged by a background thread. Segments that are replaced by
+ * a merge stay open for concurrent readers until the store is closed, and their files are then
+ * deleted. The manifest is replaced atomically each time the list of segments changes, so a
+ * store that was not closed cleanly can still be opened in its last published state.
+ * <p>
+ * The manifest is named by adding {@link #MANIFEST_SUFFIX} to the store name, and
+ * {@link VectorStoreReader#openVectorStore} opens a segmented store whenever such a file exists.
+ */
+public class VectorStoreSegmented implements CloseableVectorStore {
+  private static final Logger logger = Logger.getLogger(VectorStoreSegmented.class.getCanonicalName());
+
+  /** Suffix added to the store name to give the name of the manifest file. */
+  public static final String MANIFEST_SUFFIX = ".segments";
+  private static final String MANIFEST_FIRST_LINE = "# SemanticVectors segmented vector store";
+  private static final String NO_FILE = "-";
+
+  private final FlagConfig flagConfig;
+  private final File directory;
+  private final String baseName;
+  private final File manifestFile;
+  private final FSDirectory fsDirectory;
+
+  /** The published segments, oldest first, with the number of live vectors when known. */
+  private volatile Snapshot snapshot;
+  /** Generation number for the next segment, used to name its files. Guarded by this. */
+  private long nextGeneration;
+  /** Segments replaced by merges, to be closed and deleted with the store. Guarded by this. */
+  private final List<Segment> retiredSegments = new ArrayList<Segment>();
+
+  /** Held while merging, so that only one merge runs at a time. */
+  private final Object compactionLock = new Object();
+  private ExecutorService compactionExecutor;
+  private Future<?> pendingCompaction;
+
+  /**
+   * Opens the segmented store with the given name, or creates an empty store if it has no
+   * manifest yet. Vector type and dimension in {@code flagConfig} are set from the segments'
+   * headers, as for other stores read from disk.
+   *
+   * @param storeName name of the store, with or without a ".bin" suffix
+   */
+  public VectorStoreSegmented(String storeName, FlagConfig flagConfig) throws IOException {
+    this.flagConfig = flagConfig;
+    this.manifestFile = new File(getManifestFileName(storeName));
+    String manifestName = manifestFile.getName();
+    this.baseName = manifestName.substring(0, manifestName.length() - MANIFEST_SUFFIX.length());
+    File parent = manifestFile.getAbsoluteFile().getParentFile();
+    this.directory = parent;
+    this.fsDirectory = FSDirectory.open(FileSystems.getDefault().getPath(parent.getPath()));
+
+    List<Segment> segments = new ArrayList<Segment>();
+    if (manifestFile.exists()) {
+      List<String> lines = Files.readAllLines(manifestFile.toPath(), StandardCharsets.UTF_8);
+      if (lines.isEmpty() || !lines.get(0).equals(MANIFEST_FIRST_LINE)) {
+        throw new IOException("Not a segmented vector store manifest: " + manifestFile);
+      }
+      for (String line : lines.subList(1, lines.size())) {
+        String[] fields = line.split(" ");
+        if (fields[0].equals("generation")) {
+          nextGeneration = Long.parseLong(fields[1]);
+        } else if (fields[0].equals("segment") && fields.length == 4) {
+          segments.add(openSegment(Long.parseLong(fields[1]),
+              fields[2].equals(NO_FILE) ? null : fields[2], fields[3].equals(NO_FILE) ? null : fields[3]));
+        } else if (!line.isEmpty()) {
+          throw new IOException("Cannot parse line '" + line + "' in manifest " + manifestFile);
+        }
+      }
+    }
+    this.snapshot = new Snapshot(segments);
+  }
+
+  /**
+   * Returns the name of the manifest file for the store with the given name.
+   */
+  public static String getManifestFileName(String storeName) {
+    if (storeName.endsWith(".bin")) storeName = storeName.substring(0, storeName.length() - 4);
+    return storeName + MANIFEST_SUFFIX;
+  }
+
+  /** Returns true if there is a segmented store with the given name. */
+  public static boolean exists(String storeName) {
+    return new File(getManifestFileName(storeName)).exists();
+  }
+
+  /**
+   * Deletes the segmented store with the given name, if there is one. The manifest is deleted
+   * first, so that the store is never opened with missing segments, followed by the files of the
+   * segments it lists. The store must not be open.
+   */
+  public static void delete(String storeName) throws IOException {
+    File manifestFile = new File(getManifestFileName(storeName));
+    if (!manifestFile.exists()) return;
+    File parent = manifestFile.getAbsoluteFile().getParentFile();
+    List<String> lines = Files.readAllLines(manifestFile.toPath(), StandardCharsets.UTF_8);
+    Files.delete(manifestFile.toPath());
+    if (lines.isEmpty() || !lines.get(0).equals(MANIFEST_FIRST_LINE)) return;
+    for (String line : lines.subList(1, lines.size())) {
+      String[] fields = line.split(" ");
+      if (!fields[0].equals("segment") || fields.length != 4) continue;
+      String vectorFileName = fields[2].equals(NO_FILE) ? null : fields[2];
+      String tombstoneFileName = fields[3].equals(NO_FILE) ? null : fields[3];
+      for (String fileName : existingFiles(vectorFileName, tombstoneFileName)) {
+        Files.deleteIfExists(new File(parent, fileName).toPath());
+      }
+    }
+  }
+
+  /** Returns the number of segments in the store. */
+  public int getNumSegments() {
+    return snapshot.segments.size();
+  }
+
+  /**
+   * Starts a new segment, which becomes part of the store when {@link SegmentWriter#commit}
+   * is called. Several segments may be written at once; they are ordered by when they commit.
+   */
+  public SegmentWriter newSegment() throws IOException {
+    long generation;
+    synchronized (this) {
+      generation = nextGeneration++;
+    }
+    return new SegmentWriter(generation);
+  }
+
+  /**
+   * Adds all the vectors in {@code vectors}, and deletes the given objects, in a single new segment.
+   */
+  public void appendVectors(VectorStore vectors, Collection<?> deletions) throws IOException {
+    SegmentWriter writer = newSegment();
+    try {
+      for (Object deletion : deletions) writer.deleteVector(deletion);
+      Enumeration<ObjectVector> vectorEnumeration = vectors.getAllVectors();
+      while (vectorEnumeration.hasMoreElements()) {
+        ObjectVector objectVector = vectorEnumeration.nextElement();
+        writer.putVector(objectVector.getObject(), objectVector.getVector());
+      }
+    } catch (IOException | RuntimeException e) {
+      writer.abort();
+      throw e;
+    }
+    writer.commit();
+  }
+
+  @Override
+  public Vector getVector(Object object) {
+    String key = object.toString();
+    List<Segment> segments = snapshot.segments;
+    for (int i = segments.size() - 1; i >= 0; --i) {
+      Segment segment = segments.get(i);
+      if (segment.containsVector(key)) return segment.reader.getVector(key);
+      if (segment.tombstones.contains(key)) return null;
+    }
+    return null;
+  }
+
+  @Override
+  public boolean containsVector(Object object) {
+    String key = object.toString();
+    List<Segment> segments = snapshot.segments;
+    for (int i = segments.size() - 1; i >= 0; --i) {
+      Segment segment = segments.get(i);
+      if (segment.containsVector(key)) return true;
+      if (segment.tombstones.contains(key)) return false;
+    }
+    return false;
+  }
+
+  /**
+   * Returns true if the vector for {@code key} in segment {@code index} is not replaced or
+   * deleted by any segment after it and before {@code end}.
+   */
+  private static boolean isLive(List<Segment> segments, int index, int end, String key) {
+    for (int j = index + 1; j < end; ++j) {
+      Segment newer = segments.get(j);
+      if (newer.containsVector(key) || newer.tombstones.contains(key)) return false;
+    }
+    return true;
+  }
+
+  /** Returns the objects that have vectors in the store. */
+  public Set<String> getObjects() {
+    List<Segment> segments = snapshot.segments;
+    HashSet<String> objects = new HashSet<String>();
+    for (int i = 0; i < segments.size(); ++i) {
+      Segment segment = segments.get(i);
+      objects.removeAll(segment.tombstones);
+      if (segment.reader != null) objects.addAll(segment.reader.getObjects());
+    }
+    return objects;
+  }
+
+  @Override
+  public int getNumVectors() {
+    Snapshot current = snapshot;
+    if (current.numVectors < 0) {
+      int numVectors = 0;
+      List<Segment> segments = current.segments;
+      for (int i = 0; i < segments.size(); ++i) {
+        if (segments.get(i).reader == null) continue;
+        for (String key : segments.get(i).reader.getObjects()) {
+          if (isLive(segments, i, segments.size(), key)) ++numVectors;
+        }
+      }
+      current.numVectors = numVectors;
+    }
+    return current.numVectors;
+  }
+
+  /** Returns the vectors in the store, from the newest segment to the oldest. */
+  @Override
+  public Enumeration<ObjectVector> getAllVectors() {
+    List<Segment> segments = snapshot.segments;
+    return new LiveVectorEnumeration(segments, 0, segments.size());
+  }
+
+  /**
+   * Enumerates the vectors in segments {@code start} to {@code end - 1} that are not replaced or
+   * deleted by a later segment in that range, newest segment first. Each segment is read through
+   * its own clone of the input, so lookups from the same thread don't disturb the enumeration.
+   */
+  private static class LiveVectorEnumeration implements Enumeration<ObjectVector> {
+    private final List<Segment> segments;
+    private final int start;
+    private final int end;
+    private int index;
+    private Enumeration<ObjectVector> segmentVectors;
+    private ObjectVector next;
+
+    LiveVectorEnumeration(List<Segment> segments, int start, int end) {
+      this.segments = segments;
+      this.start = start;
+      this.end = end;
+      this.index = end;
+      advance();
+    }
+
+    private void advance() {
+      next = null;
+      while (next == null) {
+        if (segmentVectors == null || !segmentVectors.hasMoreElements()) {
+          segmentVectors = null;
+          while (segmentVectors == null && --index >= start) {
+            Segment segment = segments.get(index);
+            if (segment.reader != null) segmentVectors = segment.reader.getVectorPartitions(1).get(0);
+          }
+          if (segmentVectors == null) return;
+          continue;
+        }
+        ObjectVector candidate = segmentVectors.nextElement();
+        if (isLive(segments, index, end, candidate.getObject().toString())) next = candidate;
+      }
+    }
+
+    @Override
+    public boolean hasMoreElements() {
+      return next != null;
+    }
+
+    @Override
+    public ObjectVector nextElement() {
+      if (next == null) throw new NoSuchElementException();
+      ObjectVector result = next;
+      advance();
+      return result;
+    }
+  }
+
+  /**
+   * Merges adjacent segments until there are at most {@code maxSegments}, choosing the run of
+   * segments with the fewest bytes between them. Vectors replaced or deleted within the run are
+   * dropped, and deletions are kept only for objects that older segments still have vectors for.
+   * Appends may continue while the merge is written.
+   */
+  public void compact(int maxSegments) throws IOException {
+    synchronized (compactionLock) {
+      List<Segment> segments = snapshot.segments;
+      int runLength = segments.size() - Math.max(1, maxSegments) + 1;
+      if (runLength < 2) return;
+      int start = 0;
+      long fewestBytes = Long.MAX_VALUE;
+      for (int i = 0; i + runLength <= segments.size(); ++i) {
+        long bytes = 0;
+        for (int j = i; j < i + runLength; ++j) bytes += segments.get(j).numBytes;
+        if (bytes < fewestBytes) {
+          fewestBytes = bytes;
+          start = i;
+        }
+      }
+      int end = start + runLength;
+      logger.info("Merging " + runLength + " segments of " + manifestFile + " with " + fewestBytes + " bytes");
+
+      SegmentWriter writer = newSegment();
+      Segment merged;
+      try {
+        Enumeration<ObjectVector> liveVectors = new LiveVectorEnumeration(segments, start, end);
+        while (liveVectors.hasMoreElements()) {
+          ObjectVector objectVector = liveVectors.nextElement();
+          writer.putVector(objectVector.getObject(), objectVector.getVector());
+        }
+        for (int j = start; j < end; ++j) {
+          for (String deletion : segments.get(j).tombstones) {
+            for (int k = 0; k < start; ++k) {
+              if (segments.get(k).containsVector(deletion)) {
+                writer.deleteVector(deletion);
+                break;
+              }
+            }
+          }
+        }
+        merged = writer.finish();
+      } catch (IOException | RuntimeException e) {
+        writer.abort();
+        throw e;
+      }
+
+      synchronized (this) {
+        List<Segment> latest = new ArrayList<Segment>(snapshot.segments);
+        // Only merges remove segments, so the run is still in place, though appends may follow it.
+        int index = latest.indexOf(segments.get(start));
+        List<Segment> run = new ArrayList<Segment>(latest.subList(index, index + runLength));
+        latest.subList(index, index + runLength).clear();
+        if (!merged.isEmpty()) latest.add(index, merged);
+        publish(latest);
+        retiredSegments.addAll(run);
+        if (merged.isEmpty()) retiredSegments.add(merged);
+      }
+    }
+  }
+
+  /** Merges segments in the background if there are more than {@link FlagConfig#maxsegments()}. */
+  private synchronized void scheduleCompactionIfNeeded() {
+    if (snapshot.segments.size() <= flagConfig.maxsegments()) return;
+    if (pendingCompaction != null && !pendingCompaction.isDone()) return;
+    if (compactionExecutor == null) {
+      compactionExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+          Thread thread = new Thread(runnable, "Compaction of " + manifestFile.getName());
+          thread.setDaemon(true);
+          return thread;
+        }
+      });
+    }
+    pendingCompaction = compactionExecutor.submit(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          compact(flagConfig.maxsegments());
+        } catch (IOException e) {
+          logger.warning("Failed to merge segments of " + manifestFile + ": " + e.getMessage());
+        }
+      }
+    });
+  }
+
+  /** Waits for any merge running in the background to finish. */
+  public void awaitCompaction() throws InterruptedException {
+    Future<?> compaction;
+    synchronized (this) {
+      compaction = pendingCompaction;
+    }
+    if (compaction == null) return;
+    try {
+      compaction.get();
+    } catch (ExecutionException e) {
+      logger.warning("Merging segments of " + manifestFile + " failed: " + e.getCause());
+    }
+  }
+
+  /**
+   * Waits for any background merge, then closes all segments and deletes the files of
+   * segments that were replaced by merges.
+   */
+  @Override
+  public void close() {
+    try {
+      awaitCompaction();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    synchronized (this) {
+      if (compactionExecutor != null) compactionExecutor.shutdown();
+      for (Segment segment : snapshot.segments) segment.close();
+      for (Segment segment : retiredSegments) {
+        segment.close();
+        segment.deleteFiles();
+      }
+      retiredSegments.clear();
+    }
+    try {
+      fsDirectory.close();
+    } catch (IOException e) {
+      logger.warning("Failed to close directory of " + manifestFile + ": " + e.getMessage());
+    }
+  }
+
+  /** Writes the manifest for the given segments and makes them the published segments. */
+  private synchronized void publish(List<Segment> segments) throws IOException {
+    StringBuilder manifest = new StringBuilder(MANIFEST_FIRST_LINE).append("\n");
+    manifest.append("generation ").append(nextGeneration).append("\n");
+    for (Segment segment : segments) {
+      manifest.append("segment ").append(segment.generation)
+          .append(" ").append(segment.vectorFileName == null ? NO_FILE : segment.vectorFileName)
+          .append(" ").append(segment.tombstoneFileName == null ? NO_FILE : segment.tombstoneFileName)
+          .append("\n");
+    }
+    File tmpFile = new File(directory, manifestFile.getName() + ".tmp");
+    Files.write(tmpFile.toPath(), manifest.toString().getBytes(StandardCharsets.UTF_8));
+    Files.move(tmpFile.toPath(), manifestFile.toPath(),
+        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    snapshot = new Snapshot(segments);
+  }
+
+  private Segment openSegment(long generation, String vectorFileName, String tombstoneFileName)
+      throws IOException {
+    VectorStoreReaderLucene reader = null;
+    long numBytes = 0;
+    if (vectorFileName != null) {
+      File vectorFile = new File(directory, vectorFileName);
+      reader = new VectorStoreReaderLucene(vectorFile.getPath(), flagConfig);
+      numBytes = vectorFile.length();
+    }
+    Set<String> tombstones = Collections.emptySet();
+    if (tombstoneFileName != null) {
+      tombstones = new HashSet<String>();
+      IndexInput input = fsDirectory.openInput(tombstoneFileName, IOContext.READONCE);
+      try {
+        int numTombstones = input.readVInt();
+        for (int i = 0; i < numTombstones; ++i) tombstones.add(input.readString());
+      } finally {
+        input.close();
+      }
+      numBytes += new File(directory, tombstoneFileName).length();
+    }
+    return new Segment(generation, vectorFileName, tombstoneFileName, reader, tombstones, numBytes);
+  }
+
+  /** The published list of segments, which never changes once published. */
+  private static class Snapshot {
+    final List<Segment> segments;
+    /** Number of live vectors, or -1 until counted. */
+    volatile int numVectors = -1;
+
+    Snapshot(List<Segment> segments) {
+      this.segments = Collections.unmodifiableList(new ArrayList<Segment>(segments));
+    }
+  }
+
+  /** An immutable segment of the store. */
+  private class Segment {
+    final long generation;
+    final String vectorFileName;
+    final String tombstoneFileName;
+    final VectorStoreReaderLucene reader;
+    final Set<String> tombstones;
+    final long numBytes;
+
+    Segment(long generation, String vectorFileName, String tombstoneFileName,
+        VectorStoreReaderLucene reader, Set<String> tombstones, long numBytes) {
+      this.generation = generation;
+      this.vectorFileName = vectorFileName;
+      this.tombstoneFileName = tombstoneFileName;
+      this.reader = reader;
+      this.tombstones = tombstones;
+      this.numBytes = numBytes;
+    }
+
+    boolean containsVector(String key) {
+      return reader != null && reader.containsVector(key);
+    }
+
+    boolean isEmpty() {
+      return reader == null && tombstones.isEmpty();
+    }
+
+    void close() {
+      if (reader != null) reader.close();
+    }
+
+    void deleteFiles() {
+      if (vectorFileName != null) {
+        deleteQuietly(vectorFileName);
+        deleteQuietly(VectorStoreUtils.getOffsetIndexFileName(vectorFileName));
+      }
+      if (tombstoneFileName != null) deleteQuietly(tombstoneFileName);
+    }
+  }
+
+  private void deleteQuietly(String fileName) {
+    try {
+      Files.deleteIfExists(new File(directory, fileName).toPath());
+    } catch (IOException e) {
+      logger.warning("Failed to delete " + fileName + ": " + e.getMessage());
+    }
+  }
+
+  /**
+   * Writes the vectors and deletions of a new segment. Vectors are written to disk as they are
+   * added, so a segment can be much bigger than memory; only the objects added and deleted are
+   * kept until the segment is committed.
+   */
+  public class SegmentWriter {
+    private final long generation;
+    private final String vectorFileName;
+    private final String tombstoneFileName;
+    private IndexOutput vectorOutput;
+    private IndexOutput offsetsOutput;
+    private final Set<String> objects = new HashSet<String>();
+    private final Set<String> deletions = new HashSet<String>();
+
+    private SegmentWriter(long generation) {
+      this.generation = generation;
+      this.vectorFileName = baseName + "_" + generation + ".bin";
+      this.tombstoneFileName = baseName + "_" + generation + ".del";
+    }
+
+    /**
+     * Adds a vector for the given object.
+     *
+     * @throws IllegalArgumentException if the object already has a vector in this segment, or the
+     *   vector doesn't have the store's vector type and dimension
+     */
+    public void putVector(Object object, Vector vector) throws IOException {
+      String key = object.toString();
+      if (vector.getDimension() != flagConfig.dimension()) {
+        throw new IllegalArgumentException("Vector for '" + key + "' has dimension "
+            + vector.getDimension() + ": expected " + flagConfig.dimension());
+      }
+      if (!objects.add(key)) {
+        throw new IllegalArgumentException("Object '" + key + "' was already added to this segment.");
+      }
+      if (vectorOutput == null) {
+        vectorOutput = fsDirectory.createOutput(vectorFileName, IOContext.DEFAULT);
+        offsetsOutput = fsDirectory.createOutput(
+            VectorStoreUtils.getOffsetIndexFileName(vectorFileName), IOContext.DEFAULT);
+        vectorOutput.writeString(VectorStoreWriter.generateHeaderString(flagConfig, VectorStoreFormat.LUCENE));
+      }
+      offsetsOutput.writeString(key);
+      offsetsOutput.writeVLong(vectorOutput.getFilePointer());
+      vectorOutput.writeString(key);
+      HalfFloats.writeVector(vector, flagConfig.vectorprecision(), vectorOutput);
+    }
+
+    /** Deletes the vector for the given object from older segments. */
+    public void deleteVector(Object object) {
+      deletions.add(object.toString());
+    }
+
+    /** Writes out the segment files and opens the segment, without publishing it. */
+    private Segment finish() throws IOException {
+      String finishedVectorFileName = null;
+      if (vectorOutput != null) {
+        offsetsOutput.writeLong(objects.size());
+        offsetsOutput.writeLong(vectorOutput.getFilePointer());
+        vectorOutput.close();
+        offsetsOutput.close();
+        finishedVectorFileName = vectorFileName;
+      }
+      String finishedTombstoneFileName = null;
+      if (!deletions.isEmpty()) {
+        IndexOutput output = fsDirectory.createOutput(tombstoneFileName, IOContext.DEFAULT);
+        try {
+          output.writeVInt(deletions.size());
+          for (String deletion : deletions) output.writeString(deletion);
+        } finally {
+          output.close();
+        }
+        finishedTombstoneFileName = tombstoneFileName;
+      }
+      fsDirectory.sync(existingFiles(finishedVectorFileName, finishedTombstoneFileName));
+      return openSegment(generation, finishedVectorFileName, finishedTombstoneFileName);
+    }
+
+    /**
+     * Adds the segment to the store as its newest segment. Does nothing if no vectors or
+     * deletions were added.
+     */
+    public void commit() throws IOException {
+      Segment segment = finish();
+      if (segment.isEmpty()) return;
+      synchronized (VectorStoreSegmented.this) {
+        List<Segment> segments = new ArrayList<Segment>(snapshot.segments);
+        segments.add(segment);
+        publish(segments);
+      }
+      scheduleCompactionIfNeeded();
+    }
+
+    /** Discards the segment, deleting anything written so far. */
+    public void abort() {
+      try {
+        if (vectorOutput != null) {
+          vectorOutput.close();
+          offsetsOutput.close();
+        }
+      } catch (IOException e) {
+        logger.warning("Failed to close " + vectorFileName + ": " + e.getMessage());
+      }
+      deleteQuietly(vectorFileName);
+      deleteQuietly(VectorStoreUtils.getOffsetIndexFileName(vectorFileName));
+      deleteQuietly(tombstoneFileName);
+    }
+  }
+
+  private static List<String> existingFiles(String vectorFileName, String tombstoneFileName) {
+    List<String> fileNames = new ArrayList<String>();
+    if (vectorFileName != null) {
+      fileNames.add(vectorFileName);
+      fileNames.add(VectorStoreUtils.getOffsetIndexFileName(vectorFileName));
+    }
+    if (tombstoneFileName != null) fileNames.add(tombstoneFileName);
+    return fileNames;
+  }
+}
@@ -0,0 +1,363 @@
+/**
+   Copyright (c) 2026, the SemanticVectors AUTHORS.
+
+   All rights reserved.
+
+   Redistribution and use in source and binary forms, with or without
+   modification, are permitted provided that the following conditions are
+   met:
+
+   * Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+   * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the following
+   disclaimer in the documentation and/or other materials provided
+   with the distribution.
+
+   * Neither the name of the University of Pittsburgh nor the names
+   of its contributors may be used to endorse or promote products
+   derived from this software without specific prior written
+   permission.
+
+   THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+   "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+   LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+   A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+   CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+   EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+   PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+   PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+   LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+   NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+   SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+**/
+
+package pitt.search.semanticvectors;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.logging.Logger;
+
+import pitt.search.semanticvectors.VectorStoreUtils.VectorStoreFormat;
+import pitt.search.semanticvectors.utils.StringUtils;
+import pitt.search.semanticvectors.utils.VerbatimLogger;
+import pitt.search.semanticvectors.vectors.Vector;
+
+/**
+ * A vector store split into several shards, each an ordinary vector store file, listed in a
+ * manifest file. Each object is in exactly one shard, chosen by a hash of the object or by
+ * ranges of objects in sorted order (see {@link ShardPartitioning}), so {@link #getVector}
+ * only looks in one shard. {@link VectorSearcher} searches the shards in parallel and
+ * merges their best results.
+ * <p>
+ * Sharded stores are written by {@link VectorStoreWriter#writeVectors} when
+ * {@link FlagConfig#numshards()} is more than 1. The manifest is named by adding
+ * {@link #MANIFEST_SUFFIX} to the store name, and {@link VectorStoreReader#openVectorStore}
+ * opens a sharded store whenever such a file exists.
+ */
+public class VectorStoreSharded implements CloseableVectorStore {
+  private static final Logger logger = Logger.getLogger(VectorStoreSharded.class.getCanonicalName());
+
+  /** Suffix added to the store name to give the name of the manifest file. */
+  public static final String MANIFEST_SUFFIX = ".shards";
+  private static final String MANIFEST_FIRST_LINE = "# SemanticVectors sharded vector store";
+
+  /** How objects are assigned to shards. */
+  public enum ShardPartitioning {
+    /** By a hash of the object's string, which gives shards of similar sizes. */
+    HASH,
+    /** By ranges of the objects' strings in sorted order, so each shard holds a contiguous range. */
+    RANGE
+  }
+
+  private final ShardPartitioning partitioning;
+  private final CloseableVectorStore[] shards;
+  /** For {@link ShardPartitioning#RANGE}, the first object in each shard after the first. */
+  private final String[] splitObjects;
+
+  /**
+   * Opens the sharded store with the given name. Vector type and dimension in {@code flagConfig}
+   * are set from the shards' headers, as for other stores read from disk.
+   *
+   * @param storeName name of the store, with or without the suffix for its -indexfileformat
+   * @throws IOException if the manifest or any of the shards can't be read
+   */
+  public VectorStoreSharded(String storeName, FlagConfig flagConfig) throws IOException {
+    File manifestFile = new File(getManifestFileName(storeName));
+    List<String> lines = Files.readAllLines(manifestFile.toPath(), StandardCharsets.UTF_8);
+    if (lines.isEmpty() || !lines.get(0).equals(MANIFEST_FIRST_LINE)) {
+      throw new IOException("Not a sharded vector store manifest: " + manifestFile);
+    }
+    ShardPartitioning partitioning = null;
+    VectorStoreFormat format = null;
+    List<String> shardFileNames = new ArrayList<String>();
+    List<String> splitObjects = new ArrayList<String>();
+    for (String line : lines.subList(1, lines.size())) {
+      String[] fields = line.split("\t", 3);
+      if (fields[0].equals("partitioning") && fields.length == 2) {
+        partitioning = ShardPartitioning.valueOf(fields[1]);
+      } else if (fields[0].equals("format") && fields.length == 2) {
+        format = VectorStoreFormat.valueOf(fields[1]);
+      } else if (fields[0].equals("shard") && fields.length >= 2) {
+        shardFileNames.add(fields[1]);
+        if (fields.length == 3) splitObjects.add(fields[2]);
+      } else if (!line.isEmpty()) {
+        throw new IOException("Cannot parse line '" + line + "' in manifest " + manifestFile);
+      }
+    }
+    if (partitioning == null || format == null || shardFileNames.isEmpty()
+        || (partitioning == ShardPartitioning.RANGE && splitObjects.size() != shardFileNames.size() - 1)) {
+      throw new IOException("Incomplete sharded vector store manifest: " + manifestFile);
+    }
+    this.partitioning = partitioning;
+    this.splitObjects = splitObjects.toArray(new String[splitObjects.size()]);
+    this.shards = new CloseableVectorStore[shardFileNames.size()];
+    File directory = manifestFile.getAbsoluteFile().getParentFile();
+    try {
+      for (int i = 0; i < shards.length; ++i) {
+        shards[i] = VectorStoreReader.openVectorStore(
+            new File(directory, shardFileNames.get(i)).getPath(), format, flagConfig);
+      }
+    } catch (IOException e) {
+      close();
+      throw e;
+    }
+  }
+
+  /**
+   * Returns the name of the manifest file for the store with the given name.
+   */
+  public static String getManifestFileName(String storeName) {
+    for (String suffix : new String[] {".bin", ".txt", ".mmap"}) {
+      if (storeName.endsWith(suffix)) return storeName.substring(0, storeName.length() - suffix.length()) + MANIFEST_SUFFIX;
+    }
+    return storeName + MANIFEST_SUFFIX;
+  }
+
+  /** Returns true if there is a sharded store with the given name. */
+  public static boolean exists(String storeName) {
+    return new File(getManifestFileName(storeName)).exists();
+  }
+
+  /** Returns the shard that holds the given object, if it is in the store. */
+  static int getShard(String object, int numShards, ShardPartitioning partitioning, String[] splitObjects) {
+    switch (partitioning) {
+    case HASH:
+      return (int) Math.floorMod(StringUtils.hash64(object), (long) numShards);
+    case RANGE:
+      int position = Arrays.binarySearch(splitObjects, object);
+      return position >= 0 ? position + 1 : -position - 1;
+    default:
+      throw new IllegalStateException("Unknown shard partitioning: " + partitioning);
+    }
+  }
+
+  /** Returns the shards, which are searched separately by {@link VectorSearcher}. */
+  public List<CloseableVectorStore> getShards() {
+    return Collections.unmodifiableList(Arrays.asList(shards));
+  }
+
+  @Override
+  public Vector getVector(Object object) {
+    return shards[getShard(object.toString(), shards.length, partitioning, splitObjects)].getVector(object);
+  }
+
+  @Override
+  public boolean containsVector(Object object) {
+    return shards[getShard(object.toString(), shards.length, partitioning, splitObjects)].containsVector(object);
+  }
+
+  @Override
+  public int getNumVectors() {
+    int numVectors = 0;
+    for (CloseableVectorStore shard : shards) numVectors += shard.getNumVectors();
+    return numVectors;
+  }
+
+  /** Returns the vectors in each shard in turn. */
+  @Override
+  public Enumeration<ObjectVector> getAllVectors() {
+    return new Enumeration<ObjectVector>() {
+      private int shard = 0;
+      private Enumeration<ObjectVector> shardVectors = shards[0].getAllVectors();
+
+      @Override
+      public boolean hasMoreElements() {
+        while (!shardVectors.hasMoreElements()) {
+          if (++shard == shards.length) return false;
+          shardVectors = shards[shard].getAllVectors();
+        }
+        return true;
+      }
+
+      @Override
+      public ObjectVector nextElement() {
+        if (!hasMoreElements()) throw new NoSuchElementException();
+        return shardVectors.nextElement();
+      }
+    };
+  }
+
+  @Override
+  public void close() {
+    for (CloseableVectorStore shard : shards) {
+      if (shard != null) shard.close();
+    }
+  }
+
+  /**
+   * Writes the vectors as {@link FlagConfig#numshards()} shards in the -indexfileformat,
+   * partitioned by {@link FlagConfig#shardpartitioning()}, followed by the manifest.
+   * Shard files are named by adding "_shard" and the shard number to the store name.
+   * The source store is read once to count the vectors in each shard, once per shard to write
+   * it, and for {@link ShardPartitioning#RANGE} once more to choose the ranges, keeping only
+   * the objects in memory.
+   *
+   * @throws IllegalArgumentException if {@link FlagConfig#numshards()} is less than 1
+   */
+  static void writeShards(String storeName, FlagConfig flagConfig, VectorStore objectVectors)
+      throws IOException {
+    int numShards = flagConfig.numshards();
+    if (numShards < 1) {
+      throw new IllegalArgumentException("-numshards must be at least 1, not " + numShards);
+    }
+    ShardPartitioning partitioning = flagConfig.shardpartitioning();
+    String[] splitObjects = new String[0];
+    if (partitioning == ShardPartitioning.RANGE) {
+      splitObjects = chooseSplitObjects(objectVectors, numShards);
+      // Identical split objects would leave empty shards that can never be looked up.
+      numShards = splitObjects.length + 1;
+    }
+
+    int[] shardSizes = new int[numShards];
+    Enumeration<ObjectVector> vecEnum = objectVectors.getAllVectors();
+    while (vecEnum.hasMoreElements()) {
+      ++shardSizes[getShard(vecEnum.nextElement().getObject().toString(), numShards, partitioning, splitObjects)];
+    }
+
+    File manifestFile = new File(getManifestFileName(storeName));
+    String manifestName = manifestFile.getName();
+    String baseName = manifestName.substring(0, manifestName.length() - MANIFEST_SUFFIX.length());
+    File directory = manifestFile.getAbsoluteFile().getParentFile();
+    Files.deleteIfExists(manifestFile.toPath());
+
+    StringBuilder manifest = new StringBuilder(MANIFEST_FIRST_LINE).append("\n");
+    manifest.append("partitioning\t").append(partitioning).append("\n");
+    manifest.append("format\t").append(flagConfig.indexfileformat()).append("\n");
+    VerbatimLogger.info("Writing " + numShards + " shards of vector store " + storeName + "\n");
+    for (int i = 0; i < numShards; ++i) {
+      String shardFileName = VectorStoreUtils.getStoreFileName(baseName + "_shard" + i, flagConfig);
+      VectorStoreWriter.writeVectorFile(new File(directory, shardFileName).getPath(), flagConfig,
+          new ShardView(objectVectors, i, numShards, partitioning, splitObjects, shardSizes[i]));
+      manifest.append("shard\t").append(shardFileName);
+      if (i > 0 && partitioning == ShardPartitioning.RANGE) manifest.append("\t").append(splitObjects[i - 1]);
+      manifest.append("\n");
+    }
+    // The manifest is written last, so an interrupted write doesn't leave a store that seems complete.
+    Files.write(manifestFile.toPath(), manifest.toString().getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Returns the objects that start each range after the first, so that the ranges have
+   * similar numbers of objects.
+   */
+  private static String[] chooseSplitObjects(VectorStore objectVectors, int numShards) {
+    ArrayList<String> objects = new ArrayList<String>();
+    Enumeration<ObjectVector> vecEnum = objectVectors.getAllVectors();
+    while (vecEnum.hasMoreElements()) {
+      objects.add(vecEnum.nextElement().getObject().toString());
+    }
+    Collections.sort(objects);
+    ArrayList<String> splitObjects = new ArrayList<String>();
+    for (int i = 1; i < numShards; ++i) {
+      int position = (int) ((long) i * objects.size() / numShards);
+      if (position == 0 || position >= objects.size()) continue;
+      String splitObject = objects.get(position);
+      if (splitObjects.isEmpty() || !splitObject.equals(splitObjects.get(splitObjects.size() - 1))) {
+        splitObjects.add(splitObject);
+      }
+    }
+    if (splitObjects.size() < numShards - 1) {
+      logger.info("Writing " + (splitObjects.size() + 1) + " range shards instead of " + numShards
+          + " for " + objects.size() + " objects.");
+    }
+    return splitObjects.toArray(new String[splitObjects.size()]);
+  }
+
+  /** The vectors of a source store that belong in one shard, read by enumerating the source. */
+  private static class ShardView implements VectorStore {
+    private final VectorStore source;
+    private final int shard;
+    private final int numShards;
+    private final ShardPartitioning partitioning;
+    private final String[] splitObjects;
+    private final int numVectors;
+
+    ShardView(VectorStore source, int shard, int numShards,
+        ShardPartitioning partitioning, String[] splitObjects, int numVectors) {
+      this.source = source;
+      this.shard = shard;
+      this.numShards = numShards;
+      this.partitioning = partitioning;
+      this.splitObjects = splitObjects;
+      this.numVectors = numVectors;
+    }
+
+    private boolean inShard(Object object) {
+      return getShard(object.toString(), numShards, partitioning, splitObjects) == shard;
+    }
+
+    @Override
+    public Vector getVector(Object object) {
+      return inShard(object) ? source.getVector(object) : null;
+    }
+
+    @Override
+    public boolean containsVector(Object object) {
+      return inShard(object) && source.containsVector(object);
+    }
+
+    @Override
+    public int getNumVectors() {
+      return numVectors;
+    }
+
+    @Override
+    public Enumeration<ObjectVector> getAllVectors() {
+      final Enumeration<ObjectVector> sourceVectors = source.getAllVectors();
+      return new Enumeration<ObjectVector>() {
+        private ObjectVector next = advance();
+
+        private ObjectVector advance() {
+          while (sourceVectors.hasMoreElements()) {
+            ObjectVector candidate = sourceVectors.nextElement();
+            if (inShard(candidate.getObject())) return candidate;
+          }
+          return null;
+        }
+
+        @Override
+        public boolean hasMoreElements() {
+          return next != null;
+        }
+
+        @Override
+        public ObjectVector nextElement() {
+          if (next == null) throw new NoSuchElementException();
+          ObjectVector result = next;
+          next = advance();
+          return result;
+        }
+      };
+    }
+  }
+}
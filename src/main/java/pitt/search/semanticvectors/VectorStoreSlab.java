@@ -0,0 +1,650 @@
+/**
+   Copyright (c) 2026, the SemanticVectors AUTHORS.
+
+   All rights reserved.
+
+   Redistribution and use in source and binary forms, with or without
+   modification, are permitted provided that the following conditions are
+   met:
+
+   * Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+   * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the following
+   disclaimer in the documentation and/or other materials provided
+   with the distribution.
+
+   * Neither the name of the University of Pittsburgh nor the names
+   of its contributors may be used to endorse or promote products
+   derived from this software without specific prior written
+   permission.
+
+   THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+   "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+   LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+   A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+   CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+   EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+   PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+   PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+   LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+   NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+   SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+**/
+
+package pitt.search.semanticvectors;
+
+import java.io.IOException;
+import java.nio.FloatBuffer;
+import java.nio.LongBuffer;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import pitt.search.semanticvectors.vectors.BinaryVector;
+import pitt.search.semanticvectors.vectors.BinaryVectorUtils;
+import pitt.search.semanticvectors.vectors.ComplexVector;
+import pitt.search.semanticvectors.vectors.ComplexVectorUtils;
+import pitt.search.semanticvectors.vectors.IncompatibleVectorsException;
+import pitt.search.semanticvectors.vectors.RealVector;
+import pitt.search.semanticvectors.vectors.Vector;
+import pitt.search.semanticvectors.vectors.VectorFactory;
+import pitt.search.semanticvectors.vectors.VectorType;
+
+/**
+   In-memory vector store that keeps the coordinates of all its vectors in a few large
+   primitive arrays ("slabs"), rather than one {@link ObjectVector} and one {@link Vector}
+   per entry as in {@link VectorStoreRAM}. <p>
+
+   Each entry gets a dense integer id, in the order in which entries are added, and a
+   separate table maps keys to ids. Coordinates are stored in the layout used by
+   {@link Vector#writeToLuceneStream}: one float per dimension for {@link VectorType#REAL},
+   cartesian (real, imaginary) float pairs for {@link VectorType#COMPLEX}, and 64-bit words
+   for {@link VectorType#BINARY}. <p>
+
+   The {@link Vector}s returned by {@link #getVector} are copies, so changes to them are
+   not seen by the store. Training code should write changes back with {@link #putVector},
+   or update entries in place with {@link #superpose} and {@link #normalize}, which can be
+   called from many threads at once. Since a binary entry only has room for its bits, binary
+   entries that are superposed into keep a voting record beside the slabs until they are
+   normalized. <p>
+
+   Entries can't be removed, since that would leave gaps in the ids.
+
+   @see VectorStoreRAM
+ **/
+public class VectorStoreSlab implements IndexedVectorStore {
+  private static final Logger logger =
+      Logger.getLogger(VectorStoreSlab.class.getCanonicalName());
+
+  /** Approximate number of floats or longs in each slab. */
+  private static final int SLAB_ELEMENTS = 1 << 22;
+
+  private FlagConfig flagConfig;
+  private VectorType vectorType;
+  private int dimension;
+  /** Used for checking compatibility of new vectors. */
+  private Vector zeroVector;
+
+  /** Number of floats or longs taken up by each vector. */
+  private int stride;
+  private int vectorsPerSlab;
+  /** Slabs for {@link VectorType#REAL} and {@link VectorType#COMPLEX} vectors. */
+  private volatile float[][] floatSlabs;
+  /** Slabs for {@link VectorType#BINARY} vectors. */
+  private volatile long[][] longSlabs;
+  /** Buffers wrapping each of the slabs, for {@link OverlapScorers}. */
+  private volatile FloatBuffer[] floatBuffers;
+  private volatile LongBuffer[] longBuffers;
+
+  private ConcurrentHashMap<Object, Integer> ids;
+  private volatile Object[] keys;
+  private volatile int numVectors;
+
+  /** Number of monitors that in place updates of different entries are spread over. */
+  private static final int NUM_ENTRY_LOCKS = 64;
+
+  /**
+   * Held for reading while an entry is read or updated, holding the entry's monitor
+   * from {@link #entryLocks}, and for writing while the slabs grow.
+   */
+  private final ReentrantReadWriteLock slabLock = new ReentrantReadWriteLock();
+  private final Object[] entryLocks;
+  /** Binary vectors holding the votes for binary entries that have been superposed into. */
+  private final ConcurrentHashMap<Integer, BinaryVector> votingVectors;
+
+  public VectorStoreSlab(FlagConfig flagConfig) {
+    this.flagConfig = flagConfig;
+    this.vectorType = flagConfig.vectortype();
+    this.dimension = flagConfig.dimension();
+    this.zeroVector = VectorFactory.createZeroVector(vectorType, dimension);
+    switch (vectorType) {
+      case REAL:
+        this.stride = dimension;
+        this.floatSlabs = new float[0][];
+        this.floatBuffers = new FloatBuffer[0];
+        break;
+      case COMPLEX:
+      case COMPLEXFLAT:
+        this.stride = 2 * dimension;
+        this.floatSlabs = new float[0][];
+        this.floatBuffers = new FloatBuffer[0];
+        break;
+      case BINARY:
+        this.stride = dimension / 64;
+        this.longSlabs = new long[0][];
+        this.longBuffers = new LongBuffer[0];
+        break;
+      default:
+        throw new IllegalArgumentException("Unsupported vector type for slab storage: " + vectorType);
+    }
+    this.vectorsPerSlab = Math.max(1, SLAB_ELEMENTS / Math.max(1, stride));
+    this.ids = new ConcurrentHashMap<Object, Integer>();
+    this.keys = new Object[0];
+    this.numVectors = 0;
+    this.entryLocks = new Object[NUM_ENTRY_LOCKS];
+    for (int i = 0; i < NUM_ENTRY_LOCKS; ++i) entryLocks[i] = new Object();
+    this.votingVectors = new ConcurrentHashMap<Integer, BinaryVector>();
+  }
+
+  /**
+   * Returns a new vector store, initialized from disk with the given vectorFile.
+   *
+   * Dimension and vector type from store on disk may overwrite any previous values in flagConfig.
+   **/
+  public static VectorStoreSlab readFromFile(FlagConfig flagConfig, String vectorFile) throws IOException {
+    if (vectorFile.isEmpty()) {
+      throw new IllegalArgumentException("vectorFile argument cannot be empty.");
+    }
+    CloseableVectorStore vectorReaderDisk = VectorStoreReader.openVectorStore(vectorFile, flagConfig);
+    VectorStoreSlab store = new VectorStoreSlab(flagConfig);
+    Enumeration<ObjectVector> vectorEnumeration = vectorReaderDisk.getAllVectors();
+    logger.fine("Reading vectors from store on disk into memory slabs ...");
+    while (vectorEnumeration.hasMoreElements()) {
+      ObjectVector objectVector = vectorEnumeration.nextElement();
+      store.putVector(objectVector.getObject().toString(), objectVector.getVector());
+    }
+    vectorReaderDisk.close();
+    logger.log(Level.FINE, "Stored {0} vectors.", store.getNumVectors());
+    return store;
+  }
+
+  /**
+   * Adds a single vector with the given key and value, copying its coordinates into the store.
+   * Overwrites any existing vector with this key.
+   *
+   * @return the id of the entry for this key
+   */
+  public synchronized int putVector(Object key, Vector vector) {
+    IncompatibleVectorsException.checkVectorsCompatible(zeroVector, vector);
+    Integer id = ids.get(key);
+    if (id == null) {
+      id = addEntry(key);
+    }
+    slabLock.readLock().lock();
+    try {
+      synchronized (entryLocks[id % NUM_ENTRY_LOCKS]) {
+        votingVectors.remove(id);
+        writeCoordinates(id, vector);
+      }
+    } finally {
+      slabLock.readLock().unlock();
+    }
+    return id;
+  }
+
+  /**
+   * Returns the id of the entry with the given key, adding a zero vector for this key
+   * if it isn't there already.
+   */
+  public int getOrAddId(Object key) {
+    Integer id = ids.get(key);
+    if (id != null) return id;
+    synchronized (this) {
+      id = ids.get(key);
+      if (id == null) id = addEntry(key);
+      return id;
+    }
+  }
+
+  /** Returns the id of the entry with the given key, or -1 if there is no such entry. */
+  public int getId(Object key) {
+    Integer id = ids.get(key);
+    return (id == null) ? -1 : id;
+  }
+
+  /** Returns the key of the entry with the given id. */
+  public Object getObject(int id) {
+    checkId(id);
+    return keys[id];
+  }
+
+  /**
+   * Returns a new vector with the coordinates of the entry with the given id, or for a binary
+   * entry that has been superposed into since it was last normalized, a copy of its votes.
+   */
+  public Vector getVector(int id) {
+    checkId(id);
+    slabLock.readLock().lock();
+    try {
+      synchronized (entryLocks[id % NUM_ENTRY_LOCKS]) {
+        BinaryVector votingVector = votingVectors.get(id);
+        if (votingVector != null) return votingVector.copy();
+        return readCoordinates(id);
+      }
+    } finally {
+      slabLock.readLock().unlock();
+    }
+  }
+
+  private Vector readCoordinates(int id) {
+    int offset = (id % vectorsPerSlab) * stride;
+    if (vectorType == VectorType.BINARY) {
+      long[] slab = longSlabs[id / vectorsPerSlab];
+      return VectorFactory.createBinaryVector(Arrays.copyOfRange(slab, offset, offset + stride), dimension);
+    }
+    float[] slab = floatSlabs[id / vectorsPerSlab];
+    return VectorFactory.createDenseVector(vectorType, Arrays.copyOfRange(slab, offset, offset + stride));
+  }
+
+  @Override
+  public ObjectVector getObjectVector(int id) {
+    return new ObjectVector(getObject(id), getVector(id));
+  }
+
+  /**
+   * Given an object, get its corresponding vector.
+   *
+   * @param desiredObject - the string you're searching for
+   * @return a copy of the vector from the VectorStore, or null if not found.
+   */
+  @Override
+  public Vector getVector(Object desiredObject) {
+    Integer id = ids.get(desiredObject);
+    if (id == null) return null;
+    return getVector(id.intValue());
+  }
+
+  @Override
+  public boolean containsVector(Object object) {
+    return ids.containsKey(object);
+  }
+
+  @Override
+  public int getNumVectors() {
+    return numVectors;
+  }
+
+  @Override
+  public Enumeration<ObjectVector> getAllVectors() {
+    final int size = numVectors;
+    return new Enumeration<ObjectVector>() {
+      int id = 0;
+
+      @Override
+      public boolean hasMoreElements() {
+        return id < size;
+      }
+
+      @Override
+      public ObjectVector nextElement() {
+        if (id >= size) throw new NoSuchElementException();
+        return getObjectVector(id++);
+      }
+    };
+  }
+
+  /**
+   * Adds the other vector, multiplied by weight and permuted if permutation is not null,
+   * to the entry with the given id, in place. This gives the same result as {@link Vector#superpose}.
+   *
+   * For {@link VectorType#BINARY} stores the votes are kept in a {@link BinaryVector} for the entry,
+   * starting from its bits, and the bits are only replaced when the entry is normalized.
+   * Scorers read the bits, so they don't see the votes until then.
+   */
+  public void superpose(int id, Vector other, double weight, int[] permutation) {
+    checkId(id);
+    IncompatibleVectorsException.checkVectorsCompatible(zeroVector, other);
+    slabLock.readLock().lock();
+    try {
+      synchronized (entryLocks[id % NUM_ENTRY_LOCKS]) {
+        int offset = (id % vectorsPerSlab) * stride;
+        switch (vectorType) {
+          case REAL:
+            float[] slab = floatSlabs[id / vectorsPerSlab];
+            float[] otherCoordinates = ((RealVector) other).getCoordinates();
+            for (int i = 0; i < dimension; ++i) {
+              if (Float.isNaN(otherCoordinates[i])) return;
+            }
+            for (int i = 0; i < dimension; ++i) {
+              int positionToAdd = (permutation == null) ? i : permutation[i];
+              slab[offset + positionToAdd] += otherCoordinates[i] * weight;
+            }
+            return;
+          case COMPLEX:
+          case COMPLEXFLAT:
+            ComplexVectorUtils.superposeInto(floatSlabs[id / vectorsPerSlab], offset,
+                (ComplexVector) other, (float) weight, permutation);
+            return;
+          case BINARY:
+            BinaryVector votingVector = votingVectors.get(id);
+            if (votingVector == null) {
+              votingVector = (BinaryVector) readCoordinates(id);
+              votingVectors.put(id, votingVector);
+            }
+            votingVector.superpose(other, weight, permutation);
+            return;
+          default:
+            throw new IllegalArgumentException("Unsupported vector type for slab storage: " + vectorType);
+        }
+      }
+    } finally {
+      slabLock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Normalizes the entry with the given id in place. Zero vectors are left unchanged.
+   */
+  public void normalize(int id) {
+    checkId(id);
+    slabLock.readLock().lock();
+    try {
+      synchronized (entryLocks[id % NUM_ENTRY_LOCKS]) {
+        int offset = (id % vectorsPerSlab) * stride;
+        switch (vectorType) {
+          case REAL:
+            float[] slab = floatSlabs[id / vectorsPerSlab];
+            double normSq = 0;
+            for (int i = offset; i < offset + stride; ++i) {
+              normSq += slab[i] * slab[i];
+            }
+            if (normSq == 0) return;
+            float norm = (float) Math.sqrt(normSq);
+            for (int i = offset; i < offset + stride; ++i) {
+              slab[i] = slab[i] / norm;
+            }
+            return;
+          case COMPLEX:
+          case COMPLEXFLAT:
+            ComplexVectorUtils.normalizeInPlace(floatSlabs[id / vectorsPerSlab], offset, dimension);
+            return;
+          case BINARY:
+            // Binary entries without votes are stored as bits, which are already normalized.
+            BinaryVector votingVector = votingVectors.remove(id);
+            if (votingVector == null) return;
+            votingVector.normalize();
+            writeCoordinates(id, votingVector);
+            return;
+          default:
+            return;
+        }
+      }
+    } finally {
+      slabLock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Returns a scorer that reads coordinates directly from the slabs, or null if direct
+   * scoring isn't supported for this vector type (e.g., {@link VectorType#COMPLEX} vectors in polar mode).
+   */
+  @Override
+  public OverlapScorer getOverlapScorer(Vector queryVector) {
+    switch (vectorType) {
+      case REAL:
+        return new OverlapScorers.RealOverlapScorer(
+            ((RealVector) queryVector).getCoordinates(), new SlabRecords());
+      case BINARY:
+        return new OverlapScorers.BinaryOverlapScorer(BinaryVectorUtils.getBits((BinaryVector) queryVector),
+            dimension, new SlabRecords());
+      case COMPLEX:
+      case COMPLEXFLAT:
+        ComplexVector.Mode mode = ComplexVector.getDominantMode();
+        if (mode != ComplexVector.Mode.CARTESIAN && mode != ComplexVector.Mode.HERMITIAN) {
+          return null;
+        }
+        ComplexVector cartesianQuery = ((ComplexVector) queryVector).copy();
+        cartesianQuery.toCartesian();
+        return new OverlapScorers.ComplexOverlapScorer(cartesianQuery.getCoordinates(), mode, new SlabRecords());
+      default:
+        return null;
+    }
+  }
+
+  /**
+   * Returns a scorer that reads each record from the slabs once for all the queries, or null
+   * if direct scoring isn't supported for this vector type. For {@link VectorType#REAL} vectors
+   * (and {@link VectorType#COMPLEX} vectors in {@link ComplexVector.Mode#HERMITIAN} mode) this is a
+   * blocked matrix product, and for {@link VectorType#BINARY} vectors each word of a record is
+   * compared with the same word of every query.
+   */
+  @Override
+  public BatchOverlapScorer getBatchOverlapScorer(Vector[] queryVectors) {
+    switch (vectorType) {
+      case REAL:
+        float[][] realQueries = new float[queryVectors.length][];
+        for (int q = 0; q < queryVectors.length; ++q) {
+          realQueries[q] = ((RealVector) queryVectors[q]).getCoordinates();
+        }
+        return new DotProductBatchScorer(realQueries);
+      case BINARY:
+        long[][] binaryQueries = new long[queryVectors.length][];
+        for (int q = 0; q < queryVectors.length; ++q) {
+          binaryQueries[q] = BinaryVectorUtils.getBits((BinaryVector) queryVectors[q]);
+        }
+        return new BinaryBatchScorer(binaryQueries);
+      case COMPLEX:
+      case COMPLEXFLAT:
+        if (ComplexVector.getDominantMode() != ComplexVector.Mode.HERMITIAN) {
+          return IndexedVectorStore.super.getBatchOverlapScorer(queryVectors);
+        }
+        float[][] complexQueries = new float[queryVectors.length][];
+        for (int q = 0; q < queryVectors.length; ++q) {
+          ComplexVector cartesianQuery = ((ComplexVector) queryVectors[q]).copy();
+          cartesianQuery.toCartesian();
+          complexQueries[q] = cartesianQuery.getCoordinates();
+        }
+        return new DotProductBatchScorer(complexQueries);
+      default:
+        return null;
+    }
+  }
+
+  private void checkId(int id) {
+    if (id < 0 || id >= numVectors) {
+      throw new IndexOutOfBoundsException("No vector with id " + id + " in store of size " + numVectors);
+    }
+  }
+
+  /**
+   * Adds a zero entry for the key, growing the slabs if needed. Callers must hold the monitor
+   * of this store, which keeps other entries from being added.
+   */
+  private int addEntry(Object key) {
+    int id = numVectors;
+    int slabIndex = id / vectorsPerSlab;
+    if (slabIndex == (vectorType == VectorType.BINARY ? longSlabs.length : floatSlabs.length)) {
+      slabLock.writeLock().lock();
+      try {
+        if (vectorType == VectorType.BINARY) {
+          long[][] newSlabs = Arrays.copyOf(longSlabs, slabIndex + 1);
+          newSlabs[slabIndex] = new long[vectorsPerSlab * stride];
+          LongBuffer[] newBuffers = Arrays.copyOf(longBuffers, slabIndex + 1);
+          newBuffers[slabIndex] = LongBuffer.wrap(newSlabs[slabIndex]);
+          longSlabs = newSlabs;
+          longBuffers = newBuffers;
+        } else {
+          float[][] newSlabs = Arrays.copyOf(floatSlabs, slabIndex + 1);
+          newSlabs[slabIndex] = new float[vectorsPerSlab * stride];
+          FloatBuffer[] newBuffers = Arrays.copyOf(floatBuffers, slabIndex + 1);
+          newBuffers[slabIndex] = FloatBuffer.wrap(newSlabs[slabIndex]);
+          floatSlabs = newSlabs;
+          floatBuffers = newBuffers;
+        }
+      } finally {
+        slabLock.writeLock().unlock();
+      }
+    }
+    if (id == keys.length) {
+      keys = Arrays.copyOf(keys, Math.max(16, 2 * keys.length));
+    }
+    keys[id] = key;
+    ids.put(key, id);
+    numVectors = id + 1;
+    return id;
+  }
+
+  private void writeCoordinates(int id, Vector vector) {
+    int offset = (id % vectorsPerSlab) * stride;
+    switch (vectorType) {
+      case REAL:
+        System.arraycopy(((RealVector) vector).getCoordinates(), 0,
+            floatSlabs[id / vectorsPerSlab], offset, stride);
+        return;
+      case COMPLEX:
+      case COMPLEXFLAT:
+        ComplexVector cartesianVector = ((ComplexVector) vector).copy();
+        cartesianVector.toCartesian();
+        System.arraycopy(cartesianVector.getCoordinates(), 0,
+            floatSlabs[id / vectorsPerSlab], offset, stride);
+        return;
+      case BINARY:
+        System.arraycopy(BinaryVectorUtils.getBits((BinaryVector) vector), 0,
+            longSlabs[id / vectorsPerSlab], offset, stride);
+        return;
+      default:
+        throw new IllegalArgumentException("Unsupported vector type for slab storage: " + vectorType);
+    }
+  }
+
+  /**
+   * Locates records in the current slabs, so scorers can also score entries added after they were created.
+   */
+  private class SlabRecords implements OverlapScorers.FloatRecords, OverlapScorers.LongRecords {
+    @Override
+    public FloatBuffer getFloats(int id) {
+      return floatBuffers[id / vectorsPerSlab];
+    }
+
+    @Override
+    public LongBuffer getLongs(int id) {
+      return longBuffers[id / vectorsPerSlab];
+    }
+
+    @Override
+    public int getPosition(int id) {
+      return (id % vectorsPerSlab) * stride;
+    }
+  }
+
+  /**
+   * Scores records by cosine similarity with each query, computing four dot products
+   * at a time with each pass over a record.
+   */
+  private class DotProductBatchScorer implements BatchOverlapScorer {
+    private final float[][] queries;
+    private final double[] queryNormSqs;
+
+    DotProductBatchScorer(float[][] queries) {
+      this.queries = queries;
+      this.queryNormSqs = new double[queries.length];
+      for (int q = 0; q < queries.length; ++q) {
+        for (float coordinate : queries[q]) queryNormSqs[q] += coordinate * coordinate;
+      }
+    }
+
+    private double cosine(double dotProduct, int q, double normSq) {
+      if (queryNormSqs[q] == 0 || normSq == 0) return 0;
+      return dotProduct / Math.sqrt(queryNormSqs[q] * normSq);
+    }
+
+    @Override
+    public void score(int start, int end, double[][] scores) {
+      float[][] slabs = floatSlabs;
+      for (int id = start; id < end; ++id) {
+        float[] slab = slabs[id / vectorsPerSlab];
+        int base = (id % vectorsPerSlab) * stride;
+        double normSq = 0;
+        for (int i = base; i < base + stride; ++i) {
+          normSq += slab[i] * slab[i];
+        }
+        int q = 0;
+        for (; q + 4 <= queries.length; q += 4) {
+          float[] query0 = queries[q];
+          float[] query1 = queries[q + 1];
+          float[] query2 = queries[q + 2];
+          float[] query3 = queries[q + 3];
+          double result0 = 0, result1 = 0, result2 = 0, result3 = 0;
+          for (int i = 0; i < stride; ++i) {
+            float coordinate = slab[base + i];
+            result0 += query0[i] * coordinate;
+            result1 += query1[i] * coordinate;
+            result2 += query2[i] * coordinate;
+            result3 += query3[i] * coordinate;
+          }
+          scores[q][id - start] = cosine(result0, q, normSq);
+          scores[q + 1][id - start] = cosine(result1, q + 1, normSq);
+          scores[q + 2][id - start] = cosine(result2, q + 2, normSq);
+          scores[q + 3][id - start] = cosine(result3, q + 3, normSq);
+        }
+        for (; q < queries.length; ++q) {
+          float[] query = queries[q];
+          double result = 0;
+          for (int i = 0; i < stride; ++i) {
+            result += query[i] * slab[base + i];
+          }
+          scores[q][id - start] = cosine(result, q, normSq);
+        }
+      }
+    }
+  }
+
+  /**
+   * Scores records by Hamming distance from each query, reading each word of a record once.
+   */
+  private class BinaryBatchScorer implements BatchOverlapScorer {
+    private final long[][] queries;
+    private final boolean[] queryIsZero;
+
+    BinaryBatchScorer(long[][] queries) {
+      this.queries = queries;
+      this.queryIsZero = new boolean[queries.length];
+      for (int q = 0; q < queries.length; ++q) {
+        queryIsZero[q] = true;
+        for (long word : queries[q]) if (word != 0) queryIsZero[q] = false;
+      }
+    }
+
+    @Override
+    public void score(int start, int end, double[][] scores) {
+      long[] hammingDistances = new long[queries.length];
+      long[][] slabs = longSlabs;
+      for (int id = start; id < end; ++id) {
+        long[] slab = slabs[id / vectorsPerSlab];
+        int base = (id % vectorsPerSlab) * stride;
+        Arrays.fill(hammingDistances, 0);
+        long cardinality = 0;
+        for (int i = 0; i < stride; ++i) {
+          long word = slab[base + i];
+          cardinality += Long.bitCount(word);
+          for (int q = 0; q < queries.length; ++q) {
+            hammingDistances[q] += Long.bitCount(queries[q][i] ^ word);
+          }
+        }
+        for (int q = 0; q < queries.length; ++q) {
+          if (queryIsZero[q] || cardinality == 0) {
+            scores[q][id - start] = 0;
+          } else {
+            scores[q][id - start] = 2 * (0.5 - (hammingDistances[q] / (double) dimension));
+          }
+        }
+      }
+    }
+  }
+}
@@ -47,6 +47,7 @@ import java.nio.FloatBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
 import java.nio.file.FileSystems;
+import java.util.Arrays;
 import java.util.Enumeration;
 import java.util.HashSet;
 import java.util.Random;
@@ -65,14 +66,18 @@ import pitt.search.semanticvectors.vectors.ZeroVectorException;
 
 /**
  * Class providing command-line interface for transforming vector
- * store between the optimized Lucene format and plain text.
+ * store between the optimized Lucene format and plain text,
+ * and from Lucene format to other formats.
  */
 public class VectorStoreTranslater {
   public static String usageMessage = "VectorStoreTranslater class in pitt.search.semanticvectors"
-      + "\nUsage: java pitt.search.semanticvector.VectorStoreTranslater -option INFILE OUTFILE"
-      + "\n -option can be: -lucenetotext or -texttolucene";
+      + "\nUsage: java pitt.search.semanticvector.VectorStoreTranslater -option INFILE OUTFILE [FLAGS]"
+      + "\n -option can be: -lucenetotext, -texttolucene, -lucenetoword2vec, -lucenetommap or -lucenetolucene"
+      + "\n FLAGS are applied when writing OUTFILE, e.g., -vectorprecision float16 to write 16 bit coordinates."
+      + "\n -lucenetolucene rewrites a Lucene format store, e.g., to change its precision."
+      + "\n -texttolucene parses text in -numthreads threads, default 4, writing vectors in their original order.";
 
-  private enum Options { LUCENE_TO_TEXT, TEXT_TO_LUCENE, LUCENE_TO_WORD2VEC}
+  private enum Options { LUCENE_TO_TEXT, TEXT_TO_LUCENE, LUCENE_TO_WORD2VEC, LUCENE_TO_MMAP, LUCENE_TO_LUCENE }
 
   /**
    * Command line method for performing index translation.
@@ -93,6 +98,8 @@ public class VectorStoreTranslater {
     if (args[0].equalsIgnoreCase("-lucenetotext")) { option = Options.LUCENE_TO_TEXT; }
     else if (args[0].equalsIgnoreCase("-texttolucene")) { option = Options.TEXT_TO_LUCENE; }
     else if (args[0].equalsIgnoreCase("-lucenetoword2vec")) { option = Options.LUCENE_TO_WORD2VEC; }
+    else if (args[0].equalsIgnoreCase("-lucenetommap")) { option = Options.LUCENE_TO_MMAP; }
+    else if (args[0].equalsIgnoreCase("-lucenetolucene")) { option = Options.LUCENE_TO_LUCENE; }
    
     else {
       System.err.println(usageMessage);
@@ -102,8 +109,8 @@ public class VectorStoreTranslater {
     String infile = args[1];
     String outfile = args[2];
 
-    // Empty flag config is needed to satisfy vector store interfaces.
-    FlagConfig flagConfig = FlagConfig.getFlagConfig(null);
+    // Flags after the file names are used for writing. Vector type and dimension are read from the input.
+    FlagConfig flagConfig = FlagConfig.getFlagConfig(Arrays.copyOfRange(args, 3, args.length));
 
     // Convert Lucene-style index to plain text.
     if (option == Options.LUCENE_TO_TEXT) {
@@ -157,6 +164,20 @@ public class VectorStoreTranslater {
     		theOutput.flush();
     		theOutput.close();
           
+    }
+    // Convert Lucene-style index to memory mapped format.
+    else if (option == Options.LUCENE_TO_MMAP) {
+      VectorStoreReaderLucene vecReader = new VectorStoreReaderLucene(infile, flagConfig);
+      VerbatimLogger.info("Writing term vectors to " + outfile + "\n");
+      VectorStoreWriter.writeVectorsInMmapFormat(outfile, flagConfig, vecReader);
+      vecReader.close();
+    }
+    // Rewrite Lucene-style index, using the precision given in the flags.
+    else if (option == Options.LUCENE_TO_LUCENE) {
+      VectorStoreReaderLucene vecReader = new VectorStoreReaderLucene(infile, flagConfig);
+      VerbatimLogger.info("Writing term vectors to " + outfile + "\n");
+      VectorStoreWriter.writeVectorsInLuceneFormat(outfile, flagConfig, vecReader);
+      vecReader.close();
     }
      // Convert plain text index to Lucene-style.
     else if (option == Options.TEXT_TO_LUCENE) {
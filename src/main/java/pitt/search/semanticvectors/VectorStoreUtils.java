@@ -40,14 +40,50 @@
      LUCENE,
 
      /** Plan text format, used for interchange with external systems. */
-     TEXT
+     TEXT,
+
+     /**
+      * Binary format with all vectors in one fixed-stride region, designed to be memory mapped
+      * and searched in place. See {@link VectorStoreReaderMmap}.
+      */
+     MMAP
+   }
+
+   /**
+    * Precision used for the coordinates of vectors on disk, declared in the header of each file.
+    * The 16 bit precisions are supported for real and complex vectors in {@link VectorStoreFormat#LUCENE}
+    * and {@link VectorStoreFormat#MMAP} format, the others for real vectors in mmap format.
+    */
+   public enum VectorPrecision {
+     /** Four-byte floats, as written by {@link pitt.search.semanticvectors.vectors.RealVector#writeToLuceneStream}. */
+     FLOAT32,
+
+     /**
+      * One byte per coordinate, with a scale and offset for each dimension. Overlaps are
+      * computed directly from the bytes. See {@link Int8Quantizer}.
+      */
+     INT8,
+
+     /**
+      * Product quantization: one byte per subspace, giving the nearest of 256 centroids trained
+      * for that subspace. Overlaps are computed using tables of the overlap between the query
+      * and each centroid. See {@link ProductQuantizer}.
+      */
+     PQ,
+
+     /** IEEE half precision floats, with 10 mantissa bits. See {@link HalfFloats}. */
+     FLOAT16,
+
+     /** Brain floats, the top 16 bits of a float, with the range of a float and 7 mantissa bits. */
+     BFLOAT16
    }
 
    /**
     * Returns "$storeName.bin" if {@link FlagConfig#indexfileformat()} is {@link VectorStoreFormat#LUCENE}.
     * Returns "$storeName.txt" if {@link FlagConfig#indexfileformat()} is {@link VectorStoreFormat#TEXT}.
+    * Returns "$storeName.mmap" if {@link FlagConfig#indexfileformat()} is {@link VectorStoreFormat#MMAP}.
     * 
-    * Method is idempotent: if file already ends with ".bin" or ".txt" as appropriate, input
+    * Method is idempotent: if file already ends with ".bin", ".txt" or ".mmap" as appropriate, input
     * is returned unchanged.
     */
    public static String getStoreFileName(String storeName, FlagConfig flagConfig) {
@@ -66,8 +102,25 @@
        else {
          return storeName + ".txt";
        }
+     case MMAP:
+       if (storeName.endsWith(".mmap")) {
+         return storeName;
+       }
+       else {
+         return storeName + ".mmap";
+       }
      default:
        throw new IllegalStateException("Unknown -indexfileformat: " + flagConfig.indexfileformat());
      }
    }
+
+   /**
+    * Returns the name of the file holding the offset of each record in a vector store
+    * in {@link VectorStoreFormat#LUCENE} format, e.g., "termvectors.bin.idx" for "termvectors.bin".
+    *
+    * @see VectorStoreReaderLucene
+    */
+   public static String getOffsetIndexFileName(String vectorFileName) {
+     return vectorFileName + ".idx";
+   }
  }
@@ -39,13 +39,18 @@ import org.apache.lucene.store.FSDirectory;
 import org.apache.lucene.store.IOContext;
 import org.apache.lucene.store.IndexOutput;
 
+import pitt.search.semanticvectors.VectorStoreUtils.VectorPrecision;
+import pitt.search.semanticvectors.VectorStoreUtils.VectorStoreFormat;
 import pitt.search.semanticvectors.utils.VerbatimLogger;
+import pitt.search.semanticvectors.vectors.RealVector;
+import pitt.search.semanticvectors.vectors.VectorType;
 
 import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.nio.file.FileSystems;
+import java.util.ArrayList;
 import java.util.Enumeration;
 
 /**
@@ -76,14 +81,63 @@ public class VectorStoreWriter {
   }
 
   /**
-   * Writes vectors in text or lucene format depending on {@link FlagConfig#indexfileformat}.
+   * Returns the header for vectors written in the given format, which includes
+   * {@link FlagConfig#vectorprecision} if it isn't the default.
+   *
+   * @throws IllegalArgumentException if the precision isn't supported for this vector type and format.
+   */
+  static String generateHeaderString(FlagConfig flagConfig, VectorStoreFormat format) {
+    VectorPrecision precision = flagConfig.vectorprecision();
+    if (precision == VectorPrecision.FLOAT32) {
+      return generateHeaderString(flagConfig);
+    }
+    if (HalfFloats.isHalfPrecision(precision)) {
+      if (!HalfFloats.supportsVectorType(flagConfig.vectortype())) {
+        throw new IllegalArgumentException(
+            "-vectorprecision " + precision + " is only supported for real and complex vectors.");
+      }
+    } else if (flagConfig.vectortype() != VectorType.REAL) {
+      throw new IllegalArgumentException(
+          "-vectorprecision " + precision + " is only supported for real vectors.");
+    } else if (format != VectorStoreFormat.MMAP) {
+      throw new IllegalArgumentException(
+          "-vectorprecision " + precision + " is only supported in mmap format.");
+    }
+    return generateHeaderString(flagConfig) + " -vectorprecision " + precision;
+  }
+
+  /**
+   * Writes vectors in text, lucene or mmap format depending on {@link FlagConfig#indexfileformat}.
+   * If {@link FlagConfig#numshards} is more than 1, writes a {@link VectorStoreSharded} store
+   * with a file in this format for each shard. Any segmented store or sharded manifest with the
+   * same name is deleted first, see {@link #deleteStoreManifests}.
    * 
    * @param storeName The name of the vector store to write to
    * @param objectVectors The vector store to be written to disk
    */
   public static void writeVectors(String storeName, FlagConfig flagConfig, VectorStore objectVectors)
       throws IOException {
-    String vectorFileName = VectorStoreUtils.getStoreFileName(storeName, flagConfig);
+    deleteStoreManifests(storeName);
+    if (flagConfig.numshards() > 1) {
+      VectorStoreSharded.writeShards(storeName, flagConfig, objectVectors);
+      return;
+    }
+    writeVectorFile(VectorStoreUtils.getStoreFileName(storeName, flagConfig), flagConfig, objectVectors);
+  }
+
+  /**
+   * Deletes any {@link VectorStoreSegmented} store and any {@link VectorStoreSharded} manifest
+   * with the given name, which {@link VectorStoreReader#openVectorStore} would otherwise open
+   * instead of a vector file newly written under that name.
+   */
+  static void deleteStoreManifests(String storeName) throws IOException {
+    VectorStoreSegmented.delete(storeName);
+    java.nio.file.Files.deleteIfExists(new File(VectorStoreSharded.getManifestFileName(storeName)).toPath());
+  }
+
+  /** Writes vectors to the named file in the format given by {@link FlagConfig#indexfileformat}. */
+  static void writeVectorFile(String vectorFileName, FlagConfig flagConfig, VectorStore objectVectors)
+      throws IOException {
     switch (flagConfig.indexfileformat()) {
     case LUCENE:
       writeVectorsInLuceneFormat(vectorFileName, flagConfig, objectVectors);
@@ -91,13 +145,17 @@ public class VectorStoreWriter {
     case TEXT:
       writeVectorsInTextFormat(vectorFileName, flagConfig, objectVectors);
       break;
+    case MMAP:
+      writeVectorsInMmapFormat(vectorFileName, flagConfig, objectVectors);
+      break;
     default:
       throw new IllegalStateException("Unknown -indexfileformat: " + flagConfig.indexfileformat());
     }
   }
 
   /**
-   * Outputs a vector store in Lucene binary format.
+   * Outputs a vector store in Lucene binary format, along with an offset index file
+   * (see {@link VectorStoreUtils#getOffsetIndexFileName}) used for random access.
    * 
    * @param vectorFileName The name of the file to write to
    * @param objectVectors The vector store to be written to disk
@@ -107,13 +165,17 @@ public class VectorStoreWriter {
     VerbatimLogger.info("About to write " + objectVectors.getNumVectors() + " vectors of dimension "
         + flagConfig.dimension() + " to Lucene format file: " + vectorFileName + " ... ");
     File vectorFile = new File(vectorFileName);
+    String offsetsFileName = VectorStoreUtils.getOffsetIndexFileName(vectorFile.getName());
     java.nio.file.Files.deleteIfExists(vectorFile.toPath());
+    java.nio.file.Files.deleteIfExists(vectorFile.toPath().resolveSibling(offsetsFileName));
     String parentPath = vectorFile.getParent();
     if (parentPath == null) parentPath = "";
     FSDirectory fsDirectory = FSDirectory.open(FileSystems.getDefault().getPath(parentPath));
     IndexOutput outputStream = fsDirectory.createOutput(vectorFile.getName(), IOContext.DEFAULT);
-    writeToIndexOutput(objectVectors, flagConfig, outputStream);
+    IndexOutput offsetsStream = fsDirectory.createOutput(offsetsFileName, IOContext.DEFAULT);
+    writeToIndexOutput(objectVectors, flagConfig, outputStream, offsetsStream);
     outputStream.close();
+    offsetsStream.close();
     fsDirectory.close();
   }
 
@@ -123,19 +185,145 @@ public class VectorStoreWriter {
    */
   public static void writeToIndexOutput(VectorStore objectVectors, FlagConfig flagConfig, IndexOutput outputStream)
       throws IOException {
+    writeToIndexOutput(objectVectors, flagConfig, outputStream, null);
+  }
+
+  /**
+   * Writes the object vectors to this Lucene output stream, and the file offset of each
+   * record to the offsets stream in the format read by {@link VectorStoreReaderLucene}.
+   * Caller is responsible for opening and closing both streams.
+   *
+   * @param offsetsStream output for the offset index, may be null in which case no index is written.
+   */
+  public static void writeToIndexOutput(VectorStore objectVectors, FlagConfig flagConfig,
+      IndexOutput outputStream, IndexOutput offsetsStream) throws IOException {
     // Write header giving vector type and dimension for all vectors.
-    outputStream.writeString(generateHeaderString(flagConfig));
+    VectorPrecision precision = flagConfig.vectorprecision();
+    outputStream.writeString(generateHeaderString(flagConfig, VectorStoreFormat.LUCENE));
     Enumeration<ObjectVector> vecEnum = objectVectors.getAllVectors();
+    long numVectors = 0;
 
     // Write each vector.
     while (vecEnum.hasMoreElements()) {
       ObjectVector objectVector = vecEnum.nextElement();
-      outputStream.writeString(objectVector.getObject().toString());
-      objectVector.getVector().writeToLuceneStream(outputStream);
+      String object = objectVector.getObject().toString();
+      if (offsetsStream != null) {
+        offsetsStream.writeString(object);
+        offsetsStream.writeVLong(outputStream.getFilePointer());
+      }
+      outputStream.writeString(object);
+      HalfFloats.writeVector(objectVector.getVector(), precision, outputStream);
+      ++numVectors;
+    }
+    if (offsetsStream != null) {
+      offsetsStream.writeLong(numVectors);
+      offsetsStream.writeLong(outputStream.getFilePointer());
     }
     VerbatimLogger.info("finished writing vectors.\n");
   }
 
+  /**
+   * Outputs a vector store in the fixed-stride format read by {@link VectorStoreReaderMmap}.
+   *
+   * @param vectorFileName The name of the file to write to
+   * @param objectVectors The vector store to be written to disk
+   */
+  public static void writeVectorsInMmapFormat(String vectorFileName, FlagConfig flagConfig, VectorStore objectVectors)
+      throws IOException {
+    VerbatimLogger.info("About to write " + objectVectors.getNumVectors() + " vectors of dimension "
+        + flagConfig.dimension() + " to mmap format file: " + vectorFileName + " ... ");
+    File vectorFile = new File(vectorFileName);
+    java.nio.file.Files.deleteIfExists(vectorFile.toPath());
+    String parentPath = vectorFile.getParent();
+    if (parentPath == null) parentPath = "";
+    FSDirectory fsDirectory = FSDirectory.open(FileSystems.getDefault().getPath(parentPath));
+    IndexOutput outputStream = fsDirectory.createOutput(vectorFile.getName(), IOContext.DEFAULT);
+    writeToMmapIndexOutput(objectVectors, flagConfig, outputStream);
+    outputStream.close();
+    fsDirectory.close();
+  }
+
+  /**
+   * Writes the object vectors to this Lucene output stream in the format read by {@link VectorStoreReaderMmap}.
+   * Caller is responsible for opening and closing stream output stream.
+   *
+   * <p>The layout is:
+   * <ul><li>The header string, as in {@link #writeToIndexOutput}, padded to a multiple of 8 bytes.
+   * If {@link FlagConfig#vectorprecision} isn't the default, the header includes it.</li>
+   * <li>For precisions other than {@link VectorPrecision#FLOAT32}, the parameters of the
+   * {@link RealVectorCodec}, padded to a multiple of 8 bytes.</li>
+   * <li>Each vector as written by {@link HalfFloats#writeVector},
+   * or by {@link RealVectorCodec#writeRecord}, so each takes the same number of bytes.</li>
+   * <li>Each key as written by {@link IndexOutput#writeString}, in the same order, padded to a multiple of 8 bytes.</li>
+   * <li>The file offset of each key, as a long.</li>
+   * <li>A trailer of three longs: the offset of the first vector, the offset of the table of
+   * key offsets, and the number of vectors.</li></ul>
+   */
+  public static void writeToMmapIndexOutput(VectorStore objectVectors, FlagConfig flagConfig, IndexOutput outputStream)
+      throws IOException {
+    VectorPrecision precision = flagConfig.vectorprecision();
+    outputStream.writeString(generateHeaderString(flagConfig, VectorStoreFormat.MMAP));
+    padToWordBoundary(outputStream);
+    RealVectorCodec codec = null;
+    switch (precision) {
+      case INT8:
+        codec = Int8Quantizer.fromVectors(objectVectors, flagConfig.dimension());
+        break;
+      case PQ:
+        codec = ProductQuantizer.train(objectVectors, flagConfig);
+        break;
+      case FLOAT16:
+      case BFLOAT16:
+        if (flagConfig.vectortype() == VectorType.REAL) {
+          codec = new HalfFloatCodec(precision, flagConfig.dimension());
+        }
+        break;
+      default:
+        break;
+    }
+    if (codec != null) {
+      codec.writeToIndexOutput(outputStream);
+      padToWordBoundary(outputStream);
+    }
+    long vectorsStart = outputStream.getFilePointer();
+
+    // Vectors are written first, keeping the keys to write after them.
+    ArrayList<String> objects = new ArrayList<String>();
+    Enumeration<ObjectVector> vecEnum = objectVectors.getAllVectors();
+    while (vecEnum.hasMoreElements()) {
+      ObjectVector objectVector = vecEnum.nextElement();
+      objects.add(objectVector.getObject().toString());
+      if (codec != null) {
+        codec.writeRecord((RealVector) objectVector.getVector(), outputStream);
+      } else {
+        HalfFloats.writeVector(objectVector.getVector(), precision, outputStream);
+      }
+    }
+
+    long[] keyOffsets = new long[objects.size()];
+    for (int i = 0; i < objects.size(); ++i) {
+      keyOffsets[i] = outputStream.getFilePointer();
+      outputStream.writeString(objects.get(i));
+    }
+    padToWordBoundary(outputStream);
+    long keyOffsetsStart = outputStream.getFilePointer();
+    for (long keyOffset : keyOffsets) {
+      outputStream.writeLong(keyOffset);
+    }
+
+    outputStream.writeLong(vectorsStart);
+    outputStream.writeLong(keyOffsetsStart);
+    outputStream.writeLong(objects.size());
+    VerbatimLogger.info("finished writing vectors.\n");
+  }
+
+  /** Writes zero bytes until the file pointer is a multiple of 8, so that mapped regions are aligned. */
+  private static void padToWordBoundary(IndexOutput outputStream) throws IOException {
+    while (outputStream.getFilePointer() % 8 != 0) {
+      outputStream.writeByte((byte) 0);
+    }
+  }
+
   /**
    * Outputs a vector store as a plain text file.
    * 
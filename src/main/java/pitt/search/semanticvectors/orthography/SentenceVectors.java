@@ -61,8 +61,12 @@ import pitt.search.semanticvectors.VectorStoreRAM;
 import pitt.search.semanticvectors.VectorStoreWriter;
 import pitt.search.semanticvectors.utils.Bobcat;
 import pitt.search.semanticvectors.utils.VerbatimLogger;
+import pitt.search.semanticvectors.vectors.RealVector;
+import pitt.search.semanticvectors.vectors.RealVector.RealBindMethod;
+import pitt.search.semanticvectors.vectors.RealVectorSpectrum;
 import pitt.search.semanticvectors.vectors.Vector;
 import pitt.search.semanticvectors.vectors.VectorFactory;
+import pitt.search.semanticvectors.vectors.VectorType;
 
 public class SentenceVectors {
 
@@ -114,8 +118,16 @@ public class SentenceVectors {
 
 
       try {
-        incoming.bind(posVector);
-        docVector.bind(posVector);
+        // Both vectors are bound with the position vector, so its transform is computed once.
+        if (flagConfig.vectortype() == VectorType.REAL
+            && RealVector.BIND_METHOD != RealBindMethod.PERMUTATION) {
+          RealVectorSpectrum posTransform = new RealVectorSpectrum((RealVector) posVector);
+          ((RealVector) incoming).bind(posTransform);
+          ((RealVector) docVector).bind(posTransform);
+        } else {
+          incoming.bind(posVector);
+          docVector.bind(posVector);
+        }
       } catch (Exception e) 
       {
         System.out.println(incoming);
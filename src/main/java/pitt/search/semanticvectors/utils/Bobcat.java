@@ -58,8 +58,8 @@ public class Bobcat {
      */
     public static long asLong(String text) {
 	int abc[] = computeBobcat(text);
-	String s = String.format("%16s%16s%16s", Integer.toBinaryString(abc[0]), Integer.toBinaryString(abc[1]), Integer.toBinaryString(abc[2])).replaceAll(" ", "0");
-	return Long.parseLong(s, 2);
+	// Each of a, b and c has 16 bits, concatenated from the high bits down.
+	return ((long) abc[0] << 32) | ((long) abc[1] << 16) | abc[2];
     }
 
     // Internal method to compute a bobcat hash from a string.
@@ -0,0 +1,123 @@
+/**
+   Copyright (c) 2026, the SemanticVectors AUTHORS.
+
+   All rights reserved.
+
+   Redistribution and use in source and binary forms, with or without
+   modification, are permitted provided that the following conditions are
+   met:
+
+   * Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+   * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the following
+   disclaimer in the documentation and/or other materials provided
+   with the distribution.
+
+   * Neither the name of the University of Pittsburgh nor the names
+   of its contributors may be used to endorse or promote products
+   derived from this software without specific prior written
+   permission.
+
+   THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+   "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+   LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+   A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+   CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+   EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+   PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+   PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+   LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+   NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+   SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+**/
+
+package pitt.search.semanticvectors.utils;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * Reads text in blocks of whole lines, so that many lines can be handed on together without
+ * creating a string for each one. Lines end with '\n', optionally preceded by '\r'.
+ *
+ * Not thread-safe.
+ */
+public class LineBlockReader {
+  /** Default number of characters read into each block, unless a single line is longer. */
+  public static final int DEFAULT_BLOCK_CHARS = 1 << 20;
+
+  private final Reader reader;
+  private char[] buffer;
+  /** Number of characters in the buffer that haven't yet been returned. */
+  private int length;
+  private boolean endOfInput;
+
+  public LineBlockReader(Reader reader) {
+    this(reader, DEFAULT_BLOCK_CHARS);
+  }
+
+  public LineBlockReader(Reader reader, int blockChars) {
+    this.reader = reader;
+    this.buffer = new char[Math.max(1, blockChars)];
+  }
+
+  /**
+   * Returns the next block of whole lines, including their line ends except perhaps at the end
+   * of the input, or null if there are no more lines.
+   */
+  public char[] nextBlock() throws IOException {
+    // Fill the buffer, growing it if it doesn't yet hold a whole line.
+    int blockLength = 0;
+    while (!endOfInput) {
+      if (length == buffer.length) {
+        blockLength = lastLineEnd() + 1;
+        if (blockLength > 0) break;
+        buffer = Arrays.copyOf(buffer, 2 * buffer.length);
+      }
+      int read = reader.read(buffer, length, buffer.length - length);
+      if (read < 0) {
+        endOfInput = true;
+      } else {
+        length += read;
+      }
+    }
+    if (endOfInput) blockLength = length;
+    if (blockLength == 0) return null;
+    char[] block = Arrays.copyOf(buffer, blockLength);
+    System.arraycopy(buffer, blockLength, buffer, 0, length - blockLength);
+    length -= blockLength;
+    return block;
+  }
+
+  private int lastLineEnd() {
+    for (int i = length - 1; i >= 0; --i) {
+      if (buffer[i] == '\n') return i;
+    }
+    return -1;
+  }
+
+  /** Returns the start of the line after the one starting at the given position in the block. */
+  public static int getNextLineStart(char[] block, int start) {
+    int end = start;
+    while (end < block.length && block[end] != '\n') ++end;
+    return Math.min(block.length, end + 1);
+  }
+
+  /**
+   * Returns the end of the line from start up to the start of the next line, excluding
+   * any line end characters.
+   */
+  public static int getLineEnd(char[] block, int start, int nextLineStart) {
+    int end = nextLineStart;
+    if (end > start && block[end - 1] == '\n') --end;
+    if (end > start && block[end - 1] == '\r') --end;
+    return end;
+  }
+
+  public void close() throws IOException {
+    reader.close();
+  }
+}
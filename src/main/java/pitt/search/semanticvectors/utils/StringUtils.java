@@ -44,6 +44,25 @@ import java.util.Arrays;
  */
 public class StringUtils {
 
+  /**
+   * Returns a 64-bit hash of the given string: FNV-1a over its chars, followed by the
+   * MurmurHash3 finalizer so that similar strings give well spread seeds. Much cheaper than
+   * {@link Bobcat#asLong}, though the two give different values.
+   */
+  public static long hash64(String input) {
+    long hash = 0xcbf29ce484222325L;
+    for (int i = 0; i < input.length(); ++i) {
+      hash ^= input.charAt(i);
+      hash *= 0x100000001b3L;
+    }
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    hash *= 0xc4ceb9fe1a85ec53L;
+    hash ^= hash >>> 33;
+    return hash;
+  }
+
   public static String nSpaces(int n) {
     StringBuilder output = new StringBuilder();
     for (int i = 0; i < n; ++i) {
@@ -72,4 +91,106 @@ public class StringUtils {
   public static String join(String[] input) {
     return join(Arrays.asList(input));
   }
+
+  /** Exactly representable powers of ten, used by {@link #parseFloat}. */
+  private static final double[] POWERS_OF_TEN = {
+      1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+      1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
+  /**
+   * Parses the characters from start up to end as a float, giving the same result as
+   * {@link Float#parseFloat} without creating a string. Plain decimals with up to 15 significant
+   * digits are parsed directly; anything else is passed to {@link Float#parseFloat}.
+   *
+   * @throws NumberFormatException if the characters aren't a float.
+   */
+  public static float parseFloat(char[] input, int start, int end) {
+    int i = start;
+    boolean negative = false;
+    if (i < end && (input[i] == '-' || input[i] == '+')) {
+      negative = input[i] == '-';
+      ++i;
+    }
+    long mantissa = 0;
+    int significantDigits = 0;
+    int exponent = 0;
+    boolean sawDigit = false;
+    for (; i < end; ++i) {
+      int digit = input[i] - '0';
+      if (digit < 0 || digit > 9) break;
+      sawDigit = true;
+      mantissa = mantissa * 10 + digit;
+      if (mantissa != 0) ++significantDigits;
+    }
+    if (i < end && input[i] == '.') {
+      for (++i; i < end; ++i) {
+        int digit = input[i] - '0';
+        if (digit < 0 || digit > 9) break;
+        sawDigit = true;
+        mantissa = mantissa * 10 + digit;
+        if (mantissa != 0) ++significantDigits;
+        --exponent;
+      }
+    }
+    if (i < end && (input[i] == 'e' || input[i] == 'E') && sawDigit) {
+      ++i;
+      boolean negativeExponent = false;
+      if (i < end && (input[i] == '-' || input[i] == '+')) {
+        negativeExponent = input[i] == '-';
+        ++i;
+      }
+      int explicitExponent = 0;
+      int exponentStart = i;
+      for (; i < end && i - exponentStart < 4; ++i) {
+        int digit = input[i] - '0';
+        if (digit < 0 || digit > 9) break;
+        explicitExponent = explicitExponent * 10 + digit;
+      }
+      if (i == exponentStart) return parseFloatSlowly(input, start, end);
+      exponent += negativeExponent ? -explicitExponent : explicitExponent;
+    }
+    if (!sawDigit || i != end || significantDigits > 15) {
+      return parseFloatSlowly(input, start, end);
+    }
+    if (mantissa == 0) return negative ? -0f : 0f;
+    if (exponent < -22 || exponent > 22) return parseFloatSlowly(input, start, end);
+    // Both operands are exact, so the double is correctly rounded. Rounding it again to a float
+    // is only wrong if it lands exactly half way between two floats.
+    double value = (exponent < 0) ? mantissa / POWERS_OF_TEN[-exponent] : mantissa * POWERS_OF_TEN[exponent];
+    if (value < Float.MIN_NORMAL || value > Float.MAX_VALUE
+        || (Double.doubleToRawLongBits(value) & 0x1fffffffL) == 0x10000000L) {
+      return parseFloatSlowly(input, start, end);
+    }
+    float result = (float) value;
+    return negative ? -result : result;
+  }
+
+  private static float parseFloatSlowly(char[] input, int start, int end) {
+    return Float.parseFloat(new String(input, start, end - start));
+  }
+
+  /**
+   * Parses fields separated by the delimiter from start up to end as floats, putting them into
+   * output, as {@code String.split} followed by {@link Float#parseFloat} would. Trailing empty
+   * fields are ignored, as they are by {@code String.split}.
+   *
+   * @return the number of fields, which may be more than the number parsed if output is too short.
+   * @throws NumberFormatException if any of the fields put into output aren't floats.
+   */
+  public static int parseFloats(char[] input, int start, int end, char delimiter, float[] output) {
+    while (end > start && input[end - 1] == delimiter) --end;
+    if (start == end) return 1;
+    int numFields = 0;
+    int fieldStart = start;
+    for (int i = start; i <= end; ++i) {
+      if (i == end || input[i] == delimiter) {
+        if (numFields < output.length) {
+          output[numFields] = parseFloat(input, fieldStart, i);
+        }
+        ++numFields;
+        fieldStart = i + 1;
+      }
+    }
+    return numFields;
+  }
 }
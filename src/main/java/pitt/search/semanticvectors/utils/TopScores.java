@@ -0,0 +1,167 @@
+/**
+   Copyright (c) 2026, the SemanticVectors AUTHORS.
+
+   All rights reserved.
+
+   Redistribution and use in source and binary forms, with or without
+   modification, are permitted provided that the following conditions are
+   met:
+
+   * Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+   * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the following
+   disclaimer in the documentation and/or other materials provided
+   with the distribution.
+
+   * Neither the name of the University of Pittsburgh nor the names
+   of its contributors may be used to endorse or promote products
+   derived from this software without specific prior written
+   permission.
+
+   THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+   "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+   LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+   A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+   CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+   EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+   PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+   PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+   LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+   NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+   SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+**/
+
+package pitt.search.semanticvectors.utils;
+
+/**
+ * Keeps the highest scores offered so far, up to a fixed number, each with an int id.
+ *
+ * <p>Scores and ids are held in a binary min-heap of primitive arrays, so each offer
+ * takes O(log k) time for k entries and creates no objects. Callers that need objects
+ * for the entries (e.g., {@link pitt.search.semanticvectors.SearchResult}s) should create
+ * them once all scores have been offered, using {@link #sortDescending}.
+ */
+public class TopScores {
+  private final int capacity;
+  private final double[] scores;
+  private final int[] ids;
+  private int size;
+  private boolean sorted;
+
+  public TopScores(int capacity) {
+    if (capacity < 0) {
+      throw new IllegalArgumentException("Capacity cannot be negative: " + capacity);
+    }
+    this.capacity = capacity;
+    this.scores = new double[capacity];
+    this.ids = new int[capacity];
+  }
+
+  /** Removes all entries, so that scores can be offered again. */
+  public void clear() {
+    size = 0;
+    sorted = false;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public int capacity() {
+    return capacity;
+  }
+
+  public boolean isFull() {
+    return size == capacity;
+  }
+
+  /**
+   * Returns the score that an offered score must beat to be kept: the lowest score kept
+   * if there are {@link #capacity} entries, otherwise negative infinity.
+   */
+  public double minScore() {
+    return (size == capacity && capacity > 0) ? scores[0] : Double.NEGATIVE_INFINITY;
+  }
+
+  /**
+   * Returns the id of the entry with the lowest score, which is the entry that the next
+   * successful offer will replace if there are {@link #capacity} entries.
+   */
+  public int minId() {
+    if (size == 0) throw new IllegalStateException("No entries.");
+    return ids[0];
+  }
+
+  /**
+   * Keeps the given score and id if there is room, or if the score is higher than the
+   * lowest score kept, in which case the entry with the lowest score is dropped.
+   *
+   * @return true if the score was kept
+   */
+  public boolean offer(double score, int id) {
+    if (sorted) throw new IllegalStateException("Cannot offer scores after sorting.");
+    if (size < capacity) {
+      int child = size++;
+      while (child > 0) {
+        int parent = (child - 1) >>> 1;
+        if (scores[parent] <= score) break;
+        scores[child] = scores[parent];
+        ids[child] = ids[parent];
+        child = parent;
+      }
+      scores[child] = score;
+      ids[child] = id;
+      return true;
+    }
+    if (capacity == 0 || !(score > scores[0])) return false;
+    siftDown(score, id, size);
+    return true;
+  }
+
+  /**
+   * Sorts the entries from highest to lowest score, after which {@link #getScore} and {@link #getId}
+   * give entries in that order. No more scores can be offered until {@link #clear} is called.
+   */
+  public void sortDescending() {
+    if (sorted) return;
+    // Heap sort: moving the lowest remaining score to the end each time leaves the highest first.
+    for (int end = size - 1; end > 0; --end) {
+      double score = scores[end];
+      int id = ids[end];
+      scores[end] = scores[0];
+      ids[end] = ids[0];
+      siftDown(score, id, end);
+    }
+    sorted = true;
+  }
+
+  /** Returns the score of the given entry, in heap order unless {@link #sortDescending} has been called. */
+  public double getScore(int index) {
+    if (index >= size) throw new IndexOutOfBoundsException("No entry " + index + " in " + size + " entries.");
+    return scores[index];
+  }
+
+  /** Returns the id of the given entry, in heap order unless {@link #sortDescending} has been called. */
+  public int getId(int index) {
+    if (index >= size) throw new IndexOutOfBoundsException("No entry " + index + " in " + size + " entries.");
+    return ids[index];
+  }
+
+  /** Puts the given entry at the root of the first heapSize entries and restores heap order. */
+  private void siftDown(double score, int id, int heapSize) {
+    int parent = 0;
+    while (true) {
+      int child = 2 * parent + 1;
+      if (child >= heapSize) break;
+      if (child + 1 < heapSize && scores[child + 1] < scores[child]) ++child;
+      if (score <= scores[child]) break;
+      scores[parent] = scores[child];
+      ids[parent] = ids[child];
+      parent = child;
+    }
+    scores[parent] = score;
+    ids[parent] = id;
+  }
+}
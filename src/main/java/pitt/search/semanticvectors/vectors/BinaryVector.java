@@ -2,10 +2,13 @@ package pitt.search.semanticvectors.vectors;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Random;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.logging.Logger;
 
 import org.apache.lucene.search.DocIdSetIterator;
@@ -76,7 +79,7 @@ public class BinaryVector implements Vector {
    * Elemental representation for binary vectors. 
    */
   protected FixedBitSet bitSet;
-  private boolean isSparse;
+  private volatile boolean isSparse;
   private AtomicBoolean unTallied = new AtomicBoolean(true);
 
   /**
@@ -98,6 +101,27 @@ public class BinaryVector implements Vector {
   // Used only for temporary internal storage.
   private FixedBitSet tempSet;
 
+  /** Number of 64-bit words in each stripe of the voting record that is locked separately. */
+  private static final int STRIPE_WORDS = 8;
+
+  /**
+   * Locks that let many threads superpose into the same vector at once. Superposition holds the
+   * read lock of {@link #record} and adds into each word range while holding its stripe's monitor.
+   * Growing the voting record, and every other method that reads or changes it, holds the write lock.
+   * Created with the first superposition, so elemental vectors don't carry them.
+   */
+  private static final class VotingLocks {
+    final ReentrantReadWriteLock record = new ReentrantReadWriteLock();
+    final Object[] stripes;
+
+    VotingLocks(int numWords) {
+      stripes = new Object[(numWords + STRIPE_WORDS - 1) / STRIPE_WORDS];
+      for (int i = 0; i < stripes.length; i++) stripes[i] = new Object();
+    }
+  }
+
+  private volatile VotingLocks votingLocks;
+
   public BinaryVector(int dimension) {
     // Check "multiple-of-64" constraint, to facilitate permutation of 64-bit chunks
     if (dimension % 64 != 0) {
@@ -116,12 +140,19 @@ public class BinaryVector implements Vector {
   /**
    * Returns a new copy of this vector, in dense format.
    */
-  @SuppressWarnings("unchecked")
   public BinaryVector copy() {
     BinaryVector copy = new BinaryVector(dimension);
     copy.bitSet = (FixedBitSet) bitSet.clone();
-    if (!isSparse)
-      copy.votingRecord = (ArrayList<FixedBitSet>) votingRecord.clone();
+    if (!isSparse) {
+      // Rows are added to in place, so the copy needs its own.
+      Lock lock = lockVotingRecord();
+      try {
+        copy.votingRecord = new ArrayList<FixedBitSet>(votingRecord.size());
+        for (FixedBitSet row : votingRecord) copy.votingRecord.add(row.clone());
+      } finally {
+        lock.unlock();
+      }
+    }
     if (tempSet != null) {
       copy.tempSet = tempSet.clone();
     }
@@ -207,7 +238,7 @@ public class BinaryVector implements Vector {
     {
       return bitSet.cardinality() == 0;
     } else {
-      return (votingRecord == null) || (votingRecord.size() == 0) || (votingRecord.size()==1 && votingRecord.get(0).cardinality() == 0);
+      return (votingRecord == null) || (votingRecord.size() == 0) || (votingRecord.size()==1 && votingRecord.get(0).cardinality() == 0 && minimum == 0);
     }
   }
 
@@ -224,6 +255,20 @@ public class BinaryVector implements Vector {
       throw new IllegalArgumentException("Dimension should be a multiple of 64: "
           + dimension + " will lead to trouble!");
     }
+    BinaryVector randomVector = new BinaryVector(dimension);
+    randomVector.overwriteWithRandomVector(numEntries, random);
+    return randomVector;
+  }
+
+  /** Per-thread array of dimensions shuffled by {@link #overwriteWithRandomVector}. */
+  private static final ThreadLocal<int[]> shuffledDimensionsScratch = new ThreadLocal<int[]>();
+
+  /**
+   * Overwrites this vector with the elemental vector that {@link #generateRandomVector} would
+   * return for the same number of entries and random number generator state, reusing the
+   * bit set of this vector.
+   */
+  void overwriteWithRandomVector(int numEntries, Random random) {
     // Check for balance between 1's and 0's
     if (numEntries != dimension / 2) {
       logger.severe("Attempting to create binary vector with unequal number of zeros and ones."
@@ -232,22 +277,29 @@ public class BinaryVector implements Vector {
       numEntries = dimension / 2;
     }
 
-    BinaryVector randomVector = new BinaryVector(dimension);
-    randomVector.bitSet = new FixedBitSet(dimension);
-
-    ArrayList<Integer> dimensions = new ArrayList<Integer>();
-
-    for (int q=0; q< dimension; q++)
-      dimensions.add(q);
-
-    Collections.shuffle(dimensions, random);
-
-    for (int r=0; r < numEntries; r++)
-    {
-      int testPlace = dimensions.get(r);
-      randomVector.bitSet.set(testPlace);
+    // Makes the same random draws as Collections.shuffle over a list of the dimensions,
+    // without boxing each dimension.
+    int[] dimensions = shuffledDimensionsScratch.get();
+    if (dimensions == null || dimensions.length < dimension) {
+      dimensions = new int[dimension];
+      shuffledDimensionsScratch.set(dimensions);
     }
-    return randomVector;
+    for (int q = 0; q < dimension; q++)
+      dimensions[q] = q;
+    for (int i = dimension; i > 1; i--) {
+      int j = random.nextInt(i);
+      int swap = dimensions[i - 1];
+      dimensions[i - 1] = dimensions[j];
+      dimensions[j] = swap;
+    }
+
+    bitSet.clear(0, dimension);
+    for (int r = 0; r < numEntries; r++)
+      bitSet.set(dimensions[r]);
+    isSparse = true;
+    votingRecord = null;
+    totalNumberOfVotes.set(0);
+    unTallied.set(true);
   }
   
 
@@ -256,7 +308,7 @@ public class BinaryVector implements Vector {
   /**
    * Measures overlap of two vectors using 1 - normalized Hamming distance
    *
-   * Causes this and other vector to be converted to dense representation.
+   * Reads both bitsets in place, so elemental vectors stay elemental.
    */
   public double measureOverlap(Vector other) {
     IncompatibleVectorsException.checkVectorsCompatible(this, other);
@@ -281,24 +333,22 @@ public class BinaryVector implements Vector {
    *
    * This is an attempt to save space, as voting records can be prohibitively expansive
    * if not contained.
+   *
+   * Many threads can superpose into the same vector without blocking each other: each adds
+   * its votes one stripe of the voting record at a time (see {@link VotingLocks}). Since votes
+   * are added as integers, the result is the same as adding the same vectors in any order.
    */
-  public synchronized void superpose(Vector other, double weight, int[] permutation) {
+  public void superpose(Vector other, double weight, int[] permutation) {
     IncompatibleVectorsException.checkVectorsCompatible(this, other);
     if (weight == 0d) return;
     if (other.isZeroVector()) return;
     
     BinaryVector binaryOther = (BinaryVector) other;
-    boolean flippedBitSet = false; //for subtraction
-    
-    if (weight < 0) //subtraction
-    {
-      weight = Math.abs(weight);
-      binaryOther.bitSet.flip(0, binaryOther.getDimension());
-      flippedBitSet = true;
-    }
     
     if (isSparse) {
-      elementalToSemantic();
+      synchronized (this) {
+        if (isSparse) elementalToSemantic();
+      }
     }
 
     if (permutation != null) {
@@ -310,105 +360,223 @@ public class BinaryVector implements Vector {
             + " must have permutation of length " + dimension / 64
             + " not " + permutation.length);
       }
-      //TODO permute in place and reverse, to avoid creating a new BinaryVector here
-      BinaryVector temp = binaryOther.copy();
-      temp.permute(permutation);
-      superposeBitSet(temp.bitSet, weight);
     }
-    else {
+
+    if (permutation == null && weight > 0) {
       superposeBitSet(binaryOther.bitSet, weight);
+    } else {
+      // Permuted or subtracted vectors are written a word at a time into this thread's scratch
+      // bitset, rather than copying the other vector or flipping its bits and back again.
+      FixedBitSet incoming = getScratchBitSet(dimension);
+      long[] sourceWords = binaryOther.bitSet.getBits();
+      long[] incomingWords = incoming.getBits();
+      long flip = weight < 0 ? -1L : 0L;
+      if (permutation == null) {
+        for (int i = 0; i < incomingWords.length; ++i) incomingWords[i] = sourceWords[i] ^ flip;
+      } else {
+        for (int i = 0; i < incomingWords.length; ++i) incomingWords[i] = sourceWords[permutation[i]] ^ flip;
+      }
+      superposeBitSet(incoming, Math.abs(weight));
     }
     
-    if (flippedBitSet) binaryOther.bitSet.flip(0, binaryOther.getDimension()); //return to original configuration
     unTallied.set(true); //there are votes that haven't been tallied yet
     
   }
 
+  private static final ThreadLocal<FixedBitSet> scratchBitSets = new ThreadLocal<FixedBitSet>();
+
+  /**
+   * Returns this thread's scratch bitset of the given dimension, used to pass permuted or negated
+   * vectors to {@link #superposeBitSet}, which doesn't keep the bitset it is given.
+   */
+  private static FixedBitSet getScratchBitSet(int dimension) {
+    FixedBitSet scratch = scratchBitSets.get();
+    if (scratch == null || scratch.length() != dimension) {
+      scratch = new FixedBitSet(dimension);
+      scratchBitSets.set(scratch);
+    }
+    return scratch;
+  }
+
   /**
-   * This method is the first of two required to facilitate superposition. The underlying representation
+   * Adds the incoming bitset to the voting record with the given weight. The underlying representation
    * (i.e. the voting record) is an ArrayList of FixedBitSet, each with dimension "dimension", which can
    * be thought of as an expanding 2D array of bits. Each column keeps count (in binary) for the respective
-   * dimension, and columns are incremented in parallel by sweeping a bitset across the rows. In any dimension
-   * in which the BitSet to be added contains a "1", the effect will be that 1's are changed to 0's until a
-   * new 1 is added (e.g. the column '110' would become '001' and so forth).
+   * dimension, and row x holds bit x of every count.
    *
-   * The first method deals with floating point issues, and accelerates superposition by decomposing
-   * the task into segments.
+   * Fractional weights are rounded to {@link #BINARY_VECTOR_DECIMAL_PLACES} and the resulting integer is
+   * added to every column in which the incoming bitset has a "1" (see {@link #addToVotingRecord}).
    *
-   * @param incomingBitSet
-   * @param weight
+   * @param incomingBitSet the bitset to be added, which isn't kept or changed
+   * @param weight the weight of the incoming bitset
    */
-  protected synchronized void superposeBitSet(FixedBitSet incomingBitSet, double weight) {
-    // If fractional weights are used, encode all weights as integers (1000 x double value).
-    weight = (int) Math.round(weight * Math.pow(10, BINARY_VECTOR_DECIMAL_PLACES));
-    if (weight == 0) return;
+  protected void superposeBitSet(FixedBitSet incomingBitSet, double weight) {
+    // If fractional weights are used, encode all weights as integers (100 x double value).
+    long votes = Math.round(weight * Math.pow(10, BINARY_VECTOR_DECIMAL_PLACES));
+    if (votes <= 0) return;
 
     // Keep track of number (or cumulative weight) of votes.
-    totalNumberOfVotes.set(totalNumberOfVotes.get() + (int) weight);
-
-    // Decompose superposition task such that addition of some power of 2 (e.g. 64) is accomplished
-    // by beginning the process at the relevant row (e.g. 7) instead of starting multiple (e.g. 64)
-    // superposition processes at the first row.
-    int logFloorOfWeight = (int) (Math.floor(Math.log(weight)/Math.log(2)));
-
-    if (logFloorOfWeight < votingRecord.size() - 1) {
-      while (logFloorOfWeight > 0) {
-        superposeBitSetFromRowFloor(incomingBitSet, logFloorOfWeight);
-        weight = weight - (int) Math.pow(2,logFloorOfWeight);
-        logFloorOfWeight = (int) (Math.floor(Math.log(weight)/Math.log(2)));
-      }
-    }
-
-    // Add remaining component of weight incrementally.
-    for (int x = 0; x < weight; x++)
-      superposeBitSetFromRowFloor(incomingBitSet, 0);
+    totalNumberOfVotes.addAndGet(votes);
+    addToVotingRecord(incomingBitSet.getBits(), votes);
   }
 
   /**
-   * Performs superposition from a particular row by sweeping a bitset across the voting record
-   * such that for any column in which the incoming bitset contains a '1', 1's are changed
-   * to 0's until a new 1 can be added, facilitating incrementation of the
-   * binary number represented in this column.
+   * Adds 2^rowfloor votes to every dimension in which the incoming bitset has a "1".
    *
    * @param incomingBitSet the bitset to be added
-   * @param rowfloor the index of the place in the voting record to start the sweep at
+   * @param rowfloor the row of the voting record that the votes are added at
+   */
+  protected void superposeBitSetFromRowFloor(FixedBitSet incomingBitSet, int rowfloor) {
+    addToVotingRecord(incomingBitSet.getBits(), 1L << rowfloor);
+  }
+
+  /**
+   * Adds the given number of votes to every column whose bit is set in the incoming words.
+   * Each 64-bit word is added through all the rows in one pass, keeping the column-wise sum
+   * and carry of a full adder, while other threads add to other stripes of the record
+   * (see {@link VotingLocks}). Only adding rows to the voting record blocks other superposition.
+   *
+   * Votes shared by every dimension stay in the record until the vote is concluded, when they
+   * are moved into {@link #minimum} (see {@link #releaseSharedVotes}).
    */
-  protected synchronized void superposeBitSetFromRowFloor(FixedBitSet incomingBitSet, int rowfloor) {
-    // Attempt to save space when minimum value across all columns > 0
-    // by decrementing across the board and raising the minimum where possible.
-    int max = getMaximumSharedWeight();
+  private void addToVotingRecord(long[] incomingWords, long votes) {
+    VotingLocks locks = getVotingLocks();
+    int votesRows = 64 - Long.numberOfLeadingZeros(votes);
+    int numRows;
+    long[] overflow = null;
+
+    locks.record.readLock().lock();
+    try {
+      numRows = votingRecord.size();
+      if (numRows >= votesRows) {
+        long[][] rows = getRows();
+        for (int stripe = 0; stripe < locks.stripes.length; stripe++) {
+          int from = stripe * STRIPE_WORDS;
+          int to = Math.min(from + STRIPE_WORDS, incomingWords.length);
+          synchronized (locks.stripes[stripe]) {
+            overflow = addWords(rows, incomingWords, votes, from, to, overflow);
+          }
+        }
+      }
+    } finally {
+      locks.record.readLock().unlock();
+    }
 
-    if (max > 0) {
-      decrement(max);
+    if (numRows < votesRows) {
+      addToGrowingVotingRecord(incomingWords, votes);
+    } else if (overflow != null) {
+      // Other threads may have grown the record since, so the carries out of the
+      // top row are added as 2^numRows votes rather than copied into a new row.
+      addToGrowingVotingRecord(overflow, 1L << numRows);
     }
+  }
 
-    // Handle overflow: if any column that will be incremented
-    // contains all 1's, add a new row to the voting record.
-    tempSet.xor(tempSet);
-    tempSet.xor(incomingBitSet);
+  /**
+   * Adds votes that may need new rows in the voting record, with other superposition blocked.
+   */
+  private void addToGrowingVotingRecord(long[] incomingWords, long votes) {
+    Lock lock = lockVotingRecord();
+    try {
+      addWithGrowth(incomingWords, votes);
+    } finally {
+      lock.unlock();
+    }
+  }
 
-    for (int x = rowfloor; x < votingRecord.size() && tempSet.cardinality() > 0; x++) {
-      tempSet.and(votingRecord.get(x));
+  /**
+   * Adds the votes, adding rows to the voting record as needed. Callers must hold the write lock.
+   */
+  private void addWithGrowth(long[] incomingWords, long votes) {
+    boolean anyVotes = false;
+    for (int i = 0; i < incomingWords.length && !anyVotes; i++) anyVotes = incomingWords[i] != 0;
+    if (!anyVotes) return;
+
+    int votesRows = 64 - Long.numberOfLeadingZeros(votes);
+    while (votingRecord.size() < votesRows) votingRecord.add(new FixedBitSet(dimension));
+    long[] overflow = addWords(getRows(), incomingWords, votes, 0, incomingWords.length, null);
+    if (overflow != null) {
+      // Adding two n-bit counts needs at most n+1 bits, so one new row takes all the carries.
+      votingRecord.add(new FixedBitSet(overflow, dimension));
     }
+  }
 
-    if (tempSet.cardinality() > 0) {
-      votingRecord.add(new FixedBitSet(dimension));
+  /**
+   * Adds the votes into words {@code from} to {@code to} of the rows, and returns the carries out
+   * of the top row, allocating the overflow array if it is null and there are any.
+   */
+  private static long[] addWords(long[][] rows, long[] incomingWords, long votes, int from, int to,
+      long[] overflow) {
+    int votesRows = 64 - Long.numberOfLeadingZeros(votes);
+    for (int i = from; i < to; i++) {
+      long addend = incomingWords[i];
+      if (addend == 0) continue;
+      long carry = 0;
+      for (int x = 0; x < rows.length; x++) {
+        long votesBit = ((votes >>> x) & 1L) == 0 ? 0L : addend;
+        if (carry == 0 && votesBit == 0) {
+          if (x >= votesRows) break;
+          continue;
+        }
+        long row = rows[x][i];
+        rows[x][i] = row ^ votesBit ^ carry;
+        carry = (row & votesBit) | (carry & (row ^ votesBit));
+      }
+      if (carry != 0) {
+        if (overflow == null) overflow = new long[incomingWords.length];
+        overflow[i] = carry;
+      }
     }
+    return overflow;
+  }
 
-    // Sweep copy of bitset to be added across rows of voting record.
-    // If a new '1' is added, this position in the copy is changed to zero
-    // and will not affect future rows.
-    // The xor step will transform 1's to 0's or vice versa for 
-    // dimension in which the temporary bitset contains a '1'.
-    votingRecord.get(rowfloor).xor(incomingBitSet);
+  private long[][] getRows() {
+    long[][] rows = new long[votingRecord.size()][];
+    for (int x = 0; x < rows.length; x++) rows[x] = votingRecord.get(x).getBits();
+    return rows;
+  }
 
-    tempSet.xor(tempSet);
-    tempSet.xor(incomingBitSet);
+  private VotingLocks getVotingLocks() {
+    VotingLocks locks = votingLocks;
+    if (locks == null) {
+      synchronized (this) {
+        if (votingLocks == null) votingLocks = new VotingLocks(bitSet.getBits().length);
+        locks = votingLocks;
+      }
+    }
+    return locks;
+  }
 
-    for (int x = rowfloor + 1; x < votingRecord.size(); x++) {
-      tempSet.andNot(votingRecord.get(x-1)); //if 1 already added, eliminate dimension from tempSet
-      votingRecord.get(x).xor(tempSet);
-      // votingRecord.get(x).trimTrailingZeros(); //attempt to save in sparsely populated rows
+  /**
+   * Waits for superposition in other threads to finish and blocks it until the returned lock is
+   * unlocked. Callers that also synchronize on this vector must do so first.
+   */
+  private Lock lockVotingRecord() {
+    Lock lock = getVotingLocks().record.writeLock();
+    lock.lock();
+    return lock;
+  }
+
+  /**
+   * Subtracts the given number of votes from every column of the voting record, one word at a time
+   * through all the rows. No underflow check: every count must be at least the number subtracted.
+   */
+  private void subtractFromVotingRecord(long votes) {
+    int numRows = votingRecord.size();
+    if (numRows == 0) return;
+    long[][] rows = getRows();
+
+    for (int i = 0; i < rows[0].length; i++) {
+      long borrow = 0;
+      for (int x = 0; x < numRows; x++) {
+        long votesBit = ((votes >>> x) & 1L) == 0 ? 0L : -1L;
+        if (borrow == 0 && votesBit == 0) {
+          if ((votes >>> x) == 0) break;
+          continue;
+        }
+        long row = rows[x][i];
+        rows[x][i] = row ^ votesBit ^ borrow;
+        borrow = (~row & (votesBit | borrow)) | (row & votesBit & borrow);
+      }
     }
   }
 
@@ -428,28 +596,17 @@ public class BinaryVector implements Vector {
    * in the {@link #votingRecord} that exactly matches the target number.
    */
   private synchronized void setTempSetToExactMatches(long target) {
-    if (target == 0) {
-      tempSet.set(0, dimension);
-      tempSet.xor(votingRecord.get(0));
-      for (int x = 1; x < votingRecord.size(); x++)
-        tempSet.andNot(votingRecord.get(x));
-    } else
-    {
-      String inbinary = reverse(Long.toBinaryString(target));
-      tempSet.xor(tempSet);
-      try {
-        tempSet.xor(votingRecord.get(inbinary.indexOf("1"))); //this requires error checking, it is throwing an index out of bounds exception
-      }
-      catch (Exception e)
-      {
-        e.printStackTrace();
-      }
-      for (int q =0; q < votingRecord.size(); q++) {
-        if (q < inbinary.length() && inbinary.charAt(q) == '1')
-          tempSet.and(votingRecord.get(q));
-        else
-          tempSet.andNot(votingRecord.get(q));
-      }
+    tempSet.set(0, dimension);
+    if ((target >>> votingRecord.size()) != 0) {
+      // The target is higher than the capacity of the voting record.
+      tempSet.clear(0, dimension);
+      return;
+    }
+    for (int q = 0; q < votingRecord.size(); q++) {
+      if (((target >>> q) & 1L) != 0)
+        tempSet.and(votingRecord.get(q));
+      else
+        tempSet.andNot(votingRecord.get(q));
     }
   }
 
@@ -463,40 +620,51 @@ public class BinaryVector implements Vector {
    * @return an FixedBitSet representing the superposition of all vectors added up to this point
    */
   protected synchronized FixedBitSet concludeVote() {
-    if (votingRecord.size() == 0 || votingRecord.size() == 1 && votingRecord.get(0).cardinality() ==0) return new FixedBitSet(dimension);
-    else return concludeVote(totalNumberOfVotes.get());
+    Lock lock = lockVotingRecord();
+    try {
+      if (votingRecord.size() == 0 || votingRecord.size() == 1 && votingRecord.get(0).cardinality() ==0 && minimum == 0) return new FixedBitSet(dimension);
+      releaseSharedVotes();
+      return concludeVote(totalNumberOfVotes.get());
+    } finally {
+      lock.unlock();
+    }
   }
 
   protected synchronized FixedBitSet concludeVote(long target) {
-    long target2 = (long) Math.ceil((double) target / (double) 2);
-    target2 = target2 - minimum;
+    Lock lock = lockVotingRecord();
+    try {
+      long target2 = (long) Math.ceil((double) target / (double) 2);
+      target2 = target2 - minimum;
     
-    // Unlikely other than in testing: minimum more than half the votes
-    if (target2 < 0) {
-      FixedBitSet ans = new FixedBitSet(dimension);
-      ans.set(0, dimension);
-      return ans;
-    }
-
-    boolean even = (target % 2 == 0);
-    FixedBitSet result = concludeVote(target2, votingRecord.size() - 1);
-
-    if (even) {
-      setTempSetToExactMatches(target2);
-      boolean switcher = true;
-      // 50% chance of being true with split vote.
-      int q = tempSet.nextSetBit(0);
-      while (q != DocIdSetIterator.NO_MORE_DOCS)
-      {
-        switcher = !switcher;
-        if (switcher) tempSet.clear(q);
-        if (q+1 >= tempSet.length()) q = DocIdSetIterator.NO_MORE_DOCS;
-        else q = tempSet.nextSetBit(q+1);
+      // Unlikely other than in testing: minimum more than half the votes
+      if (target2 < 0) {
+        FixedBitSet ans = new FixedBitSet(dimension);
+        ans.set(0, dimension);
+        return ans;
       }
-      result.andNot(tempSet);
 
+      boolean even = (target % 2 == 0);
+      FixedBitSet result = concludeVote(target2, votingRecord.size() - 1);
+
+      if (even) {
+        setTempSetToExactMatches(target2);
+        boolean switcher = true;
+        // 50% chance of being true with split vote.
+        int q = tempSet.nextSetBit(0);
+        while (q != DocIdSetIterator.NO_MORE_DOCS)
+        {
+          switcher = !switcher;
+          if (switcher) tempSet.clear(q);
+          if (q+1 >= tempSet.length()) q = DocIdSetIterator.NO_MORE_DOCS;
+          else q = tempSet.nextSetBit(q+1);
+        }
+        result.andNot(tempSet);
+
+      }
+      return result;
+    } finally {
+      lock.unlock();
     }
-    return result;
   }
 
   protected synchronized FixedBitSet concludeVote(long target, int row_ceiling) {
@@ -512,11 +680,8 @@ public class BinaryVector implements Vector {
       return atLeastZero;
     }
 
-    double rowfloor = Math.log(target)/Math.log(2);
-    int row_floor = (int) Math.floor(rowfloor);  //for 0 index
-    long remainder = target - (long) Math.pow(2, row_floor);
-
-    //System.out.println(target+"\t"+rowfloor+"\t"+row_floor+"\t"+remainder);
+    int row_floor = 63 - Long.numberOfLeadingZeros(target);  //for 0 index
+    long remainder = target - (1L << row_floor);
 
     if (row_floor >= votingRecord.size()) //In this instance, the number we are checking for is higher than the capacity of the voting record
     {
@@ -555,10 +720,11 @@ public class BinaryVector implements Vector {
    * i.e: no underflow check currently - will wreak havoc with zero counts
    */
   public synchronized void decrement() {
-    tempSet.set(0, dimension);
-    for (int q = 0; q < votingRecord.size(); q++) {
-      votingRecord.get(q).xor(tempSet);
-      tempSet.and(votingRecord.get(q));
+    Lock lock = lockVotingRecord();
+    try {
+      subtractFromVotingRecord(1);
+    } finally {
+      lock.unlock();
     }
   }
 
@@ -567,29 +733,25 @@ public class BinaryVector implements Vector {
    * i.e: no underflow check currently - will wreak havoc with zero counts
    */
   public synchronized void decrement(int weight) {
-    if (weight == 0) return;
-    minimum+= weight;
-
-    int logfloor = (int) (Math.floor(Math.log(weight)/Math.log(2)));
-
-    if (logfloor < votingRecord.size() - 1) {
-      while (logfloor > 0) {
-        selectedDecrement(logfloor);
-        weight = weight - (int) Math.pow(2,logfloor);
-        logfloor = (int) (Math.floor(Math.log(weight)/Math.log(2)));
-      }
-    }
-
-    for (int x = 0; x < weight; x++) {
-      decrement();
+    Lock lock = lockVotingRecord();
+    try {
+      if (weight == 0) return;
+      minimum+= weight;
+      subtractFromVotingRecord(weight);
+    } finally {
+      lock.unlock();
     }
   }
 
+  /**
+   * Decrement every dimension by 2^floor, with the same caveats as {@link #decrement()}.
+   */
   public synchronized void selectedDecrement(int floor) {
-    tempSet.set(0, dimension);
-    for (int q = floor; q < votingRecord.size(); q++) {
-      votingRecord.get(q).xor(tempSet);
-      tempSet.and(votingRecord.get(q));
+    Lock lock = lockVotingRecord();
+    try {
+      subtractFromVotingRecord(1L << floor);
+    } finally {
+      lock.unlock();
     }
   }
 
@@ -597,16 +759,51 @@ public class BinaryVector implements Vector {
    * Returns the highest value shared by all dimensions.
    */
   protected synchronized int getMaximumSharedWeight() {
-    int thismaximum = 0;
-    tempSet.xor(tempSet);  // Reset tempset to zeros.
-    for (int x = votingRecord.size() - 1; x >= 0; x--) {
-      tempSet.or(votingRecord.get(x));
-      if (tempSet.cardinality() == dimension) {
-        thismaximum += (int) Math.pow(2, x);
-        tempSet.xor(tempSet);
+    Lock lock = lockVotingRecord();
+    try {
+      return (int) getSharedWeight();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Returns the smallest count in the voting record. The rows are read from the top down, keeping
+   * the dimensions whose counts so far are the smallest: if all of them have a "1" in a row, so
+   * does the smallest count, otherwise those with a "0" are kept.
+   */
+  private long getSharedWeight() {
+    if (votingRecord == null || votingRecord.isEmpty()) return 0;
+    long[][] rows = getRows();
+    long[] smallest = new long[rows[0].length];
+    Arrays.fill(smallest, -1L);
+    long shared = 0;
+    for (int x = rows.length - 1; x >= 0; x--) {
+      boolean allSet = true;
+      for (int i = 0; i < smallest.length && allSet; i++) allSet = (smallest[i] & ~rows[x][i]) == 0;
+      if (allSet) {
+        shared += 1L << x;
+      } else {
+        for (int i = 0; i < smallest.length; i++) smallest[i] &= ~rows[x][i];
       }
     }
-    return thismaximum;
+    return shared;
+  }
+
+  /**
+   * Moves the votes shared by every dimension into {@link #minimum}, and removes the rows left
+   * empty at the top of the voting record, so that concluding the vote reads as few rows as the
+   * spread of the counts needs. Callers must hold the write lock.
+   */
+  private void releaseSharedVotes() {
+    long shared = getSharedWeight();
+    if (shared == 0) return;
+    minimum += shared;
+    subtractFromVotingRecord(shared);
+    int numRows = votingRecord.size();
+    while (numRows > 1 && votingRecord.get(numRows - 1).cardinality() == 0) {
+      votingRecord.remove(--numRows);
+    }
   }
 
   /**
@@ -688,10 +885,20 @@ public class BinaryVector implements Vector {
    */
   public synchronized void normalize() {
     if (votingRecord == null) return;
-    if (votingRecord.size() == 1) {
+    Lock lock = lockVotingRecord();
+    try {
+      normalizeVotingRecord();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void normalizeVotingRecord() {
+    if (votingRecord.size() == 1 && minimum == 0) {
       this.bitSet = votingRecord.get(0);
       return;
     }
+    releaseSharedVotes();
     
     if (NORMALIZE_METHOD.equals(BinaryNormalizationMethod.SPATTERCODE))
     {
@@ -714,14 +921,12 @@ public class BinaryVector implements Vector {
       long max = totalNumberOfVotes.get();
 
       //Determine the maximum possible votes on the voting record
-      int maxpossiblevotesonrecord = 0;
-
-      for (int q=0; q < votingRecord.size(); q++)
-        maxpossiblevotesonrecord += Math.pow(2, q);
+      long maxpossiblevotesonrecord = (1L << votingRecord.size()) - 1;
 
       //For each possible value on the record, get a BitSet with a "1" in the
-      //position of the dimensions that match this value
-      for (int x = 1; x <= maxpossiblevotesonrecord; x++) {
+      //position of the dimensions that match this value. Dimensions with nothing
+      //left on the record still hold the shared minimum, if there is one.
+      for (long x = minimum > 0 ? 0 : 1; x <= maxpossiblevotesonrecord; x++) {
         this.setTempSetToExactMatches(x);
 
         //no exact matches
@@ -781,21 +986,27 @@ public class BinaryVector implements Vector {
    * Faster normalization according to the Binary Spatter Code's "majority" rule 
    */
   public synchronized void normalizeBSC() {
-    if (!isSparse)
-      this.bitSet = concludeVote();
-
-    votingRecord = new ArrayList<FixedBitSet>();
-    votingRecord.add((FixedBitSet) bitSet.clone());
-    totalNumberOfVotes.set(1);
-    tempSet = new FixedBitSet(dimension);
-    minimum = 0;
+    Lock lock = lockVotingRecord();
+    try {
+      if (!isSparse)
+        this.bitSet = concludeVote();
+
+      votingRecord = new ArrayList<FixedBitSet>();
+      votingRecord.add((FixedBitSet) bitSet.clone());
+      totalNumberOfVotes.set(1);
+      tempSet = new FixedBitSet(dimension);
+      minimum = 0;
+    } finally {
+      lock.unlock();
+    }
   }
 
   /**
    * Counts votes without normalizing vector (i.e. voting record is not altered). Used in SemanticVectorCollider.
+   * Elemental vectors have no votes to count, and are left without a voting record.
    */
   public synchronized void tallyVotes() {
-    if (isSparse) elementalToSemantic();
+    if (isSparse) return;
     if (unTallied.get()) //only count if there are votes since the last tally
       try {  this.bitSet = concludeVote();
         unTallied.set(false); } catch (Exception e) {e.printStackTrace();}
@@ -803,12 +1014,10 @@ public class BinaryVector implements Vector {
 
   @Override
   /**
-   * Writes vector out to object output stream.  Converts to dense format if necessary.
+   * Writes vector out to object output stream.  Elemental vectors are written from their bitset
+   * as they are, without creating a voting record.
    */
   public void writeToLuceneStream(IndexOutput outputStream) {
-    if (isSparse) {
-      elementalToSemantic();
-    }
     long[] bitArray = bitSet.getBits();
 
     for (int i = 0; i < bitArray.length; i++) {
@@ -822,12 +1031,9 @@ public class BinaryVector implements Vector {
   }
 
   /**
-   * Writes vector out to object output stream.  Converts to dense format if necessary. Truncates to length k.
+   * Writes vector out to object output stream, as above. Truncates to length k.
    */
   public void writeToLuceneStream(IndexOutput outputStream, int k) {
-    if (isSparse) {
-      elementalToSemantic();
-    }
     long[] bitArray = bitSet.getBits();
 
     for (int i = 0; i < k/64; i++) {
@@ -916,7 +1122,7 @@ public class BinaryVector implements Vector {
     votingRecord = new ArrayList<FixedBitSet>();
     tempSet = new FixedBitSet(dimension);
     if (bitSet.cardinality() != 0)
-      this.superposeBitSet(bitSet.clone(), 1);
+      this.superposeBitSet(bitSet, 1);
     isSparse = false;
   }
 
@@ -929,15 +1135,25 @@ public class BinaryVector implements Vector {
           + " must have permutation of length " + getDimension() / 64
           + " not " + permutation.length);
     }
-    //TODO permute in place without creating additional long[] (if proves problematic at scale)
+    // Permutes the words in place by following each cycle of the permutation, marking the
+    // words that have been moved in a bitmap 64 times smaller than the vector.
     long[] coordinates = bitSet.getBits();
-    long[] newCoordinates = new long[coordinates.length];
-    for (int i = 0; i < coordinates.length; ++i) {
-      int positionToAdd = i;
-      positionToAdd = permutation[positionToAdd];
-      newCoordinates[i] = coordinates[positionToAdd];
+    long[] moved = new long[(permutation.length + 63) / 64];
+    for (int start = 0; start < permutation.length; ++start) {
+      if ((moved[start >>> 6] & (1L << start)) != 0) continue;
+      long startWord = coordinates[start];
+      int position = start;
+      while (true) {
+        moved[position >>> 6] |= 1L << position;
+        int next = permutation[position];
+        if (next == start) {
+          coordinates[position] = startWord;
+          break;
+        }
+        coordinates[position] = coordinates[next];
+        position = next;
+      }
     }
-    bitSet = new FixedBitSet(newCoordinates, getDimension());
   }
 
   // Available for testing and copying.
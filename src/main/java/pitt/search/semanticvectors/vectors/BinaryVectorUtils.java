@@ -189,8 +189,80 @@ public class BinaryVectorUtils {
     return conclusion;
   }
 
-  // Have not checked that this is optimal.
+  /**
+   * Returns the words of the bitset representing this vector, as used by
+   * {@link BinaryVector#measureOverlap}. The array is not copied, so callers must not alter it.
+   */
+  public static long[] getBits(BinaryVector vector) {
+    return vector.bitSet.getBits();
+  }
+
+  /**
+   * Returns the number of bits that differ between two bitsets of the same length,
+   * in a single pass over their words.
+   */
   public static long xorCount(FixedBitSet first, FixedBitSet second) {
-    return FixedBitSet.andNotCount(first, second) + FixedBitSet.andNotCount(second, first);
+    if (first.length() != second.length()) {
+      return FixedBitSet.andNotCount(first, second) + FixedBitSet.andNotCount(second, first);
+    }
+    return hammingDistance(first.getBits(), second.getBits(), 0, FixedBitSet.bits2words(first.length()));
+  }
+
+  /** Number of words between checks of the distance so far in {@link #hammingDistance(long[], long[], int, int, long)}. */
+  private static final int HAMMING_BLOCK_WORDS = 16;
+
+  /**
+   * Returns the number of bits that differ between the first numWords words of query
+   * and the numWords words of bits starting at offset.
+   */
+  public static long hammingDistance(long[] query, long[] bits, int offset, int numWords) {
+    long d0 = 0, d1 = 0, d2 = 0, d3 = 0;
+    int i = 0;
+    for (; i + 3 < numWords; i += 4) {
+      d0 += Long.bitCount(query[i] ^ bits[offset + i]);
+      d1 += Long.bitCount(query[i + 1] ^ bits[offset + i + 1]);
+      d2 += Long.bitCount(query[i + 2] ^ bits[offset + i + 2]);
+      d3 += Long.bitCount(query[i + 3] ^ bits[offset + i + 3]);
+    }
+    for (; i < numWords; ++i) {
+      d0 += Long.bitCount(query[i] ^ bits[offset + i]);
+    }
+    return d0 + d1 + d2 + d3;
+  }
+
+  /**
+   * As {@link #hammingDistance(long[], long[], int, int)}, but stops early once the distance
+   * is known to be more than maxDistance. In that case the distance counted so far is returned,
+   * which is also more than maxDistance but may be less than the full distance.
+   */
+  public static long hammingDistance(long[] query, long[] bits, int offset, int numWords, long maxDistance) {
+    long distance = 0;
+    for (int blockStart = 0; blockStart < numWords; blockStart += HAMMING_BLOCK_WORDS) {
+      int blockEnd = Math.min(numWords, blockStart + HAMMING_BLOCK_WORDS);
+      long d0 = 0, d1 = 0, d2 = 0, d3 = 0;
+      int i = blockStart;
+      for (; i + 3 < blockEnd; i += 4) {
+        d0 += Long.bitCount(query[i] ^ bits[offset + i]);
+        d1 += Long.bitCount(query[i + 1] ^ bits[offset + i + 1]);
+        d2 += Long.bitCount(query[i + 2] ^ bits[offset + i + 2]);
+        d3 += Long.bitCount(query[i + 3] ^ bits[offset + i + 3]);
+      }
+      for (; i < blockEnd; ++i) {
+        d0 += Long.bitCount(query[i] ^ bits[offset + i]);
+      }
+      distance += d0 + d1 + d2 + d3;
+      if (distance > maxDistance) return distance;
+    }
+    return distance;
+  }
+
+  /**
+   * Returns the largest Hamming distance for which binary vectors of the given dimension
+   * can have an overlap more than minScore, as given by {@link BinaryVector#measureOverlap}.
+   * Vectors further apart than this have an overlap less than minScore.
+   */
+  public static long getMaxHammingDistance(double minScore, int dimension) {
+    if (minScore <= -1) return dimension;
+    return (long) Math.ceil(dimension * (1 - minScore) / 2);
   }
 }
@@ -36,12 +36,15 @@
 package pitt.search.semanticvectors.vectors;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Random;
 import java.util.logging.Logger;
 
 import org.apache.lucene.store.IndexInput;
 import org.apache.lucene.store.IndexOutput;
 
+import pitt.search.semanticvectors.utils.StringUtils;
+
 
 /**
  * Complex number implementation of Vector.
@@ -131,6 +134,25 @@ public class ComplexVector implements Vector {
   private short[] sparseOffsets;
   private Mode opMode;
 
+  /** Largest number of entries for which {@link #overwriteWithRandomVector} scans for collisions. */
+  private static final int MAX_SCANNED_SEED_LENGTH = 64;
+
+  /**
+   * Per-thread array used by {@link #overwriteWithRandomVector} to mark the positions of long
+   * seeds. All its entries are false between uses.
+   */
+  private static final ThreadLocal<boolean[]> occupiedPositionsScratch = new ThreadLocal<boolean[]>();
+
+  /** Returns this thread's array for marking occupied positions, with at least the given length. */
+  private static boolean[] getOccupiedPositionsScratch(int dimension) {
+    boolean[] occupiedPositions = occupiedPositionsScratch.get();
+    if (occupiedPositions == null || occupiedPositions.length < dimension) {
+      occupiedPositions = new boolean[dimension];
+      occupiedPositionsScratch.set(occupiedPositions);
+    }
+    return occupiedPositions;
+  }
+
   protected ComplexVector(int dimension, Mode opMode) {
     this.opMode = opMode;
     this.dimension = dimension;
@@ -245,8 +267,42 @@ public class ComplexVector implements Vector {
       return generateRandomVector(dimension, random);
 
     ComplexVector randomVector = new ComplexVector(dimension, Mode.POLAR_SPARSE);
-    boolean[] occupiedPositions = new boolean[dimension];
-    randomVector.sparseOffsets = new short[numEntries * 2];
+    randomVector.overwriteWithRandomVector(numEntries, random);
+    return randomVector;
+  }
+
+  /**
+   * Overwrites this vector with the vector that {@link #generateRandomVector(int, int, Random)}
+   * would return for the same number of entries and random number generator state, reusing
+   * this vector's arrays when they are already allocated.
+   */
+  void overwriteWithRandomVector(int numEntries, Random random) {
+    if (dimension == numEntries) {
+      if (DOMINANT_MODE.equals(Mode.HERMITIAN)) {
+        if (coordinates == null) coordinates = new float[2 * dimension];
+        for (int d = 0; d < coordinates.length; d++) {
+          coordinates[d] = (float) (random.nextFloat() - 0.5) / (float) coordinates.length;
+        }
+        opMode = Mode.HERMITIAN;
+      } else {
+        if (phaseAngles == null) phaseAngles = new short[dimension];
+        for (int d = 0; d < dimension; d++)
+          phaseAngles[d] = (short) random.nextInt(CircleLookupTable.PHASE_RESOLUTION);
+        opMode = Mode.POLAR_DENSE;
+        coordinates = null;
+      }
+      sparseOffsets = null;
+      return;
+    }
+
+    if (sparseOffsets == null || sparseOffsets.length != numEntries * 2) sparseOffsets = new short[numEntries * 2];
+    opMode = Mode.POLAR_SPARSE;
+    coordinates = null;
+    phaseAngles = null;
+    // Short seeds are checked for collisions against the entries already placed, which is
+    // cheaper than allocating and clearing an array the size of the dimension.
+    boolean[] occupiedPositions = numEntries > MAX_SCANNED_SEED_LENGTH
+        ? getOccupiedPositionsScratch(dimension) : null;
 
     int testPlace, entryCount = 0, offsetIdx;
     short randomPhaseAngle;
@@ -254,15 +310,24 @@ public class ComplexVector implements Vector {
     while (entryCount < numEntries) {
       testPlace = random.nextInt(dimension);
       randomPhaseAngle = (short) random.nextInt(CircleLookupTable.PHASE_RESOLUTION);
-      if (!occupiedPositions[testPlace]) {
+      boolean occupied = occupiedPositions == null
+          ? sparseOffsetsContain(entryCount, testPlace) : occupiedPositions[testPlace];
+      if (!occupied) {
+        if (occupiedPositions != null) occupiedPositions[testPlace] = true;
         offsetIdx = entryCount << 1;
-        occupiedPositions[testPlace] = true;
-        randomVector.sparseOffsets[offsetIdx] = (short) testPlace;
-        randomVector.sparseOffsets[offsetIdx + 1] = randomPhaseAngle;
+        sparseOffsets[offsetIdx] = (short) testPlace;
+        sparseOffsets[offsetIdx + 1] = randomPhaseAngle;
         entryCount++;
       }
     }
-    return randomVector;
+    if (occupiedPositions != null) Arrays.fill(occupiedPositions, 0, dimension, false);
+  }
+
+  private boolean sparseOffsetsContain(int numEntries, int position) {
+    for (int i = 0; i < numEntries; ++i) {
+      if (sparseOffsets[i << 1] == position) return true;
+    }
+    return false;
   }
 
   /**
@@ -811,20 +876,19 @@ public class ComplexVector implements Vector {
    */
   public void readFromString(String input) {
     toCartesian();  // Big assumption, renders some code below dormant.
-    String[] entries = input.split("\\|");
 
     switch (opMode) {
       case CARTESIAN:
-        if (entries.length != dimension * 2) {
-          throw new IllegalArgumentException("Found " + (entries.length) + " possible coordinates: "
+        float[] parsed = new float[dimension * 2];
+        int numEntries = StringUtils.parseFloats(input.toCharArray(), 0, input.length(), '|', parsed);
+        if (numEntries != dimension * 2) {
+          throw new IllegalArgumentException("Found " + numEntries + " possible coordinates: "
               + "expected " + dimension * 2);
         }
-        if (coordinates.length == 0) coordinates = new float[dimension];
-        for (int i = 0; i < coordinates.length; ++i) {
-          coordinates[i] = Float.parseFloat(entries[i]);
-        }
+        coordinates = parsed;
         break;
       case POLAR_DENSE:
+        String[] entries = input.split("\\|");
         if (entries.length != dimension) {
           throw new IllegalArgumentException("Found " + (entries.length) + " possible coordinates: "
               + "expected " + dimension);
@@ -133,6 +133,71 @@ public class ComplexVectorUtils {
     }
   }
 
+  /**
+   * Superposes vec with weight and permutation onto the cartesian coordinates of a vector
+   * stored from the given offset of an array, as {@link ComplexVector#superpose} would.
+   */
+  public static void superposeInto(
+      float[] coordinates, int offset, ComplexVector vec, float weight, int[] permutation) {
+    if (vec.isZeroVector()) return;
+    int dim = vec.getDimension();
+    switch (vec.getOpMode()) {
+      case HERMITIAN:
+      case CARTESIAN:
+        float[] coordinates2 = vec.getCoordinates();
+        for (int i = 0; i < dim; i++) {
+          int positionToAdd = offset + 2 * ((permutation == null) ? i : permutation[i]);
+          coordinates[positionToAdd] += coordinates2[2*i] * weight;
+          coordinates[positionToAdd + 1] += coordinates2[2*i + 1] * weight;
+        }
+        return;
+      case POLAR_SPARSE:
+        short[] offsets = vec.getSparseOffsets();
+        for (int i = 0; i < offsets.length; i += 2) {
+          int positionToAdd = offset + 2 * ((permutation == null) ? offsets[i] : permutation[offsets[i]]);
+          coordinates[positionToAdd] += CircleLookupTable.getRealEntry(offsets[i+1]) * weight;
+          coordinates[positionToAdd + 1] += CircleLookupTable.getImagEntry(offsets[i+1]) * weight;
+        }
+        return;
+      case POLAR_DENSE:
+        short[] c = vec.getPhaseAngles();
+        for (int i = 0; i < dim; i++) {
+          int positionToAdd = offset + 2 * ((permutation == null) ? i : permutation[i]);
+          coordinates[positionToAdd] += CircleLookupTable.getRealEntry(c[i]) * weight;
+          coordinates[positionToAdd + 1] += CircleLookupTable.getImagEntry(c[i]) * weight;
+        }
+        return;
+    }
+  }
+
+  /**
+   * Normalizes the cartesian coordinates of a vector of the given dimension stored from the
+   * given offset of an array, as {@link ComplexVector#normalize} followed by
+   * {@link ComplexVector#toCartesian} would. Zero vectors are left unchanged.
+   */
+  public static void normalizeInPlace(float[] coordinates, int offset, int dim) {
+    int end = offset + 2 * dim;
+    boolean isZero = true;
+    for (int i = offset; i < end && isZero; i++) isZero = coordinates[i] == 0;
+    if (isZero) return;
+
+    if (ComplexVector.getDominantMode() == Mode.HERMITIAN) {
+      float norm = 0;
+      for (int i = offset; i < end; i++)
+        norm += Math.pow(coordinates[i], 2);
+      norm = (float) Math.sqrt(norm);
+      for (int i = offset; i < end; i++)
+        coordinates[i] = coordinates[i] / norm;
+      return;
+    }
+    // Other modes normalize by rounding each element to a phase angle on the unit circle.
+    for (int i = offset; i < end; i += 2) {
+      short phaseAngle = CircleLookupTable.phaseAngleFromCartesianTrig(coordinates[i], coordinates[i+1]);
+      coordinates[i] = CircleLookupTable.getRealEntry(phaseAngle);
+      coordinates[i+1] = CircleLookupTable.getImagEntry(phaseAngle);
+    }
+  }
+
   /**
    * The orthogonalize function takes an array of vectors and
    * orthogonalizes them using the Gram-Schmidt process. The vectors
@@ -36,12 +36,14 @@
 package pitt.search.semanticvectors.vectors;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Random;
 import java.util.logging.Logger;
 
 import org.apache.lucene.store.IndexInput;
 import org.apache.lucene.store.IndexOutput;
 
+import pitt.search.semanticvectors.utils.StringUtils;
 import pitt.search.semanticvectors.vectors.ComplexVector.Mode;
 
 /**
@@ -94,16 +96,36 @@ public class RealVector implements Vector {
    */
   private float[] coordinates;
   /** 
-   * Sparse representation.  Coordinates can only be +/-1.  Array of short signed integers, 
-   * indices to the array locations where a +/-1 entry is located.
+   * Sparse representation.  Coordinates can only be +/-1.  Array of signed integers, 
+   * indices to the array locations where a +/-1 entry is located, each at most once.
+   * (Ints rather than shorts, so that dimensions above 32767 can be sparse.)
    * See also {@link #generateRandomVector}.
    */ 
-  private short[] sparseOffsets;
+  private int[] sparseOffsets;
   private boolean isSparse;
 
+  /** Largest seed length for which {@link #overwriteWithRandomVector} scans for collisions. */
+  private static final int MAX_SCANNED_SEED_LENGTH = 64;
+
+  /**
+   * Per-thread array used by {@link #overwriteWithRandomVector} to mark the positions of long
+   * seeds. All its entries are false between uses.
+   */
+  private static final ThreadLocal<boolean[]> occupiedPositionsScratch = new ThreadLocal<boolean[]>();
+
+  /** Returns this thread's array for marking occupied positions, with at least the given length. */
+  private static boolean[] getOccupiedPositionsScratch(int dimension) {
+    boolean[] occupiedPositions = occupiedPositionsScratch.get();
+    if (occupiedPositions == null || occupiedPositions.length < dimension) {
+      occupiedPositions = new boolean[dimension];
+      occupiedPositionsScratch.set(occupiedPositions);
+    }
+    return occupiedPositions;
+  }
+
   protected RealVector(int dimension) {
     this.dimension = dimension;
-    this.sparseOffsets = new short[0];
+    this.sparseOffsets = new int[0];
     this.isSparse = true;
   }
 
@@ -113,7 +135,7 @@ public class RealVector implements Vector {
   public RealVector copy() {
     if (isSparse) {
       RealVector copy = new RealVector(dimension);
-      copy.sparseOffsets = new short[sparseOffsets.length];
+      copy.sparseOffsets = new int[sparseOffsets.length];
       for (int i = 0; i < sparseOffsets.length; ++i) {
         copy.sparseOffsets[i] = sparseOffsets[i];
         }
@@ -132,7 +154,7 @@ public class RealVector implements Vector {
     // TODO(widdows): Add heap location?
     if (isSparse) {
       debugString.append("  Sparse.  Offsets are:\n");
-      for (short sparseOffset : sparseOffsets) debugString.append(sparseOffset + " ");
+      for (int sparseOffset : sparseOffsets) debugString.append(sparseOffset + " ");
       debugString.append("\n");
     } else {
       debugString.append("  Dense.  Coordinates are:\n");
@@ -185,42 +207,60 @@ public class RealVector implements Vector {
    * @return Sparse representation of basic ternary vector.
    */
   public RealVector generateRandomVector(int dimension, int seedLength, Random random) {
-    RealVector randomVector = new RealVector(dimension);
-
     //allow for dense random vectors, with each value initalized at random between -1 and 1
     if (seedLength == dimension)
       return generateDenseRandomVector(dimension, seedLength, random);
 
-    boolean[] occupiedPositions = new boolean[dimension];
-    randomVector.sparseOffsets = new short[seedLength];
+    RealVector randomVector = new RealVector(dimension);
+    randomVector.overwriteWithRandomVector(seedLength, random);
+    return randomVector;
+  }
+
+  /**
+   * Overwrites this vector with the vector that {@link #generateRandomVector} would return for
+   * the same seed length and random number generator state, reusing this vector's arrays when
+   * they are already the right size.
+   */
+  void overwriteWithRandomVector(int seedLength, Random random) {
+    if (seedLength == dimension) {
+      if (coordinates == null || coordinates.length != dimension) coordinates = new float[dimension];
+      for (int q = 0; q < dimension; q++)
+        coordinates[q] = (float) (random.nextFloat()-0.5) / (float) dimension;
+      isSparse = false;
+      return;
+    }
+
+    if (sparseOffsets == null || sparseOffsets.length != seedLength) sparseOffsets = new int[seedLength];
+    isSparse = true;
+    // Short seeds are checked for collisions against the entries already placed, which is
+    // cheaper than allocating and clearing an array the size of the dimension.
+    boolean[] occupiedPositions = seedLength > MAX_SCANNED_SEED_LENGTH
+        ? getOccupiedPositionsScratch(dimension) : null;
 
     int testPlace, entryCount = 0;
 
-    // Put in +1 entries.
-    while (entryCount < seedLength / 2) {
+    // Put in +1 entries, then -1 entries.
+    while (entryCount < seedLength) {
       testPlace = random.nextInt(dimension);
-      if (!occupiedPositions[testPlace]) {
-        occupiedPositions[testPlace] = true;
-        randomVector.sparseOffsets[entryCount] =
-            new Integer(testPlace + 1).shortValue();
+      boolean occupied = occupiedPositions == null
+          ? sparseOffsetsContain(entryCount, testPlace) : occupiedPositions[testPlace];
+      if (!occupied) {
+        if (occupiedPositions != null) occupiedPositions[testPlace] = true;
+        sparseOffsets[entryCount] = entryCount < seedLength / 2 ? testPlace + 1 : -(testPlace + 1);
         entryCount++;
       }
     }
-
-    // Put in -1 entries.
-    while (entryCount < seedLength) {
-      testPlace = random.nextInt (dimension);
-      if (!occupiedPositions[testPlace]) {
-        occupiedPositions[testPlace] = true;
-        randomVector.sparseOffsets[entryCount] =
-            new Integer((1 + testPlace) * -1).shortValue();
-        entryCount++;
-      }
+    if (occupiedPositions != null) {
+      for (int i = 0; i < seedLength; ++i) occupiedPositions[Math.abs(sparseOffsets[i]) - 1] = false;
     }
-
-    return randomVector;
   }
 
+  private boolean sparseOffsetsContain(int numEntries, int position) {
+    for (int i = 0; i < numEntries; ++i) {
+      if (Math.abs(sparseOffsets[i]) - 1 == position) return true;
+    }
+    return false;
+  }
 
   /**
    * Generates a basic dense vector
@@ -245,66 +285,174 @@ public class RealVector implements Vector {
   /**
    * Measures overlap of two vectors using cosine similarity.
    * 
-   * Causes this and other vector to be converted to dense representation.
+   * Sparse vectors are read in place, so neither vector's representation is changed.
    */
   public double measureOverlap(Vector other) {
     IncompatibleVectorsException.checkVectorsCompatible(this, other);
     if (isZeroVector()) return 0;
     RealVector realOther = (RealVector) other;
     if (realOther.isZeroVector()) return 0;
-    if (isSparse) {
-      sparseToDense();
+    if (!isSparse && !realOther.isSparse) {
+      double result = 0;
+      double norm1 = 0;
+      double norm2 = 0;
+      for (int i = 0; i < dimension; ++i) {
+        result += coordinates[i] * realOther.coordinates[i];
+        norm1 += coordinates[i] * coordinates[i];
+        norm2 += realOther.coordinates[i] * realOther.coordinates[i];
+      }
+      return result / Math.sqrt(norm1 * norm2);
     }
-    if (realOther.isSparse) {
-      realOther.sparseToDense();
+    return dotProduct(realOther) / Math.sqrt(normSquared() * realOther.normSquared());
+  }
+
+  /**
+   * Returns the dot product of this vector and the other, reading sparse vectors in place.
+   */
+  double dotProduct(RealVector other) {
+    if (isSparse && other.isSparse) {
+      return sparseDotProduct(sparseOffsets, other.sparseOffsets);
+    } else if (isSparse) {
+      return other.denseDotProduct(sparseOffsets);
+    } else if (other.isSparse) {
+      return denseDotProduct(other.sparseOffsets);
     }
     double result = 0;
-    double norm1 = 0;
-    double norm2 = 0;
     for (int i = 0; i < dimension; ++i) {
-      result += coordinates[i] * realOther.coordinates[i];
-      norm1 += coordinates[i] * coordinates[i];
-      norm2 += realOther.coordinates[i] * realOther.coordinates[i];
+      result += coordinates[i] * other.coordinates[i];
     }
-    return result / Math.sqrt(norm1 * norm2);
+    return result;
+  }
+
+  /** Returns the sum of the squares of the coordinates. */
+  private double normSquared() {
+    if (isSparse) return sparseOffsets.length;
+    double result = 0;
+    for (float coordinate : coordinates) {
+      result += coordinate * coordinate;
+    }
+    return result;
+  }
+
+  /** Returns the dot product of this dense vector and the sparse vector with the given offsets. */
+  private double denseDotProduct(int[] offsets) {
+    double result = 0;
+    for (int offset : offsets) {
+      result += Integer.signum(offset) * coordinates[Math.abs(offset) - 1];
+    }
+    return result;
+  }
+
+  /**
+   * Returns the dot product of two sparse vectors. Short seeds are compared pairwise; longer ones
+   * are sorted by position and merged.
+   */
+  private static double sparseDotProduct(int[] offsets1, int[] offsets2) {
+    int result = 0;
+    if (offsets1.length * (long) offsets2.length <= MAX_SCANNED_SEED_LENGTH * MAX_SCANNED_SEED_LENGTH) {
+      for (int offset1 : offsets1) {
+        for (int offset2 : offsets2) {
+          if (Math.abs(offset1) == Math.abs(offset2)) result += Integer.signum(offset1) * Integer.signum(offset2);
+        }
+      }
+      return result;
+    }
+    long[] sorted1 = sortedByPosition(offsets1);
+    long[] sorted2 = sortedByPosition(offsets2);
+    int i = 0, j = 0;
+    while (i < sorted1.length && j < sorted2.length) {
+      long position1 = sorted1[i] >> 1;
+      long position2 = sorted2[j] >> 1;
+      if (position1 < position2) {
+        ++i;
+      } else if (position1 > position2) {
+        ++j;
+      } else {
+        result += ((sorted1[i] ^ sorted2[j]) & 1) == 0 ? 1 : -1;
+        ++i;
+        ++j;
+      }
+    }
+    return result;
+  }
+
+  /** Returns the offsets as sorted positions, each shifted left with its sign (1 for minus) in the low bit. */
+  private static long[] sortedByPosition(int[] offsets) {
+    long[] sorted = new long[offsets.length];
+    for (int i = 0; i < offsets.length; ++i) {
+      sorted[i] = ((long) Math.abs(offsets[i]) << 1) | (offsets[i] < 0 ? 1 : 0);
+    }
+    Arrays.sort(sorted);
+    return sorted;
   }
 
   @Override
   /**
    * Adds the other vector to this one.  This vector is cast to dense format; other vector is
-   * left in sparse format if originally sparse.
+   * read in place and left in sparse format if originally sparse.
    */
   public void superpose(Vector other, double weight, int[] permutation) {
     IncompatibleVectorsException.checkVectorsCompatible(this, other);
     RealVector realOther = (RealVector) other;
 
     if (isSparse) sparseToDense();
-    if (realOther.isSparse) {
-      for (int i = 0; i < realOther.sparseOffsets.length; ++i) {
-        int entry = Integer.signum(realOther.sparseOffsets[i]);
-        int positionToAdd = Math.abs(realOther.sparseOffsets[i]) - 1;
-        if (permutation != null) {
-          positionToAdd = permutation[positionToAdd];
-        }
-        coordinates[positionToAdd] += entry * weight;
+    if (!realOther.isSparse) {
+      float[] otherCoordinates = realOther.coordinates;
+      for (int i = 0; i < dimension; ++i) {
+        if (Float.isNaN(otherCoordinates[i])) return;
+      }
+    }
+    addPermuted(realOther, weight, permutation);
+  }
+
+  /**
+   * Adds weight times the source vector to this vector, with coordinate i of the source added to
+   * coordinate permutation[i] of this vector, or to coordinate i if the permutation is null.
+   * The source is read in place, sparse or dense. Unlike {@link #superpose}, NaN coordinates
+   * in the source are added like any others.
+   */
+  void addPermuted(RealVector source, double weight, int[] permutation) {
+    if (isSparse) sparseToDense();
+    float[] target = coordinates;
+    if (source.isSparse) {
+      int[] offsets = source.sparseOffsets;
+      for (int i = 0; i < offsets.length; ++i) {
+        int position = Math.abs(offsets[i]) - 1;
+        if (permutation != null) position = permutation[position];
+        target[position] += Integer.signum(offsets[i]) * weight;
+      }
+    } else if (permutation == null) {
+      float[] sourceCoordinates = source.coordinates;
+      for (int i = 0; i < dimension; ++i) {
+        target[i] += sourceCoordinates[i] * weight;
       }
     } else {
-      boolean anyNans = false;
+      float[] sourceCoordinates = source.coordinates;
       for (int i = 0; i < dimension; ++i) {
-        if (Float.isNaN(realOther.coordinates[i])) {
-          anyNans = true;
-          break;
-        }
+        target[permutation[i]] += sourceCoordinates[i] * weight;
+      }
+    }
+  }
+
+  /**
+   * Returns the sum over i of coordinate permutation[i] of this vector times coordinate i of the
+   * other vector, reading the other vector in place whether it is sparse or dense.
+   */
+  double permutedDotProduct(RealVector other, int[] permutation) {
+    float[] thisCoordinates = getCoordinates();
+    double result = 0;
+    if (other.isSparse) {
+      int[] offsets = other.sparseOffsets;
+      for (int i = 0; i < offsets.length; ++i) {
+        result += Integer.signum(offsets[i]) * thisCoordinates[permutation[Math.abs(offsets[i]) - 1]];
       }
-      if (anyNans) return;
+    } else {
+      float[] otherCoordinates = other.coordinates;
       for (int i = 0; i < dimension; ++i) {
-        int positionToAdd = i;
-        if (permutation != null) {
-          positionToAdd = permutation[positionToAdd];
-        }
-        coordinates[positionToAdd] += realOther.coordinates[i] * weight;
+        result += thisCoordinates[permutation[i]] * otherCoordinates[i];
       }
     }
+    return result;
   }
 
   @Override
@@ -347,6 +495,39 @@ public class RealVector implements Vector {
     }
   }
     
+  /**
+   * Binds this vector with the vector whose transform is given, giving the same result as
+   * {@link #bind(Vector)} with that vector when {@link #BIND_METHOD} is
+   * {@link RealBindMethod#CONVOLUTION} or {@link RealBindMethod#NORMALIZEDCONVOLUTION}.
+   *
+   * @throws IllegalStateException if {@link #BIND_METHOD} is {@link RealBindMethod#PERMUTATION}
+   */
+  public void bind(RealVectorSpectrum other) {
+    if (BIND_METHOD == RealBindMethod.PERMUTATION) {
+      throw new IllegalStateException("Cannot bind with a transform using " + BIND_METHOD);
+    }
+    if (isSparse) sparseToDense();
+    RealVector result = RealVectorUtils.fftConvolution(other, this);
+    // Convolution is bilinear, so normalizing the inputs first only changes the result's length.
+    if (BIND_METHOD == RealBindMethod.NORMALIZEDCONVOLUTION) result.normalize();
+    this.coordinates = result.coordinates;
+  }
+
+  /**
+   * Releases the vector whose transform is given from this vector, giving the same result as
+   * {@link #release(Vector)} with that vector when {@link #BIND_METHOD} is
+   * {@link RealBindMethod#CONVOLUTION} or {@link RealBindMethod#NORMALIZEDCONVOLUTION}.
+   *
+   * @throws IllegalStateException if {@link #BIND_METHOD} is {@link RealBindMethod#PERMUTATION}
+   */
+  public void release(RealVectorSpectrum other) {
+    if (BIND_METHOD == RealBindMethod.PERMUTATION) {
+      throw new IllegalStateException("Cannot release with a transform using " + BIND_METHOD);
+    }
+    if (isSparse) sparseToDense();
+    this.coordinates = RealVectorUtils.fftApproxInvConvolution(other, this).coordinates;
+  }
+
   public void bindWithConvolution(RealVector realOther, boolean normalizeFirst) {
     RealVector result = null;
     	if (normalizeFirst) result = RealVectorUtils.normalizedConvolution(this, realOther); 
@@ -494,19 +675,15 @@ public class RealVector implements Vector {
    * Writes vector from a string of the form x1|x2|x3| ... where the x's are the coordinates.
    */
   public void readFromString(String input) {
-    String[] entries = input.split("\\|");
-    if (entries.length != dimension) {
-      throw new IllegalArgumentException("Found " + (entries.length) + " possible coordinates: "
+    float[] parsed = new float[dimension];
+    int numEntries = StringUtils.parseFloats(input.toCharArray(), 0, input.length(), '|', parsed);
+    if (numEntries != dimension) {
+      throw new IllegalArgumentException("Found " + numEntries + " possible coordinates: "
           + "expected " + dimension);
     }
-    if (isSparse) {
-      coordinates = new float[dimension];
-      sparseOffsets = null;
-      isSparse = false;
-    }
-    for (int i = 0; i < dimension; ++i) {
-      coordinates[i] = Float.parseFloat(entries[i]);
-    }
+    coordinates = parsed;
+    sparseOffsets = null;
+    isSparse = false;
   }
 
   /**
@@ -531,6 +708,21 @@ public class RealVector implements Vector {
     isSparse = false;
   }
 
+  /**
+   * Writes the dense coordinates of this vector to the target array, which must have length
+   * {@link #getDimension}, without converting a sparse vector to dense.
+   */
+  void copyCoordinatesTo(float[] target) {
+    if (isSparse) {
+      Arrays.fill(target, 0);
+      for (int i = 0; i < sparseOffsets.length; ++i) {
+        target[Math.abs(sparseOffsets[i]) - 1] = Math.signum(sparseOffsets[i]);
+      }
+    } else {
+      System.arraycopy(coordinates, 0, target, 0, dimension);
+    }
+  }
+
   /**
    * Available to support access to coordinates for legacy operations.  Try not to use in new code!
    */
@@ -556,13 +748,31 @@ public class RealVector implements Vector {
    *  Available for testing and copying.  Try not to use in new code!
    */
   public RealVector(int dimension, short[] sparseOffsets) {
+    this(dimension, toIntOffsets(sparseOffsets));
+  }
+
+  /**
+   *  Available for testing and copying.  Try not to use in new code!
+   */
+  public RealVector(int dimension, int[] sparseOffsets) {
     this.isSparse = true;
     this.dimension = dimension;
-    for (Short offset : sparseOffsets) {
+    for (int offset : sparseOffsets) {
       if ((offset == 0) || (offset > dimension) || (offset < -1 * dimension)) {
         throw new IllegalArgumentException("Offsets too large for dimension!");
       }
     }
     this.sparseOffsets = sparseOffsets;
   }
+
+  private static int[] toIntOffsets(short[] sparseOffsets) {
+    int[] offsets = new int[sparseOffsets.length];
+    for (int i = 0; i < sparseOffsets.length; ++i) offsets[i] = sparseOffsets[i];
+    return offsets;
+  }
+
+  /** Returns true if this vector is in the sparse +/-1 representation. */
+  boolean isSparse() {
+    return isSparse;
+  }
 }
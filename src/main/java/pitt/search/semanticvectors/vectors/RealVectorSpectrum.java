@@ -0,0 +1,67 @@
+/**
+   Copyright (c) 2026, the SemanticVectors AUTHORS.
+
+   All rights reserved.
+
+   Redistribution and use in source and binary forms, with or without
+   modification, are permitted provided that the following conditions are
+   met:
+
+   * Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+   * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the following
+   disclaimer in the documentation and/or other materials provided
+   with the distribution.
+
+   * Neither the name of the University of Pittsburgh nor the names
+   of its contributors may be used to endorse or promote products
+   derived from this software without specific prior written
+   permission.
+
+   THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+   "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+   LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+   A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+   CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+   EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+   PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+   PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+   LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+   NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+   SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+**/
+
+package pitt.search.semanticvectors.vectors;
+
+/**
+ * The discrete Fourier transform of a {@link RealVector}, for binding many vectors with the same
+ * vector by circular convolution. {@link RealVectorUtils#fftConvolution(RealVector, RealVector)}
+ * transforms both of its inputs, so computing the transform of a vector that is used again and
+ * again (e.g., a predicate vector in {@link pitt.search.semanticvectors.PSI}) once and passing it to
+ * {@link RealVector#bind(RealVectorSpectrum)} saves one of the two forward transforms in each bind.
+ * <p>
+ * The transform doesn't follow later changes to the vector it was computed from.
+ */
+public class RealVectorSpectrum {
+  private final int dimension;
+  /** The transform, in the packed layout used by {@link RealVectorUtils#multiplyTransforms}. */
+  private final float[] transform;
+
+  /** Computes the transform of the given vector. */
+  public RealVectorSpectrum(RealVector vector) {
+    this.dimension = vector.getDimension();
+    this.transform = new float[dimension];
+    vector.copyCoordinatesTo(transform);
+    RealVectorUtils.getFftPlan(dimension).fft.realForward(transform);
+  }
+
+  public int getDimension() {
+    return dimension;
+  }
+
+  float[] getTransform() {
+    return transform;
+  }
+}
@@ -38,9 +38,7 @@ package pitt.search.semanticvectors.vectors;
 import java.util.List;
 import java.util.logging.Logger;
 
-import cern.colt.matrix.tfcomplex.impl.DenseFComplexMatrix1D;
-import cern.colt.matrix.tfloat.impl.DenseFloatMatrix1D;
-import cern.jet.math.tfcomplex.FComplex;
+import edu.emory.mathcs.jtransforms.fft.FloatFFT_1D;
 
 public class RealVectorUtils {
   private static final Logger logger = Logger.getLogger(RealVectorUtils.class.getCanonicalName());
@@ -80,6 +78,64 @@ public class RealVectorUtils {
     return true;
   }
   
+  /**
+   * FFT plan and scratch space for one dimension, kept for each thread by {@link #getFftPlan}
+   * so that repeated convolutions don't recompute the transform's tables or allocate buffers.
+   */
+  static final class FftPlan {
+    final int dimension;
+    final FloatFFT_1D fft;
+    final float[] scratch;
+
+    private FftPlan(int dimension) {
+      this.dimension = dimension;
+      this.fft = new FloatFFT_1D(dimension);
+      this.scratch = new float[dimension];
+    }
+  }
+
+  private static final ThreadLocal<FftPlan> fftPlans = new ThreadLocal<FftPlan>();
+
+  /** Returns this thread's FFT plan for the given dimension, creating it if needed. */
+  static FftPlan getFftPlan(int dimension) {
+    FftPlan plan = fftPlans.get();
+    if (plan == null || plan.dimension != dimension) {
+      plan = new FftPlan(dimension);
+      fftPlans.set(plan);
+    }
+    return plan;
+  }
+
+  /**
+   * Multiplies each frequency of {@code target} by the same frequency of {@code factor}, or by its
+   * complex conjugate. Both are in the packed layout written by {@link FloatFFT_1D#realForward},
+   * where the real parts of frequency 0 and, for even dimensions, of frequency n/2 are at 0 and 1,
+   * and for odd dimensions the last frequency has its real part at n-1 and imaginary part at 1.
+   */
+  static void multiplyTransforms(float[] target, float[] factor, boolean conjugateFactor) {
+    int dimension = target.length;
+    float sign = conjugateFactor ? -1 : 1;
+    target[0] *= factor[0];
+    if (dimension == 1) return;
+    int pairsEnd = dimension;
+    if (dimension % 2 == 0) {
+      target[1] *= factor[1];
+    } else {
+      multiplyComplex(target, dimension - 1, 1, factor[dimension - 1], sign * factor[1]);
+      pairsEnd = dimension - 1;
+    }
+    for (int i = 2; i < pairsEnd; i += 2) {
+      multiplyComplex(target, i, i + 1, factor[i], sign * factor[i + 1]);
+    }
+  }
+
+  private static void multiplyComplex(float[] target, int realIndex, int imagIndex, float real, float imag) {
+    float targetReal = target[realIndex];
+    float targetImag = target[imagIndex];
+    target[realIndex] = targetReal * real - targetImag * imag;
+    target[imagIndex] = targetReal * imag + targetImag * real;
+  }
+
   /**
    * Returns the circular convolution of the two input vectors.
    * 
@@ -87,24 +143,40 @@ public class RealVectorUtils {
    */
   public static RealVector fftConvolution(RealVector first, RealVector second) {
     IncompatibleVectorsException.checkVectorsCompatible(first, second);
-    DenseFloatMatrix1D coltVec1 = new DenseFloatMatrix1D(first.getCoordinates());
-    DenseFloatMatrix1D coltVec2 = new DenseFloatMatrix1D(second.getCoordinates());
-    int dimension = first.getDimension();
-
-    
-    DenseFComplexMatrix1D fft1 = coltVec1.getFft();
-    DenseFComplexMatrix1D fft2 = coltVec2.getFft();
+    FftPlan plan = getFftPlan(first.getDimension());
+    first.copyCoordinatesTo(plan.scratch);
+    plan.fft.realForward(plan.scratch);
+    return fftConvolution(plan, plan.scratch, false, second);
+  }
 
-    for (int i = 0; i < dimension; i++ ) {
-      fft1.setQuick(i, FComplex.mult(fft1.getQuick(i), fft2.getQuick(i)));
-    }
+  /**
+   * Returns the circular convolution of a vector with the vector whose transform is given,
+   * which takes one forward transform instead of two.
+   */
+  public static RealVector fftConvolution(RealVectorSpectrum first, RealVector second) {
+    checkDimensions(first, second);
+    return fftConvolution(getFftPlan(second.getDimension()), first.getTransform(), false, second);
+  }
 
-    fft1.ifft(true);
+  /**
+   * Returns the inverse transform of the product of a transform, or its complex conjugate,
+   * with the transform of the second vector, in a newly allocated vector.
+   */
+  private static RealVector fftConvolution(FftPlan plan, float[] firstTransform, boolean conjugateFirst,
+      RealVector second) {
+    float[] coordinates = new float[plan.dimension];
+    second.copyCoordinatesTo(coordinates);
+    plan.fft.realForward(coordinates);
+    multiplyTransforms(coordinates, firstTransform, conjugateFirst);
+    plan.fft.realInverse(coordinates, true);
+    return new RealVector(coordinates);
+  }
 
-    DenseFloatMatrix1D coltResult = ((DenseFloatMatrix1D)(fft1.getRealPart()));
-    float[] coordinates = coltResult.elements();
-    RealVector result = new RealVector(coordinates);
-    return result;
+  private static void checkDimensions(RealVectorSpectrum spectrum, RealVector vector) {
+    if (spectrum.getDimension() != vector.getDimension()) {
+      throw new IncompatibleVectorsException("Transform has dimension " + spectrum.getDimension()
+          + " but vector has dimension " + vector.getDimension());
+    }
   }
   
   /**
@@ -114,13 +186,8 @@ public class RealVectorUtils {
    * product rather than cosine similarity for {@link RealVector#measureOverlap(Vector)}.)
    */
   public static RealVector normalizedConvolution(RealVector first, RealVector second) {
-    
-	RealVector first2 = first.copy();
-	RealVector second2 = second.copy();
-	
-	first2.normalize();
-    second2.normalize();
-    RealVector convolution = fftConvolution(first2, second2);
+    // Convolution is bilinear, so normalizing the inputs first would only change the result's length.
+    RealVector convolution = fftConvolution(first, second);
     convolution.normalize();
     return convolution;
   }
@@ -162,9 +229,26 @@ public class RealVectorUtils {
    * Returns the approximate inverse convolution, the circular correlation.
    * Only expected to be an approximate inverse in high dimensions.
    *
+   * This is the convolution of the {@link #getInvolution} of the first vector with the second,
+   * computed using the complex conjugate of the first vector's transform, which is the
+   * transform of its involution.
+   *
    * See Plate, Holographic Reduced Representations, Section 3.1.3
    */
   public static RealVector fftApproxInvConvolution(RealVector first, RealVector second) {
-    return fftConvolution(getInvolution(first), second);
+    IncompatibleVectorsException.checkVectorsCompatible(first, second);
+    FftPlan plan = getFftPlan(first.getDimension());
+    first.copyCoordinatesTo(plan.scratch);
+    plan.fft.realForward(plan.scratch);
+    return fftConvolution(plan, plan.scratch, true, second);
+  }
+
+  /**
+   * Returns the circular correlation of the vector whose transform is given with the second vector,
+   * as in {@link #fftApproxInvConvolution(RealVector, RealVector)}.
+   */
+  public static RealVector fftApproxInvConvolution(RealVectorSpectrum first, RealVector second) {
+    checkDimensions(first, second);
+    return fftConvolution(getFftPlan(second.getDimension()), first.getTransform(), true, second);
   }
 }
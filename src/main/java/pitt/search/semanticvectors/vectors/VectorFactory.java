@@ -37,6 +37,8 @@ package pitt.search.semanticvectors.vectors;
 
 import java.util.Random;
 
+import org.apache.lucene.util.FixedBitSet;
+
 import pitt.search.semanticvectors.vectors.ComplexVector.Mode;
 
 /**
@@ -107,6 +109,70 @@ public class VectorFactory {
     }
   }
 
+  /**
+   * Generates the same random vector as {@link #generateRandomVector(VectorType, int, int, Random)},
+   * but overwrites and returns {@code scratch} instead of allocating a new vector when it is a
+   * vector of the same type and dimension. Callers that only read each generated vector briefly,
+   * such as training loops that superpose elemental vectors, can reuse one scratch vector per
+   * thread instead of creating garbage for every lookup.
+   *
+   * @param scratch vector to overwrite, or null to allocate a new vector
+   */
+  public static Vector generateRandomVector(
+      VectorType type, int dimension, int numEntries, Random random, Vector scratch) {
+    if (scratch == null || scratch.getDimension() != dimension) {
+      return generateRandomVector(type, dimension, numEntries, random);
+    }
+    switch (type) {
+    case BINARY:
+      if (!(scratch instanceof BinaryVector)) break;
+      ((BinaryVector) scratch).overwriteWithRandomVector(numEntries, random);
+      return scratch;
+    case REAL:
+      if (!(scratch instanceof RealVector) || 2 * numEntries > dimension && numEntries != dimension) break;
+      ((RealVector) scratch).overwriteWithRandomVector(numEntries, random);
+      return scratch;
+    case COMPLEX:
+    case COMPLEXFLAT:
+      if (!(scratch instanceof ComplexVector)) break;
+      if (type == VectorType.COMPLEXFLAT) ComplexVector.setDominantMode(Mode.CARTESIAN);
+      else if (!ComplexVector.getDominantMode().equals(Mode.HERMITIAN))
+        ComplexVector.setDominantMode(Mode.POLAR_DENSE);
+      ((ComplexVector) scratch).overwriteWithRandomVector(numEntries, random);
+      return scratch;
+    default:
+      break;
+    }
+    return generateRandomVector(type, dimension, numEntries, random);
+  }
+
+  /**
+   * Returns a dense vector that uses the given coordinates without copying them, laid out
+   * as in {@link Vector#writeToLuceneStream}: for {@link VectorType#COMPLEX} and
+   * {@link VectorType#COMPLEXFLAT} these are cartesian (real, imaginary) pairs.
+   */
+  public static Vector createDenseVector(VectorType type, float[] coordinates) {
+    switch (type) {
+      case REAL:
+        return new RealVector(coordinates);
+      case COMPLEX:
+      case COMPLEXFLAT:
+        return new ComplexVector(coordinates);
+      default:
+        throw new IllegalArgumentException("Cannot create dense float vector of type: " + type);
+    }
+  }
+
+  /**
+   * Returns a binary vector that uses the given words as its bits without copying them.
+   * As with vectors read by {@link BinaryVector#readFromLuceneStream}, the result has no voting record.
+   */
+  public static BinaryVector createBinaryVector(long[] bits, int dimension) {
+    BinaryVector vector = new BinaryVector(dimension);
+    vector.bitSet = new FixedBitSet(bits, dimension);
+    return vector;
+  }
+
   /**
    * Returns the size in bytes expected to be taken up by the serialization
    * of this vector in Lucene format.
@@ -199,6 +199,9 @@ public class VectorUtils {
 
     switch (v1.getVectorType()) {
       case REAL:
+        // Sparse elemental vectors are read in place rather than copied to dense arrays.
+        if (((RealVector) v1).isSparse() || ((RealVector) v2).isSparse())
+          return ((RealVector) v1).dotProduct((RealVector) v2);
         return blas.sdot(v1.getDimension(), ((RealVector) v1).getCoordinates(), 1, ((RealVector) v2).getCoordinates(), 1);
       case COMPLEX: //hermitian scalar product
         return blas.sdot(v1.getDimension()*2, ((ComplexVector) v1).getCoordinates(), 1, ((ComplexVector) v2).getCoordinates(), 1);
@@ -225,15 +228,14 @@ public class VectorUtils {
 	  if (!v1.getVectorType().equals(v2.getVectorType()) || !v1.getVectorType().equals(VectorType.REAL))
       throw new IncompatibleVectorsException();
     
-	   	double score = 0;
-    
-    	  for (int q=0; q < v1.getDimension(); q++)
-    		  score += ((RealVector) v1).getCoordinates()[permutations[q]] * 
-    				  ((RealVector) v2).getCoordinates()[q];
-  		
-       return score;
+	  // Reads both vectors in place, rather than through getCoordinates for each dimension.
+	  return ((RealVector) v1).permutedDotProduct((RealVector) v2, permutations);
      }
  
+  /**
+   * Adds weight times toBeAdded to toBeAltered, with dimension q of toBeAdded added to dimension
+   * permutation[q] of toBeAltered, reading toBeAdded in place without a temporary vector.
+   */
   public static void superposeInPlace(Vector toBeAdded, Vector toBeAltered, FlagConfig flagConfig, BLAS blas, double weight, int[] permutation) throws IncompatibleVectorsException {
 	    
 	  if (permutation == null)
@@ -244,10 +246,7 @@ public class VectorUtils {
 	  if (!toBeAdded.getVectorType().equals(toBeAltered.getVectorType()) || !toBeAdded.getVectorType().equals(VectorType.REAL))
 	        throw new IncompatibleVectorsException();
 	      
-	  	     for (int q=0; q < toBeAdded.getDimension(); q++)
-	  	    	 ((RealVector) toBeAltered).getCoordinates()[permutation[q]]
-	  	    			 +=  ((RealVector) toBeAdded).getCoordinates()[q]*weight;
-	      		
+	  	     ((RealVector) toBeAltered).addPermuted((RealVector) toBeAdded, weight, permutation);
 	       }
   }
   
@@ -268,7 +267,10 @@ public class VectorUtils {
 
     switch (toBeAdded.getVectorType()) {
       case REAL:
-        blas.saxpy(flagConfig.dimension(), (float) weight, ((RealVector) toBeAdded).getCoordinates(), 1, ((RealVector) toBeAltered).getCoordinates(), 1);
+        if (((RealVector) toBeAdded).isSparse() || ((RealVector) toBeAltered).isSparse())
+          ((RealVector) toBeAltered).addPermuted((RealVector) toBeAdded, weight, null);
+        else
+          blas.saxpy(flagConfig.dimension(), (float) weight, ((RealVector) toBeAdded).getCoordinates(), 1, ((RealVector) toBeAltered).getCoordinates(), 1);
         break;
       case COMPLEX:
         blas.saxpy(flagConfig.dimension()*2, (float) weight, ((ComplexVector) toBeAdded).getCoordinates(), 1, ((ComplexVector) toBeAltered).getCoordinates(), 1);
@@ -0,0 +1,135 @@
+/**
+   Copyright (c) 2026, the SemanticVectors AUTHORS.
+
+   All rights reserved.
+
+   Redistribution and use in source and binary forms, with or without
+   modification, are permitted provided that the following conditions are
+   met:
+
+   * Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+   * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the following
+   disclaimer in the documentation and/or other materials provided
+   with the distribution.
+
+   * Neither the name of the University of Pittsburgh nor the names
+   of its contributors may be used to endorse or promote products
+   derived from this software without specific prior written
+   permission.
+
+   THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+   "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+   LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+   A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+   CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+   EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+   PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+   PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+   LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+   NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+   SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+**/
+
+package pitt.search.semanticvectors;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+import pitt.search.semanticvectors.vectors.RealVector;
+import pitt.search.semanticvectors.vectors.Vector;
+
+public class CachingVectorStoreTest extends TestCase {
+
+  private static String writeTestStore(FlagConfig flagConfig) throws IOException {
+    File tmpDir = Files.createTempDirectory("cachingvectorstore").toFile();
+    String vectorFileName = new File(tmpDir, "realvectors.bin").getPath();
+    VectorStoreRAM store = new VectorStoreRAM(flagConfig);
+    store.putVector("isaac", new RealVector(new float[] {1, 0}));
+    store.putVector("abraham", new RealVector(new float[] {0.7f, 0.7f}));
+    store.putVector("jacob", new RealVector(new float[] {0, 1}));
+    VectorStoreWriter.writeVectorsInLuceneFormat(vectorFileName, flagConfig, store);
+    return vectorFileName;
+  }
+
+  @Test
+  public void testCachesLookups() throws IOException {
+    FlagConfig flagConfig = FlagConfig.getFlagConfig(new String[] {"-vectortype", "real", "-dimension", "2"});
+    String vectorFileName = writeTestStore(flagConfig);
+    CachingVectorStore store = new CachingVectorStore(
+        new VectorStoreReaderLucene(vectorFileName, flagConfig), 1024 * 1024);
+
+    Vector abraham = store.getVector("abraham");
+    assertEquals(0.707106f, abraham.measureOverlap(new RealVector(new float[] {1, 0})), 0.0001);
+    // Changing a vector that was looked up doesn't change the cached vector.
+    abraham.superpose(new RealVector(new float[] {0, 1}), 1, null);
+    Vector abrahamAgain = store.getVector("abraham");
+    assertNotSame(abraham, abrahamAgain);
+    assertEquals(0.707106f, abrahamAgain.measureOverlap(new RealVector(new float[] {1, 0})), 0.0001);
+    assertNull(store.getVector("esau"));
+    assertTrue(store.containsVector("jacob"));
+    assertFalse(store.containsVector("esau"));
+    assertEquals(3, store.getNumVectors());
+
+    VectorCache cache = store.getVectorCache();
+    assertEquals(1, cache.getHits());
+    assertEquals(2, cache.getMisses());
+    assertEquals(1, cache.size());
+    store.close();
+  }
+
+  @Test
+  public void testSharedStoresOutliveClose() throws IOException {
+    FlagConfig flagConfig = FlagConfig.getFlagConfig(
+        new String[] {"-vectortype", "real", "-dimension", "2", "-querycachemb", "1"});
+    String vectorFileName = writeTestStore(flagConfig);
+    CachingVectorStore store = CachingVectorStore.openSharedVectorStore(vectorFileName, flagConfig);
+    Vector isaac = store.getVector("isaac");
+    store.close();
+
+    CachingVectorStore sameStore = CachingVectorStore.openSharedVectorStore(vectorFileName, flagConfig);
+    assertSame(store, sameStore);
+    assertEquals(1, isaac.measureOverlap(sameStore.getVector("isaac")), 0.0001);
+    assertEquals(1, sameStore.getVectorCache().getHits());
+    assertNotNull(sameStore.getVector("jacob"));
+
+    CachingVectorStore.closeSharedVectorStores();
+    assertNotSame(store, CachingVectorStore.openSharedVectorStore(vectorFileName, flagConfig));
+    CachingVectorStore.closeSharedVectorStores();
+  }
+
+  @Test
+  public void testSharedStoreIsReopenedWhenFileChanges() throws IOException {
+    FlagConfig flagConfig = FlagConfig.getFlagConfig(
+        new String[] {"-vectortype", "real", "-dimension", "2", "-querycachemb", "1"});
+    String vectorFileName = writeTestStore(flagConfig);
+    CachingVectorStore store = CachingVectorStore.openSharedVectorStore(vectorFileName, flagConfig);
+    assertEquals(3, store.getNumVectors());
+
+    File vectorFile = new File(vectorFileName);
+    long lastModified = vectorFile.lastModified();
+    VectorStoreRAM newStore = new VectorStoreRAM(flagConfig);
+    newStore.putVector("esau", new RealVector(new float[] {1, 0}));
+    VectorStoreWriter.writeVectorsInLuceneFormat(vectorFileName, flagConfig, newStore);
+    vectorFile.setLastModified(lastModified + 2000);
+
+    CachingVectorStore newSharedStore = CachingVectorStore.openSharedVectorStore(vectorFileName, flagConfig);
+    assertNotSame(store, newSharedStore);
+    assertEquals(1, newSharedStore.getNumVectors());
+    assertNotNull(newSharedStore.getVector("esau"));
+    assertSame(newSharedStore, CachingVectorStore.openSharedVectorStore(vectorFileName, flagConfig));
+
+    // The replaced store stays open for the caller still using it.
+    assertEquals(3, store.getNumVectors());
+    assertNotNull(store.getVector("jacob"));
+    store.close();
+    CachingVectorStore.closeSharedVectorStores();
+  }
+}
@@ -2,10 +2,15 @@ package pitt.search.semanticvectors;
 
 import static org.junit.Assert.*;
 
+import java.util.Enumeration;
+import java.util.Random;
+
 import org.junit.Test;
 
 import pitt.search.semanticvectors.ElementalVectorStore.ElementalGenerationMethod;
+import pitt.search.semanticvectors.utils.StringUtils;
 import pitt.search.semanticvectors.vectors.Vector;
+import pitt.search.semanticvectors.vectors.VectorFactory;
 
 /**
  * Tests for {@link ElementalVectorStore}.
@@ -23,8 +28,49 @@ public class ElementalVectorStoreTest {
       assertEquals(0, store.getNumVectors());
       Vector fooVector = null;
       fooVector = store.getVector("foo");
-      assertEquals(1, store.getNumVectors());
+      // Seeded stores regenerate vectors without recording the objects looked up.
+      int expectedNumVectors = (elementalMethod == ElementalGenerationMethod.SEEDED) ? 0 : 1;
+      assertEquals(expectedNumVectors, store.getNumVectors());
       assertNotNull(fooVector);
     }
   }
+
+  @Test
+  public void testSeededStoreRegeneratesIntoScratch() {
+    for (String[] args : new String[][] {
+        {"-vectortype", "real", "-dimension", "200", "-seedlength", "10"},
+        {"-vectortype", "real", "-dimension", "200", "-seedlength", "100"},
+        {"-vectortype", "binary", "-dimension", "128"},
+        {"-vectortype", "complex", "-dimension", "200", "-seedlength", "10"}}) {
+      FlagConfig flagConfig = FlagConfig.getFlagConfig(args);
+      VectorStoreSeeded store = new VectorStoreSeeded(flagConfig);
+      String expected = VectorFactory.generateRandomVector(flagConfig.vectortype(),
+          flagConfig.dimension(), flagConfig.seedlength(), new Random(StringUtils.hash64("foo")))
+          .writeToString();
+      assertEquals(expected, store.getVector("foo").writeToString());
+      assertTrue(store.containsVector("foo"));
+      assertTrue(store.containsVector("bar"));
+
+      // Scratch vectors are reused even after they have been changed to another representation.
+      Vector scratch = store.getVector("bar");
+      scratch.normalize();
+      scratch.writeToString();
+      assertSame(scratch, store.getVector("foo", scratch));
+      assertEquals(expected, scratch.writeToString());
+      // Looking up vectors doesn't add seeds to the store.
+      assertEquals(0, store.getNumVectors());
+
+      store.putSeed("foo", 7);
+      assertEquals(VectorFactory.generateRandomVector(flagConfig.vectortype(),
+          flagConfig.dimension(), flagConfig.seedlength(), new Random(7)).writeToString(),
+          store.getVector("foo").writeToString());
+      int numEnumerated = 0;
+      for (Enumeration<ObjectVector> vectors = store.getAllVectors(); vectors.hasMoreElements(); ) {
+        assertNotNull(vectors.nextElement().getVector());
+        ++numEnumerated;
+      }
+      assertEquals(1, numEnumerated);
+      assertEquals(1, store.getNumVectors());
+    }
+  }
 }
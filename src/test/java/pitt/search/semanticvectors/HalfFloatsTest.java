@@ -0,0 +1,86 @@
+/**
+   Copyright (c) 2026, the SemanticVectors AUTHORS.
+
+   All rights reserved.
+
+   Redistribution and use in source and binary forms, with or without
+   modification, are permitted provided that the following conditions are
+   met:
+
+   * Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+   * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the following
+   disclaimer in the documentation and/or other materials provided
+   with the distribution.
+
+   * Neither the name of the University of Pittsburgh nor the names
+   of its contributors may be used to endorse or promote products
+   derived from this software without specific prior written
+   permission.
+
+   THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+   "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+   LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+   A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+   CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+   EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+   PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+   PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+   LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+   NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+   SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+**/
+
+package pitt.search.semanticvectors;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import pitt.search.semanticvectors.VectorStoreUtils.VectorPrecision;
+
+import junit.framework.TestCase;
+
+public class HalfFloatsTest extends TestCase {
+
+  @Test
+  public void testFloat16KnownValues() {
+    assertEquals((short) 0x3c00, HalfFloats.floatToFloat16(1f));
+    assertEquals((short) 0xc000, HalfFloats.floatToFloat16(-2f));
+    assertEquals((short) 0x7bff, HalfFloats.floatToFloat16(65504f));
+    assertEquals((short) 0x7c00, HalfFloats.floatToFloat16(1e6f));
+    assertEquals((short) 0x0001, HalfFloats.floatToFloat16(0x1p-24f));
+    assertEquals((short) 0x0000, HalfFloats.floatToFloat16(0x1p-26f));
+    assertEquals((short) 0x8000, HalfFloats.floatToFloat16(-0f));
+    assertTrue(Float.isNaN(HalfFloats.float16ToFloat(HalfFloats.floatToFloat16(Float.NaN))));
+    assertEquals(Float.NEGATIVE_INFINITY, HalfFloats.float16ToFloat(HalfFloats.floatToFloat16(Float.NEGATIVE_INFINITY)));
+    // 1 + 2^-11 is half way between 1 and the next half precision value, and rounds to even.
+    assertEquals(1f, HalfFloats.float16ToFloat(HalfFloats.floatToFloat16(1f + 0x1p-11f)));
+    assertEquals(1f + 0x1p-9f, HalfFloats.float16ToFloat(HalfFloats.floatToFloat16(1f + 0x1p-10f + 0x1p-11f)));
+  }
+
+  @Test
+  public void testEveryFloat16RoundTrips() {
+    for (int i = 0; i < (1 << 16); ++i) {
+      short half = (short) i;
+      float value = HalfFloats.float16ToFloat(half);
+      if (Float.isNaN(value)) continue;
+      assertEquals(half, HalfFloats.floatToFloat16(value));
+    }
+  }
+
+  @Test
+  public void testConversionsRoundToNearest() {
+    Random random = new Random(0);
+    for (int i = 0; i < 10000; ++i) {
+      float value = (float) random.nextGaussian();
+      float float16 = HalfFloats.toFloat(HalfFloats.fromFloat(value, VectorPrecision.FLOAT16), VectorPrecision.FLOAT16);
+      float float16Ulp = Math.scalb(1f, Math.max(Math.getExponent(value), -14) - 10);
+      assertTrue(Math.abs(value - float16) <= float16Ulp / 2);
+      float bfloat16 = HalfFloats.toFloat(HalfFloats.fromFloat(value, VectorPrecision.BFLOAT16), VectorPrecision.BFLOAT16);
+      assertTrue(Math.abs(value - bfloat16) <= Math.abs(value) * 0x1p-8f);
+    }
+  }
+}
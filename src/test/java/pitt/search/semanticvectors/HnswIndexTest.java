@@ -0,0 +1,122 @@
+/**
+   Copyright (c) 2026, the SemanticVectors AUTHORS.
+
+   All rights reserved.
+
+   Redistribution and use in source and binary forms, with or without
+   modification, are permitted provided that the following conditions are
+   met:
+
+   * Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+   * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the following
+   disclaimer in the documentation and/or other materials provided
+   with the distribution.
+
+   * Neither the name of the University of Pittsburgh nor the names
+   of its contributors may be used to endorse or promote products
+   derived from this software without specific prior written
+   permission.
+
+   THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+   "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+   LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+   A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+   CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+   EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+   PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+   PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+   LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+   NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+   SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+**/
+
+package pitt.search.semanticvectors;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+import pitt.search.semanticvectors.vectors.RealVector;
+import pitt.search.semanticvectors.vectors.Vector;
+import pitt.search.semanticvectors.vectors.VectorFactory;
+import pitt.search.semanticvectors.vectors.VectorType;
+import pitt.search.semanticvectors.vectors.ZeroVectorException;
+
+import junit.framework.TestCase;
+
+public class HnswIndexTest extends TestCase {
+
+  private static VectorStoreSlab makeStore(FlagConfig flagConfig, int numVectors) {
+    Random random = new Random(0);
+    VectorStoreSlab store = new VectorStoreSlab(flagConfig);
+    for (int i = 0; i < numVectors; ++i) {
+      Vector vector;
+      if (flagConfig.vectortype() == VectorType.REAL) {
+        float[] coordinates = new float[flagConfig.dimension()];
+        for (int j = 0; j < coordinates.length; ++j) coordinates[j] = (float) random.nextGaussian();
+        vector = new RealVector(coordinates);
+      } else {
+        vector = VectorFactory.generateRandomVector(
+            flagConfig.vectortype(), flagConfig.dimension(), flagConfig.seedlength(), random);
+      }
+      store.putVector("term" + i, vector);
+    }
+    return store;
+  }
+
+  @Test
+  public void testRecallAgainstExactSearch() throws ZeroVectorException {
+    for (String[] flags : new String[][] {
+        {"-vectortype", "real", "-dimension", "16"},
+        {"-vectortype", "binary", "-dimension", "128", "-seedlength", "64"}}) {
+      String[] args = Arrays.copyOf(flags, flags.length + 6);
+      System.arraycopy(new String[] {"-numthreads", "4", "-hnswefsearch", "100", "-numsearchresults", "10"},
+          0, args, flags.length, 6);
+      FlagConfig flagConfig = FlagConfig.getFlagConfig(args);
+      VectorStoreSlab store = makeStore(flagConfig, 5000);
+      HnswIndex index = HnswIndex.build(store, flagConfig);
+
+      Vector[] queries = SearchIndexReport.getSampleQueries(store, 50);
+      List<Set<Object>> exactResults = SearchIndexReport.getExactResults(store, queries, flagConfig);
+      SearchIndexReport.Measurement measurement =
+          SearchIndexReport.measure(store, index, queries, exactResults, flagConfig);
+      // Hamming similarities take few distinct values, so many binary vectors tie with the
+      // last exact result and either may be returned.
+      double minRecall = flags[1].equals("binary") ? 0.75 : 0.9;
+      assertTrue("Recall too low for " + flags[1] + ": " + measurement.recall, measurement.recall > minRecall);
+    }
+  }
+
+  @Test
+  public void testWriteAndReadIndex() throws IOException {
+    FlagConfig flagConfig = FlagConfig.getFlagConfig(
+        new String[] {"-vectortype", "real", "-dimension", "16", "-numthreads", "2"});
+    VectorStoreSlab store = makeStore(flagConfig, 2000);
+    HnswIndex index = HnswIndex.build(store, flagConfig);
+
+    File indexFile = File.createTempFile("hnswindextest", ".hnsw");
+    try {
+      SearchIndexUtils.VectorFileVersion version =
+          new SearchIndexUtils.VectorFileVersion(1234, 5678, store.getNumVectors(), flagConfig.dimension());
+      index.writeToFile(indexFile.getPath(), version);
+      assertNull(HnswIndex.readFromFile(indexFile.getPath(), store, flagConfig,
+          new SearchIndexUtils.VectorFileVersion(1234, 8765, store.getNumVectors(), flagConfig.dimension())));
+      HnswIndex readIndex = HnswIndex.readFromFile(indexFile.getPath(), store, flagConfig, version);
+      assertNotNull(readIndex);
+      for (int i = 0; i < 20; ++i) {
+        Vector queryVector = store.getVector(i * 100);
+        assertTrue(Arrays.equals(index.getCandidates(queryVector, 10), readIndex.getCandidates(queryVector, 10)));
+      }
+    } finally {
+      indexFile.delete();
+    }
+  }
+}
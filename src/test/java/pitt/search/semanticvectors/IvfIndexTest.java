@@ -0,0 +1,184 @@
+/**
+   Copyright (c) 2026, the SemanticVectors AUTHORS.
+
+   All rights reserved.
+
+   Redistribution and use in source and binary forms, with or without
+   modification, are permitted provided that the following conditions are
+   met:
+
+   * Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+   * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the following
+   disclaimer in the documentation and/or other materials provided
+   with the distribution.
+
+   * Neither the name of the University of Pittsburgh nor the names
+   of its contributors may be used to endorse or promote products
+   derived from this software without specific prior written
+   permission.
+
+   THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+   "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+   LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+   A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+   CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+   EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+   PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+   PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+   LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+   NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+   SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+**/
+
+package pitt.search.semanticvectors;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+import pitt.search.semanticvectors.vectors.RealVector;
+import pitt.search.semanticvectors.vectors.Vector;
+import pitt.search.semanticvectors.vectors.VectorFactory;
+import pitt.search.semanticvectors.vectors.VectorType;
+import pitt.search.semanticvectors.vectors.ZeroVectorException;
+
+import junit.framework.TestCase;
+
+public class IvfIndexTest extends TestCase {
+
+  private static VectorStoreSlab makeStore(FlagConfig flagConfig, int numVectors) {
+    Random random = new Random(0);
+    VectorStoreSlab store = new VectorStoreSlab(flagConfig);
+    for (int i = 0; i < numVectors; ++i) {
+      Vector vector;
+      if (flagConfig.vectortype() == VectorType.REAL) {
+        float[] coordinates = new float[flagConfig.dimension()];
+        for (int j = 0; j < coordinates.length; ++j) coordinates[j] = (float) random.nextGaussian();
+        vector = new RealVector(coordinates);
+      } else {
+        vector = VectorFactory.generateRandomVector(
+            flagConfig.vectortype(), flagConfig.dimension(), flagConfig.seedlength(), random);
+      }
+      store.putVector("term" + i, vector);
+    }
+    return store;
+  }
+
+  @Test
+  public void testKMeansIsReproducible() {
+    FlagConfig flagConfig = FlagConfig.getFlagConfig(
+        new String[] {"-vectortype", "real", "-dimension", "16"});
+    VectorStoreSlab store = makeStore(flagConfig, 200);
+    ObjectVector[] objectVectors = new ObjectVector[store.getNumVectors()];
+    for (int i = 0; i < objectVectors.length; ++i) objectVectors[i] = store.getObjectVector(i);
+
+    int[] mappings1 = ClusterResults.kMeansCluster(
+        objectVectors, 8, 0, new Random(ClusterResults.DEFAULT_KMEANS_SEED), flagConfig).clusterMappings;
+    int[] mappings2 = ClusterResults.kMeansCluster(
+        objectVectors, 8, 0, new Random(ClusterResults.DEFAULT_KMEANS_SEED), flagConfig).clusterMappings;
+    assertTrue(Arrays.equals(mappings1, mappings2));
+
+    // With one pass, each vector is mapped to the nearest centroid of the seeded initial clusters.
+    int[] onePass = ClusterResults.kMeansCluster(
+        objectVectors, 8, 1, new Random(ClusterResults.DEFAULT_KMEANS_SEED), flagConfig).clusterMappings;
+    int[] onePassAgain = ClusterResults.kMeansCluster(
+        objectVectors, 8, 1, new Random(ClusterResults.DEFAULT_KMEANS_SEED), flagConfig).clusterMappings;
+    assertTrue(Arrays.equals(onePass, onePassAgain));
+  }
+
+  @Test
+  public void testEveryVectorInOneList() {
+    FlagConfig flagConfig = FlagConfig.getFlagConfig(
+        new String[] {"-vectortype", "binary", "-dimension", "128", "-ivfnumlists", "16", "-ivfnprobe", "16"});
+    VectorStoreSlab store = makeStore(flagConfig, 1000);
+    IvfIndex index = IvfIndex.build(store, flagConfig);
+    int[] candidates = index.getCandidates(store.getVector(0), 10);
+    Arrays.sort(candidates);
+    assertEquals(1000, candidates.length);
+    for (int i = 0; i < candidates.length; ++i) assertEquals(i, candidates[i]);
+  }
+
+  @Test
+  public void testRecallImprovesWithNprobe() throws ZeroVectorException {
+    FlagConfig flagConfig = FlagConfig.getFlagConfig(new String[] {
+        "-vectortype", "real", "-dimension", "16", "-ivfnumlists", "32", "-numsearchresults", "10"});
+    VectorStoreSlab store = makeStore(flagConfig, 5000);
+    IvfIndex index = IvfIndex.build(store, flagConfig);
+
+    Vector[] queries = SearchIndexReport.getSampleQueries(store, 50);
+    List<Set<Object>> exactResults = SearchIndexReport.getExactResults(store, queries, flagConfig);
+    index.setNprobe(1);
+    double lowRecall = SearchIndexReport.measure(store, index, queries, exactResults, flagConfig).recall;
+    index.setNprobe(8);
+    double highRecall = SearchIndexReport.measure(store, index, queries, exactResults, flagConfig).recall;
+    index.setNprobe(32);
+    double fullRecall = SearchIndexReport.measure(store, index, queries, exactResults, flagConfig).recall;
+    assertTrue(lowRecall <= highRecall);
+    assertTrue("Recall too low: " + highRecall, highRecall > 0.8);
+    assertEquals(1, fullRecall, 0.0001);
+  }
+
+  @Test
+  public void testWriteAndReadIndex() throws IOException {
+    FlagConfig flagConfig = FlagConfig.getFlagConfig(
+        new String[] {"-vectortype", "real", "-dimension", "16", "-ivfnumlists", "20", "-ivfnprobe", "3"});
+    VectorStoreSlab store = makeStore(flagConfig, 2000);
+    IvfIndex index = IvfIndex.build(store, flagConfig);
+
+    File indexFile = File.createTempFile("ivfindextest", ".ivf");
+    try {
+      SearchIndexUtils.VectorFileVersion version =
+          new SearchIndexUtils.VectorFileVersion(1234, 5678, store.getNumVectors(), flagConfig.dimension());
+      index.writeToFile(indexFile.getPath(), version);
+      assertNull(IvfIndex.readFromFile(indexFile.getPath(), store, flagConfig,
+          new SearchIndexUtils.VectorFileVersion(1234, 8765, store.getNumVectors(), flagConfig.dimension())));
+      IvfIndex readIndex = IvfIndex.readFromFile(indexFile.getPath(), store, flagConfig, version);
+      assertNotNull(readIndex);
+      for (int i = 0; i < 20; ++i) {
+        Vector queryVector = store.getVector(i * 100);
+        assertTrue(Arrays.equals(index.getCandidates(queryVector, 10), readIndex.getCandidates(queryVector, 10)));
+      }
+    } finally {
+      indexFile.delete();
+    }
+  }
+
+  @Test
+  public void testOpenSearchIndexReusesCopyUntilFileChanges() throws IOException {
+    FlagConfig flagConfig = FlagConfig.getFlagConfig(new String[] {
+        "-vectortype", "real", "-dimension", "16", "-ivfnumlists", "4", "-searchindex", "ivf"});
+    File tmpDir = Files.createTempDirectory("ivfsearchindex").toFile();
+    String vectorFileName = new File(tmpDir, "vectors.bin").getPath();
+    try {
+      VectorStoreWriter.writeVectorsInLuceneFormat(vectorFileName, flagConfig, makeStore(flagConfig, 100));
+      VectorStoreReaderLucene reader = new VectorStoreReaderLucene(vectorFileName, flagConfig);
+      SearchIndex index = SearchIndexUtils.openSearchIndex(vectorFileName, reader, flagConfig);
+      assertEquals(100, index.getStore().getNumVectors());
+      assertSame(index, SearchIndexUtils.openSearchIndex(vectorFileName, reader, flagConfig));
+      reader.close();
+
+      // Rewriting the vector file replaces both the copy of the store and the index.
+      File vectorFile = new File(vectorFileName);
+      long lastModified = vectorFile.lastModified();
+      VectorStoreWriter.writeVectorsInLuceneFormat(vectorFileName, flagConfig, makeStore(flagConfig, 120));
+      vectorFile.setLastModified(lastModified + 2000);
+      reader = new VectorStoreReaderLucene(vectorFileName, flagConfig);
+      SearchIndex newIndex = SearchIndexUtils.openSearchIndex(vectorFileName, reader, flagConfig);
+      assertNotSame(index, newIndex);
+      assertEquals(120, newIndex.getStore().getNumVectors());
+      reader.close();
+    } finally {
+      for (File file : tmpDir.listFiles()) file.delete();
+      tmpDir.delete();
+    }
+  }
+}
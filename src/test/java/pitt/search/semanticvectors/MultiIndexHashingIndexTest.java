@@ -0,0 +1,132 @@
+/**
+   Copyright (c) 2026, the SemanticVectors AUTHORS.
+
+   All rights reserved.
+
+   Redistribution and use in source and binary forms, with or without
+   modification, are permitted provided that the following conditions are
+   met:
+
+   * Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+   * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the following
+   disclaimer in the documentation and/or other materials provided
+   with the distribution.
+
+   * Neither the name of the University of Pittsburgh nor the names
+   of its contributors may be used to endorse or promote products
+   derived from this software without specific prior written
+   permission.
+
+   THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+   "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+   LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+   A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+   CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+   EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+   PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+   PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+   LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+   NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+   SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+**/
+
+package pitt.search.semanticvectors;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+
+import org.junit.Test;
+
+import pitt.search.semanticvectors.vectors.BinaryVector;
+import pitt.search.semanticvectors.vectors.BinaryVectorUtils;
+import pitt.search.semanticvectors.vectors.Vector;
+import pitt.search.semanticvectors.vectors.VectorFactory;
+
+import junit.framework.TestCase;
+
+public class MultiIndexHashingIndexTest extends TestCase {
+
+  /** Makes groups of vectors that differ from a random vector in a few bits. */
+  private static VectorStoreSlab makeStore(FlagConfig flagConfig, int numGroups, int groupSize) {
+    Random random = new Random(0);
+    VectorStoreSlab store = new VectorStoreSlab(flagConfig);
+    for (int g = 0; g < numGroups; ++g) {
+      Vector center = VectorFactory.generateRandomVector(
+          flagConfig.vectortype(), flagConfig.dimension(), flagConfig.dimension() / 2, random);
+      for (int i = 0; i < groupSize; ++i) {
+        long[] bits = BinaryVectorUtils.getBits((BinaryVector) center).clone();
+        int numFlips = random.nextInt(12);
+        for (int f = 0; f < numFlips; ++f) {
+          int position = random.nextInt(flagConfig.dimension());
+          bits[position / 64] ^= 1L << (position % 64);
+        }
+        store.putVector("group" + g + "_" + i, VectorFactory.createBinaryVector(bits, flagConfig.dimension()));
+      }
+    }
+    return store;
+  }
+
+  @Test
+  public void testFindsEveryVectorWithinRadius() {
+    FlagConfig flagConfig = FlagConfig.getFlagConfig(new String[] {
+        "-vectortype", "binary", "-dimension", "256", "-mihsubstrings", "8", "-mihradius", "16"});
+    VectorStoreSlab store = makeStore(flagConfig, 100, 20);
+    MultiIndexHashingIndex index = MultiIndexHashingIndex.build(store, flagConfig);
+
+    for (int q = 0; q < store.getNumVectors(); q += 97) {
+      Vector queryVector = store.getVector(q);
+      HashSet<Integer> candidates = new HashSet<Integer>();
+      for (int id : index.getCandidates(queryVector, store.getNumVectors())) candidates.add(id);
+      for (int id = 0; id < store.getNumVectors(); ++id) {
+        double hammingDistance = (1 - queryVector.measureOverlap(store.getVector(id))) * flagConfig.dimension() / 2;
+        if (hammingDistance <= flagConfig.mihradius() + 0.5) {
+          assertTrue("Missed vector " + id + " at distance " + hammingDistance, candidates.contains(id));
+        }
+      }
+      assertTrue(candidates.size() < store.getNumVectors() / 10);
+    }
+  }
+
+  @Test
+  public void testWriteAndReadIndex() throws IOException {
+    FlagConfig flagConfig = FlagConfig.getFlagConfig(new String[] {
+        "-vectortype", "binary", "-dimension", "128", "-mihsubstrings", "4", "-mihradius", "8"});
+    VectorStoreSlab store = makeStore(flagConfig, 50, 10);
+    MultiIndexHashingIndex index = MultiIndexHashingIndex.build(store, flagConfig);
+
+    File indexFile = File.createTempFile("mihindextest", ".mih");
+    try {
+      SearchIndexUtils.VectorFileVersion version =
+          new SearchIndexUtils.VectorFileVersion(1234, 5678, store.getNumVectors(), flagConfig.dimension());
+      index.writeToFile(indexFile.getPath(), version);
+      assertNull(MultiIndexHashingIndex.readFromFile(indexFile.getPath(), store, flagConfig,
+          new SearchIndexUtils.VectorFileVersion(1234, 8765, store.getNumVectors(), flagConfig.dimension())));
+      MultiIndexHashingIndex readIndex =
+          MultiIndexHashingIndex.readFromFile(indexFile.getPath(), store, flagConfig, version);
+      assertNotNull(readIndex);
+      for (int i = 0; i < 10; ++i) {
+        Vector queryVector = store.getVector(i * 50);
+        assertTrue(Arrays.equals(index.getCandidates(queryVector, 10), readIndex.getCandidates(queryVector, 10)));
+      }
+    } finally {
+      indexFile.delete();
+    }
+  }
+
+  @Test
+  public void testOnlyBinaryVectors() {
+    FlagConfig flagConfig = FlagConfig.getFlagConfig(new String[] {"-vectortype", "real", "-dimension", "16"});
+    try {
+      MultiIndexHashingIndex.build(new VectorStoreSlab(flagConfig), flagConfig);
+      fail();
+    } catch (IllegalArgumentException e) {
+      assertTrue(e.getMessage().contains("binary"));
+    }
+  }
+}
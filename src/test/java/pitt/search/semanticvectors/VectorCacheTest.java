@@ -0,0 +1,118 @@
+/**
+   Copyright (c) 2026, the SemanticVectors AUTHORS.
+
+   All rights reserved.
+
+   Redistribution and use in source and binary forms, with or without
+   modification, are permitted provided that the following conditions are
+   met:
+
+   * Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+   * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the following
+   disclaimer in the documentation and/or other materials provided
+   with the distribution.
+
+   * Neither the name of the University of Pittsburgh nor the names
+   of its contributors may be used to endorse or promote products
+   derived from this software without specific prior written
+   permission.
+
+   THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+   "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+   LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+   A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+   CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+   EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+   PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+   PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+   LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+   NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+   SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+**/
+
+package pitt.search.semanticvectors;
+
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+import pitt.search.semanticvectors.vectors.Vector;
+import pitt.search.semanticvectors.vectors.VectorFactory;
+import pitt.search.semanticvectors.vectors.VectorType;
+
+public class VectorCacheTest extends TestCase {
+
+  private static Vector randomVector(Random random) {
+    return VectorFactory.generateRandomVector(VectorType.REAL, 100, 10, random);
+  }
+
+  @Test
+  public void testStaysWithinBudgetAndCounts() {
+    Random random = new Random(0);
+    long entryBytes = VectorCache.estimateBytes("term0000", randomVector(random));
+    VectorCache cache = new VectorCache(20 * entryBytes);
+    for (int i = 0; i < 1000; ++i) {
+      cache.put(String.format("term%04d", i), randomVector(random));
+      assertTrue(cache.getBytes() <= cache.getMaxBytes());
+    }
+    assertTrue(cache.size() > 0);
+    assertTrue(cache.size() <= 20);
+    assertEquals(1000 - cache.size(), cache.getEvictions());
+
+    assertNotNull(cache.get("term0999"));
+    assertNull(cache.get("term0000"));
+    assertEquals(1, cache.getHits());
+    assertEquals(1, cache.getMisses());
+
+    cache.clear();
+    assertEquals(0, cache.size());
+    assertEquals(0, cache.getBytes());
+  }
+
+  @Test
+  public void testEvictsLeastRecentlyUsed() {
+    Random random = new Random(0);
+    // "a", "q" and "A" have hash codes that fall in the same segment, which holds two vectors.
+    long entryBytes = VectorCache.estimateBytes("a", randomVector(random));
+    VectorCache cache = new VectorCache(16 * 2 * entryBytes);
+    cache.put("a", randomVector(random));
+    cache.put("q", randomVector(random));
+    assertNotNull(cache.get("a"));
+    cache.put("A", randomVector(random));
+    assertTrue(cache.containsKey("a"));
+    assertFalse(cache.containsKey("q"));
+    assertTrue(cache.containsKey("A"));
+    assertEquals(1, cache.getEvictions());
+
+    // Replacing a vector does not count its old size twice.
+    Vector replacement = randomVector(random);
+    cache.put("a", replacement);
+    assertSame(replacement, cache.get("a"));
+    assertEquals(2, cache.size());
+    assertEquals(2 * entryBytes, cache.getBytes());
+  }
+
+  @Test
+  public void testPutIfAbsentKeepsExistingVector() {
+    Random random = new Random(0);
+    VectorCache cache = new VectorCache(Long.MAX_VALUE);
+    Vector first = randomVector(random);
+    assertSame(first, cache.putIfAbsent("a", first));
+    assertSame(first, cache.putIfAbsent("a", randomVector(random)));
+    assertTrue(cache.containsKey("a"));
+    assertFalse(cache.containsKey("b"));
+  }
+
+  @Test
+  public void testOversizedVectorsAreNotCached() {
+    VectorCache cache = new VectorCache(0);
+    cache.put("a", randomVector(new Random(0)));
+    assertEquals(0, cache.size());
+    assertNull(cache.get("a"));
+  }
+}
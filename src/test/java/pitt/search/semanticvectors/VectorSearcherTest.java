@@ -0,0 +1,193 @@
+/**
+   Copyright (c) 2026, the SemanticVectors AUTHORS.
+
+   All rights reserved.
+
+   Redistribution and use in source and binary forms, with or without
+   modification, are permitted provided that the following conditions are
+   met:
+
+   * Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+   * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the following
+   disclaimer in the documentation and/or other materials provided
+   with the distribution.
+
+   * Neither the name of the University of Pittsburgh nor the names
+   of its contributors may be used to endorse or promote products
+   derived from this software without specific prior written
+   permission.
+
+   THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+   "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+   LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+   A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+   CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+   EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+   PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+   PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+   LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+   NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+   SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+**/
+
+package pitt.search.semanticvectors;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import pitt.search.semanticvectors.vectors.Vector;
+import pitt.search.semanticvectors.vectors.VectorFactory;
+import pitt.search.semanticvectors.vectors.ZeroVectorException;
+
+import junit.framework.TestCase;
+
+public class VectorSearcherTest extends TestCase {
+  private static double TOL = 0.0001;
+
+  private static void assertSameResults(LinkedList<SearchResult> expected, LinkedList<SearchResult> actual) {
+    assertEquals(expected.size(), actual.size());
+    for (int i = 0; i < expected.size(); ++i) {
+      assertEquals(expected.get(i).getScore(), actual.get(i).getScore(), TOL);
+    }
+  }
+
+  @Test
+  public void testParallelSearchMatchesSingleThreaded() throws ZeroVectorException {
+    for (String vectorType : new String[] {"real", "binary"}) {
+      FlagConfig serialConfig = FlagConfig.getFlagConfig(
+          new String[] {"-vectortype", vectorType, "-dimension", "128", "-seedlength", "10"});
+      final FlagConfig parallelConfig = FlagConfig.getFlagConfig(
+          new String[] {"-vectortype", vectorType, "-dimension", "128", "-seedlength", "10",
+              "-searchthreads", "4"});
+      Random random = new Random(0);
+      VectorStoreRAM ramStore = new VectorStoreRAM(serialConfig);
+      VectorStoreSlab slabStore = new VectorStoreSlab(serialConfig);
+      for (int i = 0; i < 20000; ++i) {
+        Vector vector = VectorFactory.generateRandomVector(
+            serialConfig.vectortype(), serialConfig.dimension(), serialConfig.seedlength(), random);
+        ramStore.putVector("term" + i, vector);
+        slabStore.putVector("term" + i, vector);
+      }
+      final Vector queryVector = ramStore.getVector("term7");
+
+      LinkedList<SearchResult> expected = new VectorSearcher.VectorSearcherCosine(
+          ramStore, ramStore, null, serialConfig, queryVector).getNearestNeighbors(20);
+      assertEquals("term7", expected.getFirst().getObjectVector().getObject());
+      // Enumerated store.
+      assertSameResults(expected, new VectorSearcher.VectorSearcherCosine(
+          ramStore, ramStore, null, parallelConfig, queryVector).getNearestNeighbors(20));
+      // Indexed store, scored in place.
+      assertSameResults(expected, new VectorSearcher.VectorSearcherCosine(
+          slabStore, slabStore, null, parallelConfig, queryVector).getNearestNeighbors(20));
+      // Indexed store, scored with getScore.
+      VectorSearcher searcher = new VectorSearcher(slabStore, slabStore, null, parallelConfig) {
+        @Override
+        public double getScore(Vector testVector) {
+          return queryVector.measureOverlap(testVector);
+        }
+      };
+      assertSameResults(expected, searcher.getNearestNeighbors(20));
+    }
+  }
+
+  @Test
+  public void testAllAboveThresholdMatchesNearestNeighbors() throws ZeroVectorException {
+    FlagConfig flagConfig = FlagConfig.getFlagConfig(
+        new String[] {"-vectortype", "real", "-dimension", "64", "-seedlength", "10"});
+    Random random = new Random(0);
+    VectorStoreSlab store = new VectorStoreSlab(flagConfig);
+    for (int i = 0; i < 500; ++i) {
+      store.putVector("term" + i, VectorFactory.generateRandomVector(
+          flagConfig.vectortype(), flagConfig.dimension(), flagConfig.seedlength(), random));
+    }
+    VectorSearcher searcher = new VectorSearcher.VectorSearcherCosine(
+        store, store, null, flagConfig, store.getVector("term3"));
+    LinkedList<SearchResult> aboveThreshold = searcher.getAllAboveThreshold(0.1f);
+    assertFalse(aboveThreshold.isEmpty());
+    for (SearchResult result : aboveThreshold) {
+      assertTrue(result.getScore() > 0.1);
+    }
+    assertSameResults(searcher.getNearestNeighbors(aboveThreshold.size()), aboveThreshold);
+  }
+
+  @Test
+  public void testBatchSearchMatchesSingleSearches() throws ZeroVectorException {
+    for (String vectorType : new String[] {"real", "binary"}) {
+      for (String searchThreads : new String[] {"1", "3"}) {
+        FlagConfig flagConfig = FlagConfig.getFlagConfig(
+            new String[] {"-vectortype", vectorType, "-dimension", "128", "-seedlength", "10",
+                "-searchthreads", searchThreads});
+        Random random = new Random(0);
+        VectorStoreRAM ramStore = new VectorStoreRAM(flagConfig);
+        VectorStoreSlab slabStore = new VectorStoreSlab(flagConfig);
+        for (int i = 0; i < 10000; ++i) {
+          Vector vector = VectorFactory.generateRandomVector(
+              flagConfig.vectortype(), flagConfig.dimension(), flagConfig.seedlength(), random);
+          ramStore.putVector("term" + i, vector);
+          slabStore.putVector("term" + i, vector);
+        }
+
+        for (VectorStore store : new VectorStore[] {ramStore, slabStore}) {
+          List<VectorSearcher> searchers = new ArrayList<VectorSearcher>();
+          // Six queries, to check queries left over after blocks of four.
+          for (int q = 0; q < 6; ++q) {
+            searchers.add(new VectorSearcher.VectorSearcherCosine(
+                store, store, null, flagConfig, ramStore.getVector("term" + (q * 101))));
+          }
+          List<LinkedList<SearchResult>> batchResults = VectorSearcher.getNearestNeighborsBatch(searchers, 15);
+          assertEquals(searchers.size(), batchResults.size());
+          for (int q = 0; q < searchers.size(); ++q) {
+            assertEquals("term" + (q * 101), batchResults.get(q).getFirst().getObjectVector().getObject());
+            assertSameResults(searchers.get(q).getNearestNeighbors(15), batchResults.get(q));
+          }
+
+          // A searcher that isn't scored in place makes the whole batch use getScore.
+          final Vector queryVector = ramStore.getVector("term5");
+          searchers.add(new VectorSearcher(store, store, null, flagConfig) {
+            @Override
+            public double getScore(Vector testVector) {
+              return queryVector.measureOverlap(testVector);
+            }
+          });
+          batchResults = VectorSearcher.getNearestNeighborsBatch(searchers, 15);
+          for (int q = 0; q < searchers.size(); ++q) {
+            assertSameResults(searchers.get(q).getNearestNeighbors(15), batchResults.get(q));
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testBinaryThresholdSearchMatchesEnumeratedSearch() throws ZeroVectorException {
+    for (String minScore : new String[] {"-1", "0.02"}) {
+      FlagConfig flagConfig = FlagConfig.getFlagConfig(new String[] {
+          "-vectortype", "binary", "-dimension", "2048", "-searchresultsminscore", minScore});
+      Random random = new Random(0);
+      VectorStoreRAM ramStore = new VectorStoreRAM(flagConfig);
+      VectorStoreSlab slabStore = new VectorStoreSlab(flagConfig);
+      for (int i = 0; i < 2000; ++i) {
+        Vector vector = VectorFactory.generateRandomVector(
+            flagConfig.vectortype(), flagConfig.dimension(), flagConfig.dimension() / 2, random);
+        ramStore.putVector("term" + i, vector);
+        slabStore.putVector("term" + i, vector);
+      }
+      ramStore.putVector("zero", VectorFactory.createZeroVector(flagConfig.vectortype(), flagConfig.dimension()));
+      slabStore.putVector("zero", VectorFactory.createZeroVector(flagConfig.vectortype(), flagConfig.dimension()));
+      Vector queryVector = ramStore.getVector("term3");
+
+      LinkedList<SearchResult> expected = new VectorSearcher.VectorSearcherCosine(
+          ramStore, ramStore, null, flagConfig, queryVector).getNearestNeighbors(50);
+      LinkedList<SearchResult> actual = new VectorSearcher.VectorSearcherCosine(
+          slabStore, slabStore, null, flagConfig, queryVector).getNearestNeighbors(50);
+      assertSameResults(expected, actual);
+    }
+  }
+}
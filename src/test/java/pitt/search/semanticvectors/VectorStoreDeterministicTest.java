@@ -1,10 +1,13 @@
 package pitt.search.semanticvectors;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 import junit.framework.TestCase;
 
 import org.junit.Before;
 import org.junit.Test;
 
+import pitt.search.semanticvectors.vectors.BinaryVector;
 import pitt.search.semanticvectors.vectors.Vector;
 import pitt.search.semanticvectors.vectors.VectorType;
 
@@ -75,4 +78,40 @@ public class VectorStoreDeterministicTest extends TestCase  {
     //assertEquals(-0.03718622401356697d, v1.measureOverlap(v3));
     assertEquals(0.008059127256274223d, v1.measureOverlap(v3));
   }
+
+  @Test
+  public void testConcurrentGenerationWithBoundedCache() throws InterruptedException {
+    FlagConfig flagConfig = FlagConfig.getFlagConfig(new String[] {
+        "-vectortype", "binary", "-dimension", "1024", "-deterministiccachemb", "0"});
+    final VectorStoreDeterministic boundedStore = new VectorStoreDeterministic(flagConfig, 50000);
+    final VectorStoreDeterministic expectedStore = new VectorStoreDeterministic(flagConfig);
+    expectedStore.enableVectorCache(false);
+    final int numTerms = 500;
+    final AtomicInteger numMismatches = new AtomicInteger();
+    Thread[] threads = new Thread[4];
+    for (int t = 0; t < threads.length; ++t) {
+      final int offset = t * 37;
+      threads[t] = new Thread() {
+        @Override
+        public void run() {
+          for (int i = 0; i < 3 * numTerms; ++i) {
+            String term = "term" + ((i + offset) % numTerms);
+            String actual = ((BinaryVector) boundedStore.getVector(term)).writeLongToString();
+            if (!actual.equals(((BinaryVector) expectedStore.getVector(term)).writeLongToString())) {
+              numMismatches.incrementAndGet();
+            }
+          }
+        }
+      };
+      threads[t].start();
+    }
+    for (Thread thread : threads) thread.join();
+    assertEquals(0, numMismatches.get());
+
+    VectorCache cache = boundedStore.getVectorCache();
+    assertTrue(cache.getBytes() <= 50000);
+    assertTrue(cache.getEvictions() > 0);
+    assertEquals(cache.size(), boundedStore.getNumVectors());
+    assertEquals(0, expectedStore.getNumVectors());
+  }
 }
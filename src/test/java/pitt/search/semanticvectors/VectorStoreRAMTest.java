@@ -33,10 +33,16 @@
 
 package pitt.search.semanticvectors;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Random;
+
 import org.junit.*;
 
 import pitt.search.semanticvectors.vectors.RealVector;
 import pitt.search.semanticvectors.vectors.Vector;
+import pitt.search.semanticvectors.vectors.VectorFactory;
 
 import junit.framework.TestCase;
 
@@ -71,4 +77,34 @@ public class VectorStoreRAMTest extends TestCase {
     vectorOut = vectorStore.getVector("my vector"); 
     assertEquals(2, vectorOut.getDimension());
   }
+
+  @Test
+  public void testParallelReadFromFile() throws IOException {
+    File tmpDir = Files.createTempDirectory("parallelread").toFile();
+    FlagConfig writeConfig = FlagConfig.getFlagConfig(new String[] {"-vectortype", "real", "-dimension", "16"});
+    VectorStoreRAM original = new VectorStoreRAM(writeConfig);
+    Random random = new Random(0);
+    for (int i = 0; i < 1000; ++i) {
+      original.putVector("term" + i, VectorFactory.generateRandomVector(
+          writeConfig.vectortype(), writeConfig.dimension(), writeConfig.dimension(), random));
+    }
+    String luceneFile = new File(tmpDir, "vectors.bin").getPath();
+    VectorStoreWriter.writeVectorsInLuceneFormat(luceneFile, writeConfig, original);
+    String mmapFile = new File(tmpDir, "vectors.mmap").getPath();
+    VectorStoreWriter.writeVectorsInMmapFormat(mmapFile, writeConfig, original);
+
+    for (String[] args : new String[][] {
+        {"-numthreads", "1"}, {"-numthreads", "7"}, {"-numthreads", "7", "-indexfileformat", "mmap"}}) {
+      FlagConfig readConfig = FlagConfig.getFlagConfig(args);
+      String vectorFile = (readConfig.indexfileformat() == VectorStoreUtils.VectorStoreFormat.MMAP)
+          ? mmapFile : luceneFile;
+      VectorStoreRAM store = VectorStoreRAM.readFromFile(readConfig, vectorFile);
+      assertEquals(1000, store.getNumVectors());
+      for (int i = 0; i < 1000; ++i) {
+        assertEquals(1, original.getVector("term" + i).measureOverlap(store.getVector("term" + i)), TOL);
+      }
+    }
+    for (File file : tmpDir.listFiles()) file.delete();
+    tmpDir.delete();
+  }
 }
\ No newline at end of file
@@ -33,6 +33,7 @@
 
 package pitt.search.semanticvectors;
 
+import org.apache.lucene.store.FSDirectory;
 import org.apache.lucene.store.IOContext;
 import org.apache.lucene.store.IndexInput;
 import org.apache.lucene.store.IndexOutput;
@@ -44,11 +45,19 @@ import pitt.search.semanticvectors.ObjectVector;
 import pitt.search.semanticvectors.VectorStoreReaderLucene;
 import pitt.search.semanticvectors.vectors.RealVector;
 import pitt.search.semanticvectors.vectors.Vector;
+import pitt.search.semanticvectors.vectors.VectorFactory;
 
+import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Enumeration;
+import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.Random;
 
 import junit.framework.TestCase;
 
@@ -97,6 +106,197 @@ public class VectorStoreReaderLuceneTest extends TestCase {
     assertEquals(0.707106f, abraham.measureOverlap(new RealVector(new float[] {1, 0})), TOL);
   }
 
+  @Test
+  public void testRandomAccessUsesOffsetIndex() throws IOException {
+    File tmpDir = Files.createTempDirectory("offsetindex").toFile();
+    String vectorFileName = new File(tmpDir, TEST_VECTOR_FILE).getPath();
+    VectorStoreRAM store = new VectorStoreRAM(FLAG_CONFIG);
+    store.putVector("isaac", new RealVector(new float[] {1, 0}));
+    store.putVector("abraham", new RealVector(new float[] {0.7f, 0.7f}));
+    store.putVector("jacob", new RealVector(new float[] {0, 1}));
+    VectorStoreWriter.writeVectorsInLuceneFormat(vectorFileName, FLAG_CONFIG, store);
+    File offsetsFile = new File(tmpDir, VectorStoreUtils.getOffsetIndexFileName(TEST_VECTOR_FILE));
+    assertTrue(offsetsFile.exists());
+
+    VectorStoreReaderLucene reader = new VectorStoreReaderLucene(vectorFileName, FLAG_CONFIG);
+    assertEquals(3, reader.getNumVectors());
+    assertTrue(reader.containsVector("jacob"));
+    assertFalse(reader.containsVector("esau"));
+    assertNull(reader.getVector("esau"));
+    assertEquals(1, reader.getVector("jacob").measureOverlap(new RealVector(new float[] {0, 1})), TOL);
+    assertEquals(1, reader.getVector("isaac").measureOverlap(new RealVector(new float[] {1, 0})), TOL);
+    reader.close();
+
+    // Without the offset index, the same lookups work by scanning the keys in the store.
+    assertTrue(offsetsFile.delete());
+    reader = new VectorStoreReaderLucene(vectorFileName, FLAG_CONFIG);
+    assertEquals(3, reader.getNumVectors());
+    assertEquals(0.707106f, reader.getVector("abraham").measureOverlap(new RealVector(new float[] {1, 0})), TOL);
+    reader.close();
+
+    new File(vectorFileName).delete();
+    tmpDir.delete();
+  }
+
+  @Test
+  public void testRepeatedObjectsKeepFirstRecord() throws IOException {
+    File tmpDir = Files.createTempDirectory("repeatedobjects").toFile();
+    String vectorFileName = new File(tmpDir, TEST_VECTOR_FILE).getPath();
+    final List<ObjectVector> records = Arrays.asList(
+        new ObjectVector("isaac", new RealVector(new float[] {1, 0})),
+        new ObjectVector("jacob", new RealVector(new float[] {0, 1})),
+        new ObjectVector("isaac", new RealVector(new float[] {0, 1})));
+    VectorStore store = new VectorStore() {
+      @Override
+      public Vector getVector(Object object) {
+        return null;
+      }
+
+      @Override
+      public boolean containsVector(Object object) {
+        return false;
+      }
+
+      @Override
+      public Enumeration<ObjectVector> getAllVectors() {
+        return Collections.enumeration(records);
+      }
+
+      @Override
+      public int getNumVectors() {
+        return records.size();
+      }
+    };
+    VectorStoreWriter.writeVectorsInLuceneFormat(vectorFileName, FLAG_CONFIG, store);
+
+    // The same with and without the offset index file.
+    for (int pass = 0; pass < 2; ++pass) {
+      VectorStoreReaderLucene reader = new VectorStoreReaderLucene(vectorFileName, FLAG_CONFIG);
+      assertEquals(3, reader.getNumVectors());
+      assertEquals(1, reader.getVector("isaac").measureOverlap(new RealVector(new float[] {1, 0})), TOL);
+      reader.close();
+      if (pass == 0) assertTrue(new File(tmpDir, VectorStoreUtils.getOffsetIndexFileName(TEST_VECTOR_FILE)).delete());
+    }
+    for (File file : tmpDir.listFiles()) file.delete();
+    tmpDir.delete();
+  }
+
+  @Test
+  public void testOffsetIndexOlderThanStoreIsIgnored() throws IOException {
+    File tmpDir = Files.createTempDirectory("staleoffsets").toFile();
+    File vectorFile = new File(tmpDir, TEST_VECTOR_FILE);
+    File offsetsFile = new File(tmpDir, VectorStoreUtils.getOffsetIndexFileName(TEST_VECTOR_FILE));
+    File savedOffsetsFile = new File(tmpDir, "saved");
+    VectorStoreRAM store = new VectorStoreRAM(FLAG_CONFIG);
+    store.putVector("isaac", new RealVector(new float[] {1, 0}));
+    store.putVector("jacob", new RealVector(new float[] {0, 1}));
+    VectorStoreWriter.writeVectorsInLuceneFormat(vectorFile.getPath(), FLAG_CONFIG, store);
+    Files.copy(offsetsFile.toPath(), savedOffsetsFile.toPath());
+
+    // Rewrite the store with a different object of the same length, and put back the old index.
+    store = new VectorStoreRAM(FLAG_CONFIG);
+    store.putVector("isaac", new RealVector(new float[] {1, 0}));
+    store.putVector("jonah", new RealVector(new float[] {0, 1}));
+    long previousLength = vectorFile.length();
+    VectorStoreWriter.writeVectorsInLuceneFormat(vectorFile.getPath(), FLAG_CONFIG, store);
+    assertEquals(previousLength, vectorFile.length());
+    Files.copy(savedOffsetsFile.toPath(), offsetsFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    assertTrue(offsetsFile.setLastModified(vectorFile.lastModified() - 10000));
+
+    VectorStoreReaderLucene reader = new VectorStoreReaderLucene(vectorFile.getPath(), FLAG_CONFIG);
+    assertTrue(reader.containsVector("jonah"));
+    assertFalse(reader.containsVector("jacob"));
+    reader.close();
+    for (File file : tmpDir.listFiles()) file.delete();
+    tmpDir.delete();
+  }
+
+  @Test
+  public void testPartitionsFallBackToSerialReadWithoutOffsets() throws IOException {
+    File tmpDir = Files.createTempDirectory("nooffsets").toFile();
+    String vectorFileName = new File(tmpDir, TEST_VECTOR_FILE).getPath();
+    VectorStoreRAM store = new VectorStoreRAM(FLAG_CONFIG);
+    store.putVector("isaac", new RealVector(new float[] {1, 0}));
+    store.putVector("abraham", new RealVector(new float[] {0.7f, 0.7f}));
+    store.putVector("jacob", new RealVector(new float[] {0, 1}));
+    VectorStoreWriter.writeVectorsInLuceneFormat(vectorFileName, FLAG_CONFIG, store);
+
+    // Replace the offset index with one that matches the store length but can't be read.
+    String offsetsFileName = VectorStoreUtils.getOffsetIndexFileName(TEST_VECTOR_FILE);
+    assertTrue(new File(tmpDir, offsetsFileName).delete());
+    FSDirectory fsDirectory = FSDirectory.open(tmpDir.toPath());
+    IndexOutput offsetsOutput = fsDirectory.createOutput(offsetsFileName, IOContext.DEFAULT);
+    offsetsOutput.writeVInt(1000000);
+    offsetsOutput.writeLong(3);
+    offsetsOutput.writeLong(new File(vectorFileName).length());
+    offsetsOutput.close();
+    fsDirectory.close();
+
+    VectorStoreReaderLucene reader = new VectorStoreReaderLucene(vectorFileName, FLAG_CONFIG);
+    List<Enumeration<ObjectVector>> partitions = reader.getVectorPartitions(4);
+    assertEquals(1, partitions.size());
+    int count = 0;
+    while (partitions.get(0).hasMoreElements()) {
+      ObjectVector objectVector = partitions.get(0).nextElement();
+      assertEquals(1, store.getVector(objectVector.getObject()).measureOverlap(objectVector.getVector()), TOL);
+      ++count;
+    }
+    assertEquals(3, count);
+    reader.close();
+
+    FlagConfig parallelConfig = FlagConfig.getFlagConfig(
+        new String[] {"-vectortype", "real", "-dimension", "2", "-numthreads", "4"});
+    VectorStoreRAM cached = new VectorStoreRAM(parallelConfig);
+    cached.initFromFile(vectorFileName);
+    assertEquals(3, cached.getNumVectors());
+    assertEquals(1, cached.getVector("jacob").measureOverlap(new RealVector(new float[] {0, 1})), TOL);
+
+    for (File file : tmpDir.listFiles()) file.delete();
+    tmpDir.delete();
+  }
+
+  @Test
+  public void testHalfPrecisionStores() throws IOException {
+    File tmpDir = Files.createTempDirectory("halfprecision").toFile();
+    for (String vectorType : new String[] {"real", "complex"}) {
+      FlagConfig floatConfig = FlagConfig.getFlagConfig(new String[] {"-vectortype", vectorType, "-dimension", "64"});
+      Random random = new Random(0);
+      VectorStoreRAM store = new VectorStoreRAM(floatConfig);
+      for (int i = 0; i < 20; ++i) {
+        store.putVector("term" + i, VectorFactory.generateRandomVector(
+            floatConfig.vectortype(), floatConfig.dimension(), floatConfig.dimension(), random));
+      }
+      String floatFileName = new File(tmpDir, vectorType + ".bin").getPath();
+      VectorStoreWriter.writeVectorsInLuceneFormat(floatFileName, floatConfig, store);
+      for (String precision : new String[] {"float16", "bfloat16"}) {
+        FlagConfig halfConfig = FlagConfig.getFlagConfig(
+            new String[] {"-vectortype", vectorType, "-dimension", "64", "-vectorprecision", precision});
+        String halfFileName = new File(tmpDir, vectorType + precision + ".bin").getPath();
+        VectorStoreWriter.writeVectorsInLuceneFormat(halfFileName, halfConfig, store);
+        assertTrue(new File(halfFileName).length() * 1.8 < new File(floatFileName).length());
+
+        FlagConfig readConfig = FlagConfig.getFlagConfig(null);
+        VectorStoreReaderLucene reader = new VectorStoreReaderLucene(halfFileName, readConfig);
+        assertEquals(floatConfig.vectortype(), readConfig.vectortype());
+        assertEquals(20, reader.getNumVectors());
+        Vector query = store.getVector("term0");
+        assertEquals(query.measureOverlap(store.getVector("term5")),
+            query.measureOverlap(reader.getVector("term5")), 0.01);
+        int count = 0;
+        Enumeration<ObjectVector> vecEnum = reader.getAllVectors();
+        while (vecEnum.hasMoreElements()) {
+          ObjectVector objectVector = vecEnum.nextElement();
+          assertEquals(1, store.getVector(objectVector.getObject()).measureOverlap(objectVector.getVector()), 0.01);
+          ++count;
+        }
+        assertEquals(20, count);
+        reader.close();
+      }
+    }
+    for (File file : tmpDir.listFiles()) file.delete();
+    tmpDir.delete();
+  }
+
   @Test
   public void testOpensAndCloses() throws IOException {
     VectorStoreReaderLucene reader;
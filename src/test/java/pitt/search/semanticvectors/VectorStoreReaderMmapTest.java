@@ -0,0 +1,308 @@
+/**
+   Copyright (c) 2026, the SemanticVectors AUTHORS.
+
+   All rights reserved.
+
+   Redistribution and use in source and binary forms, with or without
+   modification, are permitted provided that the following conditions are
+   met:
+
+   * Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+   * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the following
+   disclaimer in the documentation and/or other materials provided
+   with the distribution.
+
+   * Neither the name of the University of Pittsburgh nor the names
+   of its contributors may be used to endorse or promote products
+   derived from this software without specific prior written
+   permission.
+
+   THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+   "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+   LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+   A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+   CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+   EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+   PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+   PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+   LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+   NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+   SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+**/
+
+package pitt.search.semanticvectors;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import pitt.search.semanticvectors.vectors.RealVector;
+import pitt.search.semanticvectors.vectors.Vector;
+import pitt.search.semanticvectors.vectors.VectorFactory;
+import pitt.search.semanticvectors.vectors.VectorType;
+import pitt.search.semanticvectors.vectors.ZeroVectorException;
+
+import junit.framework.TestCase;
+
+public class VectorStoreReaderMmapTest extends TestCase {
+  private static double TOL = 0.0001;
+
+  private String writeTestStore(FlagConfig flagConfig, VectorStore store) throws IOException {
+    File tmpDir = Files.createTempDirectory("mmapstore").toFile();
+    tmpDir.deleteOnExit();
+    String vectorFileName = new File(tmpDir, "vectors.mmap").getPath();
+    VectorStoreWriter.writeVectorsInMmapFormat(vectorFileName, flagConfig, store);
+    new File(vectorFileName).deleteOnExit();
+    return vectorFileName;
+  }
+
+  @Test
+  public void testWriteAndReadRealVectors() throws IOException {
+    FlagConfig flagConfig = FlagConfig.getFlagConfig(new String[] {"-vectortype", "real", "-dimension", "2"});
+    VectorStoreRAM store = new VectorStoreRAM(flagConfig);
+    store.putVector("isaac", new RealVector(new float[] {1, 0}));
+    store.putVector("abraham", new RealVector(new float[] {0.7f, 0.7f}));
+    store.putVector("jacob", new RealVector(new float[] {0, 1}));
+    String vectorFileName = writeTestStore(flagConfig, store);
+
+    FlagConfig readConfig = FlagConfig.getFlagConfig(new String[] {"-indexfileformat", "mmap"});
+    VectorStoreReaderMmap reader = (VectorStoreReaderMmap) VectorStoreReader.openVectorStore(vectorFileName, readConfig);
+    assertEquals(2, readConfig.dimension());
+    assertEquals(3, reader.getNumVectors());
+    assertTrue(reader.containsVector("jacob"));
+    assertNull(reader.getVector("esau"));
+    assertEquals(0.707106f, reader.getVector("abraham").measureOverlap(new RealVector(new float[] {1, 0})), TOL);
+
+    int count = 0;
+    Enumeration<ObjectVector> vecEnum = reader.getAllVectors();
+    while (vecEnum.hasMoreElements()) {
+      ObjectVector objectVector = vecEnum.nextElement();
+      assertEquals(1, store.getVector(objectVector.getObject()).measureOverlap(objectVector.getVector()), TOL);
+      ++count;
+    }
+    assertEquals(3, count);
+    reader.close();
+  }
+
+  @Test
+  public void testInPlaceScoringMatchesVectorSearch() throws IOException, ZeroVectorException {
+    for (String vectorType : new String[] {"real", "binary"}) {
+      FlagConfig flagConfig = FlagConfig.getFlagConfig(
+          new String[] {"-vectortype", vectorType, "-dimension", "128", "-seedlength", "10"});
+      Random random = new Random(0);
+      VectorStoreRAM store = new VectorStoreRAM(flagConfig);
+      for (int i = 0; i < 50; ++i) {
+        store.putVector("term" + i, VectorFactory.generateRandomVector(
+            flagConfig.vectortype(), flagConfig.dimension(), flagConfig.seedlength(), random));
+      }
+      String vectorFileName = writeTestStore(flagConfig, store);
+      VectorStoreReaderMmap reader = new VectorStoreReaderMmap(vectorFileName, flagConfig);
+
+      Vector queryVector = store.getVector("term7");
+      LinkedList<SearchResult> expected = new VectorSearcher.VectorSearcherCosine(
+          store, store, null, flagConfig, queryVector).getNearestNeighbors(10);
+      LinkedList<SearchResult> actual = new VectorSearcher.VectorSearcherCosine(
+          reader, reader, null, flagConfig, queryVector).getNearestNeighbors(10);
+      assertEquals(expected.size(), actual.size());
+      assertEquals("term7", actual.getFirst().getObjectVector().getObject());
+      for (int i = 0; i < expected.size(); ++i) {
+        assertEquals(expected.get(i).getScore(), actual.get(i).getScore(), TOL);
+      }
+      reader.close();
+    }
+  }
+
+  @Test
+  public void testInt8PrecisionApproximatesFloats() throws IOException, ZeroVectorException {
+    FlagConfig floatConfig = FlagConfig.getFlagConfig(new String[] {"-vectortype", "real", "-dimension", "64"});
+    FlagConfig int8Config = FlagConfig.getFlagConfig(
+        new String[] {"-vectortype", "real", "-dimension", "64", "-vectorprecision", "int8"});
+    Random random = new Random(0);
+    VectorStoreRAM store = new VectorStoreRAM(floatConfig);
+    for (int i = 0; i < 500; ++i) {
+      float[] coordinates = new float[floatConfig.dimension()];
+      for (int j = 0; j < coordinates.length; ++j) coordinates[j] = (float) random.nextGaussian();
+      store.putVector("term" + i, new RealVector(coordinates));
+    }
+    String floatFileName = writeTestStore(floatConfig, store);
+    String int8FileName = writeTestStore(int8Config, store);
+    assertTrue(new File(int8FileName).length() * 3 < new File(floatFileName).length());
+
+    FlagConfig readConfig = FlagConfig.getFlagConfig(new String[] {"-indexfileformat", "mmap"});
+    VectorStoreReaderMmap int8Reader = new VectorStoreReaderMmap(int8FileName, readConfig);
+    VectorStoreReaderMmap floatReader = new VectorStoreReaderMmap(floatFileName, readConfig);
+    Vector queryVector = store.getVector("term3");
+    IndexedVectorStore.OverlapScorer scorer = int8Reader.getOverlapScorer(queryVector);
+    for (int i = 0; i < int8Reader.getNumVectors(); ++i) {
+      Vector original = store.getVector(int8Reader.getObject(i));
+      assertEquals(queryVector.measureOverlap(original), scorer.score(i), 0.02);
+      assertEquals(queryVector.measureOverlap(int8Reader.getVector(i)), scorer.score(i), TOL);
+    }
+
+    // Re-ranking with full precision vectors gives the same results as searching them.
+    LinkedList<SearchResult> expected = new VectorSearcher.VectorSearcherCosine(
+        floatReader, floatReader, null, readConfig, queryVector).getNearestNeighbors(10);
+    VectorSearcher searcher = new VectorSearcher.VectorSearcherCosine(
+        int8Reader, int8Reader, null, readConfig, queryVector);
+    searcher.setRerankStore(floatReader);
+    LinkedList<SearchResult> actual = searcher.getNearestNeighbors(10);
+    assertEquals(expected.size(), actual.size());
+    for (int i = 0; i < expected.size(); ++i) {
+      assertEquals(expected.get(i).getObjectVector().getObject(), actual.get(i).getObjectVector().getObject());
+      assertEquals(expected.get(i).getScore(), actual.get(i).getScore(), TOL);
+    }
+    int8Reader.close();
+    floatReader.close();
+  }
+
+  @Test
+  public void testProductQuantizationApproximatesFloats() throws IOException, ZeroVectorException {
+    FlagConfig floatConfig = FlagConfig.getFlagConfig(new String[] {"-vectortype", "real", "-dimension", "64"});
+    FlagConfig pqConfig = FlagConfig.getFlagConfig(new String[] {
+        "-vectortype", "real", "-dimension", "64", "-vectorprecision", "pq", "-pqsubspaces", "8"});
+    Random random = new Random(0);
+    VectorStoreRAM store = new VectorStoreRAM(floatConfig);
+    for (int i = 0; i < 500; ++i) {
+      float[] coordinates = new float[floatConfig.dimension()];
+      for (int j = 0; j < coordinates.length; ++j) coordinates[j] = (float) random.nextGaussian();
+      store.putVector("term" + i, new RealVector(coordinates));
+    }
+    String floatFileName = writeTestStore(floatConfig, store);
+    String pqFileName = writeTestStore(pqConfig, store);
+    // Training is seeded, so the same vectors give the same codebooks and codes.
+    assertTrue(Arrays.equals(Files.readAllBytes(new File(pqFileName).toPath()),
+        Files.readAllBytes(new File(writeTestStore(pqConfig, store)).toPath())));
+
+    FlagConfig readConfig = FlagConfig.getFlagConfig(new String[] {"-indexfileformat", "mmap"});
+    VectorStoreReaderMmap pqReader = new VectorStoreReaderMmap(pqFileName, readConfig);
+    VectorStoreReaderMmap floatReader = new VectorStoreReaderMmap(floatFileName, readConfig);
+    assertEquals(500, pqReader.getNumVectors());
+    Vector queryVector = store.getVector("term3");
+    IndexedVectorStore.OverlapScorer scorer = pqReader.getOverlapScorer(queryVector);
+    double totalError = 0;
+    for (int i = 0; i < pqReader.getNumVectors(); ++i) {
+      Vector original = store.getVector(pqReader.getObject(i));
+      totalError += Math.abs(queryVector.measureOverlap(original) - scorer.score(i));
+      assertEquals(queryVector.measureOverlap(pqReader.getVector(i)), scorer.score(i), TOL);
+    }
+    assertTrue(totalError / pqReader.getNumVectors() < 0.1);
+
+    // Re-ranking with full precision vectors gives the same results as searching them.
+    LinkedList<SearchResult> expected = new VectorSearcher.VectorSearcherCosine(
+        floatReader, floatReader, null, readConfig, queryVector).getNearestNeighbors(5);
+    VectorSearcher searcher = new VectorSearcher.VectorSearcherCosine(
+        pqReader, pqReader, null, readConfig, queryVector);
+    searcher.setRerankStore(floatReader);
+    LinkedList<SearchResult> actual = searcher.getNearestNeighbors(5);
+    assertEquals(expected.size(), actual.size());
+    for (int i = 0; i < expected.size(); ++i) {
+      assertEquals(expected.get(i).getObjectVector().getObject(), actual.get(i).getObjectVector().getObject());
+    }
+    pqReader.close();
+    floatReader.close();
+  }
+
+  @Test
+  public void testHalfPrecisionScoresInPlace() throws IOException {
+    for (String precision : new String[] {"float16", "bfloat16"}) {
+      FlagConfig halfConfig = FlagConfig.getFlagConfig(
+          new String[] {"-vectortype", "real", "-dimension", "64", "-vectorprecision", precision});
+      Random random = new Random(0);
+      VectorStoreRAM store = new VectorStoreRAM(halfConfig);
+      for (int i = 0; i < 50; ++i) {
+        store.putVector("term" + i, VectorFactory.generateRandomVector(
+            halfConfig.vectortype(), halfConfig.dimension(), halfConfig.dimension(), random));
+      }
+      VectorStoreReaderMmap reader = new VectorStoreReaderMmap(writeTestStore(halfConfig, store), halfConfig);
+      Vector queryVector = store.getVector("term3");
+      IndexedVectorStore.OverlapScorer scorer = reader.getOverlapScorer(queryVector);
+      for (int i = 0; i < reader.getNumVectors(); ++i) {
+        Vector original = store.getVector(reader.getObject(i));
+        assertEquals(queryVector.measureOverlap(original), scorer.score(i), 0.01);
+        assertEquals(queryVector.measureOverlap(reader.getVector(i)), scorer.score(i), TOL);
+      }
+      reader.close();
+    }
+  }
+
+  @Test
+  public void testHalfPrecisionComplexVectors() throws IOException {
+    FlagConfig halfConfig = FlagConfig.getFlagConfig(
+        new String[] {"-vectortype", "complex", "-dimension", "32", "-vectorprecision", "float16"});
+    Random random = new Random(0);
+    VectorStoreRAM store = new VectorStoreRAM(halfConfig);
+    for (int i = 0; i < 10; ++i) {
+      store.putVector("term" + i, VectorFactory.generateRandomVector(
+          halfConfig.vectortype(), halfConfig.dimension(), halfConfig.dimension(), random));
+    }
+    VectorStoreReaderMmap reader = new VectorStoreReaderMmap(writeTestStore(halfConfig, store), halfConfig);
+    assertEquals(10, reader.getNumVectors());
+    for (int i = 0; i < reader.getNumVectors(); ++i) {
+      Vector original = store.getVector(reader.getObject(i));
+      assertEquals(1, original.measureOverlap(reader.getVector(i)), 0.01);
+    }
+    reader.close();
+  }
+
+  @Test
+  public void testInt8PrecisionOnlyForRealVectors() throws IOException {
+    FlagConfig flagConfig = FlagConfig.getFlagConfig(
+        new String[] {"-vectortype", "binary", "-dimension", "64", "-vectorprecision", "int8"});
+    try {
+      writeTestStore(flagConfig, new VectorStoreRAM(flagConfig));
+      fail();
+    } catch (IllegalArgumentException e) {
+      assertTrue(e.getMessage().contains("real"));
+    }
+  }
+
+  @Test
+  public void testRepeatedObjectsKeepFirstRecord() throws IOException {
+    FlagConfig flagConfig = FlagConfig.getFlagConfig(new String[] {"-vectortype", "real", "-dimension", "2"});
+    final List<ObjectVector> records = Arrays.asList(
+        new ObjectVector("isaac", new RealVector(new float[] {1, 0})),
+        new ObjectVector("jacob", new RealVector(new float[] {0, 1})),
+        new ObjectVector("isaac", new RealVector(new float[] {0, 1})));
+    VectorStore store = new VectorStore() {
+      @Override
+      public Vector getVector(Object object) {
+        return null;
+      }
+
+      @Override
+      public boolean containsVector(Object object) {
+        return false;
+      }
+
+      @Override
+      public Enumeration<ObjectVector> getAllVectors() {
+        return Collections.enumeration(records);
+      }
+
+      @Override
+      public int getNumVectors() {
+        return records.size();
+      }
+    };
+    String vectorFileName = writeTestStore(flagConfig, store);
+
+    VectorStoreReaderMmap reader = new VectorStoreReaderMmap(vectorFileName, flagConfig);
+    assertEquals(3, reader.getNumVectors());
+    assertEquals(1, reader.getVector("isaac").measureOverlap(new RealVector(new float[] {1, 0})), TOL);
+    assertEquals("isaac", reader.getObject(2));
+    reader.close();
+    // Closing again does nothing.
+    reader.close();
+  }
+}
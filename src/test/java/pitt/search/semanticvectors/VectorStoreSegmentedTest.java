@@ -0,0 +1,189 @@
+/**
+   Copyright (c) 2026, the SemanticVectors AUTHORS.
+
+   All rights reserved.
+
+   Redistribution and use in source and binary forms, with or without
+   modification, are permitted provided that the following conditions are
+   met:
+
+   * Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+   * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the following
+   disclaimer in the documentation and/or other materials provided
+   with the distribution.
+
+   * Neither the name of the University of Pittsburgh nor the names
+   of its contributors may be used to endorse or promote products
+   derived from this software without specific prior written
+   permission.
+
+   THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+   "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+   LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+   A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+   CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+   EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+   PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+   PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+   LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+   NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+   SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+**/
+
+package pitt.search.semanticvectors;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+import pitt.search.semanticvectors.vectors.RealVector;
+
+public class VectorStoreSegmentedTest extends TestCase {
+
+  private static FlagConfig newFlagConfig(int maxSegments) {
+    return FlagConfig.getFlagConfig(new String[] {
+        "-vectortype", "real", "-dimension", "2", "-maxsegments", Integer.toString(maxSegments)});
+  }
+
+  private static VectorStoreRAM newStore(FlagConfig flagConfig, String... objects) {
+    VectorStoreRAM store = new VectorStoreRAM(flagConfig);
+    for (int i = 0; i < objects.length; ++i) {
+      store.putVector(objects[i], new RealVector(new float[] {i, 1}));
+    }
+    return store;
+  }
+
+  private static Set<String> enumerateObjects(VectorStore store) {
+    Set<String> objects = new HashSet<String>();
+    Enumeration<ObjectVector> vectors = store.getAllVectors();
+    while (vectors.hasMoreElements()) {
+      assertTrue(objects.add(vectors.nextElement().getObject().toString()));
+    }
+    return objects;
+  }
+
+  private static void deleteDirectory(File directory) {
+    for (File file : directory.listFiles()) file.delete();
+    directory.delete();
+  }
+
+  @Test
+  public void testAppendsOverridesAndDeletes() throws IOException {
+    File tmpDir = Files.createTempDirectory("segmentedstore").toFile();
+    String storeName = new File(tmpDir, "docvectors").getPath();
+    FlagConfig flagConfig = newFlagConfig(10);
+
+    VectorStoreSegmented store = new VectorStoreSegmented(storeName, flagConfig);
+    assertEquals(0, store.getNumVectors());
+    store.appendVectors(newStore(flagConfig, "isaac", "abraham", "jacob"), Collections.emptySet());
+    store.appendVectors(newStore(flagConfig, "esau", "isaac"), Arrays.asList("abraham"));
+    assertEquals(2, store.getNumSegments());
+
+    assertEquals(0.7071, store.getVector("isaac").measureOverlap(new RealVector(new float[] {1, 0})), 0.0001);
+    assertNull(store.getVector("abraham"));
+    assertFalse(store.containsVector("abraham"));
+    assertTrue(store.containsVector("jacob"));
+    assertEquals(3, store.getNumVectors());
+    assertEquals(new HashSet<String>(Arrays.asList("isaac", "jacob", "esau")), enumerateObjects(store));
+    store.close();
+
+    CloseableVectorStore reopened = VectorStoreReader.openVectorStore(storeName, flagConfig);
+    assertTrue(reopened instanceof VectorStoreSegmented);
+    assertEquals(3, reopened.getNumVectors());
+    assertNull(reopened.getVector("abraham"));
+    assertNotNull(reopened.getVector("esau"));
+    reopened.close();
+    deleteDirectory(tmpDir);
+  }
+
+  @Test
+  public void testWriteVectorsReplacesSegmentedStore() throws IOException {
+    File tmpDir = Files.createTempDirectory("segmentedstore").toFile();
+    String storeName = new File(tmpDir, "docvectors").getPath();
+    FlagConfig flagConfig = newFlagConfig(10);
+
+    VectorStoreSegmented store = new VectorStoreSegmented(storeName, flagConfig);
+    store.appendVectors(newStore(flagConfig, "isaac", "abraham"), Collections.emptySet());
+    store.appendVectors(newStore(flagConfig, "jacob"), Arrays.asList("abraham"));
+    store.close();
+
+    VectorStoreWriter.writeVectors(storeName, flagConfig, newStore(flagConfig, "esau"));
+    assertFalse(VectorStoreSegmented.exists(storeName));
+    String vectorFileName = VectorStoreUtils.getStoreFileName(storeName, flagConfig);
+    Set<String> expectedFiles = new HashSet<String>(Arrays.asList(new File(vectorFileName).getName(),
+        VectorStoreUtils.getOffsetIndexFileName(new File(vectorFileName).getName())));
+    assertEquals(expectedFiles, new HashSet<String>(Arrays.asList(tmpDir.list())));
+
+    CloseableVectorStore reopened = VectorStoreReader.openVectorStore(storeName, flagConfig);
+    assertFalse(reopened instanceof VectorStoreSegmented);
+    assertEquals(Collections.singleton("esau"), enumerateObjects(reopened));
+    reopened.close();
+    deleteDirectory(tmpDir);
+  }
+
+  @Test
+  public void testRejectsDuplicatesAndWrongDimension() throws IOException {
+    File tmpDir = Files.createTempDirectory("segmentedstore").toFile();
+    FlagConfig flagConfig = newFlagConfig(10);
+    VectorStoreSegmented store = new VectorStoreSegmented(new File(tmpDir, "vectors").getPath(), flagConfig);
+    VectorStoreSegmented.SegmentWriter writer = store.newSegment();
+    writer.putVector("isaac", new RealVector(new float[] {1, 0}));
+    try {
+      writer.putVector("isaac", new RealVector(new float[] {0, 1}));
+      fail();
+    } catch (IllegalArgumentException e) {
+      assertTrue(e.getMessage().contains("isaac"));
+    }
+    try {
+      writer.putVector("jacob", new RealVector(new float[] {0, 1, 0}));
+      fail();
+    } catch (IllegalArgumentException e) {
+      assertTrue(e.getMessage().contains("dimension"));
+    }
+    writer.abort();
+    assertEquals(0, store.getNumSegments());
+    store.close();
+    deleteDirectory(tmpDir);
+  }
+
+  @Test
+  public void testBackgroundCompactionKeepsLiveVectors() throws Exception {
+    File tmpDir = Files.createTempDirectory("segmentedstore").toFile();
+    String storeName = new File(tmpDir, "docvectors").getPath();
+    FlagConfig flagConfig = newFlagConfig(2);
+
+    VectorStoreSegmented store = new VectorStoreSegmented(storeName, flagConfig);
+    store.appendVectors(newStore(flagConfig, "isaac", "abraham"), Collections.emptySet());
+    store.appendVectors(newStore(flagConfig, "jacob"), Arrays.asList("isaac"));
+    store.appendVectors(newStore(flagConfig, "esau", "abraham"), Arrays.asList("jacob"));
+    store.appendVectors(newStore(flagConfig, "isaac"), Collections.emptySet());
+    store.awaitCompaction();
+    store.compact(2);
+    assertTrue(store.getNumSegments() <= 2);
+
+    Set<String> expected = new HashSet<String>(Arrays.asList("isaac", "abraham", "esau"));
+    assertEquals(expected, enumerateObjects(store));
+    assertEquals(expected, store.getObjects());
+    assertEquals(3, store.getNumVectors());
+    assertNull(store.getVector("jacob"));
+    assertEquals(1, store.getVector("abraham").measureOverlap(new RealVector(new float[] {1, 1})), 0.0001);
+    store.close();
+
+    VectorStoreSegmented reopened = new VectorStoreSegmented(storeName, flagConfig);
+    assertEquals(expected, enumerateObjects(reopened));
+    reopened.close();
+    deleteDirectory(tmpDir);
+  }
+}
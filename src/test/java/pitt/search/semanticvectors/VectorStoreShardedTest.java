@@ -0,0 +1,145 @@
+/**
+   Copyright (c) 2026, the SemanticVectors AUTHORS.
+
+   All rights reserved.
+
+   Redistribution and use in source and binary forms, with or without
+   modification, are permitted provided that the following conditions are
+   met:
+
+   * Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+   * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the following
+   disclaimer in the documentation and/or other materials provided
+   with the distribution.
+
+   * Neither the name of the University of Pittsburgh nor the names
+   of its contributors may be used to endorse or promote products
+   derived from this software without specific prior written
+   permission.
+
+   THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+   "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+   LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+   A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+   CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+   EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+   PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+   PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+   LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+   NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+   SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+**/
+
+package pitt.search.semanticvectors;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+import pitt.search.semanticvectors.vectors.Vector;
+import pitt.search.semanticvectors.vectors.VectorFactory;
+
+public class VectorStoreShardedTest extends TestCase {
+
+  private static VectorStoreRAM newStore(FlagConfig flagConfig, int numVectors) {
+    Random random = new Random(0);
+    VectorStoreRAM store = new VectorStoreRAM(flagConfig);
+    for (int i = 0; i < numVectors; ++i) {
+      store.putVector("term" + i, VectorFactory.generateRandomVector(
+          flagConfig.vectortype(), flagConfig.dimension(), flagConfig.seedlength(), random));
+    }
+    return store;
+  }
+
+  private static void deleteDirectory(File directory) {
+    for (File file : directory.listFiles()) file.delete();
+    directory.delete();
+  }
+
+  private static void checkShardedStore(String partitioning, String format, int searchThreads)
+      throws Exception {
+    File tmpDir = Files.createTempDirectory("shardedstore").toFile();
+    String storeName = new File(tmpDir, "termvectors").getPath();
+    FlagConfig flagConfig = FlagConfig.getFlagConfig(new String[] {
+        "-vectortype", "real", "-dimension", "64", "-seedlength", "8", "-indexfileformat", format,
+        "-numshards", "3", "-shardpartitioning", partitioning,
+        "-searchthreads", Integer.toString(searchThreads)});
+    VectorStoreRAM ramStore = newStore(flagConfig, 1000);
+    VectorStoreWriter.writeVectors(storeName, flagConfig, ramStore);
+
+    CloseableVectorStore store = VectorStoreReader.openVectorStore(storeName, flagConfig);
+    assertTrue(store instanceof VectorStoreSharded);
+    List<CloseableVectorStore> shards = ((VectorStoreSharded) store).getShards();
+    assertEquals(3, shards.size());
+    assertEquals(1000, store.getNumVectors());
+    for (CloseableVectorStore shard : shards) {
+      assertTrue(shard.getNumVectors() > 200);
+    }
+
+    Set<Object> objects = new HashSet<Object>();
+    Enumeration<ObjectVector> vecEnum = store.getAllVectors();
+    while (vecEnum.hasMoreElements()) {
+      ObjectVector objectVector = vecEnum.nextElement();
+      assertTrue(objects.add(objectVector.getObject()));
+      assertEquals(1, store.getVector(objectVector.getObject()).measureOverlap(
+          ramStore.getVector(objectVector.getObject())), 0.0001);
+    }
+    assertEquals(1000, objects.size());
+    assertNull(store.getVector("term1000"));
+    assertFalse(store.containsVector("term1000"));
+
+    Vector queryVector = ramStore.getVector("term7");
+    LinkedList<SearchResult> expected = new VectorSearcher.VectorSearcherCosine(
+        ramStore, ramStore, null, flagConfig, queryVector).getNearestNeighbors(20);
+    LinkedList<SearchResult> actual = new VectorSearcher.VectorSearcherCosine(
+        store, store, null, flagConfig, queryVector).getNearestNeighbors(20);
+    assertEquals(expected.size(), actual.size());
+    assertEquals("term7", actual.getFirst().getObjectVector().getObject());
+    for (int i = 0; i < expected.size(); ++i) {
+      assertEquals(expected.get(i).getScore(), actual.get(i).getScore(), 0.0001);
+    }
+    store.close();
+    deleteDirectory(tmpDir);
+  }
+
+  @Test
+  public void testHashShardsInLuceneFormat() throws Exception {
+    checkShardedStore("hash", "lucene", 1);
+  }
+
+  @Test
+  public void testRangeShardsInMmapFormat() throws Exception {
+    checkShardedStore("range", "mmap", 3);
+  }
+
+  @Test
+  public void testUnshardedWriteReplacesManifest() throws Exception {
+    File tmpDir = Files.createTempDirectory("shardedstore").toFile();
+    String storeName = new File(tmpDir, "termvectors").getPath();
+    FlagConfig shardedConfig = FlagConfig.getFlagConfig(
+        new String[] {"-vectortype", "real", "-dimension", "64", "-seedlength", "8", "-numshards", "2"});
+    VectorStoreWriter.writeVectors(storeName, shardedConfig, newStore(shardedConfig, 10));
+    assertTrue(VectorStoreSharded.exists(storeName));
+
+    FlagConfig flagConfig = FlagConfig.getFlagConfig(
+        new String[] {"-vectortype", "real", "-dimension", "64", "-seedlength", "8"});
+    VectorStoreWriter.writeVectors(storeName, flagConfig, newStore(flagConfig, 5));
+    assertFalse(VectorStoreSharded.exists(storeName));
+    CloseableVectorStore store = VectorStoreReader.openVectorStore(storeName, flagConfig);
+    assertEquals(5, store.getNumVectors());
+    store.close();
+    deleteDirectory(tmpDir);
+  }
+}
@@ -0,0 +1,172 @@
+/**
+   Copyright (c) 2026, the SemanticVectors AUTHORS.
+
+   All rights reserved.
+
+   Redistribution and use in source and binary forms, with or without
+   modification, are permitted provided that the following conditions are
+   met:
+
+   * Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+   * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the following
+   disclaimer in the documentation and/or other materials provided
+   with the distribution.
+
+   * Neither the name of the University of Pittsburgh nor the names
+   of its contributors may be used to endorse or promote products
+   derived from this software without specific prior written
+   permission.
+
+   THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+   "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+   LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+   A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+   CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+   EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+   PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+   PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+   LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+   NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+   SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+**/
+
+package pitt.search.semanticvectors;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import pitt.search.semanticvectors.vectors.BinaryVector;
+import pitt.search.semanticvectors.vectors.ComplexVector;
+import pitt.search.semanticvectors.vectors.PermutationUtils;
+import pitt.search.semanticvectors.vectors.RealVector;
+import pitt.search.semanticvectors.vectors.Vector;
+import pitt.search.semanticvectors.vectors.VectorFactory;
+import pitt.search.semanticvectors.vectors.VectorType;
+
+import junit.framework.TestCase;
+
+public class VectorStoreSlabTest extends TestCase {
+
+  static double TOL = 0.0001;
+
+  @Test
+  public void testPutGetAndUpdateInPlace() {
+    FlagConfig flagConfig = FlagConfig.getFlagConfig(
+        new String[] {"-vectortype", "real", "-dimension", "2"});
+    VectorStoreSlab vectorStore = new VectorStoreSlab(flagConfig);
+    assertEquals(0, vectorStore.getNumVectors());
+    int id = vectorStore.putVector("my vector", new RealVector(new float[] {1.0f, 0.0f}));
+    assertEquals(0, id);
+    assertEquals(1, vectorStore.getNumVectors());
+    assertEquals("my vector", vectorStore.getObject(id));
+    assertEquals(-1, vectorStore.getId("other vector"));
+
+    // Returned vectors are copies.
+    Vector vectorOut = vectorStore.getVector("my vector");
+    vectorOut.superpose(new RealVector(new float[] {0.0f, 5.0f}), 1, null);
+    assertEquals(0, ((RealVector) vectorStore.getVector("my vector")).getCoordinates()[1], TOL);
+
+    vectorStore.superpose(id, new RealVector(new float[] {1.0f, 0.0f}), 3, new int[] {1, 0});
+    float[] coordinates = ((RealVector) vectorStore.getVector(id)).getCoordinates();
+    assertEquals(1, coordinates[0], TOL);
+    assertEquals(3, coordinates[1], TOL);
+
+    vectorStore.normalize(id);
+    coordinates = ((RealVector) vectorStore.getVector(id)).getCoordinates();
+    assertEquals(1 / Math.sqrt(10), coordinates[0], TOL);
+    assertEquals(3 / Math.sqrt(10), coordinates[1], TOL);
+
+    assertEquals(1, vectorStore.getOrAddId("other vector"));
+    assertTrue(vectorStore.getVector("other vector").isZeroVector());
+  }
+
+  @Test
+  public void testManySlabsMatchVectorStoreRAM() {
+    for (String vectorType : new String[] {"real", "binary"}) {
+      FlagConfig flagConfig = FlagConfig.getFlagConfig(
+          new String[] {"-vectortype", vectorType, "-dimension", "128", "-seedlength", "10"});
+      Random random = new Random(0);
+      VectorStoreRAM ramStore = new VectorStoreRAM(flagConfig);
+      VectorStoreSlab slabStore = new VectorStoreSlab(flagConfig);
+      // Enough real vectors to fill more than one slab.
+      int numVectors = (1 << 22) / 128 + 100;
+      for (int i = 0; i < numVectors; ++i) {
+        Vector vector = VectorFactory.generateRandomVector(
+            flagConfig.vectortype(), flagConfig.dimension(), flagConfig.seedlength(), random);
+        ramStore.putVector("vector" + i, vector);
+        slabStore.putVector("vector" + i, vector);
+      }
+      assertEquals(numVectors, slabStore.getNumVectors());
+
+      Vector query = ramStore.getVector("vector" + (numVectors - 1));
+      IndexedVectorStore.OverlapScorer scorer = slabStore.getOverlapScorer(query);
+      for (int id = 0; id < numVectors; id += 97) {
+        Object key = slabStore.getObject(id);
+        assertEquals(query.measureOverlap(ramStore.getVector(key)), scorer.score(id), TOL);
+        assertEquals(query.measureOverlap(ramStore.getVector(key)),
+            query.measureOverlap(slabStore.getVector(key)), TOL);
+      }
+      if (flagConfig.vectortype() == VectorType.BINARY) {
+        assertTrue(slabStore.getVector(0) instanceof BinaryVector);
+      }
+    }
+  }
+
+  @Test
+  public void testInPlaceUpdatesMatchVectorSuperposition() {
+    ComplexVector.Mode dominantMode = ComplexVector.getDominantMode();
+    try {
+      for (String[] types : new String[][] {
+          {"complexflat", "CARTESIAN"}, {"complex", "HERMITIAN"}, {"binary", "CARTESIAN"}}) {
+        FlagConfig flagConfig = FlagConfig.getFlagConfig(
+            new String[] {"-vectortype", types[0], "-dimension", "128", "-seedlength", "10"});
+        ComplexVector.setDominantMode(ComplexVector.Mode.valueOf(types[1]));
+        Random random = new Random(0);
+        VectorStoreSlab vectorStore = new VectorStoreSlab(flagConfig);
+        Vector expected = VectorFactory.createZeroVector(flagConfig.vectortype(), flagConfig.dimension());
+        int id = vectorStore.getOrAddId("doc");
+        int[] permutation = PermutationUtils.getShiftPermutation(
+            flagConfig.vectortype(), flagConfig.dimension(), 1);
+        for (int i = 0; i < 10; ++i) {
+          Vector other = VectorFactory.generateRandomVector(
+              flagConfig.vectortype(), flagConfig.dimension(), flagConfig.seedlength(), random);
+          double weight = 1 + i % 3;
+          expected.superpose(other, weight, i % 4 == 0 ? permutation : null);
+          vectorStore.superpose(id, other, weight, i % 4 == 0 ? permutation : null);
+        }
+        expected.normalize();
+        vectorStore.normalize(id);
+        assertEquals(1, expected.measureOverlap(vectorStore.getVector(id)), TOL);
+        assertEquals(1, vectorStore.getOverlapScorer(expected).score(id), TOL);
+      }
+    } finally {
+      ComplexVector.setDominantMode(dominantMode);
+    }
+  }
+
+  @Test
+  public void testScorerSeesEntriesAddedLater() {
+    FlagConfig flagConfig = FlagConfig.getFlagConfig(
+        new String[] {"-vectortype", "real", "-dimension", "4096"});
+    VectorStoreSlab vectorStore = new VectorStoreSlab(flagConfig);
+    float[] coordinates = new float[4096];
+    coordinates[0] = 1;
+    vectorStore.putVector("first", new RealVector(coordinates));
+    IndexedVectorStore.OverlapScorer scorer = vectorStore.getOverlapScorer(new RealVector(coordinates));
+    IndexedVectorStore.BatchOverlapScorer batchScorer =
+        vectorStore.getBatchOverlapScorer(new Vector[] {new RealVector(coordinates)});
+    // Enough vectors to need a new slab.
+    int numVectors = (1 << 22) / 4096 + 1;
+    for (int i = 1; i < numVectors; ++i) {
+      vectorStore.putVector("vector" + i, new RealVector(coordinates.clone()));
+    }
+    assertEquals(1, scorer.score(numVectors - 1), TOL);
+    double[][] scores = new double[1][1];
+    batchScorer.score(numVectors - 1, numVectors, scores);
+    assertEquals(1, scores[0][0], TOL);
+  }
+}
@@ -33,7 +33,13 @@
 
 package pitt.search.semanticvectors;
 
+import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Random;
 
 import org.apache.lucene.store.IOContext;
 import org.apache.lucene.store.IndexInput;
@@ -43,6 +49,7 @@ import org.junit.*;
 
 import pitt.search.semanticvectors.vectors.RealVector;
 import pitt.search.semanticvectors.vectors.Vector;
+import pitt.search.semanticvectors.vectors.VectorFactory;
 import pitt.search.semanticvectors.vectors.VectorType;
 
 import junit.framework.TestCase;
@@ -92,4 +99,53 @@ public class VectorStoreWriterTest extends TestCase {
     Vector isaacVector = storeReader.getVector("isaac");
     assertEquals(0.7, abrahamVector.measureOverlap(isaacVector), 0.01);
   }
+
+  @Test
+  public void testWriteTextVectorStoreAndReadInParallel() throws IOException {
+    File tmpDir = Files.createTempDirectory("textstore").toFile();
+    for (String vectorType : new String[] {"real", "binary", "complex"}) {
+      FlagConfig flagConfig = FlagConfig.getFlagConfig(
+          new String[] {"-vectortype", vectorType, "-dimension", "64", "-seedlength", "64"});
+      VectorStoreRAM store = new VectorStoreRAM(flagConfig);
+      Random random = new Random(0);
+      for (int i = 0; i < 3000; ++i) {
+        store.putVector("term" + i, VectorFactory.generateRandomVector(
+            flagConfig.vectortype(), flagConfig.dimension(), flagConfig.seedlength(), random));
+      }
+      String textFile = new File(tmpDir, vectorType + ".txt").getPath();
+      VectorStoreWriter.writeVectorsInTextFormat(textFile, flagConfig, store);
+      // Complex overlaps can change the representation of stored vectors, so keep the strings written.
+      List<String> expected = new ArrayList<String>();
+      Enumeration<ObjectVector> storeVectors = store.getAllVectors();
+      while (storeVectors.hasMoreElements()) {
+        ObjectVector objectVector = storeVectors.nextElement();
+        expected.add(objectVector.getObject() + "|" + objectVector.getVector().writeToString());
+      }
+
+      for (String numThreads : new String[] {"1", "3"}) {
+        FlagConfig readConfig = FlagConfig.getFlagConfig(new String[] {"-numthreads", numThreads});
+        VectorStoreReaderText reader = new VectorStoreReaderText(textFile, readConfig);
+        assertEquals(3000, reader.getNumVectors());
+        Enumeration<ObjectVector> actual = reader.getAllVectors();
+        for (String expectedLine : expected) {
+          assertTrue(actual.hasMoreElements());
+          ObjectVector actualVector = actual.nextElement();
+          assertEquals(expectedLine, actualVector.getObject() + "|" + actualVector.getVector().writeToString());
+        }
+        assertFalse(actual.hasMoreElements());
+        String lastLine = expected.get(expected.size() - 1);
+        String lastObject = lastLine.substring(0, lastLine.indexOf('|'));
+        assertEquals(lastLine, lastObject + "|" + reader.getVector(lastObject).writeToString());
+        assertNull(reader.getVector("term"));
+
+        // Closing the reader also closes an enumeration that was abandoned part way through.
+        Enumeration<ObjectVector> abandoned = reader.getAllVectors();
+        assertEquals(expected.get(0).substring(0, expected.get(0).indexOf('|')), abandoned.nextElement().getObject());
+        reader.close();
+        assertFalse(abandoned.hasMoreElements());
+      }
+    }
+    for (File file : tmpDir.listFiles()) file.delete();
+    tmpDir.delete();
+  }
 }
\ No newline at end of file
@@ -0,0 +1,89 @@
+/**
+   Copyright (c) 2026, the SemanticVectors AUTHORS.
+
+   All rights reserved.
+
+   Redistribution and use in source and binary forms, with or without
+   modification, are permitted provided that the following conditions are
+   met:
+
+   * Redistributions of source code must retain the above copyright
+   notice, this list of conditions and the following disclaimer.
+
+   * Redistributions in binary form must reproduce the above
+   copyright notice, this list of conditions and the following
+   disclaimer in the documentation and/or other materials provided
+   with the distribution.
+
+   * Neither the name of the University of Pittsburgh nor the names
+   of its contributors may be used to endorse or promote products
+   derived from this software without specific prior written
+   permission.
+
+   THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+   "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+   LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+   A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+   CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+   EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+   PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+   PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+   LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+   NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+   SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+**/
+
+package pitt.search.semanticvectors.utils;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import junit.framework.TestCase;
+
+public class StringUtilsTest extends TestCase {
+
+  private static void assertParsesLikeJava(String input) {
+    assertEquals(input, Float.floatToIntBits(Float.parseFloat(input)),
+        Float.floatToIntBits(StringUtils.parseFloat(("|" + input + "|").toCharArray(), 1, input.length() + 1)));
+  }
+
+  @Test
+  public void testParseFloatMatchesJava() {
+    for (String input : new String[] {"0", "-0", "+1", "1.", ".5", "-0.000123", "3.4028235E38", "1.0E-45",
+        "1.17549435E-38", "123456789012345678901234567890", "2.5e+3", "7E-10", "NaN", "-Infinity", "1f", " 2.5 "}) {
+      assertParsesLikeJava(input);
+    }
+    Random random = new Random(0);
+    for (int i = 0; i < 100000; ++i) {
+      float value = Float.intBitsToFloat(random.nextInt());
+      if (Float.isNaN(value)) continue;
+      assertParsesLikeJava(Float.toString(value));
+      assertParsesLikeJava(Double.toString(random.nextGaussian()));
+      assertParsesLikeJava(String.format("%.9f", random.nextGaussian()));
+      assertParsesLikeJava(String.format("%.7e", random.nextGaussian() * 1000));
+    }
+  }
+
+  @Test
+  public void testParseFloatRejectsNonNumbers() {
+    for (String input : new String[] {"", "-", "1e", "1.2.3", "abc"}) {
+      try {
+        StringUtils.parseFloat(input.toCharArray(), 0, input.length());
+        fail("Parsed: " + input);
+      } catch (NumberFormatException e) {
+        // Expected.
+      }
+    }
+  }
+
+  @Test
+  public void testParseFloats() {
+    float[] output = new float[3];
+    assertEquals(3, StringUtils.parseFloats("key|1|-2.5|3e2|".toCharArray(), 4, 15, '|', output));
+    assertEquals(1f, output[0]);
+    assertEquals(-2.5f, output[1]);
+    assertEquals(300f, output[2]);
+    assertEquals(4, StringUtils.parseFloats("1|2|3|4".toCharArray(), 0, 7, '|', output));
+  }
+}
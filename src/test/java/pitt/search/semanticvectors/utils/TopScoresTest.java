@@ -0,0 +1,48 @@
+package pitt.search.semanticvectors.utils;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+public class TopScoresTest {
+  public static double TOL = 0.00001;
+
+  @Test
+  public void testKeepsHighestScoresInOrder() {
+    Random random = new Random(0);
+    double[] allScores = new double[1000];
+    TopScores topScores = new TopScores(10);
+    for (int i = 0; i < allScores.length; ++i) {
+      allScores[i] = random.nextDouble();
+      topScores.offer(allScores[i], i);
+    }
+    Assert.assertTrue(topScores.isFull());
+
+    double[] sortedScores = allScores.clone();
+    Arrays.sort(sortedScores);
+    Assert.assertEquals(sortedScores[sortedScores.length - 10], topScores.minScore(), TOL);
+    topScores.sortDescending();
+    for (int i = 0; i < 10; ++i) {
+      Assert.assertEquals(sortedScores[sortedScores.length - 1 - i], topScores.getScore(i), TOL);
+      Assert.assertEquals(allScores[topScores.getId(i)], topScores.getScore(i), TOL);
+    }
+  }
+
+  @Test
+  public void testPartlyFilledAndEmpty() {
+    TopScores topScores = new TopScores(5);
+    Assert.assertEquals(Double.NEGATIVE_INFINITY, topScores.minScore(), TOL);
+    topScores.offer(0.5, 1);
+    topScores.offer(0.9, 2);
+    topScores.sortDescending();
+    Assert.assertEquals(2, topScores.size());
+    Assert.assertEquals(2, topScores.getId(0));
+    Assert.assertEquals(1, topScores.getId(1));
+
+    TopScores noScores = new TopScores(0);
+    Assert.assertFalse(noScores.offer(1, 1));
+    Assert.assertEquals(0, noScores.size());
+  }
+}
@@ -35,6 +35,10 @@
 package pitt.search.semanticvectors.vectors;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Random;
 
 import junit.framework.TestCase;
@@ -43,6 +47,7 @@ import org.apache.lucene.store.IOContext;
 import org.apache.lucene.store.IndexInput;
 import org.apache.lucene.store.IndexOutput;
 import org.apache.lucene.store.RAMDirectory;
+import org.apache.lucene.util.FixedBitSet;
 import org.junit.Test;
 
 public class BinaryVectorTest extends TestCase {
@@ -67,6 +72,25 @@ public class BinaryVectorTest extends TestCase {
     assertEquals(0, vector.numRows());
   }
   
+  @Test
+  public void testTallyAndWriteLeaveElementalVectors() throws IOException {
+    BinaryVector vector = new BinaryVector(64).generateRandomVector(64, 32, new Random(0));
+    String elementalString = vector.writeToString();
+    vector.tallyVotes();
+    RAMDirectory directory = new RAMDirectory();
+    IndexOutput indexOutput = directory.createOutput("binaryvectors.bin", IOContext.DEFAULT);
+    vector.writeToLuceneStream(indexOutput);
+    indexOutput.close();
+    assertEquals(0, vector.numRows());
+    assertEquals(elementalString, vector.writeToString());
+
+    IndexInput indexInput = directory.openInput("binaryvectors.bin", IOContext.DEFAULT);
+    BinaryVector readVector = new BinaryVector(64);
+    readVector.readFromLuceneStream(indexInput);
+    indexInput.close();
+    assertEquals(elementalString, readVector.writeToString());
+  }
+
   @Test
   public void testBind() {
     
@@ -98,6 +122,17 @@ public class BinaryVectorTest extends TestCase {
   
   @Test
   public void testSuperposeAndNormalize() {
+    // Other tests may have switched the global normalization method.
+    BinaryVector.BinaryNormalizationMethod method = BinaryVector.NORMALIZE_METHOD;
+    BinaryVector.NORMALIZE_METHOD = BinaryVector.BinaryNormalizationMethod.SPATTERCODE;
+    try {
+      superposeAndNormalize();
+    } finally {
+      BinaryVector.NORMALIZE_METHOD = method;
+    }
+  }
+
+  private void superposeAndNormalize() {
     BinaryVector vector = (BinaryVector) VectorFactory.createZeroVector(VectorType.BINARY, 64);
     vector.readFromString("0101010111000011110100011111110110100000001110111000011000100100");
     assertEquals("0101010111000011110100011111110110100000001110111000011000100100", vector.writeToString());
@@ -135,7 +170,16 @@ public class BinaryVectorTest extends TestCase {
     int min = 26;
     	int max = 38;
     assertTrue("Cardinality="+cardinality, min <= cardinality && cardinality <= max);
-    
+
+    // The same tie under probabilistic normalization, where every dimension holds only the
+    // votes shared by all of them.
+    BinaryVector.NORMALIZE_METHOD = BinaryVector.BinaryNormalizationMethod.PROBABILISTIC;
+    BinaryVector vector8 = (BinaryVector) VectorFactory.createZeroVector(VectorType.BINARY, 64);
+    vector8.superpose(vector6, 1, null);
+    vector8.superpose(vector7, 1, null);
+    vector8.normalize();
+    cardinality = vector8.getCoordinates().cardinality();
+    assertTrue("Cardinality="+cardinality, 16 <= cardinality && cardinality <= 48);
   }
 
   @Test
@@ -150,7 +194,8 @@ public class BinaryVectorTest extends TestCase {
     //System.err.println("vector1 + 4*vector2:\n" + vector1.toString());
     vector1.superpose(vector3, 8, null);
     //System.err.println("vector1 + 4*vector2 + 8*vector3:\n" + vector1.toString());
-    assertEquals(0, vector1.getMaximumSharedWeight());
+    // Votes shared by every dimension stay in the voting record until the vote is concluded.
+    assertEquals(400, vector1.getMaximumSharedWeight());
     vector1.normalize();
     //System.err.println("vector1 normalized:\n" + vector1.toString());
     //assertEquals("1111000011110000111100001111000011110000111100001111000011110000",
@@ -206,6 +251,170 @@ public class BinaryVectorTest extends TestCase {
   }
 
 
+  @Test
+  public void testRandomPermutationInPlaceAndNegativeSuperpose() {
+    int dim = 1024;
+    Random random = new Random(0);
+    BinaryVector elementalVector = (BinaryVector) VectorFactory.generateRandomVector(
+        VectorType.BINARY, dim, dim / 2, random);
+    BinaryVector elementalClone = elementalVector.copy();
+    int[] permutation = PermutationUtils.getRandomPermutation(VectorType.BINARY, dim, random);
+
+    long[] expected = new long[dim / 64];
+    for (int i = 0; i < expected.length; ++i) {
+      expected[i] = ~elementalClone.bitSet.getBits()[permutation[i]];
+    }
+    BinaryVector semanticVector = (BinaryVector) VectorFactory.createZeroVector(VectorType.BINARY, dim);
+    semanticVector.superpose(elementalVector, -1, permutation);
+    semanticVector.normalize();
+    assertTrue(Arrays.equals(expected, semanticVector.bitSet.getBits()));
+    assertEquals(elementalClone.writeLongToString(), elementalVector.writeLongToString());
+
+    elementalVector.permute(permutation);
+    for (int i = 0; i < expected.length; ++i) {
+      assertEquals(~expected[i], elementalVector.bitSet.getBits()[i]);
+    }
+    elementalVector.permute(PermutationUtils.getInversePermutation(permutation));
+    assertEquals(elementalClone.writeLongToString(), elementalVector.writeLongToString());
+  }
+
+  @Test
+  public void testWeightedSuperpositionCountsEveryVote() {
+    int dim = 256;
+    Random random = new Random(0);
+    double[] weights = {3, 0.07, 1.5, 2.25, 40};
+    long[] expectedCounts = new long[dim];
+    BinaryVector superposition = new BinaryVector(dim).createZeroVector(dim);
+    for (double weight : weights) {
+      BinaryVector vector = new BinaryVector(dim).generateRandomVector(dim, dim / 2, random);
+      superposition.superpose(vector, weight, null);
+      long votes = Math.round(weight * 100);
+      for (int i = 0; i < dim; ++i) {
+        if (vector.bitSet.get(i)) expectedCounts[i] += votes;
+      }
+    }
+
+    // concludeVote(2t - 1) has a "1" in every dimension with a count of at least t.
+    for (long t = 1; t <= 5000; ++t) {
+      FixedBitSet atLeast = superposition.concludeVote(2 * t - 1);
+      for (int i = 0; i < dim; ++i) {
+        assertEquals("count " + expectedCounts[i] + " threshold " + t,
+            expectedCounts[i] >= t, atLeast.get(i));
+      }
+    }
+    assertTrue(superposition.numRows() <= 13);
+  }
+
+  @Test
+  public void testConcurrentSuperpositionMatchesSerial() throws InterruptedException {
+    final int dim = 1024;
+    Random random = new Random(0);
+    final BinaryVector[] vectors = new BinaryVector[200];
+    for (int i = 0; i < vectors.length; ++i) {
+      vectors[i] = new BinaryVector(dim).generateRandomVector(dim, dim / 2, random);
+    }
+    final int[] permutation = PermutationUtils.getShiftPermutation(VectorType.BINARY, dim, 1);
+
+    BinaryVector serial = new BinaryVector(dim).createZeroVector(dim);
+    for (int i = 0; i < vectors.length; ++i) {
+      serial.superpose(vectors[i], weightFor(i), i % 3 == 0 ? permutation : null);
+    }
+
+    final BinaryVector concurrent = new BinaryVector(dim).createZeroVector(dim);
+    final int numThreads = 4;
+    List<Thread> threads = new ArrayList<Thread>();
+    for (int t = 0; t < numThreads; ++t) {
+      final int first = t;
+      Thread thread = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          for (int i = first; i < vectors.length; i += numThreads) {
+            concurrent.superpose(vectors[i], weightFor(i), i % 3 == 0 ? permutation : null);
+          }
+        }
+      });
+      threads.add(thread);
+      thread.start();
+    }
+    for (Thread thread : threads) thread.join();
+
+    for (long t = 1; t <= 2000; t += 7) {
+      assertEquals(serial.concludeVote(2 * t - 1), concurrent.concludeVote(2 * t - 1));
+    }
+    serial.normalize();
+    concurrent.normalize();
+    assertEquals(serial.writeLongToString(), concurrent.writeLongToString());
+  }
+
+  private static double weightFor(int i) {
+    return i % 5 == 0 ? -0.5 : 1 + (i % 4) * 0.25;
+  }
+
+  private static BinaryVector vectorFromRandomBits(int dim, Random random) {
+    StringBuilder bits = new StringBuilder();
+    for (int i = 0; i < dim; ++i) bits.append(random.nextBoolean() ? '1' : '0');
+    BinaryVector vector = new BinaryVector(dim);
+    vector.readFromString(bits.toString());
+    return vector;
+  }
+
+  /**
+   * Returns the result of majority rule for the given counts: a "1" where more than half the votes
+   * are for the dimension, and for every other dimension where exactly half are, in order.
+   */
+  private static FixedBitSet majority(long[] counts, long totalVotes) {
+    FixedBitSet result = new FixedBitSet(counts.length);
+    boolean keepTie = false;
+    for (int i = 0; i < counts.length; ++i) {
+      if (2 * counts[i] > totalVotes) {
+        result.set(i);
+      } else if (2 * counts[i] == totalVotes) {
+        if (keepTie) result.set(i);
+        keepTie = !keepTie;
+      }
+    }
+    return result;
+  }
+
+  /** Superposes the vector into the sum, and adds its votes to the counts. Returns the votes. */
+  private static long superposeAndCount(BinaryVector sum, BinaryVector vector, double weight, long[] counts) {
+    sum.superpose(vector, weight, null);
+    long votes = Math.round(Math.abs(weight) * 100);
+    for (int i = 0; i < counts.length; ++i) {
+      if (vector.bitSet.get(i) == weight > 0) counts[i] += votes;
+    }
+    return votes;
+  }
+
+  @Test
+  public void testConcludeVoteMatchesCounts() {
+    int dim = 128;
+    double[] weights = {1, 0.5, 2.25, 3, 10, -1, 0.01, 7.5};
+    Random random = new Random(42);
+    BinaryVector sum = new BinaryVector(dim);
+    long[] counts = new long[dim];
+    long totalVotes = 0;
+    for (int i = 0; i < 40; ++i) {
+      totalVotes += superposeAndCount(sum, vectorFromRandomBits(dim, random), weights[i % weights.length], counts);
+      // Concluding the vote moves shared votes into the minimum, which later additions build on.
+      if (i % 10 == 9) assertEquals(majority(counts, totalVotes), sum.concludeVote());
+    }
+
+    // Complementary vectors leave every dimension with votes to share.
+    BinaryVector vector = vectorFromRandomBits(dim, random);
+    BinaryVector complement = vector.copy();
+    complement.bitSet.flip(0, dim);
+    BinaryVector pair = new BinaryVector(dim);
+    counts = new long[dim];
+    totalVotes = superposeAndCount(pair, vector, 4, counts);
+    totalVotes += superposeAndCount(pair, complement, 4, counts);
+    assertEquals(majority(counts, totalVotes), pair.concludeVote());
+    assertEquals(0, pair.getMaximumSharedWeight());
+    totalVotes += superposeAndCount(pair, complement, 8, counts);
+    totalVotes += superposeAndCount(pair, vectorFromRandomBits(dim, random), 3, counts);
+    assertEquals(majority(counts, totalVotes), pair.concludeVote());
+  }
+
   @Test
   public void testGenerateRandomVectorWriteAndRead() {
     Random random = new Random(0);
@@ -230,5 +439,47 @@ public class BinaryVectorTest extends TestCase {
       fail();
     }
     directory.close();
-  }  
-}
\ No newline at end of file
+  }
+
+  @Test
+  public void testGenerateRandomVectorMatchesShuffledDimensions() {
+    // Elemental vectors generated from fixed seeds must not change between releases.
+    ArrayList<Integer> dimensions = new ArrayList<Integer>();
+    for (int q = 0; q < 256; q++) dimensions.add(q);
+    Collections.shuffle(dimensions, new Random(42));
+    FixedBitSet expected = new FixedBitSet(256);
+    for (int r = 0; r < 128; r++) expected.set(dimensions.get(r));
+
+    BinaryVector vector = (BinaryVector) VectorFactory.generateRandomVector(
+        VectorType.BINARY, 256, 128, new Random(42));
+    assertTrue(expected.equals(vector.bitSet));
+
+    BinaryVector scratch = (BinaryVector) VectorFactory.generateRandomVector(
+        VectorType.BINARY, 256, 128, new Random(7));
+    scratch.superpose(vector, 1, null);
+    scratch.normalize();
+    assertSame(scratch, VectorFactory.generateRandomVector(
+        VectorType.BINARY, 256, 128, new Random(42), scratch));
+    assertTrue(expected.equals(scratch.bitSet));
+  }
+
+  @Test
+  public void testHammingDistanceMatchesXorCount() {
+    Random random = new Random(0);
+    for (int dimension : new int[] {64, 192, 1088}) {
+      BinaryVector first = (BinaryVector) VectorFactory.generateRandomVector(VectorType.BINARY, dimension, dimension / 2, random);
+      BinaryVector second = (BinaryVector) VectorFactory.generateRandomVector(VectorType.BINARY, dimension, dimension / 2, random);
+      long[] firstBits = BinaryVectorUtils.getBits(first);
+      long[] secondBits = BinaryVectorUtils.getBits(second);
+      long expected = 0;
+      for (int i = 0; i < dimension / 64; ++i) expected += Long.bitCount(firstBits[i] ^ secondBits[i]);
+
+      assertEquals(expected, BinaryVectorUtils.xorCount(first.bitSet, second.bitSet));
+      assertEquals(expected, BinaryVectorUtils.hammingDistance(firstBits, secondBits, 0, dimension / 64));
+      assertEquals(expected, BinaryVectorUtils.hammingDistance(firstBits, secondBits, 0, dimension / 64, expected));
+      long partial = BinaryVectorUtils.hammingDistance(firstBits, secondBits, 0, dimension / 64, 10);
+      assertTrue(partial > 10 && partial <= expected);
+      assertEquals(1 - 2 * expected / (double) dimension, first.measureOverlap(second), 0.0001);
+    }
+  }
+}
@@ -83,14 +83,41 @@ public class RealVectorTest {
         VectorType.REAL, 10, 2, random);
     assertTrue(vector.toString().contains("Sparse"));
     assertEquals(1.0, vector.measureOverlap(vector), TOL);
-    // Vector will have been cast to dense form to measure overlap.
-    assertTrue(vector.toString().contains("Dense"));
+    // Overlap is measured without casting the vector to dense form.
+    assertTrue(vector.toString().contains("Sparse"));
     RealVector vector2 = (RealVector) VectorFactory.generateRandomVector(
         VectorType.REAL, 10, 2, random);
     assertEquals(0.0, vector.measureOverlap(vector2), TOL);
-    // Both vectors now dense.
-    assertTrue(vector.toString().contains("Dense"));
-    assertTrue(vector2.toString().contains("Dense"));
+    // Both vectors still sparse.
+    assertTrue(vector.toString().contains("Sparse"));
+    assertTrue(vector2.toString().contains("Sparse"));
+  }
+
+  @Test
+  public void testSparseOverlapMatchesDenseOverlap() {
+    Random random = new Random(0);
+    int dimension = 40000;
+    for (int seedLength : new int[] {10, 400}) {
+      RealVector sparse1 = new RealVector(dimension).generateRandomVector(dimension, seedLength, random);
+      RealVector sparse2 = new RealVector(dimension).generateRandomVector(dimension, seedLength, random);
+      RealVector dense1 = new RealVector(sparse1.getCoordinates());
+      RealVector dense2 = new RealVector(
+          new RealVector(dimension).generateRandomVector(dimension, seedLength, random).getCoordinates());
+      dense2.superpose(sparse1, 0.5, null);
+      dense2.superpose(sparse2, -0.5, null);
+      RealVector denseSparse2 = new RealVector(sparse2.getCoordinates());
+
+      assertEquals(dense1.measureOverlap(denseSparse2), sparse1.measureOverlap(sparse2), TOL);
+      assertEquals(dense1.measureOverlap(dense2), sparse1.measureOverlap(dense2), TOL);
+      assertEquals(dense2.measureOverlap(dense1), dense2.measureOverlap(sparse1), TOL);
+      assertTrue(sparse1.isSparse());
+      assertTrue(sparse2.isSparse());
+    }
+
+    RealVector shared = new RealVector(dimension, new int[] {1, -35000, 39999});
+    RealVector sharedToo = new RealVector(dimension, new int[] {-1, -35000, 2});
+    assertEquals(0.0, shared.measureOverlap(sharedToo), TOL);
+    assertEquals(1.0 / 3, shared.measureOverlap(new RealVector(dimension, new int[] {39999, 3, 4})), TOL);
   }
 
   @Test
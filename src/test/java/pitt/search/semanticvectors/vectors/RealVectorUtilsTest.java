@@ -77,4 +77,47 @@ public class RealVectorUtilsTest {
     assertEquals(1, vector1.measureOverlap(inverseConvolution), 0.25);
     System.out.println(vector1.measureOverlap(inverseConvolution));
   }
+
+  private static float[] directConvolution(float[] first, float[] second, boolean involuteFirst) {
+    int n = first.length;
+    float[] result = new float[n];
+    for (int i = 0; i < n; ++i) {
+      for (int j = 0; j < n; ++j) {
+        int firstIndex = involuteFirst ? (n - j) % n : j;
+        result[(i + j) % n] += first[firstIndex] * second[i];
+      }
+    }
+    return result;
+  }
+
+  private static void assertCoordinatesEqual(float[] expected, float[] actual) {
+    assertEquals(expected.length, actual.length);
+    for (int i = 0; i < expected.length; ++i) {
+      assertEquals(expected[i], actual[i], 0.001);
+    }
+  }
+
+  @Test
+  public void testFftConvolutionMatchesDirectConvolution() {
+    Random random = new Random(0);
+    for (int dimension : new int[] {1, 2, 7, 16, 45, 200}) {
+      RealVector sparse = (RealVector) VectorFactory.generateRandomVector(
+          VectorType.REAL, dimension, Math.max(1, dimension / 4), random);
+      float[] dense = new float[dimension];
+      for (int i = 0; i < dimension; ++i) dense[i] = random.nextFloat() - 0.5f;
+      RealVector denseVector = new RealVector(dense);
+      float[] sparseCoordinates = sparse.getCoordinates();
+
+      assertCoordinatesEqual(directConvolution(sparseCoordinates, dense, false),
+          RealVectorUtils.fftConvolution(sparse, denseVector).getCoordinates());
+      assertCoordinatesEqual(directConvolution(sparseCoordinates, dense, true),
+          RealVectorUtils.fftApproxInvConvolution(sparse, denseVector).getCoordinates());
+
+      RealVectorSpectrum spectrum = new RealVectorSpectrum(sparse);
+      assertCoordinatesEqual(directConvolution(sparseCoordinates, dense, false),
+          RealVectorUtils.fftConvolution(spectrum, denseVector).getCoordinates());
+      assertCoordinatesEqual(directConvolution(sparseCoordinates, dense, true),
+          RealVectorUtils.fftApproxInvConvolution(spectrum, denseVector).getCoordinates());
+    }
+  }
 }
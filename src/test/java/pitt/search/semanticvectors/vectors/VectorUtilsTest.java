@@ -34,10 +34,12 @@
 package pitt.search.semanticvectors.vectors;
 
 import java.util.ArrayList;
+import java.util.Random;
 
 import junit.framework.TestCase;
 
 import org.junit.Test;
+import org.netlib.blas.BLAS;
 
 import pitt.search.semanticvectors.FlagConfig;
 import pitt.search.semanticvectors.vectors.VectorUtils;
@@ -114,4 +116,30 @@ public class VectorUtilsTest extends TestCase {
     assertEquals(-1, floatVector[3], 0.0001);
   }
   */
-}
\ No newline at end of file
+
+  @Test
+  public void testPermutedOperationsReadSparseVectorsInPlace() {
+    FlagConfig flagConfig = FlagConfig.getFlagConfig(new String[] {"-vectortype", "real", "-dimension", "100"});
+    Random random = new Random(0);
+    RealVector sparse = (RealVector) VectorFactory.generateRandomVector(VectorType.REAL, 100, 10, random);
+    float[] sparseCoordinates = sparse.getCoordinates();
+    float[] dense = new float[100];
+    for (int i = 0; i < 100; ++i) dense[i] = random.nextFloat();
+    int[] permutation = PermutationUtils.getRandomPermutation(VectorType.REAL, 100, random);
+
+    double expectedProduct = 0;
+    float[] expectedSum = dense.clone();
+    for (int q = 0; q < 100; ++q) {
+      expectedProduct += dense[permutation[q]] * sparseCoordinates[q];
+      expectedSum[permutation[q]] += 0.5 * sparseCoordinates[q];
+    }
+    RealVector denseVector = new RealVector(dense.clone());
+    assertEquals(expectedProduct,
+        VectorUtils.scalarProduct(denseVector, sparse, flagConfig, BLAS.getInstance(), permutation), TOL);
+
+    VectorUtils.superposeInPlace(sparse, denseVector, flagConfig, BLAS.getInstance(), 0.5, permutation);
+    for (int i = 0; i < 100; ++i) {
+      assertEquals(expectedSum[i], denseVector.getCoordinates()[i], TOL);
+    }
+  }
+}